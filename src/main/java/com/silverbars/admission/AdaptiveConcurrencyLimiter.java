@@ -0,0 +1,108 @@
+package com.silverbars.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limiter whose limit adapts to the latency measured for the requests it admits.
+ * <p>
+ * The limit follows an AIMD (additive increase, multiplicative decrease) scheme:
+ * a request completing slower than the latency threshold shrinks the limit by the backoff ratio,
+ * requests completing in time while the limiter is at least half utilised grow the limit by one once there have been
+ * as many of them as the limit, that is by one per round trip rather than by one per request.
+ * As in TCP congestion control, the limit is decreased at most once per round trip: a slow request that was already
+ * in flight when the limit was last decreased reports the same latency spike and leaves the limit as it is.
+ * This keeps the number of requests in flight close to what the service can complete within the threshold,
+ * so excess load is rejected up front instead of queueing on Tomcat threads and on the heap.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime());
+    /* Fast requests completed since the limit last changed */
+    private final AtomicInteger fastCompletions = new AtomicInteger();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdMillis, double backoffRatio) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(String.format("Invalid limits: initial [%s], min [%s], max [%s]", initialLimit, minLimit, maxLimit));
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException(String.format("Backoff ratio [%s] must be between 0 and 1", backoffRatio));
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        this.backoffRatio = backoffRatio;
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    /**
+     * Takes a permit if the number of requests in flight is below the current limit.
+     * Every successful call must be followed by exactly one call to {@link #release(long)}.
+     *
+     * @return true if the request is admitted, false if it should be rejected
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the permit and feeds the measured latency of the request into the limit.
+     *
+     * @param latencyNanos Time taken to serve the admitted request
+     */
+    public void release(long latencyNanos) {
+        release(latencyNanos, System.nanoTime());
+    }
+
+    /**
+     * @param latencyNanos Time taken to serve the admitted request
+     * @param nowNanos     Current time as given by System.nanoTime()
+     */
+    public void release(long latencyNanos, long nowNanos) {
+        int inFlightBeforeRelease = inFlight.getAndDecrement();
+        if (latencyNanos > latencyThresholdNanos) {
+            long lastDecrease = lastDecreaseNanos.get();
+            /* Only a request admitted after the last decrease has seen the decreased limit */
+            if (nowNanos - latencyNanos - lastDecrease >= 0 && lastDecreaseNanos.compareAndSet(lastDecrease, nowNanos)) {
+                limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+                fastCompletions.set(0);
+            }
+        } else if (inFlightBeforeRelease * 2 >= limit.get()) {
+            int completions = fastCompletions.incrementAndGet();
+            int current = limit.get();
+            if (completions >= current && fastCompletions.compareAndSet(completions, 0)) {
+                limit.compareAndSet(current, Math.min(maxLimit, current + 1));
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,75 @@
+package com.silverbars.admission;
+
+import com.silverbars.enums.OperationType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Bounded admission layer in front of the Order Service.
+ * <p>
+ * Each Operation Type gets its own adaptive concurrency limiter so that board reads are never starved
+ * by a flood of order writes (and vice versa). Limits are read from application.properties using the keys
+ * orderboard.admission.[read|write].[initial-limit|min-limit|max-limit|latency-threshold-ms|backoff-ratio]
+ */
+@Component
+public class AdmissionControl implements MeterBinder {
+
+    private static final String PROPERTY_PREFIX = "orderboard.admission.";
+
+    private final boolean enabled;
+    private final int retryAfterSeconds;
+    private final Map<OperationType, AdaptiveConcurrencyLimiter> operationTypeToLimiterMap = new EnumMap<>(OperationType.class);
+
+    @Autowired
+    public AdmissionControl(Environment environment) {
+        this.enabled = environment.getProperty(PROPERTY_PREFIX + "enabled", Boolean.class, true);
+        this.retryAfterSeconds = environment.getProperty(PROPERTY_PREFIX + "retry-after-seconds", Integer.class, 1);
+        for (OperationType operationType : OperationType.values()) {
+            String prefix = PROPERTY_PREFIX + operationType.name().toLowerCase() + ".";
+            operationTypeToLimiterMap.put(operationType, new AdaptiveConcurrencyLimiter(
+                    environment.getProperty(prefix + "initial-limit", Integer.class, 32),
+                    environment.getProperty(prefix + "min-limit", Integer.class, 4),
+                    environment.getProperty(prefix + "max-limit", Integer.class, 64),
+                    environment.getProperty(prefix + "latency-threshold-ms", Long.class, 50L),
+                    environment.getProperty(prefix + "backoff-ratio", Double.class, 0.9)));
+        }
+    }
+
+    /**
+     * @return true if the operation is admitted, in which case {@link #release(OperationType, long)} must be called once it completes
+     */
+    public boolean tryAcquire(OperationType operationType) {
+        return !enabled || operationTypeToLimiterMap.get(operationType).tryAcquire();
+    }
+
+    public void release(OperationType operationType, long latencyNanos) {
+        if (enabled) {
+            operationTypeToLimiterMap.get(operationType).release(latencyNanos);
+        }
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        operationTypeToLimiterMap.forEach((operationType, limiter) -> {
+            String operation = operationType.name().toLowerCase();
+            Gauge.builder("orderboard.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("operation", operation).register(registry);
+            Gauge.builder("orderboard.admission.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("operation", operation).register(registry);
+            FunctionCounter.builder("orderboard.admission.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                    .tag("operation", operation).register(registry);
+        });
+    }
+}
@@ -0,0 +1,57 @@
+package com.silverbars.admission;
+
+import com.silverbars.enums.OperationType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Applies Admission Control to the Order endpoints.
+ * <p>
+ * Runs before the request body is read, so a rejected request costs no deserialization and holds no heap.
+ * Rejected requests are answered straight away with 429 Too Many Requests and a Retry-After header.
+ * An asynchronously handled request keeps its permit until the dispatch that writes its response completes.
+ */
+@Component
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    private static final String OPERATION_TYPE_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".operationType";
+    private static final String START_TIME_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".startTime";
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            /* Async dispatch of a request admitted by its initial dispatch */
+            return true;
+        }
+        OperationType operationType = HttpMethod.GET.matches(request.getMethod()) ? OperationType.READ : OperationType.WRITE;
+        if (!admissionControl.tryAcquire(operationType)) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(admissionControl.getRetryAfterSeconds()));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Order Board is overloaded, please retry later");
+            return false;
+        }
+        request.setAttribute(OPERATION_TYPE_ATTRIBUTE, operationType);
+        request.setAttribute(START_TIME_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        OperationType operationType = (OperationType) request.getAttribute(OPERATION_TYPE_ATTRIBUTE);
+        if (operationType != null) {
+            request.removeAttribute(OPERATION_TYPE_ATTRIBUTE);
+            long startTime = (long) request.getAttribute(START_TIME_ATTRIBUTE);
+            admissionControl.release(operationType, System.nanoTime() - startTime);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.silverbars.admission;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies per-user rate limits to order registration (POST) and cancellation (DELETE).
+ * Reads of the board are not rate limited per user, they are covered by Admission Control.
+ * Only the initial dispatch of a request is counted, not the async dispatch that writes its response.
+ */
+@Component
+public class UserRateLimitInterceptor implements HandlerInterceptor {
+
+    /* Same default as the user request parameter of the Order Controller */
+    private static final String DEFAULT_USER = "Test User";
+
+    @Autowired
+    private UserRateLimiting userRateLimiting;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        String user = request.getParameter("user");
+        if (user == null) {
+            user = DEFAULT_USER;
+        }
+
+        long waitNanos;
+        if (HttpMethod.POST.matches(request.getMethod())) {
+            waitNanos = userRateLimiting.tryRegisterOrder(user);
+        } else if (HttpMethod.DELETE.matches(request.getMethod())) {
+            waitNanos = userRateLimiting.tryCancelOrder(user);
+        } else {
+            return true;
+        }
+
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), String.format("Rate limit exceeded for user [%s]", user));
+            return false;
+        }
+        return true;
+    }
+}
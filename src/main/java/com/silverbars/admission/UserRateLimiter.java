@@ -0,0 +1,84 @@
+package com.silverbars.admission;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user rate limiter made of lock-free token buckets.
+ * <p>
+ * Each bucket is a single AtomicLong holding the theoretical arrival time of the next request
+ * (the Generic Cell Rate Algorithm), which behaves exactly like a token bucket refilled at the configured rate
+ * with capacity equal to the burst, but can be checked and updated with one compare-and-set and no refill bookkeeping.
+ * A check is one map lookup plus one CAS, well under a microsecond.
+ * <p>
+ * Buckets untouched for longer than the idle timeout are full again, so they carry no state and are evicted by
+ * {@link #evictIdleBuckets(long)}. A request racing with the eviction of its bucket may be counted against the
+ * evicted bucket, which can let through at most one extra request for that user.
+ */
+public class UserRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstWindowNanos;
+    private final long idleTimeoutNanos;
+
+    private final Map<String, AtomicLong> userToBucketMap = new ConcurrentHashMap<>();
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public UserRateLimiter(double ratePerSecond, int burst, long idleTimeoutMillis) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException(String.format("Invalid rate limit: rate [%s] per second, burst [%s]", ratePerSecond, burst));
+        }
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        this.burstWindowNanos = emissionIntervalNanos * burst;
+        this.idleTimeoutNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis), burstWindowNanos);
+    }
+
+    /**
+     * Takes a token from the bucket of the supplied user.
+     *
+     * @param user     User initiating the request
+     * @param nowNanos Current time as given by System.nanoTime()
+     * @return 0 if the request is allowed, otherwise the number of nanoseconds until the next token is available
+     */
+    public long tryAcquire(String user, long nowNanos) {
+        AtomicLong bucket = userToBucketMap.computeIfAbsent(user, key -> new AtomicLong(nowNanos));
+        while (true) {
+            long theoreticalArrivalTime = bucket.get();
+            long newTheoreticalArrivalTime = Math.max(theoreticalArrivalTime, nowNanos) + emissionIntervalNanos;
+            long waitNanos = newTheoreticalArrivalTime - nowNanos - burstWindowNanos;
+            if (waitNanos > 0) {
+                rejected.increment();
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(theoreticalArrivalTime, newTheoreticalArrivalTime)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Removes the buckets of users who have not sent a request within the idle timeout.
+     *
+     * @param nowNanos Current time as given by System.nanoTime()
+     */
+    public void evictIdleBuckets(long nowNanos) {
+        userToBucketMap.values().removeIf(bucket -> nowNanos - bucket.get() > idleTimeoutNanos);
+    }
+
+    public int getTrackedUsers() {
+        return userToBucketMap.size();
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,78 @@
+package com.silverbars.admission;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-user rate limits applied to order registration and cancellation.
+ * <p>
+ * Limits are read from application.properties using the keys
+ * orderboard.ratelimit.[register|cancel].[rate-per-second|burst] and orderboard.ratelimit.idle-timeout-ms
+ */
+@Component
+public class UserRateLimiting implements MeterBinder {
+
+    private static final String PROPERTY_PREFIX = "orderboard.ratelimit.";
+
+    private final boolean enabled;
+    private final UserRateLimiter registerOrderLimiter;
+    private final UserRateLimiter cancelOrderLimiter;
+
+    @Autowired
+    public UserRateLimiting(Environment environment) {
+        this.enabled = environment.getProperty(PROPERTY_PREFIX + "enabled", Boolean.class, true);
+        long idleTimeoutMillis = environment.getProperty(PROPERTY_PREFIX + "idle-timeout-ms", Long.class, 60_000L);
+        this.registerOrderLimiter = createLimiter(environment, "register", idleTimeoutMillis);
+        this.cancelOrderLimiter = createLimiter(environment, "cancel", idleTimeoutMillis);
+    }
+
+    private static UserRateLimiter createLimiter(Environment environment, String operation, long idleTimeoutMillis) {
+        String prefix = PROPERTY_PREFIX + operation + ".";
+        return new UserRateLimiter(
+                environment.getProperty(prefix + "rate-per-second", Double.class, 100.0),
+                environment.getProperty(prefix + "burst", Integer.class, 200),
+                idleTimeoutMillis);
+    }
+
+    /**
+     * @return 0 if the user may register an order, otherwise the number of nanoseconds to wait before retrying
+     */
+    public long tryRegisterOrder(String user) {
+        return enabled ? registerOrderLimiter.tryAcquire(user, System.nanoTime()) : 0;
+    }
+
+    /**
+     * @return 0 if the user may cancel an order, otherwise the number of nanoseconds to wait before retrying
+     */
+    public long tryCancelOrder(String user) {
+        return enabled ? cancelOrderLimiter.tryAcquire(user, System.nanoTime()) : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${orderboard.ratelimit.idle-timeout-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        registerOrderLimiter.evictIdleBuckets(now);
+        cancelOrderLimiter.evictIdleBuckets(now);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindTo(registry, "register", registerOrderLimiter);
+        bindTo(registry, "cancel", cancelOrderLimiter);
+    }
+
+    private static void bindTo(MeterRegistry registry, String operation, UserRateLimiter limiter) {
+        Gauge.builder("orderboard.ratelimit.users", limiter, UserRateLimiter::getTrackedUsers)
+                .tag("operation", operation).register(registry);
+        FunctionCounter.builder("orderboard.ratelimit.allowed", limiter, UserRateLimiter::getAllowed)
+                .tag("operation", operation).register(registry);
+        FunctionCounter.builder("orderboard.ratelimit.rejected", limiter, UserRateLimiter::getRejected)
+                .tag("operation", operation).register(registry);
+    }
+}
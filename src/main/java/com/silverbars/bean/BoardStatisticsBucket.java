@@ -0,0 +1,87 @@
+package com.silverbars.bean;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Container of the Board Statistics of one time bucket.
+ * <p>
+ * Registered and cancelled quantities are the totals for the bucket, best prices and depths are those at the end of the bucket.
+ * Best bid and best ask are null when the corresponding side of the board is empty.
+ */
+public class BoardStatisticsBucket {
+
+    private final OffsetDateTime startTime;
+    private final double registeredBuyQuantity;
+    private final double registeredSellQuantity;
+    private final double cancelledBuyQuantity;
+    private final double cancelledSellQuantity;
+    private final Double bestBid;
+    private final Double bestAsk;
+    private final double buyDepth;
+    private final double sellDepth;
+
+    public BoardStatisticsBucket(OffsetDateTime startTime, double registeredBuyQuantity, double registeredSellQuantity,
+                                 double cancelledBuyQuantity, double cancelledSellQuantity, Double bestBid, Double bestAsk,
+                                 double buyDepth, double sellDepth) {
+        this.startTime = startTime;
+        this.registeredBuyQuantity = registeredBuyQuantity;
+        this.registeredSellQuantity = registeredSellQuantity;
+        this.cancelledBuyQuantity = cancelledBuyQuantity;
+        this.cancelledSellQuantity = cancelledSellQuantity;
+        this.bestBid = bestBid;
+        this.bestAsk = bestAsk;
+        this.buyDepth = buyDepth;
+        this.sellDepth = sellDepth;
+    }
+
+    public OffsetDateTime getStartTime() {
+        return startTime;
+    }
+
+    public double getRegisteredBuyQuantity() {
+        return registeredBuyQuantity;
+    }
+
+    public double getRegisteredSellQuantity() {
+        return registeredSellQuantity;
+    }
+
+    public double getCancelledBuyQuantity() {
+        return cancelledBuyQuantity;
+    }
+
+    public double getCancelledSellQuantity() {
+        return cancelledSellQuantity;
+    }
+
+    public Double getBestBid() {
+        return bestBid;
+    }
+
+    public Double getBestAsk() {
+        return bestAsk;
+    }
+
+    public double getBuyDepth() {
+        return buyDepth;
+    }
+
+    public double getSellDepth() {
+        return sellDepth;
+    }
+
+    @Override
+    public String toString() {
+        return "BoardStatisticsBucket{" +
+                "startTime=" + startTime +
+                ", registeredBuyQuantity=" + registeredBuyQuantity +
+                ", registeredSellQuantity=" + registeredSellQuantity +
+                ", cancelledBuyQuantity=" + cancelledBuyQuantity +
+                ", cancelledSellQuantity=" + cancelledSellQuantity +
+                ", bestBid=" + bestBid +
+                ", bestAsk=" + bestAsk +
+                ", buyDepth=" + buyDepth +
+                ", sellDepth=" + sellDepth +
+                '}';
+    }
+}
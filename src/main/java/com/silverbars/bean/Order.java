@@ -1,30 +1,36 @@
 package com.silverbars.bean;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.silverbars.enums.OrderType;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Container of Order information
  */
+@JsonPropertyOrder({"orderId", "user", "quantity", "price", "orderType", "active", "orderAudits"})
 public class Order {
 
     private final long orderId;
+    /* Instance shared by all the orders and audits of the user, see UserRegistry */
     private final String user;
     private final double quantity;
     private final BigDecimal price;
     private final OrderType orderType;
-    private char active;
+    /* Volatile as board reads check it without holding the lock cancellations take */
+    private volatile char active;
 
     /**
      * I have added this basic Order Audit here to keep track of users who create and cancel orders.
      * In Prod application Order Audit entity would probably have its own workflow for CRUD operations and
-     * probably this orderAudits object will not be part of this Order object
+     * probably this orderAudits object will not be part of this Order object.
+     * Copy on write as an order can be serialized while it is being cancelled, and holds two audits at most.
      */
-    private final Collection<OrderAudit> orderAudits = new ArrayList<>();
+    private final Collection<OrderAudit> orderAudits = new CopyOnWriteArrayList<>();
 
     public Order(long orderId, String user, double quantity, BigDecimal price, OrderType orderType) {
         this.orderId = orderId;
@@ -35,6 +41,15 @@ public class Order {
         this.active = 'Y';
     }
 
+    private Order(long orderId, String user, double quantity, BigDecimal price, OrderType orderType, char active) {
+        this.orderId = orderId;
+        this.user = user;
+        this.quantity = quantity;
+        this.price = price;
+        this.orderType = orderType;
+        this.active = active;
+    }
+
     public long getOrderId() {
         return orderId;
     }
@@ -63,10 +78,33 @@ public class Order {
         this.active = 'N';
     }
 
+    /**
+     * @param orderAudit Audit of the cancellation
+     * @return Cancelled copy of this order, with the supplied audit as its latest audit. This order is left unchanged.
+     */
+    public Order cancelled(OrderAudit orderAudit) {
+        Order cancelledOrder = new Order(orderId, user, quantity, price, orderType, 'N');
+        cancelledOrder.orderAudits.addAll(orderAudits);
+        cancelledOrder.orderAudits.add(orderAudit);
+        return cancelledOrder;
+    }
+
     public Collection<OrderAudit> getOrderAudits() {
         return orderAudits;
     }
 
+    /**
+     * @return The audit of the last change made to this order
+     */
+    @JsonIgnore
+    public OrderAudit getLatestOrderAudit() {
+        OrderAudit latestOrderAudit = null;
+        for (OrderAudit orderAudit : orderAudits) {
+            latestOrderAudit = orderAudit;
+        }
+        return latestOrderAudit;
+    }
+
     public void addOrderAudit(OrderAudit orderAudit) {
         this.orderAudits.add(orderAudit);
     }
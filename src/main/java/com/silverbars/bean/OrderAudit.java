@@ -1,14 +1,18 @@
 package com.silverbars.bean;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
 import java.time.OffsetDateTime;
 import java.util.Objects;
 
 /**
  * Container of Order Audit information
  */
+@JsonPropertyOrder({"orderId", "user", "addTime"})
 public class OrderAudit {
 
     private final long orderId;
+    /* Instance shared by all the orders and audits of the user, see UserRegistry */
     private final String user;
     private final OffsetDateTime addTime;
 
@@ -0,0 +1,104 @@
+package com.silverbars.bean;
+
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+/**
+ * Immutable record of a change made to the Order Board.
+ * <p>
+ * Events are numbered by the Order Event Log in the order the changes were made, without gaps, starting at 1.
+ * A CANCELLED event carries the quantity, price and type of the cancelled order, so consumers can maintain
+ * aggregates from the events alone. The user and time are those of the Order Audit written for the change.
+ */
+public class OrderEvent {
+
+    private final long sequence;
+    private final OrderEventType eventType;
+    private final long orderId;
+    private final String user;
+    private final double quantity;
+    private final BigDecimal price;
+    private final OrderType orderType;
+    private final OffsetDateTime time;
+
+    public OrderEvent(long sequence, OrderEventType eventType, long orderId, String user, double quantity, BigDecimal price, OrderType orderType, OffsetDateTime time) {
+        this.sequence = sequence;
+        this.eventType = eventType;
+        this.orderId = orderId;
+        this.user = user;
+        this.quantity = quantity;
+        this.price = price;
+        this.orderType = orderType;
+        this.time = time;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public OrderEventType getEventType() {
+        return eventType;
+    }
+
+    public long getOrderId() {
+        return orderId;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public double getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public OrderType getOrderType() {
+        return orderType;
+    }
+
+    public OffsetDateTime getTime() {
+        return time;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OrderEvent that = (OrderEvent) o;
+        return sequence == that.sequence &&
+                orderId == that.orderId &&
+                Objects.equals(user, that.user) &&
+                Double.compare(that.quantity, quantity) == 0 &&
+                eventType == that.eventType &&
+                Objects.equals(price, that.price) &&
+                orderType == that.orderType &&
+                Objects.equals(time, that.time);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sequence, eventType, orderId, user, quantity, price, orderType, time);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderEvent{" +
+                "sequence=" + sequence +
+                ", eventType=" + eventType +
+                ", orderId=" + orderId +
+                ", user='" + user + '\'' +
+                ", quantity=" + quantity +
+                ", price=" + price +
+                ", orderType=" + orderType +
+                ", time=" + time +
+                '}';
+    }
+}
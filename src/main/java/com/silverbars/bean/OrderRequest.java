@@ -3,6 +3,7 @@ package com.silverbars.bean;
 import com.silverbars.enums.OrderType;
 
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 import java.math.BigDecimal;
 
 public class OrderRequest {
@@ -19,6 +20,10 @@ public class OrderRequest {
     @NotNull(message = "Order Type cannot be null")
     private OrderType orderType;
 
+    /* Optional, a registration retried with the same client order id returns the original order */
+    @Size(max = 64, message = "Client Order Id cannot be longer than 64 characters")
+    private String clientOrderId;
+
     /* Needed for Jackson */
     public OrderRequest() {
     }
@@ -30,6 +35,11 @@ public class OrderRequest {
         this.orderType = orderType;
     }
 
+    public OrderRequest(String user, Double quantity, BigDecimal price, OrderType orderType, String clientOrderId) {
+        this(user, quantity, price, orderType);
+        this.clientOrderId = clientOrderId;
+    }
+
     public String getUser() {
         return user;
     }
@@ -45,4 +55,8 @@ public class OrderRequest {
     public OrderType getOrderType() {
         return orderType;
     }
+
+    public String getClientOrderId() {
+        return clientOrderId;
+    }
 }
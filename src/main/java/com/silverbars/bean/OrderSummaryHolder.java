@@ -24,4 +24,25 @@ public class OrderSummaryHolder {
     public void addSellOrderSummaries(Collection<OrderSummary> orderSummaries) {
         this.sellOrderSummary.addAll(orderSummaries);
     }
+
+    /**
+     * @return Copy of this holder, for a caller that must not share its lists with other callers
+     */
+    public OrderSummaryHolder copy() {
+        OrderSummaryHolder orderSummaryHolder = new OrderSummaryHolder();
+        orderSummaryHolder.addBuyOrderSummaries(buyOrderSummary);
+        orderSummaryHolder.addSellOrderSummaries(sellOrderSummary);
+        return orderSummaryHolder;
+    }
+
+    /**
+     * @param depth Number of levels kept of each side
+     * @return Copy of this holder with only the first depth levels of each side, which are the best ones
+     */
+    public OrderSummaryHolder top(int depth) {
+        OrderSummaryHolder orderSummaryHolder = new OrderSummaryHolder();
+        orderSummaryHolder.addBuyOrderSummaries(buyOrderSummary.subList(0, Math.min(depth, buyOrderSummary.size())));
+        orderSummaryHolder.addSellOrderSummaries(sellOrderSummary.subList(0, Math.min(depth, sellOrderSummary.size())));
+        return orderSummaryHolder;
+    }
 }
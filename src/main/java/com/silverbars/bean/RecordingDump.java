@@ -0,0 +1,23 @@
+package com.silverbars.bean;
+
+/**
+ * Container of the location and size of a dumped Flight Recording
+ */
+public class RecordingDump {
+
+    private final String path;
+    private final long size;
+
+    public RecordingDump(String path, long size) {
+        this.path = path;
+        this.size = size;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+}
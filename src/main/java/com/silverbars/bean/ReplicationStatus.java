@@ -0,0 +1,25 @@
+package com.silverbars.bean;
+
+import com.silverbars.enums.ReplicationRole;
+
+/**
+ * Container of the Replication Role of an Order Board and the sequence of the last Order Event it holds
+ */
+public class ReplicationStatus {
+
+    private final ReplicationRole role;
+    private final long lastSequence;
+
+    public ReplicationStatus(ReplicationRole role, long lastSequence) {
+        this.role = role;
+        this.lastSequence = lastSequence;
+    }
+
+    public ReplicationRole getRole() {
+        return role;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+}
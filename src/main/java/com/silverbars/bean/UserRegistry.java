@@ -0,0 +1,130 @@
+package com.silverbars.bean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the users of the Order Board, mapping their names to compact int ids.
+ * <p>
+ * The Order Service interns the user name of every registration here, so millions of orders and audits from a few hundred
+ * users share a few hundred strings instead of each holding the copy read from its request: an order holds a reference
+ * to the shared name, the same size as an id. Ids are dense and never reused, which makes them usable as array indexes
+ * for per-user data and as a compact encoding of the user in storage.
+ * <p>
+ * User names come straight from requests, so they are validated and the registry holds at most
+ * orderboard.users.max-users users. A cancellation only looks its user up, so that cancelling unknown orders does not
+ * fill the registry. A null user, which orders have always accepted, is not registered and has the id
+ * {@link #NO_USER}. Lookups of known users are a single ConcurrentHashMap read, only the first sighting of a user takes
+ * the lock.
+ */
+@Component
+public class UserRegistry {
+
+    public static final int NO_USER = -1;
+    /* Same as the user column of the JDBC Order Dao */
+    public static final int MAX_NAME_LENGTH = 255;
+
+    private final int maxUsers;
+    private final Map<String, Integer> userToIdMap = new ConcurrentHashMap<>();
+
+    /* Written under the lock and published through userToIdMap, so a reader that obtained an id sees its name */
+    private volatile String[] idToUser = new String[256];
+    private int nextId;
+
+    @Autowired
+    public UserRegistry(@Value("${orderboard.users.max-users:100000}") int maxUsers) {
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * @param user User name, or null
+     * @return Instance of the user name shared by all its orders, registering the user if it was not known yet
+     * @throws IllegalArgumentException If the user name is invalid, or a new user would exceed the maximum number of users
+     */
+    public String intern(String user) {
+        int id = idOf(user);
+        return id == NO_USER ? null : idToUser[id];
+    }
+
+    /**
+     * Looks the user up without registering it, for requests which may fail and must not take a place in the registry
+     *
+     * @param user User name, or null
+     * @return Instance of the user name shared by all its orders, or the validated user name itself if the user is not known
+     * @throws IllegalArgumentException If the user name is invalid
+     */
+    public String find(String user) {
+        if (user == null) {
+            return null;
+        }
+        Integer id = userToIdMap.get(user);
+        if (id != null) {
+            return idToUser[id];
+        }
+        validate(user);
+        return user;
+    }
+
+    /**
+     * @param user User name, or null
+     * @return Id of the user, registering the user if it was not known yet, or {@link #NO_USER} for a null user
+     * @throws IllegalArgumentException If the user name is invalid, or a new user would exceed the maximum number of users
+     */
+    public int idOf(String user) {
+        if (user == null) {
+            return NO_USER;
+        }
+        Integer id = userToIdMap.get(user);
+        return id != null ? id : register(user);
+    }
+
+    /**
+     * @param id Id previously returned by {@link #idOf(String)}
+     * @return Name of the user, null for {@link #NO_USER}
+     */
+    public String nameOf(int id) {
+        return id == NO_USER ? null : idToUser[id];
+    }
+
+    /**
+     * @return Number of users registered so far, which is also the next id to be handed out
+     */
+    public synchronized int size() {
+        return nextId;
+    }
+
+    private synchronized int register(String user) {
+        Integer id = userToIdMap.get(user);
+        if (id != null) {
+            return id;
+        }
+        validate(user);
+        if (nextId == maxUsers) {
+            throw new IllegalArgumentException(String.format("Unable to register user [%s], the Order Board already has [%s] users",
+                    user, maxUsers));
+        }
+        int newId = nextId++;
+        String[] users = idToUser;
+        if (newId == users.length) {
+            users = Arrays.copyOf(users, users.length * 2);
+        }
+        users[newId] = user;
+        idToUser = users;
+        userToIdMap.put(user, newId);
+        return newId;
+    }
+
+    private static void validate(String user) {
+        if (user.isEmpty() || user.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException(String.format("User name must be between 1 and %s characters long", MAX_NAME_LENGTH));
+        }
+        if (user.chars().anyMatch(Character::isISOControl)) {
+            throw new IllegalArgumentException("User name must not contain control characters");
+        }
+    }
+}
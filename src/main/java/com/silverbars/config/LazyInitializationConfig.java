@@ -0,0 +1,41 @@
+package com.silverbars.config;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Defers the creation of application beans until they are first needed, enabled with orderboard.lazy-initialization=true.
+ * <p>
+ * Only beans with the application role are made lazy. Infrastructure beans (post processors, Spring internals) keep
+ * their eager initialization, as do beans that explicitly ask for it through orderboard.lazy-initialization.excludes.
+ * The cost moves from startup to the first request touching each bean, which is what the startup log reports.
+ */
+@Configuration
+@ConditionalOnProperty(name = "orderboard.lazy-initialization", havingValue = "true")
+public class LazyInitializationConfig {
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyInitializationBeanFactoryPostProcessor() {
+        return beanFactory -> {
+            String[] excludes = beanFactory.resolveEmbeddedValue("${orderboard.lazy-initialization.excludes:}").split(",");
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
+                if (beanDefinition.getRole() == BeanDefinition.ROLE_APPLICATION && !isExcluded(beanName, excludes)) {
+                    beanDefinition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    private static boolean isExcluded(String beanName, String[] excludes) {
+        for (String exclude : excludes) {
+            if (exclude.trim().equals(beanName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,112 @@
+package com.silverbars.config;
+
+import com.silverbars.bean.UserRegistry;
+import com.silverbars.dao.JdbcOrderDao;
+import com.silverbars.dao.MapOrderDao;
+import com.silverbars.dao.MappedFileOrderDao;
+import com.silverbars.dao.OrderDao;
+import com.silverbars.dao.PriceLevelBook;
+import com.silverbars.dao.ShadowOrderDao;
+import com.silverbars.enums.BookMode;
+import com.silverbars.enums.DaoEngine;
+import com.silverbars.enums.ReplicationRole;
+import com.silverbars.event.OrderEventLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+
+/**
+ * Creates the Order Dao engine selected by orderboard.dao.engine, storing its live aggregates in the Price Level Book
+ * selected by orderboard.book.mode.
+ * <p>
+ * When orderboard.dao.shadow.engine is set, a second engine of that kind (with the Price Level Book selected by
+ * orderboard.dao.shadow.book-mode) shadows the first one, see ShadowOrderDao. The shadow starts with the live orders
+ * of the first engine only, its mapped file (orderboard.dao.shadow.mapped-file.path) is recreated at startup and its database
+ * (orderboard.dao.shadow.jdbc.url) defaults to an in-memory one.
+ * <p>
+ * The live orders a persistent engine kept across a restart are not recorded in the Order Event Log, which starts empty:
+ * the history, the statistics, the event stream and the followers start from a snapshot of the Order Dao instead.
+ */
+@Configuration
+public class OrderDaoConfig {
+
+    @Bean
+    public OrderDao orderDao(Environment environment, ObjectProvider<PriceLevelBook> priceLevelBooks,
+                             OrderEventLog orderEventLog, UserRegistry userRegistry, MeterRegistry meterRegistry) throws IOException, SQLException {
+        DaoEngine engine = environment.getProperty("orderboard.dao.engine", DaoEngine.class, DaoEngine.MAP);
+        BookMode bookMode = environment.getProperty("orderboard.book.mode", BookMode.class, BookMode.STRIPED);
+        Path file = Paths.get(environment.getProperty("orderboard.dao.mapped-file.path", "orderboard-data/orders.dat"));
+        String url = environment.getProperty("orderboard.dao.jdbc.url", "jdbc:h2:file:./orderboard-data/orders-h2");
+        OrderDao orderDao = newOrderDao(engine, file, url, priceLevelBooks.getObject(), userRegistry, environment);
+        checkFollowerStartsEmpty(orderDao,
+                environment.getProperty("orderboard.replication.role", ReplicationRole.class, ReplicationRole.STANDALONE));
+
+        DaoEngine shadowEngine = environment.getProperty("orderboard.dao.shadow.engine", DaoEngine.class);
+        if (shadowEngine == null) {
+            return orderDao;
+        }
+        BookMode shadowBookMode = environment.getProperty("orderboard.dao.shadow.book-mode", BookMode.class, bookMode);
+        Path shadowFile = Paths.get(environment.getProperty("orderboard.dao.shadow.mapped-file.path", "orderboard-data/shadow-orders.dat"));
+        if (shadowEngine == DaoEngine.MAPPED_FILE) {
+            if (shadowFile.toAbsolutePath().equals(file.toAbsolutePath())) {
+                throw new IllegalStateException("orderboard.dao.shadow.mapped-file.path must differ from orderboard.dao.mapped-file.path");
+            }
+            Files.deleteIfExists(shadowFile);
+            Files.deleteIfExists(Paths.get(shadowFile + ".users"));
+        }
+        String shadowUrl = environment.getProperty("orderboard.dao.shadow.jdbc.url", "jdbc:h2:mem:shadow-orders");
+        if (shadowEngine == DaoEngine.JDBC && engine == DaoEngine.JDBC && shadowUrl.equals(url)) {
+            throw new IllegalStateException("orderboard.dao.shadow.jdbc.url must differ from orderboard.dao.jdbc.url");
+        }
+        PriceLevelBook shadowPriceLevelBook = priceLevelBooks.getObject(shadowBookMode,
+                environment.getProperty("orderboard.book.min-price", BigDecimal.class, BigDecimal.ZERO),
+                environment.getProperty("orderboard.book.max-price", BigDecimal.class, new BigDecimal("10000")),
+                environment.getProperty("orderboard.book.tick-size", BigDecimal.class, new BigDecimal("0.01")));
+
+        return new ShadowOrderDao(orderDao, engine + "/" + bookMode,
+                newOrderDao(shadowEngine, shadowFile, shadowUrl, shadowPriceLevelBook, userRegistry, environment), shadowEngine + "/" + shadowBookMode,
+                orderEventLog,
+                environment.getProperty("orderboard.dao.shadow.sample-rate", Double.class, 0.01),
+                environment.getProperty("orderboard.dao.shadow.queue-capacity", Integer.class, 100_000),
+                meterRegistry);
+    }
+
+    /**
+     * A follower rebuilds its board from the snapshot and events of its primary, so its engine must start without live orders
+     */
+    private static void checkFollowerStartsEmpty(OrderDao orderDao, ReplicationRole role) {
+        if (role != ReplicationRole.FOLLOWER) {
+            return;
+        }
+        orderDao.forEachLiveOrder(order -> {
+            throw new IllegalStateException(String.format("A follower must start with an empty Order Dao, found live Order Id [%s]",
+                    order.getOrderId()));
+        });
+    }
+
+    /**
+     * The JDBC engine reads the live board from its database, so it uses no Price Level Book
+     */
+    private static OrderDao newOrderDao(DaoEngine engine, Path file, String url, PriceLevelBook priceLevelBook,
+                                        UserRegistry userRegistry, Environment environment) throws IOException, SQLException {
+        if (engine == DaoEngine.MAPPED_FILE) {
+            return new MappedFileOrderDao(file, priceLevelBook, userRegistry);
+        }
+        if (engine == DaoEngine.JDBC) {
+            return new JdbcOrderDao(url,
+                    environment.getProperty("orderboard.dao.jdbc.batch-size", Integer.class, 500),
+                    environment.getProperty("orderboard.dao.jdbc.max-lag", Integer.class, 5_000),
+                    environment.getProperty("orderboard.dao.jdbc.read-timeout-millis", Long.class, 5_000L));
+        }
+        return new MapOrderDao(priceLevelBook);
+    }
+}
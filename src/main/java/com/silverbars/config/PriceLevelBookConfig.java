@@ -0,0 +1,34 @@
+package com.silverbars.config;
+
+import com.silverbars.dao.PriceLevelBook;
+import com.silverbars.dao.StripedPriceLevelBook;
+import com.silverbars.dao.TickLadderPriceLevelBook;
+import com.silverbars.enums.BookMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+
+import java.math.BigDecimal;
+
+/**
+ * Creates the Price Level Book of the Order Dao as configured by orderboard.book.mode.
+ * The tick ladder covers orderboard.book.min-price to orderboard.book.max-price in steps of orderboard.book.tick-size.
+ * Prototype so that every Order Dao gets a book of its own.
+ */
+@Configuration
+public class PriceLevelBookConfig {
+
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+    public PriceLevelBook priceLevelBook(@Value("${orderboard.book.mode:STRIPED}") BookMode bookMode,
+                                         @Value("${orderboard.book.min-price:0}") BigDecimal minPrice,
+                                         @Value("${orderboard.book.max-price:10000}") BigDecimal maxPrice,
+                                         @Value("${orderboard.book.tick-size:0.01}") BigDecimal tickSize) {
+        if (bookMode == BookMode.TICK_LADDER) {
+            return new TickLadderPriceLevelBook(minPrice, maxPrice, tickSize);
+        }
+        return new StripedPriceLevelBook();
+    }
+}
@@ -0,0 +1,20 @@
+package com.silverbars.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.silverbars.profiling.ProfilingJackson2HttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Replaces the Jackson message converter of Spring Boot with one recording the serialization of every response body
+ * as a Flight Recorder event. Events cost next to nothing while no recording is running.
+ */
+@Configuration
+public class ProfilingConfig {
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new ProfilingJackson2HttpMessageConverter(objectMapper);
+    }
+}
@@ -0,0 +1,55 @@
+package com.silverbars.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Logs the time from JVM start until the application is ready and until the first request has been served.
+ * <p>
+ * With orderboard.exit-after-startup=true the application shuts down as soon as it is ready,
+ * which is used by the appcds Maven profile to record the classes loaded during startup.
+ */
+@Component
+public class StartupTimeReporter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupTimeReporter.class);
+
+    private final AtomicBoolean firstRequestServed = new AtomicBoolean();
+
+    @Value("${orderboard.exit-after-startup:false}")
+    private boolean exitAfterStartup;
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        LOGGER.info("Order Board ready in {} ms since JVM start", millisSinceJvmStart());
+        if (exitAfterStartup) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        filterChain.doFilter(request, response);
+        if (!firstRequestServed.get() && firstRequestServed.compareAndSet(false, true)) {
+            LOGGER.info("First request served in {} ms since JVM start", millisSinceJvmStart());
+        }
+    }
+
+    private static long millisSinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
@@ -1,5 +1,6 @@
 package com.silverbars.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import springfox.documentation.builders.ApiInfoBuilder;
@@ -9,8 +10,13 @@ import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+/**
+ * Springfox scans every request mapping when the context starts, which is a large share of the startup time.
+ * It is switched off with orderboard.swagger.enabled=false, as done by the prod profile.
+ */
 @Configuration
 @EnableSwagger2
+@ConditionalOnProperty(name = "orderboard.swagger.enabled", havingValue = "true", matchIfMissing = true)
 public class SwaggerConfig {
 
     @Bean
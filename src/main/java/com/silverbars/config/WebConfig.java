@@ -0,0 +1,25 @@
+package com.silverbars.config;
+
+import com.silverbars.admission.AdmissionControlInterceptor;
+import com.silverbars.admission.UserRateLimitInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private UserRateLimitInterceptor userRateLimitInterceptor;
+
+    @Autowired
+    private AdmissionControlInterceptor admissionControlInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        /* Rate limits are checked first so that a throttled user never holds an admission permit */
+        registry.addInterceptor(userRateLimitInterceptor).addPathPatterns("/order", "/order/**");
+        registry.addInterceptor(admissionControlInterceptor).addPathPatterns("/order", "/order/**");
+    }
+}
@@ -0,0 +1,37 @@
+package com.silverbars.controller;
+
+import com.silverbars.bean.BoardStatisticsBucket;
+import com.silverbars.enums.StatisticsResolution;
+import com.silverbars.history.BoardStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * Rest Controller to retrieve the time-bucketed Board Statistics
+ */
+@RestController
+public class BoardStatisticsController {
+
+    @Autowired
+    private BoardStatistics boardStatistics;
+
+    /*
+     * Returns the most recent buckets of the supplied resolution, oldest first, the last one covering the current time
+     */
+    @GetMapping("/order/statistics")
+    public ResponseEntity<List<BoardStatisticsBucket>> getStatistics(@RequestParam(defaultValue = "MINUTE") StatisticsResolution resolution,
+                                                                     @RequestParam(defaultValue = "60") int buckets) {
+        try {
+            return new ResponseEntity<>(boardStatistics.getStatistics(resolution, buckets), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
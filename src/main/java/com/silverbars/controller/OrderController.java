@@ -4,56 +4,106 @@ import com.silverbars.bean.Order;
 import com.silverbars.bean.OrderRequest;
 import com.silverbars.bean.OrderSummaryHolder;
 import com.silverbars.exception.OrderBoardInvalidOperationException;
-import com.silverbars.service.OrderService;
+import com.silverbars.exception.OrderBoardOverloadedException;
+import com.silverbars.exception.OrderBoardReadOnlyException;
+import com.silverbars.service.AsyncOrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
+import java.time.DateTimeException;
+import java.time.OffsetDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 /**
- * Rest Controller to facilitate operations on Order object
+ * Rest Controller to facilitate operations on Order object.
+ * Operations run on the Async Order Service and the request thread is released while they are queued or running.
  */
 @RestController
 public class OrderController {
 
     @Autowired
-    private OrderService orderService;
+    private AsyncOrderService asyncOrderService;
 
     /*
      * In a prod env User information can be extracted from the security context
      * default Test User is used for demo but can be overridden if required
      */
     @PostMapping("/order")
-    public ResponseEntity<Order> registerOrder(@RequestBody @Valid OrderRequest orderRequest, @RequestParam(defaultValue = "Test User") String user) {
-        try {
-            Order order = orderService.registerOrder(user, orderRequest.getQuantity(), orderRequest.getPrice(), orderRequest.getOrderType());
-            return new ResponseEntity<>(order, HttpStatus.CREATED);
-        } catch (Exception e) {
-            String errorMessage = "Unable to register order";
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, errorMessage, e);
-        }
+    public DeferredResult<ResponseEntity<Order>> registerOrder(@RequestBody @Valid OrderRequest orderRequest, @RequestParam(defaultValue = "Test User") String user) {
+        return defer(asyncOrderService.registerOrder(user, orderRequest.getQuantity(), orderRequest.getPrice(), orderRequest.getOrderType(),
+                orderRequest.getClientOrderId()),
+                order -> new ResponseEntity<>(order, HttpStatus.CREATED),
+                e -> {
+                    if (e instanceof IllegalArgumentException) {
+                        return new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+                    }
+                    if (e instanceof OrderBoardReadOnlyException) {
+                        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+                    }
+                    String errorMessage = "Unable to register order";
+                    return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, errorMessage, e);
+                });
     }
 
+    /*
+     * asOf is optional and returns the board as it was after the Order Event with the supplied sequence number
+     * or at the supplied ISO-8601 time, for ex- 2019-04-20T10:15:30Z
+     * depth is optional and limits each side to its best levels
+     */
     @GetMapping("/order")
-    public ResponseEntity<OrderSummaryHolder> getOrders() {
+    public DeferredResult<ResponseEntity<OrderSummaryHolder>> getOrders(@RequestParam(required = false) String asOf,
+                                                                        @RequestParam(required = false) Integer depth) {
+        CompletableFuture<OrderSummaryHolder> liveOrders;
         try {
-            OrderSummaryHolder orderSummaryHolder = orderService.getLiveOrders();
-            if (CollectionUtils.isEmpty(orderSummaryHolder.getBuyOrderSummary()) && CollectionUtils.isEmpty(orderSummaryHolder.getSellOrderSummary())) {
-                String errorMessage = "No Live Orders found in the system";
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, errorMessage);
+            if (depth != null && depth < 1) {
+                throw new IllegalArgumentException("Depth must be at least 1");
+            }
+            if (asOf != null) {
+                liveOrders = depth == null ? getLiveOrdersAsOf(asOf) : getLiveOrdersAsOf(asOf).thenApply(orderSummaryHolder -> orderSummaryHolder.top(depth));
             } else {
-                return new ResponseEntity<>(orderSummaryHolder, HttpStatus.OK);
+                liveOrders = depth == null ? asyncOrderService.getLiveOrders() : asyncOrderService.getLiveOrders(depth);
             }
-        } catch (ResponseStatusException e) {
-            throw e;
-        } catch (Exception e) {
-            String errorMessage = "Unable to retrieve orders from the system";
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, errorMessage);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
         }
+        return defer(liveOrders,
+                orderSummaryHolder -> {
+                    if (CollectionUtils.isEmpty(orderSummaryHolder.getBuyOrderSummary()) && CollectionUtils.isEmpty(orderSummaryHolder.getSellOrderSummary())) {
+                        String errorMessage = "No Live Orders found in the system";
+                        throw new ResponseStatusException(HttpStatus.NOT_FOUND, errorMessage);
+                    }
+                    return new ResponseEntity<>(orderSummaryHolder, HttpStatus.OK);
+                },
+                e -> {
+                    if (e instanceof IllegalArgumentException) {
+                        return new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+                    }
+                    String errorMessage = "Unable to retrieve orders from the system";
+                    return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, errorMessage);
+                });
+    }
+
+    /*
+     * Best bid and ask, or the best depth levels of each side, served from the Top Of Book Cache
+     */
+    @GetMapping("/order/top")
+    public DeferredResult<ResponseEntity<OrderSummaryHolder>> getTopOfBook(@RequestParam(defaultValue = "1") int depth) {
+        return getOrders(null, depth);
+    }
+
+    private CompletableFuture<OrderSummaryHolder> getLiveOrdersAsOf(String asOf) {
+        if (!asOf.isEmpty() && asOf.chars().allMatch(Character::isDigit)) {
+            return asyncOrderService.getLiveOrdersAsOf(Long.parseLong(asOf));
+        }
+        return asyncOrderService.getLiveOrdersAsOf(OffsetDateTime.parse(asOf));
     }
 
     /*
@@ -61,15 +111,49 @@ public class OrderController {
      * default Test User is used for demo but can be overridden if required
      */
     @DeleteMapping("/order/{orderId}")
-    public ResponseEntity<Order> cancelOrder(@PathVariable long orderId, @RequestParam(defaultValue = "Test User") String user) {
-        try {
-            Order order = orderService.cancelOrder(orderId, user);
-            return new ResponseEntity<>(order, HttpStatus.OK);
-        } catch (OrderBoardInvalidOperationException e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
-        } catch (Exception e) {
-            String errorMessage = "Unable to cancel order";
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, errorMessage, e);
-        }
+    public DeferredResult<ResponseEntity<Order>> cancelOrder(@PathVariable long orderId, @RequestParam(defaultValue = "Test User") String user) {
+        return defer(asyncOrderService.cancelOrder(orderId, user),
+                order -> new ResponseEntity<>(order, HttpStatus.OK),
+                e -> {
+                    if (e instanceof OrderBoardInvalidOperationException) {
+                        return new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+                    }
+                    if (e instanceof IllegalArgumentException) {
+                        return new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+                    }
+                    if (e instanceof OrderBoardReadOnlyException) {
+                        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+                    }
+                    String errorMessage = "Unable to cancel order";
+                    return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, errorMessage, e);
+                });
+    }
+
+    /**
+     * Completes a Deferred Result with the outcome of the supplied operation.
+     * Operations rejected because too many are queued are answered with 429 Too Many Requests, like the Admission Control does.
+     *
+     * @param operation  Operation running on the Async Order Service
+     * @param toResponse Response to a successful operation, may throw a ResponseStatusException instead
+     * @param toError    Response status to a failed operation
+     */
+    private static <T, R> DeferredResult<ResponseEntity<R>> defer(CompletableFuture<T> operation, Function<T, ResponseEntity<R>> toResponse,
+                                                                  Function<Throwable, ResponseStatusException> toError) {
+        DeferredResult<ResponseEntity<R>> deferredResult = new DeferredResult<>();
+        operation.whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                try {
+                    deferredResult.setResult(toResponse.apply(result));
+                } catch (ResponseStatusException e) {
+                    deferredResult.setErrorResult(e);
+                }
+            } else {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                deferredResult.setErrorResult(cause instanceof OrderBoardOverloadedException
+                        ? new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, cause.getMessage(), cause)
+                        : toError.apply(cause));
+            }
+        });
+        return deferredResult;
     }
-}
\ No newline at end of file
+}
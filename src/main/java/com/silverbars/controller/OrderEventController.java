@@ -0,0 +1,106 @@
+package com.silverbars.controller;
+
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.dao.OrderDao;
+import com.silverbars.event.OrderEventCodec;
+import com.silverbars.event.OrderEventLog;
+import com.silverbars.event.OrderEventSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Rest Controller streaming ranges of the Order Event Log, so that downstream systems catch up with the board
+ * incrementally from the last event they have seen instead of reading the whole board again.
+ * Events are read from the log without taking its lock and written as they are encoded.
+ * The log only holds its most recent events: a consumer starting out, or one that fell behind the log, reads a snapshot
+ * of the board first with fromSeq=0, then the events following it.
+ */
+@RestController
+public class OrderEventController {
+
+    public static final String LAST_SEQUENCE_HEADER = "X-Last-Sequence";
+    public static final String NEXT_SEQUENCE_HEADER = "X-Next-Sequence";
+    public static final String FIRST_SEQUENCE_HEADER = "X-First-Sequence";
+    public static final String SNAPSHOT_SEQUENCE_HEADER = "X-Snapshot-Sequence";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private OrderEventLog orderEventLog;
+
+    @Autowired
+    private OrderDao orderDao;
+
+    @Value("${orderboard.events.max-limit:100000}")
+    private int maxLimit;
+
+    /*
+     * Streams up to limit events from sequence fromSeq as frames of the Order Event Codec. X-Next-Sequence is the fromSeq
+     * of the next request, X-Last-Sequence the last event of the log when this one was received: a consumer is up to date
+     * once the two meet, and an empty body means nothing happened since fromSeq. X-First-Sequence is the first event the log holds.
+     * With fromSeq=0 the body is instead the registrations of the live orders of a snapshot of the board, all numbered with
+     * the X-Snapshot-Sequence, whatever the limit.
+     */
+    @GetMapping(value = "/events", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> getEvents(@RequestParam long fromSeq, @RequestParam(defaultValue = "10000") int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("limit must be between 1 and %s", maxLimit));
+        }
+        if (fromSeq == 0) {
+            OrderEventSnapshot snapshot = orderEventLog.snapshot(orderDao::forEachLiveOrder);
+            List<OrderEvent> registrations = snapshot.getRegistrations();
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .header(SNAPSHOT_SEQUENCE_HEADER, String.valueOf(snapshot.getSequence()))
+                    .header(FIRST_SEQUENCE_HEADER, String.valueOf(orderEventLog.getFirstSequence()))
+                    .header(LAST_SEQUENCE_HEADER, String.valueOf(snapshot.getSequence()))
+                    .header(NEXT_SEQUENCE_HEADER, String.valueOf(snapshot.getSequence() + 1))
+                    .body(outputStream -> write(registrations.size(), registrations::get, outputStream));
+        }
+        long firstSequence = orderEventLog.getFirstSequence();
+        long lastSequence = orderEventLog.getLastSequence();
+        if (fromSeq < firstSequence || fromSeq > lastSequence + 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("fromSeq must be 0 for a snapshot, or between %s and %s",
+                    firstSequence, lastSequence + 1));
+        }
+        long toSeq = Math.min(lastSequence, fromSeq + limit - 1);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(FIRST_SEQUENCE_HEADER, String.valueOf(firstSequence))
+                .header(LAST_SEQUENCE_HEADER, String.valueOf(lastSequence))
+                .header(NEXT_SEQUENCE_HEADER, String.valueOf(toSeq + 1))
+                .body(outputStream -> write((int) (toSeq - fromSeq + 1), index -> orderEventLog.getEvent(fromSeq + index), outputStream));
+    }
+
+    /**
+     * An event the log no longer holds by the time it is written aborts the response, the consumer then starts over from a snapshot
+     */
+    private static void write(int events, IntFunction<OrderEvent> orderEvents, OutputStream outputStream) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        for (int index = 0; index < events; index++) {
+            OrderEvent orderEvent = orderEvents.apply(index);
+            if (!OrderEventCodec.encode(orderEvent, buffer)) {
+                outputStream.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+                if (!OrderEventCodec.encode(orderEvent, buffer)) {
+                    throw new IllegalStateException(String.format("Order Event [%s] is longer than [%s] bytes", orderEvent.getSequence(), BUFFER_SIZE));
+                }
+            }
+        }
+        outputStream.write(buffer.array(), 0, buffer.position());
+    }
+}
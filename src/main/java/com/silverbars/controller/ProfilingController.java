@@ -0,0 +1,41 @@
+package com.silverbars.controller;
+
+import com.silverbars.bean.RecordingDump;
+import com.silverbars.profiling.FlightRecording;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Rest Controller to dump the continuous Flight Recording on demand
+ */
+@RestController
+public class ProfilingController {
+
+    /* Only present when orderboard.jfr.enabled=true */
+    @Autowired(required = false)
+    private FlightRecording flightRecording;
+
+    /*
+     * In a prod env this operation would be restricted to operators
+     */
+    @PostMapping("/admin/recording/dump")
+    public ResponseEntity<RecordingDump> dumpRecording() {
+        if (flightRecording == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Flight Recording is not enabled, see orderboard.jfr.enabled");
+        }
+        try {
+            Path file = flightRecording.dump();
+            return new ResponseEntity<>(new RecordingDump(file.toString(), Files.size(file)), HttpStatus.CREATED);
+        } catch (Exception e) {
+            String errorMessage = "Unable to dump the Flight Recording";
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, errorMessage, e);
+        }
+    }
+}
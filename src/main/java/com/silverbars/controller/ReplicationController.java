@@ -0,0 +1,50 @@
+package com.silverbars.controller;
+
+import com.silverbars.bean.ReplicationStatus;
+import com.silverbars.event.OrderEventLog;
+import com.silverbars.replication.ReplicationManager;
+import com.silverbars.replication.ReplicationState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Rest Controller to inspect replication and promote a follower to primary
+ */
+@RestController
+public class ReplicationController {
+
+    @Autowired
+    private ReplicationState replicationState;
+
+    @Autowired
+    private ReplicationManager replicationManager;
+
+    @Autowired
+    private OrderEventLog orderEventLog;
+
+    @GetMapping("/replication")
+    public ResponseEntity<ReplicationStatus> getStatus() {
+        return new ResponseEntity<>(new ReplicationStatus(replicationState.getRole(), orderEventLog.getLastSequence()), HttpStatus.OK);
+    }
+
+    /*
+     * In a prod env this operation would be restricted to operators or triggered by the failover tooling
+     */
+    @PostMapping("/replication/promote")
+    public ResponseEntity<ReplicationStatus> promote() {
+        try {
+            replicationManager.promote();
+            return getStatus();
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        } catch (Exception e) {
+            String errorMessage = "Unable to promote this Order Board";
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, errorMessage, e);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.silverbars.dao;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.exception.OrderBoardInvalidOperationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Order Dao keeping the orders in an embedded SQL database (H2), queried for the live board.
+ * <p>
+ * Registrations and cancellations are validated and answered by an in-memory board, then written behind to the database
+ * by a writer thread which takes up to batchSize changes at a time and writes them as JDBC batches in one transaction.
+ * A reader of the live board waits until the changes made before its read are written, then aggregates the live orders
+ * in a single grouped query served by the index on (active, order_type, price, price_scale, quantity).
+ * <p>
+ * The database may lag behind the board by at most maxLag changes: once that many are waiting to be written, writers wait
+ * for the database, so under sustained load changes are accepted as fast as they are written rather than piling up.
+ * A read therefore waits at most for maxLag changes to be written, a few batches, and fails after readTimeoutMillis
+ * only if the database stops writing.
+ * <p>
+ * Prices are stored with their scale, so 10 and 10.0 stay two levels as with the other engines. A change the database
+ * could not store as it is, a price beyond DECIMAL(30, 10) or a user name beyond 255 characters, is rejected before it
+ * reaches the board. A change the database still rejects is logged and left out of it, without holding back the others.
+ * <p>
+ * The database survives restarts: its orders are loaded into the in-memory board when opened. A change is lost if
+ * the process dies before it is written.
+ */
+public class JdbcOrderDao implements OrderDao, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcOrderDao.class);
+
+    private static final long RETRY_MILLIS = 1_000;
+
+    private static final int MAX_USER_LENGTH = 255;
+    private static final int PRICE_PRECISION = 30;
+    private static final int PRICE_SCALE = 10;
+
+    /* The price column holds every price at PRICE_SCALE, price_scale the scale it was registered with */
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS orders (" +
+            "order_id BIGINT PRIMARY KEY, user_name VARCHAR(" + MAX_USER_LENGTH + "), quantity DOUBLE NOT NULL, " +
+            "price DECIMAL(" + PRICE_PRECISION + ", " + PRICE_SCALE + ") NOT NULL, price_scale INT NOT NULL, " +
+            "order_type VARCHAR(4) NOT NULL, active BOOLEAN NOT NULL, add_time TIMESTAMP WITH TIME ZONE NOT NULL, " +
+            "cancel_user_name VARCHAR(" + MAX_USER_LENGTH + "), cancel_time TIMESTAMP WITH TIME ZONE)";
+    /* Covers the live board query, which then reads no table row */
+    private static final String CREATE_INDEX = "CREATE INDEX IF NOT EXISTS orders_live_levels ON orders (active, order_type, price, price_scale, quantity)";
+    private static final String MERGE_ORDER = "MERGE INTO orders (order_id, user_name, quantity, price, price_scale, order_type, active, add_time) " +
+            "KEY (order_id) VALUES (?, ?, ?, ?, ?, ?, TRUE, ?)";
+    private static final String CANCEL_ORDER = "UPDATE orders SET active = FALSE, cancel_user_name = ?, cancel_time = ? WHERE order_id = ?";
+    private static final String SELECT_ORDERS = "SELECT order_id, user_name, quantity, price, order_type, active, add_time, " +
+            "cancel_user_name, cancel_time, price_scale FROM orders ORDER BY order_id";
+    private static final String SELECT_LIVE_LEVELS = "SELECT order_type, price, price_scale, SUM(quantity) FROM orders WHERE active = TRUE " +
+            "GROUP BY order_type, price, price_scale ORDER BY order_type, price, price_scale";
+
+    private final MapOrderDao board = new MapOrderDao();
+    private final Connection writeConnection;
+    private final Connection readConnection;
+    private final int batchSize;
+    private final long readTimeoutMillis;
+    private final BlockingQueue<OrderEvent> writes;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    /* Changes are queued in the order they are made on the board, so that an order is inserted before it is cancelled */
+    private final Object writeLock = new Object();
+    private final AtomicLong queuedWrites = new AtomicLong();
+    private final Object flushLock = new Object();
+    private long writtenWrites;
+
+    /**
+     * @param url               JDBC url of the H2 database, created if missing
+     * @param batchSize         Maximum number of changes written in one transaction
+     * @param maxLag            Maximum number of changes waiting to be written
+     * @param readTimeoutMillis Maximum time a read of the live board waits for the changes made before it to be written
+     */
+    public JdbcOrderDao(String url, int batchSize, int maxLag, long readTimeoutMillis) throws SQLException {
+        this.writeConnection = DriverManager.getConnection(url);
+        this.readConnection = DriverManager.getConnection(url);
+        this.batchSize = batchSize;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.writes = new LinkedBlockingQueue<>(maxLag);
+        try (Statement statement = writeConnection.createStatement()) {
+            statement.execute(CREATE_TABLE);
+            statement.execute(CREATE_INDEX);
+        }
+        writeConnection.setAutoCommit(false);
+        int orders = load();
+        LOGGER.info("Order Dao opened [{}] with [{}] orders", url, orders);
+
+        this.writerThread = new Thread(this::writeBehind, "order-dao-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Registers every stored order, then cancels the cancelled ones, on the in-memory board
+     *
+     * @return Number of orders found
+     */
+    private int load() throws SQLException {
+        int orders = 0;
+        try (Statement statement = readConnection.createStatement();
+             ResultSet resultSet = statement.executeQuery(SELECT_ORDERS)) {
+            while (resultSet.next()) {
+                long orderId = resultSet.getLong(1);
+                OrderType orderType = OrderType.valueOf(resultSet.getString(5));
+                board.apply(new OrderEvent(0, OrderEventType.REGISTERED, orderId, resultSet.getString(2), resultSet.getDouble(3),
+                        resultSet.getBigDecimal(4).setScale(resultSet.getInt(10)), orderType, resultSet.getObject(7, OffsetDateTime.class)));
+                if (!resultSet.getBoolean(6)) {
+                    board.apply(new OrderEvent(0, OrderEventType.CANCELLED, orderId, resultSet.getString(8), 0, null, orderType,
+                            resultSet.getObject(9, OffsetDateTime.class)));
+                }
+                orders++;
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * @throws IllegalArgumentException If the database cannot store the user or the price
+     */
+    @Override
+    public Order registerOrder(String user,
+                               double quantity,
+                               BigDecimal price,
+                               OrderType orderType) {
+        validate(user, price);
+        synchronized (writeLock) {
+            Order order = board.registerOrder(user, quantity, price, orderType);
+            queue(new OrderEvent(0, OrderEventType.REGISTERED, order.getOrderId(), order.getUser(), quantity, price, orderType,
+                    order.getLatestOrderAudit().getAddTime()));
+            return order;
+        }
+    }
+
+    /**
+     * @throws OrderBoardInvalidOperationException If the order is unknown or already cancelled
+     */
+    @Override
+    public Order cancelOrder(long orderId, String user) throws OrderBoardInvalidOperationException {
+        synchronized (writeLock) {
+            Order order = board.cancelOrder(orderId, user);
+            queue(new OrderEvent(0, OrderEventType.CANCELLED, orderId, user, order.getQuantity(), order.getPrice(), order.getOrderType(),
+                    order.getLatestOrderAudit().getAddTime()));
+            return order;
+        }
+    }
+
+    @Override
+    public long nextOrderId() {
+        return board.nextOrderId();
+    }
+
+    /**
+     * @throws IllegalArgumentException If the database cannot store the user or the price
+     */
+    @Override
+    public void checkRegistration(String user, BigDecimal price) {
+        validate(user, price);
+    }
+
+    /**
+     * Served from the in-memory board, which holds the same orders as the database
+     */
+    @Override
+    public Order findOrder(long orderId) {
+        return board.findOrder(orderId);
+    }
+
+    /**
+     * @throws IllegalArgumentException If the database cannot store the user or the price of a registration
+     */
+    @Override
+    public Order apply(OrderEvent orderEvent) {
+        if (orderEvent.getEventType() == OrderEventType.REGISTERED) {
+            validate(orderEvent.getUser(), orderEvent.getPrice());
+        }
+        synchronized (writeLock) {
+            Order order = board.apply(orderEvent);
+            queue(orderEvent);
+            return order;
+        }
+    }
+
+    private static void validate(String user, BigDecimal price) {
+        if (user != null && user.length() > MAX_USER_LENGTH) {
+            throw new IllegalArgumentException(String.format("User name must be at most %s characters long", MAX_USER_LENGTH));
+        }
+        if (price != null && (price.scale() > PRICE_SCALE || price.precision() - price.scale() > PRICE_PRECISION - PRICE_SCALE)) {
+            throw new IllegalArgumentException(String.format("Price [%s] has too many digits to be stored", price));
+        }
+    }
+
+    private void queue(OrderEvent orderEvent) {
+        queuedWrites.incrementAndGet();
+        try {
+            writes.put(orderEvent);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted before writing %s", orderEvent), e);
+        }
+    }
+
+    /**
+     * Served from the in-memory board, which holds the same orders as the database
+     */
+    @Override
+    public void forEachLiveOrder(Consumer<Order> consumer) {
+        board.forEachLiveOrder(consumer);
+    }
+
+    /**
+     * Aggregates the live orders in the database once every change made so far is written.
+     * Levels are reported at the scale their orders were registered with.
+     *
+     * @throws IllegalStateException If the changes are not written within the read timeout, or the database cannot be read
+     */
+    @Override
+    public OrderSummaryHolder getLiveOrders() {
+        awaitWritten(queuedWrites.get());
+        List<OrderSummary> buyOrderSummaries = new ArrayList<>();
+        List<OrderSummary> sellOrderSummaries = new ArrayList<>();
+        synchronized (readConnection) {
+            try (Statement statement = readConnection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(SELECT_LIVE_LEVELS)) {
+                while (resultSet.next()) {
+                    OrderType orderType = OrderType.valueOf(resultSet.getString(1));
+                    OrderSummary orderSummary = new OrderSummary(resultSet.getDouble(4),
+                            resultSet.getBigDecimal(2).setScale(resultSet.getInt(3)), orderType);
+                    (orderType == OrderType.BUY ? buyOrderSummaries : sellOrderSummaries).add(orderSummary);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Unable to read the live orders", e);
+            }
+        }
+        /* Highest bid first */
+        Collections.reverse(buyOrderSummaries);
+        OrderSummaryHolder orderSummaryHolder = new OrderSummaryHolder();
+        orderSummaryHolder.addBuyOrderSummaries(buyOrderSummaries);
+        orderSummaryHolder.addSellOrderSummaries(sellOrderSummaries);
+        return orderSummaryHolder;
+    }
+
+    private void awaitWritten(long writes) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readTimeoutMillis);
+        synchronized (flushLock) {
+            while (writtenWrites < writes) {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    throw new IllegalStateException(String.format("Order changes not written after [%s] ms, [%s] still waiting",
+                            readTimeoutMillis, writes - writtenWrites));
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(flushLock, remainingNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for the orders to be written", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the queued changes until the Order Dao is closed and they are all written
+     */
+    private void writeBehind() {
+        List<OrderEvent> batch = new ArrayList<>(batchSize);
+        while (running || !writes.isEmpty()) {
+            try {
+                OrderEvent orderEvent = writes.poll(100, TimeUnit.MILLISECONDS);
+                if (orderEvent == null) {
+                    continue;
+                }
+                batch.add(orderEvent);
+                writes.drainTo(batch, batchSize - 1);
+                writeWithRetry(batch);
+                synchronized (flushLock) {
+                    writtenWrites += batch.size();
+                    flushLock.notifyAll();
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                LOGGER.error("Order Dao writer interrupted with [{}] changes not written", batch.size() + writes.size());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Retries a batch until it is written, every statement being idempotent.
+     * A batch holding data the database rejects is written again one change at a time, the rejected changes being logged
+     * and left out, as retrying them would block every change queued behind.
+     */
+    private void writeWithRetry(List<OrderEvent> batch) throws InterruptedException {
+        while (true) {
+            try {
+                write(batch);
+                return;
+            } catch (SQLException e) {
+                rollback();
+                if (isRejected(e)) {
+                    if (batch.size() == 1) {
+                        LOGGER.error("Order change {} rejected by the database, left out of it", batch.get(0), e);
+                    } else {
+                        for (OrderEvent orderEvent : batch) {
+                            writeWithRetry(Collections.singletonList(orderEvent));
+                        }
+                    }
+                    return;
+                }
+                LOGGER.error("Unable to write [{}] order changes, retrying in [{}] ms", batch.size(), RETRY_MILLIS, e);
+                Thread.sleep(RETRY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * @return Whether the database rejected the data itself (SQLSTATE class 22 or 23), which no retry would change
+     */
+    private static boolean isRejected(SQLException e) {
+        String sqlState = e.getSQLState();
+        return sqlState != null && (sqlState.startsWith("22") || sqlState.startsWith("23"));
+    }
+
+    private void rollback() {
+        try {
+            writeConnection.rollback();
+        } catch (SQLException e) {
+            LOGGER.warn("Unable to roll back the order changes", e);
+        }
+    }
+
+    /**
+     * Inserts before cancelling, as an order may be registered and cancelled within the batch
+     */
+    private void write(List<OrderEvent> batch) throws SQLException {
+        try (PreparedStatement mergeOrder = writeConnection.prepareStatement(MERGE_ORDER);
+             PreparedStatement cancelOrder = writeConnection.prepareStatement(CANCEL_ORDER)) {
+            for (OrderEvent orderEvent : batch) {
+                if (orderEvent.getEventType() == OrderEventType.REGISTERED) {
+                    mergeOrder.setLong(1, orderEvent.getOrderId());
+                    mergeOrder.setString(2, orderEvent.getUser());
+                    mergeOrder.setDouble(3, orderEvent.getQuantity());
+                    mergeOrder.setBigDecimal(4, orderEvent.getPrice());
+                    mergeOrder.setInt(5, orderEvent.getPrice().scale());
+                    mergeOrder.setString(6, orderEvent.getOrderType().name());
+                    mergeOrder.setObject(7, orderEvent.getTime());
+                    mergeOrder.addBatch();
+                } else {
+                    cancelOrder.setString(1, orderEvent.getUser());
+                    cancelOrder.setObject(2, orderEvent.getTime());
+                    cancelOrder.setLong(3, orderEvent.getOrderId());
+                    cancelOrder.addBatch();
+                }
+            }
+            mergeOrder.executeBatch();
+            cancelOrder.executeBatch();
+        }
+        writeConnection.commit();
+    }
+
+    /**
+     * Writes the queued changes and closes the database
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread.interrupt();
+        try {
+            readConnection.close();
+            writeConnection.close();
+        } catch (SQLException e) {
+            throw new IOException("Unable to close the order database", e);
+        }
+    }
+}
@@ -2,32 +2,30 @@ package com.silverbars.dao;
 
 import com.silverbars.bean.Order;
 import com.silverbars.bean.OrderAudit;
-import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderEvent;
 import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderEventType;
 import com.silverbars.enums.OrderType;
 import com.silverbars.exception.OrderBoardInvalidOperationException;
-import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
-import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * Map based implementation of Order Dao.
  * I have implemented most of the logic in this class in order to ease the testing.
  * For ex- you may want to have a generic method getOrders() instead of method getLiveOrders() in a prod application
  * and then you may want to do filtering of Live Orders and Sorting in the Service class
+ * <p>
+ * Registrations, cancellations and replicated events all go through a single transition taking an immutable Order Event,
+ * so the orders, their audits and the price levels are derived from the events the Order Event Log records.
  */
-@Repository
 public class MapOrderDao implements OrderDao {
 
     /**
@@ -41,7 +39,18 @@ public class MapOrderDao implements OrderDao {
      */
     private AtomicLong sequenceId = new AtomicLong(1);
 
-    private Lock lock = new ReentrantLock();
+    /**
+     * Live quantity per price level, updated with every registration and cancellation so that getLiveOrders does not scan the orders
+     */
+    private final PriceLevelBook priceLevelBook;
+
+    public MapOrderDao() {
+        this(new StripedPriceLevelBook());
+    }
+
+    public MapOrderDao(PriceLevelBook priceLevelBook) {
+        this.priceLevelBook = priceLevelBook;
+    }
 
     /**
      * Adds the supplied order details to the system
@@ -57,21 +66,15 @@ public class MapOrderDao implements OrderDao {
                                double quantity,
                                BigDecimal price,
                                OrderType orderType) {
-        long orderId = sequenceId.getAndIncrement();
-
-        Order order = new Order(orderId, user, quantity, price, orderType);
-        OrderAudit orderAudit = new OrderAudit(orderId, order.getUser(), OffsetDateTime.now(ZoneOffset.UTC));
-        order.addOrderAudit(orderAudit);
-
-        orderIdToOrderMap.put(orderId, order);
-
-        return order;
+        /* Not recorded in any Order Event Log, so the event is not numbered */
+        return apply(new OrderEvent(0, OrderEventType.REGISTERED, nextOrderId(), user, quantity, price, orderType, OffsetDateTime.now(ZoneOffset.UTC)));
     }
 
     /**
      * Cancels the supplied Order.
-     * Locking the whole method avoids the concurrent modification issues when multiple threads tries to read and cancel existing Order.
-     * In a production environment this locking could be avoided by using transactions and other ways like SELECT FOR UPDATE.
+     * The cancelled order replaces the live one only if the live one is still in the map, so when several threads
+     * cancel the same order exactly one of them succeeds, while cancellations of different orders do not wait for each other.
+     * In a production environment this could be achieved by using transactions and other ways like SELECT FOR UPDATE.
      *
      * @param orderId OrderId to be cancelled
      * @param user    User initiating the order cancellation
@@ -82,45 +85,78 @@ public class MapOrderDao implements OrderDao {
      */
     @Override
     public Order cancelOrder(long orderId, String user) throws OrderBoardInvalidOperationException {
-        lock.lock();
-        try {
-            Order orderFound = orderIdToOrderMap.get(orderId);
-            if (orderFound != null) {
-                if (orderFound.getActive() == 'Y') {
-                    orderFound.markOrderInActive();
-
-                    OrderAudit orderAudit = new OrderAudit(orderId, user, OffsetDateTime.now(ZoneOffset.UTC));
-                    orderFound.addOrderAudit(orderAudit);
-                    orderIdToOrderMap.put(orderId, orderFound);
-
-                    return orderFound;
-                } else {
-                    Collection<OrderAudit> orderAudits = orderFound.getOrderAudits();
-                    /*
-                     * Domain objects and its associated audits can be managed in many ways.
-                     * In this application it is known that the only change that can happen to the Order object is
-                     * to move from Active = 'Y' to Active = 'N'. For this reason I have created a simple Order and OrderAudit object
-                     * containing basic information of the order, the user initiating the request and the time of execution.
-                     *
-                     * In this statement "orderAudits.stream().skip(orderAudits.size() - 1).findFirst().get().getUser()"
-                     * it is assumed that there are just two entries in the audit list and the last audit entry is extracted
-                     * without checking if the get() method has returned a non-null entry or not.
-                     * In prod env I would have designed audit differently but for this exercise this will suffice.
-                     *
-                     * In a production environment you can design audit in various ways.
-                     * For ex - storing snapshot of the whole object information upon each request of change.
-                     * Link all the audit for same order with parentId and store Active_From to Active_To timestamp
-                     * where Active_To for the latest audit will be time in Infinity.
-                     */
-                    throw new OrderBoardInvalidOperationException(String.format("Order Id [%s] is already cancelled by user [%s]",
-                            orderId, orderAudits.stream().skip(orderAudits.size() - 1).findFirst().get().getUser()));
+        Order liveOrder = findLiveOrder(orderId);
+        Order cancelledOrder = transition(new OrderEvent(0, OrderEventType.CANCELLED, orderId, user, liveOrder.getQuantity(), liveOrder.getPrice(),
+                liveOrder.getOrderType(), OffsetDateTime.now(ZoneOffset.UTC)));
+        /* Unless cancelled by another thread meanwhile, then reported as already cancelled */
+        return cancelledOrder != null ? cancelledOrder : findLiveOrder(orderId);
+    }
+
+    @Override
+    public long nextOrderId() {
+        return sequenceId.getAndIncrement();
+    }
+
+    @Override
+    public Order findOrder(long orderId) {
+        return orderIdToOrderMap.get(orderId);
+    }
+
+    /**
+     * Applies an event recorded in the Order Event Log.
+     * The sequence is moved past a replicated order id so that orders registered after a promotion get new ids.
+     *
+     * @param orderEvent Event to apply
+     * @throws IllegalStateException If a registered order exists already, or a cancelled order is unknown or no longer active,
+     *                               which means events were lost or duplicated
+     */
+    @Override
+    public Order apply(OrderEvent orderEvent) {
+        Order order = transition(orderEvent);
+        if (order == null) {
+            throw new IllegalStateException(String.format("Unable to apply %s, Order Id [%s] is %s", orderEvent, orderEvent.getOrderId(),
+                    orderEvent.getEventType() == OrderEventType.REGISTERED ? "registered already" : "not live"));
+        }
+        if (orderEvent.getEventType() == OrderEventType.REGISTERED) {
+            sequenceId.accumulateAndGet(orderEvent.getOrderId() + 1, Math::max);
+        }
+        return order;
+    }
+
+    /**
+     * The only change ever made to the board. Orders, their audits and the price levels are all derived from the events
+     * applied here, whether the event describes a registration or cancellation of this Order Board or one replicated from another.
+     * Orders are never modified: a cancellation replaces the live order with a cancelled copy.
+     *
+     * @return Order after the event, null if a registered order exists already or a cancelled order is unknown or no longer live
+     */
+    private Order transition(OrderEvent orderEvent) {
+        long orderId = orderEvent.getOrderId();
+        OrderAudit orderAudit = new OrderAudit(orderId, orderEvent.getUser(), orderEvent.getTime());
+        switch (orderEvent.getEventType()) {
+            case REGISTERED:
+                if (orderIdToOrderMap.containsKey(orderId)) {
+                    return null;
+                }
+                Order order = new Order(orderId, orderEvent.getUser(), orderEvent.getQuantity(), orderEvent.getPrice(), orderEvent.getOrderType());
+                order.addOrderAudit(orderAudit);
+                /* Added to its level before it can be found and cancelled, order ids are never registered twice at once */
+                priceLevelBook.add(order.getOrderType(), order.getPrice(), order.getQuantity());
+                orderIdToOrderMap.put(orderId, order);
+                return order;
+            case CANCELLED:
+                Order liveOrder = orderIdToOrderMap.get(orderId);
+                if (liveOrder == null || liveOrder.getActive() != 'Y') {
+                    return null;
+                }
+                Order cancelledOrder = liveOrder.cancelled(orderAudit);
+                if (!orderIdToOrderMap.replace(orderId, liveOrder, cancelledOrder)) {
+                    return null;
                 }
-            } else {
-                throw new OrderBoardInvalidOperationException(String.format("Unable to find Order Id [%s] in the system. " +
-                        "Please supply the correct OrderId for cancellation", orderId));
-            }
-        } finally {
-            lock.unlock();
+                priceLevelBook.remove(liveOrder.getOrderType(), liveOrder.getPrice(), liveOrder.getQuantity());
+                return cancelledOrder;
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported Order Event Type [%s]", orderEvent.getEventType()));
         }
     }
 
@@ -128,39 +164,26 @@ public class MapOrderDao implements OrderDao {
      * Returns the Order Summary of all Live Orders.
      * <p>
      * In a Prod Environment this method could select all live Order and aggregate them by price directly from the DB.
-     * You can use select order status = 'Y' and group by price, order type and get sum of quantity
+     * You can use select order status = 'Y' and group by price, order type and get sum of quantity.
+     * Here the aggregates are maintained by the Price Level Book as orders are registered and cancelled.
      *
      * @return OrderSummaryHolder containing BUY and SELL OrderSummary list
      */
     @Override
     public OrderSummaryHolder getLiveOrders() {
-        Map<BigDecimal, OrderSummary> priceToBuyOrderSummaryMap = new HashMap<>();
-        Map<BigDecimal, OrderSummary> priceToSellOrderSummaryMap = new HashMap<>();
-
-        orderIdToOrderMap.forEach((orderId, order) -> {
-            if (order.getActive() == 'Y') {
-                if (order.getOrderType().equals(OrderType.BUY)) {
-                    populatePriceToOrderSummaryMap(priceToBuyOrderSummaryMap, order);
-                } else {
-                    populatePriceToOrderSummaryMap(priceToSellOrderSummaryMap, order);
-                }
-            }
-        });
-
-        OrderSummaryHolder orderSummaryHolder = new OrderSummaryHolder();
-        orderSummaryHolder.addBuyOrderSummaries(priceToBuyOrderSummaryMap.values().stream()
-                .sorted(Comparator.comparing(OrderSummary::getPrice, Comparator.reverseOrder())).collect(Collectors.toList()));
-        orderSummaryHolder.addSellOrderSummaries(priceToSellOrderSummaryMap.values().stream()
-                .sorted(Comparator.comparing(OrderSummary::getPrice)).collect(Collectors.toList()));
-        return orderSummaryHolder;
+        return priceLevelBook.getOrderSummaries();
     }
 
-    private void populatePriceToOrderSummaryMap(Map<BigDecimal, OrderSummary> priceToOrderSummaryMap, Order order) {
-        OrderSummary orderSummaryFound = priceToOrderSummaryMap.get(order.getPrice());
-        double orderQuantity = order.getQuantity();
-        if (orderSummaryFound != null) {
-            orderQuantity += orderSummaryFound.getQuantity();
-        }
-        priceToOrderSummaryMap.put(order.getPrice(), new OrderSummary(orderQuantity, order.getPrice(), order.getOrderType()));
+    @Override
+    public BigDecimal levelPrice(BigDecimal price) {
+        return priceLevelBook.levelPrice(price);
+    }
+
+    @Override
+    public void forEachLiveOrder(Consumer<Order> consumer) {
+        orderIdToOrderMap.values().stream()
+                .filter(order -> order.getActive() == 'Y')
+                .sorted(Comparator.comparingLong(Order::getOrderId))
+                .forEach(consumer);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,420 @@
+package com.silverbars.dao;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderAudit;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.bean.UserRegistry;
+import com.silverbars.enums.OrderType;
+import com.silverbars.exception.OrderBoardInvalidOperationException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Order Dao keeping the orders in a memory-mapped file, for boards holding more orders than the heap should.
+ * <p>
+ * Every order is a fixed-width record at an offset computed from its id, order ids being dense, so an order is read or
+ * cancelled without any index. The file is mapped in segments of SEGMENT_RECORDS records as it grows, and the heap only
+ * holds the Price Level Book, however many orders there are. The file survives restarts: it is scanned once when opened
+ * to rebuild the price levels and continue the order ids.
+ * <p>
+ * Records are written to the page cache, so a process crash loses nothing but a crash of the host can lose the last
+ * writes, the file being forced to disk when the Order Board stops.
+ * <p>
+ * Record layout, little endian:
+ * <pre>
+ *  0 state (0 no order, 'Y' live, 'N' cancelled)   1 order type (0 BUY, 1 SELL)
+ *  4 user id               8 quantity (double)     16 price unscaled value (long)    24 price scale (int)
+ * 28 cancelling user id    32 registration time seconds (long) 40 nanos (int)
+ * 44 cancellation time seconds (long)             52 nanos (int)    56-63 unused
+ * </pre>
+ * Users are stored by their id in the User Registry, -1 for an order without user. The users file next to the orders file
+ * holds the names of the first users of the registry in id order, each as a short length followed by its UTF-8 bytes,
+ * and is registered again in that order when the file is opened, so the ids stay the same across restarts.
+ */
+public class MappedFileOrderDao implements OrderDao, Closeable {
+
+    static final int RECORD_SIZE = 64;
+    static final int SEGMENT_RECORDS = 1 << 20;
+
+    private static final int STATE = 0;
+    private static final int ORDER_TYPE = 1;
+    private static final int USER = 4;
+    private static final int QUANTITY = 8;
+    private static final int PRICE_UNSCALED = 16;
+    private static final int PRICE_SCALE = 24;
+    private static final int CANCEL_USER = 28;
+    private static final int ADD_SECONDS = 32;
+    private static final int ADD_NANOS = 40;
+    private static final int CANCEL_SECONDS = 44;
+    private static final int CANCEL_NANOS = 52;
+
+    private static final byte LIVE = 'Y';
+    private static final byte CANCELLED = 'N';
+    private static final int LOCK_STRIPES = 64;
+
+    private final FileChannel fileChannel;
+    private final Object segmentsLock = new Object();
+    /* Replaced by a longer copy when a segment is mapped, so that records are reached without locking */
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private final PriceLevelBook priceLevelBook;
+    private final AtomicLong sequenceId;
+
+    /* Reading and writing a record is done holding the stripe of its order id, which also publishes it to other threads */
+    private final Object[] lockStripes = new Object[LOCK_STRIPES];
+
+    private final UserRegistry userRegistry;
+    private final FileChannel usersChannel;
+    /* Users of the registry whose name is in the users file, appended under the lock of the users channel */
+    private volatile int storedUsers;
+
+    /**
+     * @param file           Orders file, created if missing, and the users file is created next to it
+     * @param priceLevelBook Empty Price Level Book, filled with the live orders found in the file
+     * @param userRegistry   User Registry the users of the file are registered with, before any other user
+     * @throws IllegalStateException If the User Registry already gave the ids of the users of the file to other users
+     */
+    public MappedFileOrderDao(Path file, PriceLevelBook priceLevelBook, UserRegistry userRegistry) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            lockStripes[i] = new Object();
+        }
+        this.priceLevelBook = priceLevelBook;
+        this.userRegistry = userRegistry;
+        this.usersChannel = FileChannel.open(Paths.get(file + ".users"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            loadUsers();
+        } catch (IOException | RuntimeException e) {
+            usersChannel.close();
+            throw e;
+        }
+        this.fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.sequenceId = new AtomicLong(load() + 1);
+    }
+
+    /**
+     * Registers the users of the users file, dropping a name left incomplete by a crash
+     */
+    private void loadUsers() throws IOException {
+        ByteBuffer users = ByteBuffer.allocate((int) usersChannel.size());
+        int read = 0;
+        while (users.hasRemaining() && read >= 0) {
+            read = usersChannel.read(users);
+        }
+        users.flip();
+        while (users.remaining() >= Short.BYTES && users.remaining() >= Short.BYTES + (users.getShort(users.position()) & 0xFFFF)) {
+            byte[] name = new byte[users.getShort() & 0xFFFF];
+            users.get(name);
+            String user = new String(name, StandardCharsets.UTF_8);
+            int userId = userRegistry.idOf(user);
+            if (userId != storedUsers) {
+                throw new IllegalStateException(String.format("User [%s] of the users file has the id [%s] in the User Registry instead of [%s]",
+                        user, userId, storedUsers));
+            }
+            storedUsers++;
+        }
+        usersChannel.truncate(users.position());
+        usersChannel.position(users.position());
+    }
+
+    /**
+     * Maps the existing segments and adds the live orders to the Price Level Book
+     *
+     * @return Highest order id found
+     */
+    private long load() throws IOException {
+        long records = fileChannel.size() / RECORD_SIZE;
+        long lastOrderId = 0;
+        for (long orderId = 1; orderId <= records; orderId++) {
+            MappedByteBuffer segment = segment(orderId);
+            int offset = offset(orderId);
+            byte state = segment.get(offset + STATE);
+            if (state != 0) {
+                lastOrderId = orderId;
+                if (state == LIVE) {
+                    priceLevelBook.add(orderType(segment, offset), price(segment, offset), segment.getDouble(offset + QUANTITY));
+                }
+            }
+        }
+        return lastOrderId;
+    }
+
+    @Override
+    public Order registerOrder(String user,
+                               double quantity,
+                               BigDecimal price,
+                               OrderType orderType) {
+        long orderId = nextOrderId();
+        write(orderId, user, quantity, price, orderType, OffsetDateTime.now(ZoneOffset.UTC));
+        return read(orderId);
+    }
+
+    @Override
+    public long nextOrderId() {
+        return sequenceId.getAndIncrement();
+    }
+
+    /**
+     * @throws IllegalArgumentException If the price has too many digits to be stored
+     */
+    @Override
+    public void checkRegistration(String user, BigDecimal price) {
+        if (price.unscaledValue().bitLength() >= Long.SIZE) {
+            throw new IllegalArgumentException(String.format("Price [%s] has too many digits to be stored", price));
+        }
+    }
+
+    @Override
+    public Order findOrder(long orderId) {
+        synchronized (lockStripe(orderId)) {
+            return exists(orderId) && segment(orderId).get(offset(orderId) + STATE) != 0 ? read(orderId) : null;
+        }
+    }
+
+    /**
+     * Cancels the supplied Order, holding the lock stripe of the order so that it is cancelled only once
+     *
+     * @throws OrderBoardInvalidOperationException If the order is unknown or already cancelled
+     */
+    @Override
+    public Order cancelOrder(long orderId, String user) throws OrderBoardInvalidOperationException {
+        synchronized (lockStripe(orderId)) {
+            byte state = exists(orderId) ? segment(orderId).get(offset(orderId) + STATE) : 0;
+            if (state == 0) {
+                throw new OrderBoardInvalidOperationException(String.format("Unable to find Order Id [%s] in the system. " +
+                        "Please supply the correct OrderId for cancellation", orderId));
+            }
+            if (state == CANCELLED) {
+                throw new OrderBoardInvalidOperationException(String.format("Order Id [%s] is already cancelled by user [%s]",
+                        orderId, userName(segment(orderId).getInt(offset(orderId) + CANCEL_USER))));
+            }
+            markCancelled(orderId, user, OffsetDateTime.now(ZoneOffset.UTC));
+            return read(orderId);
+        }
+    }
+
+    @Override
+    public OrderSummaryHolder getLiveOrders() {
+        return priceLevelBook.getOrderSummaries();
+    }
+
+    @Override
+    public BigDecimal levelPrice(BigDecimal price) {
+        return priceLevelBook.levelPrice(price);
+    }
+
+    /**
+     * Scans the records, reading the live ones
+     */
+    @Override
+    public void forEachLiveOrder(Consumer<Order> consumer) {
+        long lastOrderId = sequenceId.get() - 1;
+        for (long orderId = 1; orderId <= lastOrderId; orderId++) {
+            Order order;
+            synchronized (lockStripe(orderId)) {
+                order = segment(orderId).get(offset(orderId) + STATE) == LIVE ? read(orderId) : null;
+            }
+            if (order != null) {
+                consumer.accept(order);
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalStateException If a registered order exists already, or a cancelled order is unknown or no longer live,
+     *                               which means events were lost or duplicated
+     */
+    @Override
+    public Order apply(OrderEvent orderEvent) {
+        long orderId = orderEvent.getOrderId();
+        switch (orderEvent.getEventType()) {
+            case REGISTERED:
+                write(orderId, orderEvent.getUser(), orderEvent.getQuantity(), orderEvent.getPrice(), orderEvent.getOrderType(), orderEvent.getTime());
+                sequenceId.accumulateAndGet(orderId + 1, Math::max);
+                break;
+            case CANCELLED:
+                synchronized (lockStripe(orderId)) {
+                    if (!exists(orderId) || segment(orderId).get(offset(orderId) + STATE) != LIVE) {
+                        throw new IllegalStateException(String.format("Unable to apply %s, Order Id [%s] is not live", orderEvent, orderId));
+                    }
+                    markCancelled(orderId, orderEvent.getUser(), orderEvent.getTime());
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported Order Event Type [%s]", orderEvent.getEventType()));
+        }
+        return read(orderId);
+    }
+
+    /**
+     * @throws IllegalStateException If the order exists already
+     */
+    private void write(long orderId, String user, double quantity, BigDecimal price, OrderType orderType, OffsetDateTime time) {
+        checkRegistration(user, price);
+        BigInteger unscaledPrice = price.unscaledValue();
+        int userId = storedUserId(user);
+        Instant instant = time.toInstant();
+        synchronized (lockStripe(orderId)) {
+            MappedByteBuffer segment = segment(orderId);
+            int offset = offset(orderId);
+            if (segment.get(offset + STATE) != 0) {
+                throw new IllegalStateException(String.format("Unable to register Order Id [%s], it is registered already", orderId));
+            }
+            segment.put(offset + ORDER_TYPE, (byte) orderType.ordinal());
+            segment.putInt(offset + USER, userId);
+            segment.putDouble(offset + QUANTITY, quantity);
+            segment.putLong(offset + PRICE_UNSCALED, unscaledPrice.longValue());
+            segment.putInt(offset + PRICE_SCALE, price.scale());
+            segment.putLong(offset + ADD_SECONDS, instant.getEpochSecond());
+            segment.putInt(offset + ADD_NANOS, instant.getNano());
+            /* Added to its level before it can be found and cancelled, the state is written last */
+            priceLevelBook.add(orderType, price, quantity);
+            segment.put(offset + STATE, LIVE);
+        }
+    }
+
+    private void markCancelled(long orderId, String user, OffsetDateTime time) {
+        MappedByteBuffer segment = segment(orderId);
+        int offset = offset(orderId);
+        Instant instant = time.toInstant();
+        segment.putInt(offset + CANCEL_USER, storedUserId(user));
+        segment.putLong(offset + CANCEL_SECONDS, instant.getEpochSecond());
+        segment.putInt(offset + CANCEL_NANOS, instant.getNano());
+        segment.put(offset + STATE, CANCELLED);
+        priceLevelBook.remove(orderType(segment, offset), price(segment, offset), segment.getDouble(offset + QUANTITY));
+    }
+
+    private Order read(long orderId) {
+        synchronized (lockStripe(orderId)) {
+            MappedByteBuffer segment = segment(orderId);
+            int offset = offset(orderId);
+            Order order = new Order(orderId, userName(segment.getInt(offset + USER)), segment.getDouble(offset + QUANTITY),
+                    price(segment, offset), orderType(segment, offset));
+            order.addOrderAudit(new OrderAudit(orderId, order.getUser(), time(segment, offset + ADD_SECONDS, offset + ADD_NANOS)));
+            if (segment.get(offset + STATE) == CANCELLED) {
+                order.markOrderInActive();
+                order.addOrderAudit(new OrderAudit(orderId, userName(segment.getInt(offset + CANCEL_USER)),
+                        time(segment, offset + CANCEL_SECONDS, offset + CANCEL_NANOS)));
+            }
+            return order;
+        }
+    }
+
+    private static OrderType orderType(MappedByteBuffer segment, int offset) {
+        return OrderType.values()[segment.get(offset + ORDER_TYPE)];
+    }
+
+    private static BigDecimal price(MappedByteBuffer segment, int offset) {
+        return BigDecimal.valueOf(segment.getLong(offset + PRICE_UNSCALED), segment.getInt(offset + PRICE_SCALE));
+    }
+
+    private static OffsetDateTime time(MappedByteBuffer segment, int secondsOffset, int nanosOffset) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(segment.getLong(secondsOffset), segment.getInt(nanosOffset)), ZoneOffset.UTC);
+    }
+
+    private boolean exists(long orderId) {
+        return orderId > 0 && orderId < sequenceId.get();
+    }
+
+    private Object lockStripe(long orderId) {
+        return lockStripes[(int) (orderId % LOCK_STRIPES)];
+    }
+
+    private static int offset(long orderId) {
+        return (int) ((orderId - 1) % SEGMENT_RECORDS) * RECORD_SIZE;
+    }
+
+    /**
+     * @return Segment holding the record of the supplied order id, mapping it first if needed, which grows the file
+     */
+    private MappedByteBuffer segment(long orderId) {
+        int segmentIndex = (int) ((orderId - 1) / SEGMENT_RECORDS);
+        MappedByteBuffer[] mappedSegments = segments;
+        if (segmentIndex < mappedSegments.length) {
+            return mappedSegments[segmentIndex];
+        }
+        synchronized (segmentsLock) {
+            try {
+                while (segments.length <= segmentIndex) {
+                    long position = (long) segments.length * SEGMENT_RECORDS * RECORD_SIZE;
+                    MappedByteBuffer segment = fileChannel.map(FileChannel.MapMode.READ_WRITE, position, (long) SEGMENT_RECORDS * RECORD_SIZE);
+                    segment.order(ByteOrder.LITTLE_ENDIAN);
+                    MappedByteBuffer[] grownSegments = Arrays.copyOf(segments, segments.length + 1);
+                    grownSegments[segments.length] = segment;
+                    segments = grownSegments;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return segments[segmentIndex];
+        }
+    }
+
+    /**
+     * @return Id of the user in the User Registry, once the users file holds its name and the names of all the users before it
+     */
+    private int storedUserId(String user) {
+        int userId = userRegistry.idOf(user);
+        if (userId >= storedUsers) {
+            synchronized (usersChannel) {
+                try {
+                    while (storedUsers <= userId) {
+                        byte[] name = userRegistry.nameOf(storedUsers).getBytes(StandardCharsets.UTF_8);
+                        ByteBuffer entry = ByteBuffer.allocate(Short.BYTES + name.length);
+                        entry.putShort((short) name.length).put(name).flip();
+                        while (entry.hasRemaining()) {
+                            usersChannel.write(entry);
+                        }
+                        storedUsers++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return userId;
+    }
+
+    private String userName(int userId) {
+        return userRegistry.nameOf(userId);
+    }
+
+    /**
+     * Forces the mapped segments to disk and closes the file
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (segmentsLock) {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            segments = new MappedByteBuffer[0];
+        }
+        if (usersChannel.isOpen()) {
+            usersChannel.force(true);
+            usersChannel.close();
+        }
+        fileChannel.close();
+    }
+}
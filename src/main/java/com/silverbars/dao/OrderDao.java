@@ -1,14 +1,21 @@
 package com.silverbars.dao;
 
 import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderAudit;
+import com.silverbars.bean.OrderEvent;
 import com.silverbars.bean.OrderSummaryHolder;
 import com.silverbars.enums.OrderType;
 import com.silverbars.exception.OrderBoardInvalidOperationException;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.function.Consumer;
 
 /**
  * Dao for handling Order CRUD operations
+ * <p>
+ * The Order Service changes the board through {@link #apply(OrderEvent)} only, with the events it numbers in the Order Event Log.
+ * {@link #registerOrder} and {@link #cancelOrder} change the board without recording any event, for engines used on their own.
  */
 public interface OrderDao {
 
@@ -19,5 +26,83 @@ public interface OrderDao {
 
     Order cancelOrder(long orderId, String user) throws OrderBoardInvalidOperationException;
 
+    /**
+     * @return Id of the next order registered, never returned again
+     */
+    long nextOrderId();
+
+    /**
+     * Checks a registration can be stored, before its event is numbered
+     *
+     * @throws IllegalArgumentException If the engine cannot store the user or the price
+     */
+    default void checkRegistration(String user, BigDecimal price) {
+    }
+
+    /**
+     * @return Order with the supplied id, live or cancelled, null if unknown
+     */
+    Order findOrder(long orderId);
+
+    /**
+     * @return Live order with the supplied id
+     * @throws OrderBoardInvalidOperationException This Exception is thrown in two Scenarios
+     *                                             1. If the supplied Order Id is not recognised
+     *                                             2. If OrderId supplied is already cancelled by the user
+     */
+    default Order findLiveOrder(long orderId) throws OrderBoardInvalidOperationException {
+        Order orderFound = findOrder(orderId);
+        if (orderFound == null) {
+            throw new OrderBoardInvalidOperationException(String.format("Unable to find Order Id [%s] in the system. " +
+                    "Please supply the correct OrderId for cancellation", orderId));
+        }
+        if (orderFound.getActive() != 'Y') {
+            Collection<OrderAudit> orderAudits = orderFound.getOrderAudits();
+            /*
+             * Domain objects and its associated audits can be managed in many ways.
+             * In this application it is known that the only change that can happen to the Order object is
+             * to move from Active = 'Y' to Active = 'N'. For this reason I have created a simple Order and OrderAudit object
+             * containing basic information of the order, the user initiating the request and the time of execution.
+             *
+             * In this statement "orderAudits.stream().skip(orderAudits.size() - 1).findFirst().get().getUser()"
+             * it is assumed that there are just two entries in the audit list and the last audit entry is extracted
+             * without checking if the get() method has returned a non-null entry or not.
+             * In prod env I would have designed audit differently but for this exercise this will suffice.
+             *
+             * In a production environment you can design audit in various ways.
+             * For ex - storing snapshot of the whole object information upon each request of change.
+             * Link all the audit for same order with parentId and store Active_From to Active_To timestamp
+             * where Active_To for the latest audit will be time in Infinity.
+             */
+            throw new OrderBoardInvalidOperationException(String.format("Order Id [%s] is already cancelled by user [%s]",
+                    orderId, orderAudits.stream().skip(orderAudits.size() - 1).findFirst().get().getUser()));
+        }
+        return orderFound;
+    }
+
     OrderSummaryHolder getLiveOrders();
+
+    /**
+     * @return Price of the level of {@link #getLiveOrders()} an order at the supplied price belongs to, levels being told
+     * apart by BigDecimal equality of this price
+     */
+    default BigDecimal levelPrice(BigDecimal price) {
+        return price;
+    }
+
+    /**
+     * Applies an event, keeping the order id, user and time of the event.
+     * Used by the Order Service with the events it records, and by replication followers to reproduce the board of their primary.
+     *
+     * @return Order after the event
+     * @throws IllegalStateException If a registered order exists already, or a cancelled order is unknown or no longer live,
+     *                               which means events were lost or duplicated
+     */
+    Order apply(OrderEvent orderEvent);
+
+    /**
+     * Supplies the live orders in order id order.
+     * Used when the Order Board starts, to record the orders a persistent engine kept across the restart.
+     */
+    void forEachLiveOrder(Consumer<Order> consumer);
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.silverbars.dao;
+
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderType;
+
+import java.math.BigDecimal;
+
+/**
+ * Live quantity per price level of each side of the board, maintained as orders are registered and cancelled
+ * so that reading the board does not scan the orders.
+ * <p>
+ * Implementations are updated concurrently. A read is not a snapshot across levels, but each level it returns
+ * holds at least one live order.
+ */
+public interface PriceLevelBook {
+
+    /**
+     * Adds a registered order to its level
+     */
+    void add(OrderType orderType, BigDecimal price, double quantity);
+
+    /**
+     * Removes a cancelled order from its level
+     */
+    void remove(OrderType orderType, BigDecimal price, double quantity);
+
+    /**
+     * @return Order Summaries of the levels holding live orders, BUY levels by descending price and SELL levels by ascending price
+     */
+    OrderSummaryHolder getOrderSummaries();
+
+    /**
+     * @return Price of the level an order at the supplied price belongs to, levels being told apart by BigDecimal equality
+     * of this price
+     */
+    default BigDecimal levelPrice(BigDecimal price) {
+        return price;
+    }
+}
@@ -0,0 +1,302 @@
+package com.silverbars.dao;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.event.OrderEventListener;
+import com.silverbars.event.OrderEventLog;
+import com.silverbars.exception.OrderBoardInvalidOperationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Order Dao serving everything from a primary engine while a candidate engine shadows it, to validate the candidate
+ * on real traffic before switching to it.
+ * <p>
+ * The candidate starts with the live orders of the primary, then every Order Event is applied to it on a mirror thread
+ * of its own, so the candidate adds no latency to writes. A sample of the reads of the live board is compared: a read
+ * during which no change was in progress saw the primary board as of an event sequence, and the mirror thread compares it
+ * with the candidate board once the candidate has applied the same events. Reads are never made under the lock of the
+ * Order Event Log, so a sampled read that overlapped a change, or whose sequence the candidate has already passed,
+ * is skipped. Matches, mismatches, skipped reads and the latency of each engine are published as orderboard.dao.shadow.* metrics.
+ * If the mirror thread falls orderboard.dao.shadow.queue-capacity events behind, shadowing stops rather than
+ * let the candidate miss events.
+ */
+public class ShadowOrderDao implements OrderDao, OrderEventListener, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShadowOrderDao.class);
+
+    /* Aggregates are compared with a tolerance, engines may add quantities in a different order or precision */
+    private static final double QUANTITY_TOLERANCE = 1e-6;
+
+    private final OrderDao primary;
+    private final OrderDao candidate;
+    private final String candidateName;
+    private final OrderEventLog orderEventLog;
+    private final double sampleRate;
+    private final ThreadPoolExecutor mirrorExecutor;
+    private volatile boolean shadowing = true;
+    /* Sequence of the last event applied to the candidate, used by the mirror thread only */
+    private long candidateSequence;
+
+    private final Timer primaryWriteTimer;
+    private final Timer primaryReadTimer;
+    private final Timer candidateWriteTimer;
+    private final Timer candidateReadTimer;
+    private final Counter matchCounter;
+    private final Counter mismatchCounter;
+    private final Counter skippedCounter;
+    private final Counter candidateErrorCounter;
+
+    /**
+     * @param primary       Engine serving the Order Board
+     * @param primaryName   Name of the primary engine in logs and metrics
+     * @param candidate     Empty engine shadowing the primary, given its live orders
+     * @param candidateName Name of the candidate engine in logs and metrics
+     * @param sampleRate    Fraction of the reads of the live board compared between the engines, between 0 and 1
+     * @param queueCapacity Maximum number of events and comparisons waiting for the mirror thread
+     */
+    public ShadowOrderDao(OrderDao primary, String primaryName, OrderDao candidate, String candidateName, OrderEventLog orderEventLog,
+                          double sampleRate, int queueCapacity, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.candidate = candidate;
+        this.candidateName = candidateName;
+        this.orderEventLog = orderEventLog;
+        this.sampleRate = sampleRate;
+        this.mirrorExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "order-dao-shadow");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.primaryWriteTimer = timer(meterRegistry, "primary", primaryName, "write");
+        this.primaryReadTimer = timer(meterRegistry, "primary", primaryName, "read");
+        this.candidateWriteTimer = timer(meterRegistry, "candidate", candidateName, "write");
+        this.candidateReadTimer = timer(meterRegistry, "candidate", candidateName, "read");
+        this.matchCounter = Counter.builder("orderboard.dao.shadow.comparisons").tag("result", "match").register(meterRegistry);
+        this.mismatchCounter = Counter.builder("orderboard.dao.shadow.comparisons").tag("result", "mismatch").register(meterRegistry);
+        this.skippedCounter = Counter.builder("orderboard.dao.shadow.comparisons").tag("result", "skipped").register(meterRegistry);
+        this.candidateErrorCounter = Counter.builder("orderboard.dao.shadow.candidate.errors").register(meterRegistry);
+        Gauge.builder("orderboard.dao.shadow.lag", mirrorExecutor, executor -> executor.getQueue().size()).register(meterRegistry);
+
+        /* Before any event can be appended: the orders a persistent primary restored have no event */
+        primary.forEachLiveOrder(order -> candidate.apply(new OrderEvent(0, OrderEventType.REGISTERED, order.getOrderId(), order.getUser(),
+                order.getQuantity(), order.getPrice(), order.getOrderType(), order.getLatestOrderAudit().getAddTime())));
+        this.candidateSequence = orderEventLog.getLastSequence();
+        orderEventLog.addListener(this);
+        LOGGER.info("Order Dao [{}] shadowed by [{}], comparing [{}] of the reads", primaryName, candidateName, sampleRate);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String role, String engine, String operation) {
+        return Timer.builder("orderboard.dao.shadow.latency")
+                .tag("role", role).tag("engine", engine).tag("operation", operation)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Order registerOrder(String user, double quantity, BigDecimal price, OrderType orderType) {
+        long startTime = System.nanoTime();
+        Order order = primary.registerOrder(user, quantity, price, orderType);
+        primaryWriteTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        return order;
+    }
+
+    @Override
+    public Order cancelOrder(long orderId, String user) throws OrderBoardInvalidOperationException {
+        long startTime = System.nanoTime();
+        Order order = primary.cancelOrder(orderId, user);
+        primaryWriteTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        return order;
+    }
+
+    @Override
+    public long nextOrderId() {
+        return primary.nextOrderId();
+    }
+
+    /**
+     * Only the primary is checked, a registration the candidate cannot store counts as one of its errors
+     */
+    @Override
+    public void checkRegistration(String user, BigDecimal price) {
+        primary.checkRegistration(user, price);
+    }
+
+    @Override
+    public Order findOrder(long orderId) {
+        return primary.findOrder(orderId);
+    }
+
+    @Override
+    public OrderSummaryHolder getLiveOrders() {
+        if (!shadowing || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return readPrimary();
+        }
+        long sequence = orderEventLog.getQuiescentSequence();
+        OrderSummaryHolder orderSummaryHolder = readPrimary();
+        if (sequence >= 0 && orderEventLog.getQuiescentSequence() == sequence) {
+            /* Queued behind the events up to this sequence, unless events appended since were queued first */
+            mirror(() -> compare(sequence, orderSummaryHolder));
+        } else {
+            skippedCounter.increment();
+        }
+        return orderSummaryHolder;
+    }
+
+    /**
+     * Levels are those of the primary, which serves the board
+     */
+    @Override
+    public BigDecimal levelPrice(BigDecimal price) {
+        return primary.levelPrice(price);
+    }
+
+    @Override
+    public void forEachLiveOrder(Consumer<Order> consumer) {
+        primary.forEachLiveOrder(consumer);
+    }
+
+    private OrderSummaryHolder readPrimary() {
+        long startTime = System.nanoTime();
+        OrderSummaryHolder orderSummaryHolder = primary.getLiveOrders();
+        primaryReadTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        return orderSummaryHolder;
+    }
+
+    @Override
+    public Order apply(OrderEvent orderEvent) {
+        long startTime = System.nanoTime();
+        Order order = primary.apply(orderEvent);
+        primaryWriteTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        return order;
+    }
+
+    /**
+     * Called in sequence order
+     */
+    @Override
+    public void onOrderEvent(OrderEvent orderEvent) {
+        mirror(() -> applyToCandidate(orderEvent));
+    }
+
+    private void mirror(Runnable task) {
+        if (!shadowing) {
+            return;
+        }
+        try {
+            mirrorExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            stopShadowing(String.format("Shadow Order Dao [%s] fell more than [%s] tasks behind", candidateName,
+                    mirrorExecutor.getQueue().size()));
+        }
+    }
+
+    private void applyToCandidate(OrderEvent orderEvent) {
+        long startTime = System.nanoTime();
+        try {
+            candidateSequence = orderEvent.getSequence();
+            candidate.apply(orderEvent);
+            candidateWriteTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            candidateErrorCounter.increment();
+            LOGGER.warn("Shadow Order Dao [{}] failed to apply {}", candidateName, orderEvent, e);
+        }
+    }
+
+    private void compare(long sequence, OrderSummaryHolder primaryOrderSummaryHolder) {
+        if (candidateSequence != sequence) {
+            skippedCounter.increment();
+            return;
+        }
+        long startTime = System.nanoTime();
+        OrderSummaryHolder candidateOrderSummaryHolder;
+        try {
+            candidateOrderSummaryHolder = candidate.getLiveOrders();
+            candidateReadTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            candidateErrorCounter.increment();
+            LOGGER.warn("Shadow Order Dao [{}] failed to read the live orders", candidateName, e);
+            return;
+        }
+        if (sameLevels(primaryOrderSummaryHolder.getBuyOrderSummary(), candidateOrderSummaryHolder.getBuyOrderSummary())
+                && sameLevels(primaryOrderSummaryHolder.getSellOrderSummary(), candidateOrderSummaryHolder.getSellOrderSummary())) {
+            matchCounter.increment();
+        } else {
+            mismatchCounter.increment();
+            LOGGER.warn("Shadow Order Dao [{}] differs from the primary at Order Event [{}]: primary BUY {} SELL {}, candidate BUY {} SELL {}",
+                    candidateName, sequence, primaryOrderSummaryHolder.getBuyOrderSummary(), primaryOrderSummaryHolder.getSellOrderSummary(),
+                    candidateOrderSummaryHolder.getBuyOrderSummary(), candidateOrderSummaryHolder.getSellOrderSummary());
+        }
+    }
+
+    /**
+     * Prices are compared by value, engines may report them at different scales
+     */
+    static boolean sameLevels(List<OrderSummary> primaryLevels, List<OrderSummary> candidateLevels) {
+        if (primaryLevels.size() != candidateLevels.size()) {
+            return false;
+        }
+        for (int i = 0; i < primaryLevels.size(); i++) {
+            OrderSummary primaryLevel = primaryLevels.get(i);
+            OrderSummary candidateLevel = candidateLevels.get(i);
+            if (primaryLevel.getOrderType() != candidateLevel.getOrderType()
+                    || primaryLevel.getPrice().compareTo(candidateLevel.getPrice()) != 0
+                    || Math.abs(primaryLevel.getQuantity() - candidateLevel.getQuantity()) > QUANTITY_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void stopShadowing(String reason) {
+        shadowing = false;
+        orderEventLog.removeListener(this);
+        mirrorExecutor.shutdownNow();
+        LOGGER.error("{}, shadowing stopped", reason);
+    }
+
+    public boolean isShadowing() {
+        return shadowing;
+    }
+
+    /**
+     * Stops shadowing and closes both engines
+     */
+    @Override
+    public void close() throws IOException {
+        shadowing = false;
+        orderEventLog.removeListener(this);
+        mirrorExecutor.shutdownNow();
+        try {
+            mirrorExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (candidate instanceof Closeable) {
+            ((Closeable) candidate).close();
+        }
+        if (primary instanceof Closeable) {
+            ((Closeable) primary).close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.silverbars.dao;
+
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Price Level Book keeping the totals of each level in LongAdders.
+ * <p>
+ * Threads updating the hot levels at the top of the book would all be writing to a few counters packed on the same
+ * cache lines. A LongAdder spreads contended updates over cells padded to a cache line each (@Contended), so the
+ * writers stop invalidating each other's caches and update throughput keeps growing with cores. A read sums the cells.
+ * Registrations reach the book concurrently, the Order Event Log only serializing their numbering.
+ * <p>
+ * Quantities are accumulated as whole micro KG so that cancelling an order takes exactly its quantity off the level,
+ * which summing and subtracting doubles would not.
+ * <p>
+ * Prices come from the clients, so a level is removed once its last order is removed. Removal happens under the lock
+ * of the map entry while adds stay lock-free: the removing thread marks the level as retiring before it sums the orders,
+ * and an adding thread counts its order before it reads the mark, so either the removal sees the order and keeps the level,
+ * or the add sees the mark and, once the level is retired, adds to a new one.
+ */
+public class StripedPriceLevelBook implements PriceLevelBook {
+
+    private static final double QUANTITY_SCALE = 1_000_000;
+
+    private static final Comparator<OrderSummary> BUY_LEVEL_ORDER = Comparator.comparing(OrderSummary::getPrice, Comparator.reverseOrder());
+    private static final Comparator<OrderSummary> SELL_LEVEL_ORDER = Comparator.comparing(OrderSummary::getPrice);
+
+    private final Map<BigDecimal, PriceLevel> priceToBuyLevelMap = new ConcurrentHashMap<>();
+    private final Map<BigDecimal, PriceLevel> priceToSellLevelMap = new ConcurrentHashMap<>();
+
+    private static final int LIVE = 0;
+    private static final int RETIRING = 1;
+    private static final int RETIRED = 2;
+
+    private static class PriceLevel {
+        private final LongAdder quantity = new LongAdder();
+        private final LongAdder orders = new LongAdder();
+        private volatile int state = LIVE;
+    }
+
+    @Override
+    public void add(OrderType orderType, BigDecimal price, double quantity) {
+        Map<BigDecimal, PriceLevel> priceToLevelMap = levels(orderType);
+        while (true) {
+            PriceLevel level = priceToLevelMap.computeIfAbsent(price, levelPrice -> new PriceLevel());
+            level.orders.increment();
+            int state;
+            while ((state = level.state) == RETIRING) {
+                Thread.yield();
+            }
+            if (state == LIVE) {
+                level.quantity.add(toMicros(quantity));
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void remove(OrderType orderType, BigDecimal price, double quantity) {
+        Map<BigDecimal, PriceLevel> priceToLevelMap = levels(orderType);
+        PriceLevel level = priceToLevelMap.get(price);
+        level.orders.decrement();
+        level.quantity.add(-toMicros(quantity));
+        if (level.orders.sum() == 0) {
+            priceToLevelMap.computeIfPresent(price, (levelPrice, currentLevel) -> currentLevel == level && retire(level) ? null : currentLevel);
+        }
+    }
+
+    /**
+     * Called under the lock of the map entry of the level
+     *
+     * @return Whether the level had no order left and is retired
+     */
+    private static boolean retire(PriceLevel level) {
+        level.state = RETIRING;
+        if (level.orders.sum() == 0) {
+            level.state = RETIRED;
+            return true;
+        }
+        level.state = LIVE;
+        return false;
+    }
+
+    int getLevelCount(OrderType orderType) {
+        return levels(orderType).size();
+    }
+
+    @Override
+    public OrderSummaryHolder getOrderSummaries() {
+        OrderSummaryHolder orderSummaryHolder = new OrderSummaryHolder();
+        orderSummaryHolder.addBuyOrderSummaries(getOrderSummaries(priceToBuyLevelMap, OrderType.BUY, BUY_LEVEL_ORDER));
+        orderSummaryHolder.addSellOrderSummaries(getOrderSummaries(priceToSellLevelMap, OrderType.SELL, SELL_LEVEL_ORDER));
+        return orderSummaryHolder;
+    }
+
+    private static List<OrderSummary> getOrderSummaries(Map<BigDecimal, PriceLevel> priceToLevelMap, OrderType orderType, Comparator<OrderSummary> levelOrder) {
+        List<OrderSummary> orderSummaries = new ArrayList<>(priceToLevelMap.size());
+        priceToLevelMap.forEach((price, level) -> {
+            /* Cells are read one after the other, so a level being updated can briefly read as empty */
+            long quantity = level.quantity.sum();
+            if (level.orders.sum() > 0 && quantity > 0) {
+                orderSummaries.add(new OrderSummary(quantity / QUANTITY_SCALE, price, orderType));
+            }
+        });
+        orderSummaries.sort(levelOrder);
+        return orderSummaries;
+    }
+
+    private Map<BigDecimal, PriceLevel> levels(OrderType orderType) {
+        return orderType == OrderType.BUY ? priceToBuyLevelMap : priceToSellLevelMap;
+    }
+
+    private static long toMicros(double quantity) {
+        return Math.round(quantity * QUANTITY_SCALE);
+    }
+}
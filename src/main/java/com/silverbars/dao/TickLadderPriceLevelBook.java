@@ -0,0 +1,216 @@
+package com.silverbars.dao;
+
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Price Level Book for a board trading in a known band of prices with a fixed tick size.
+ * <p>
+ * The totals of each side are held in primitive arrays indexed by tick, so a level update is an index computation
+ * and two array writes, with no hashing of BigDecimal prices. Cursors on the best bid and best ask let a board read
+ * scan only the occupied part of each array. Prices outside the band or between ticks are still accepted and kept
+ * in a Striped Price Level Book.
+ * <p>
+ * Updates and reads of the ladder are serialized on this book, which is held for a few array writes per update.
+ * Concurrent registrations queue here, where the Striped Price Level Book lets them through together.
+ * Levels in the band are reported at the scale of the tick size, for ex- 305.00 for a tick of 0.01.
+ */
+public class TickLadderPriceLevelBook implements PriceLevelBook {
+
+    private static final int MAX_TICKS = 10_000_000;
+    private static final double QUANTITY_SCALE = 1_000_000;
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final int priceScale;
+    private final long minPriceUnits;
+    private final long tickUnits;
+    private final BigDecimal[] levelPrices;
+    private final Side buySide;
+    private final Side sellSide;
+    private final PriceLevelBook outOfBandBook = new StripedPriceLevelBook();
+
+    private static class Side {
+        /* Whole micro KG */
+        private final long[] quantity;
+        private final int[] orders;
+        /* Index of the best level, emptyBest (-1 for the bids, ticks for the asks) when the side is empty */
+        private final int emptyBest;
+        private int best;
+        private int liveLevels;
+
+        private Side(int ticks, int emptyBest) {
+            this.quantity = new long[ticks];
+            this.orders = new int[ticks];
+            this.emptyBest = emptyBest;
+            this.best = emptyBest;
+        }
+    }
+
+    /**
+     * @param minPrice Lowest price of the band
+     * @param maxPrice Highest price of the band, a whole number of ticks above the lowest
+     * @param tickSize Price increment
+     * @throws IllegalArgumentException If the band or tick size is invalid
+     */
+    public TickLadderPriceLevelBook(BigDecimal minPrice, BigDecimal maxPrice, BigDecimal tickSize) {
+        if (tickSize.signum() <= 0 || minPrice.compareTo(maxPrice) >= 0) {
+            throw new IllegalArgumentException(String.format("Invalid price band [%s, %s] with tick size [%s]", minPrice, maxPrice, tickSize));
+        }
+        this.priceScale = Math.max(0, Math.max(tickSize.stripTrailingZeros().scale(), minPrice.stripTrailingZeros().scale()));
+        this.minPriceUnits = minPrice.movePointRight(priceScale).longValueExact();
+        this.tickUnits = tickSize.movePointRight(priceScale).longValueExact();
+        long bandUnits = maxPrice.movePointRight(priceScale).longValueExact() - minPriceUnits;
+        if (bandUnits % tickUnits != 0 || bandUnits / tickUnits >= MAX_TICKS) {
+            throw new IllegalArgumentException(String.format("Price band [%s, %s] must be a whole number of ticks [%s], at most %s",
+                    minPrice, maxPrice, tickSize, MAX_TICKS));
+        }
+        int ticks = (int) (bandUnits / tickUnits) + 1;
+        this.levelPrices = new BigDecimal[ticks];
+        for (int index = 0; index < ticks; index++) {
+            levelPrices[index] = BigDecimal.valueOf(minPriceUnits + index * tickUnits, priceScale);
+        }
+        this.buySide = new Side(ticks, -1);
+        this.sellSide = new Side(ticks, ticks);
+    }
+
+    @Override
+    public void add(OrderType orderType, BigDecimal price, double quantity) {
+        int index = indexOf(price);
+        if (index < 0) {
+            outOfBandBook.add(orderType, price, quantity);
+            return;
+        }
+        synchronized (this) {
+            Side side = side(orderType);
+            side.quantity[index] += toMicros(quantity);
+            if (side.orders[index]++ == 0) {
+                side.liveLevels++;
+            }
+            if (orderType == OrderType.BUY ? index > side.best : index < side.best) {
+                side.best = index;
+            }
+        }
+    }
+
+    @Override
+    public void remove(OrderType orderType, BigDecimal price, double quantity) {
+        int index = indexOf(price);
+        if (index < 0) {
+            outOfBandBook.remove(orderType, price, quantity);
+            return;
+        }
+        synchronized (this) {
+            Side side = side(orderType);
+            side.quantity[index] -= toMicros(quantity);
+            if (--side.orders[index] != 0) {
+                return;
+            }
+            /* The cursor only walks the gap to the next live level, an emptied side is reset without scanning */
+            if (--side.liveLevels == 0) {
+                side.best = side.emptyBest;
+            } else if (index == side.best) {
+                if (orderType == OrderType.BUY) {
+                    while (side.best >= 0 && side.orders[side.best] == 0) {
+                        side.best--;
+                    }
+                } else {
+                    while (side.best < levelPrices.length && side.orders[side.best] == 0) {
+                        side.best++;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public OrderSummaryHolder getOrderSummaries() {
+        List<OrderSummary> buyOrderSummaries = new ArrayList<>();
+        List<OrderSummary> sellOrderSummaries = new ArrayList<>();
+        synchronized (this) {
+            for (int index = buySide.best; index >= 0; index--) {
+                if (buySide.orders[index] > 0) {
+                    buyOrderSummaries.add(new OrderSummary(buySide.quantity[index] / QUANTITY_SCALE, levelPrices[index], OrderType.BUY));
+                }
+            }
+            for (int index = sellSide.best; index < levelPrices.length; index++) {
+                if (sellSide.orders[index] > 0) {
+                    sellOrderSummaries.add(new OrderSummary(sellSide.quantity[index] / QUANTITY_SCALE, levelPrices[index], OrderType.SELL));
+                }
+            }
+        }
+
+        OrderSummaryHolder outOfBand = outOfBandBook.getOrderSummaries();
+        OrderSummaryHolder orderSummaryHolder = new OrderSummaryHolder();
+        orderSummaryHolder.addBuyOrderSummaries(merge(buyOrderSummaries, outOfBand.getBuyOrderSummary(),
+                Comparator.comparing(OrderSummary::getPrice, Comparator.reverseOrder())));
+        orderSummaryHolder.addSellOrderSummaries(merge(sellOrderSummaries, outOfBand.getSellOrderSummary(),
+                Comparator.comparing(OrderSummary::getPrice)));
+        return orderSummaryHolder;
+    }
+
+    /**
+     * @return Price of the tick for a price in the band, whatever its scale, otherwise the price itself
+     */
+    @Override
+    public BigDecimal levelPrice(BigDecimal price) {
+        int index = indexOf(price);
+        return index < 0 ? price : levelPrices[index];
+    }
+
+    private static List<OrderSummary> merge(List<OrderSummary> inBand, List<OrderSummary> outOfBand, Comparator<OrderSummary> levelOrder) {
+        if (!outOfBand.isEmpty()) {
+            inBand.addAll(outOfBand);
+            inBand.sort(levelOrder);
+        }
+        return inBand;
+    }
+
+    /**
+     * @return Index of the tick of the supplied price, or -1 if it is outside the band or between two ticks
+     */
+    private int indexOf(BigDecimal price) {
+        int scaleDifference = priceScale - price.scale();
+        if (price.precision() > 18 || Math.abs(scaleDifference) >= POWERS_OF_TEN.length) {
+            return -1;
+        }
+        long unscaledPrice = price.unscaledValue().longValue();
+        long priceUnits;
+        if (scaleDifference >= 0) {
+            priceUnits = unscaledPrice * POWERS_OF_TEN[scaleDifference];
+            if (priceUnits / POWERS_OF_TEN[scaleDifference] != unscaledPrice) {
+                return -1;
+            }
+        } else {
+            if (unscaledPrice % POWERS_OF_TEN[-scaleDifference] != 0) {
+                return -1;
+            }
+            priceUnits = unscaledPrice / POWERS_OF_TEN[-scaleDifference];
+        }
+        long offsetUnits = priceUnits - minPriceUnits;
+        if (offsetUnits < 0 || offsetUnits % tickUnits != 0 || offsetUnits / tickUnits >= levelPrices.length) {
+            return -1;
+        }
+        return (int) (offsetUnits / tickUnits);
+    }
+
+    private Side side(OrderType orderType) {
+        return orderType == OrderType.BUY ? buySide : sellSide;
+    }
+
+    private static long toMicros(double quantity) {
+        return Math.round(quantity * QUANTITY_SCALE);
+    }
+}
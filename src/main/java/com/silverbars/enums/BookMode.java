@@ -0,0 +1,11 @@
+package com.silverbars.enums;
+
+/**
+ * Enum defining how the live quantity per price level is stored, selected with orderboard.book.mode
+ */
+public enum BookMode {
+    /* Levels hashed by price, any price accepted */
+    STRIPED,
+    /* Levels indexed by tick in arrays covering orderboard.book.min-price to orderboard.book.max-price */
+    TICK_LADDER
+}
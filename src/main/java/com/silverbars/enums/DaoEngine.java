@@ -0,0 +1,13 @@
+package com.silverbars.enums;
+
+/**
+ * Enum defining where the orders are stored, selected with orderboard.dao.engine
+ */
+public enum DaoEngine {
+    /* On the heap, lost on restart */
+    MAP,
+    /* In a memory-mapped file at orderboard.dao.mapped-file.path, kept across restarts */
+    MAPPED_FILE,
+    /* In the embedded H2 database at orderboard.dao.jdbc.url, written behind an in-memory board, kept across restarts */
+    JDBC
+}
@@ -0,0 +1,9 @@
+package com.silverbars.enums;
+
+/**
+ * Enum defining Types of Operation performed on the Order Board.
+ * Used to admit and limit reads of the board separately from writes to it.
+ */
+public enum OperationType {
+    READ, WRITE
+}
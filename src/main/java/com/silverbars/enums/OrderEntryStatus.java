@@ -0,0 +1,11 @@
+package com.silverbars.enums;
+
+/**
+ * Enum defining the outcomes the Order Entry Gateway acknowledges a request with.
+ * <p>
+ * ACCEPTED requests were applied to the board. INVALID_OPERATION and READ_ONLY mirror the 404 and 503 of the REST API,
+ * MALFORMED requests could not be decoded or carried an invalid value, like the 400 of the REST API, and FAILED requests hit any other error.
+ */
+public enum OrderEntryStatus {
+    ACCEPTED, INVALID_OPERATION, READ_ONLY, MALFORMED, FAILED
+}
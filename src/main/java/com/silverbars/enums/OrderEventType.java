@@ -0,0 +1,8 @@
+package com.silverbars.enums;
+
+/**
+ * Enum defining Types of Order Event recorded in the Order Event Log
+ */
+public enum OrderEventType {
+    REGISTERED, CANCELLED
+}
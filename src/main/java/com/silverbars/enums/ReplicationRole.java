@@ -0,0 +1,11 @@
+package com.silverbars.enums;
+
+/**
+ * Enum defining the Roles an Order Board instance can take in replication.
+ * <p>
+ * STANDALONE and PRIMARY instances accept orders, a PRIMARY also streams its Order Events to followers.
+ * A FOLLOWER applies the events streamed by its primary and only serves reads until it is promoted.
+ */
+public enum ReplicationRole {
+    STANDALONE, PRIMARY, FOLLOWER
+}
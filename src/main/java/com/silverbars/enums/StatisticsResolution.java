@@ -0,0 +1,24 @@
+package com.silverbars.enums;
+
+/**
+ * Enum defining the Resolutions of the Board Statistics, with the width of a bucket and the number of buckets kept
+ */
+public enum StatisticsResolution {
+    SECOND(1_000L, 3_600), MINUTE(60_000L, 1_440);
+
+    private final long bucketMillis;
+    private final int buckets;
+
+    StatisticsResolution(long bucketMillis, int buckets) {
+        this.bucketMillis = bucketMillis;
+        this.buckets = buckets;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+}
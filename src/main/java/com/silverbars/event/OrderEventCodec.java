@@ -0,0 +1,103 @@
+package com.silverbars.event;
+
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary encoding of Order Events.
+ * <p>
+ * Each event is a length-prefixed frame, all numbers big-endian:
+ * <pre>
+ * int    length of the rest of the frame
+ * long   sequence
+ * byte   event type (ordinal of OrderEventType)
+ * long   order id
+ * byte   order type (ordinal of OrderType)
+ * double quantity
+ * int    price scale
+ * byte   length of the price unscaled value, followed by its two's-complement bytes
+ * long   time, epoch seconds (UTC)
+ * int    time, nanoseconds
+ * short  length of the user name, followed by its UTF-8 bytes, or -1 for an order without user
+ * </pre>
+ */
+public final class OrderEventCodec {
+
+    public static final int LENGTH_PREFIX_SIZE = Integer.BYTES;
+
+    private static final OrderEventType[] EVENT_TYPES = OrderEventType.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final short NO_USER = -1;
+    private static final byte[] EMPTY = new byte[0];
+
+    private OrderEventCodec() {
+    }
+
+    /**
+     * Writes the frame encoding the supplied event at the position of the buffer
+     *
+     * @return false if the buffer does not have room for the frame, in which case the buffer is left unchanged
+     */
+    public static boolean encode(OrderEvent orderEvent, ByteBuffer buffer) {
+        byte[] unscaledPrice = orderEvent.getPrice().unscaledValue().toByteArray();
+        byte[] user = orderEvent.getUser() == null ? EMPTY : orderEvent.getUser().getBytes(StandardCharsets.UTF_8);
+        int length = 8 + 1 + 8 + 1 + 8 + 4 + 1 + unscaledPrice.length + 8 + 4 + 2 + user.length;
+        if (buffer.remaining() < LENGTH_PREFIX_SIZE + length) {
+            return false;
+        }
+        Instant time = orderEvent.getTime().toInstant();
+        buffer.putInt(length)
+                .putLong(orderEvent.getSequence())
+                .put((byte) orderEvent.getEventType().ordinal())
+                .putLong(orderEvent.getOrderId())
+                .put((byte) orderEvent.getOrderType().ordinal())
+                .putDouble(orderEvent.getQuantity())
+                .putInt(orderEvent.getPrice().scale())
+                .put((byte) unscaledPrice.length)
+                .put(unscaledPrice)
+                .putLong(time.getEpochSecond())
+                .putInt(time.getNano())
+                .putShort(orderEvent.getUser() == null ? NO_USER : (short) user.length)
+                .put(user);
+        return true;
+    }
+
+    /**
+     * Reads the frame at the position of the buffer
+     *
+     * @return Decoded event, or null if the buffer does not hold a complete frame yet, in which case the buffer is left unchanged
+     */
+    public static OrderEvent decode(ByteBuffer buffer) {
+        if (buffer.remaining() < LENGTH_PREFIX_SIZE || buffer.remaining() < LENGTH_PREFIX_SIZE + buffer.getInt(buffer.position())) {
+            return null;
+        }
+        buffer.getInt();
+        long sequence = buffer.getLong();
+        OrderEventType eventType = EVENT_TYPES[buffer.get()];
+        long orderId = buffer.getLong();
+        OrderType orderType = ORDER_TYPES[buffer.get()];
+        double quantity = buffer.getDouble();
+        int scale = buffer.getInt();
+        byte[] unscaledPrice = new byte[buffer.get() & 0xFF];
+        buffer.get(unscaledPrice);
+        OffsetDateTime time = OffsetDateTime.ofInstant(Instant.ofEpochSecond(buffer.getLong(), buffer.getInt()), ZoneOffset.UTC);
+        short userLength = buffer.getShort();
+        String user = null;
+        if (userLength != NO_USER) {
+            byte[] userBytes = new byte[userLength & 0xFFFF];
+            buffer.get(userBytes);
+            user = new String(userBytes, StandardCharsets.UTF_8);
+        }
+        return new OrderEvent(sequence, eventType, orderId, user, quantity,
+                new BigDecimal(new BigInteger(unscaledPrice), scale), orderType, time);
+    }
+}
@@ -0,0 +1,15 @@
+package com.silverbars.event;
+
+import com.silverbars.bean.OrderEvent;
+
+/**
+ * Listener notified of every event appended to the Order Event Log.
+ * <p>
+ * Listeners are called in sequence order, one event at a time, while the log numbers no other event, so they must be quick and must not call back into the log.
+ * A follower starting from the snapshot of its primary notifies the registrations of the live orders of the snapshot first,
+ * all numbered with the sequence of the snapshot.
+ */
+public interface OrderEventListener {
+
+    void onOrderEvent(OrderEvent orderEvent);
+}
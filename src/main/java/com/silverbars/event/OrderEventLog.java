@@ -0,0 +1,310 @@
+package com.silverbars.event;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.enums.OrderEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Append-only, in memory log of the Order Events of this Order Board, numbered from 1 without gaps.
+ * Only the last orderboard.events.retention events are held, so the heap it takes stays flat however many orders go through the board.
+ * <p>
+ * The log is the source of the changes: an event is numbered first, then that same immutable event is applied to the
+ * Order Dao and stored, so the board is derived from the events and never the reverse.
+ * Only the numbering of the events, their storage and the listeners are serialized, events are applied to the Order Dao
+ * outside that critical section. Registrations create distinct orders and commute, so they are applied concurrently under
+ * the shared side of a read-write lock and stored in sequence order. Cancellations take the exclusive side: every
+ * registration they could see is recorded by then, so an order is always cancelled after it was registered.
+ * Replaying the events in sequence therefore rebuilds the board.
+ * <p>
+ * Events are stored in a ring indexed by sequence, and the last sequence is published through a volatile field once
+ * an event is stored, so readers tailing the log (replication, history) never take the lock. A reader checks the sequence
+ * of the event it found, an event overwritten meanwhile is reported as no longer held.
+ * <p>
+ * The log starts empty with every process: orders a persistent engine restored are on the board but have no event.
+ * Readers that need the board before the first event held (followers, history, downstream systems) start from a
+ * {@link OrderEventSnapshot} of the Order Dao taken with {@link #snapshot}, then read the events following it.
+ */
+@Component
+public class OrderEventLog {
+
+    public static final int DEFAULT_RETENTION = 1 << 17;
+
+    private final OrderEvent[] events;
+    private final int mask;
+    private volatile long lastSequence;
+
+    /**
+     * Sequence the log starts after, that of the snapshot a follower started from
+     */
+    private volatile long baseSequence;
+
+    /**
+     * Sequence of the last event numbered, ahead of the last sequence while registrations are being applied
+     */
+    private long reservedSequence;
+
+    private final List<OrderEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Shared by the changes that commute with each other, exclusive for the others and for reads of the whole board
+     */
+    private final ReentrantReadWriteLock changeLock = new ReentrantReadWriteLock();
+
+    /**
+     * Serializes the numbering of the events, their storage and the listeners
+     */
+    private final Object sequenceLock = new Object();
+
+    public OrderEventLog() {
+        this(DEFAULT_RETENTION);
+    }
+
+    /**
+     * @param retention Number of events held at least, rounded up to a power of two
+     */
+    @Autowired
+    public OrderEventLog(@Value("${orderboard.events.retention:" + DEFAULT_RETENTION + "}") int retention) {
+        if (retention < 1 || retention > 1 << 30) {
+            throw new IllegalArgumentException(String.format("Retention must be between 1 and %s events", 1 << 30));
+        }
+        int capacity = Integer.highestOneBit(retention);
+        this.events = new OrderEvent[capacity < retention ? capacity << 1 : capacity];
+        this.mask = events.length - 1;
+    }
+
+    /**
+     * Creates the event of a change given the sequence it is recorded with, validating the change first
+     */
+    public interface OrderEventFactory<E extends Exception> {
+        OrderEvent create(long sequence) throws E;
+    }
+
+    /**
+     * Numbers the next event, applies it to the Order Dao and records it.
+     * <p>
+     * The factory runs while the event is numbered, so it must be quick: a lookup and the creation of the event.
+     * Once numbered the event is recorded even if the Order Dao fails to apply it, so that the events numbered after it
+     * keep their sequence. An engine accepting a change the factory validated only fails on a fault of its own (I/O, interruption).
+     *
+     * @param eventType Type of the event, registrations are applied concurrently, other changes exclusively
+     * @param factory   Creates the event with the supplied sequence
+     * @param applier   Applies the event to the Order Dao, returning the Order after the change
+     * @return Order returned by the applier
+     * @throws E If thrown by the factory, in which case nothing is recorded
+     */
+    public <E extends Exception> Order append(OrderEventType eventType, OrderEventFactory<E> factory, Function<OrderEvent, Order> applier) throws E {
+        Lock lock = eventType == OrderEventType.REGISTERED ? changeLock.readLock() : changeLock.writeLock();
+        lock.lock();
+        try {
+            OrderEvent orderEvent;
+            synchronized (sequenceLock) {
+                orderEvent = factory.create(reservedSequence + 1);
+                if (orderEvent.getSequence() != reservedSequence + 1 || orderEvent.getEventType() != eventType) {
+                    throw new IllegalArgumentException(String.format("Expected %s Order Event [%s] but created %s", eventType, reservedSequence + 1, orderEvent));
+                }
+                reservedSequence = orderEvent.getSequence();
+            }
+            try {
+                return applier.apply(orderEvent);
+            } finally {
+                storeInSequence(orderEvent);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies and records an event received from another Order Board, keeping its sequence
+     *
+     * @param orderEvent Event to record, must be the next event of this log
+     * @param applier    Applies the event to the Order Dao
+     * @throws IllegalStateException If the event is not the next one, which means events were lost or duplicated
+     */
+    public void appendReplicated(OrderEvent orderEvent, Consumer<OrderEvent> applier) {
+        changeLock.writeLock().lock();
+        try {
+            if (orderEvent.getSequence() != lastSequence + 1) {
+                throw new IllegalStateException(String.format("Expected Order Event [%s] but received [%s]", lastSequence + 1, orderEvent.getSequence()));
+            }
+            applier.accept(orderEvent);
+            synchronized (sequenceLock) {
+                reservedSequence = orderEvent.getSequence();
+                store(orderEvent);
+            }
+        } finally {
+            changeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts an empty log from the snapshot of the primary this follower replicates, applying its registrations.
+     * The listeners are notified of the registrations, all numbered with the sequence of the snapshot.
+     *
+     * @param snapshot Snapshot of the board of the primary
+     * @param applier  Applies a registration to the Order Dao
+     * @throws IllegalStateException If an event was recorded already
+     */
+    public void restore(OrderEventSnapshot snapshot, Consumer<OrderEvent> applier) {
+        changeLock.writeLock().lock();
+        try {
+            if (reservedSequence != 0) {
+                throw new IllegalStateException(String.format("Unable to restore a snapshot at Order Event [%s] after Order Event [%s]",
+                        snapshot.getSequence(), reservedSequence));
+            }
+            for (OrderEvent orderEvent : snapshot.getRegistrations()) {
+                applier.accept(orderEvent);
+            }
+            synchronized (sequenceLock) {
+                reservedSequence = snapshot.getSequence();
+                baseSequence = snapshot.getSequence();
+                lastSequence = snapshot.getSequence();
+                for (OrderEvent orderEvent : snapshot.getRegistrations()) {
+                    for (OrderEventListener listener : listeners) {
+                        listener.onOrderEvent(orderEvent);
+                    }
+                }
+            }
+        } finally {
+            changeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Takes a snapshot of the board while no event can be appended
+     *
+     * @param liveOrders Supplies the live orders of the Order Dao in order id order, such as OrderDao::forEachLiveOrder
+     * @return Live orders right after the last event
+     */
+    public OrderEventSnapshot snapshot(Consumer<Consumer<Order>> liveOrders) {
+        return readAtLastSequence(sequence -> {
+            List<OrderEvent> registrations = new ArrayList<>();
+            liveOrders.accept(order -> registrations.add(new OrderEvent(sequence, OrderEventType.REGISTERED, order.getOrderId(), order.getUser(),
+                    order.getQuantity(), order.getPrice(), order.getOrderType(), order.getLatestOrderAudit().getAddTime())));
+            return new OrderEventSnapshot(sequence, registrations);
+        });
+    }
+
+    /**
+     * Runs the supplied read while no event can be appended, so that it sees the board exactly as of the last event
+     *
+     * @param read Read, given the sequence of the last event
+     * @return Outcome of the read
+     */
+    public <T> T readAtLastSequence(LongFunction<T> read) {
+        changeLock.writeLock().lock();
+        try {
+            return read.apply(lastSequence);
+        } finally {
+            changeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A read of the Order Dao made between two calls returning the same sequence saw the board exactly as of that event,
+     * without holding back any change
+     *
+     * @return Sequence of the last event if no change is in progress, -1 otherwise
+     */
+    public long getQuiescentSequence() {
+        long sequence = lastSequence;
+        return changeLock.getReadLockCount() == 0 && !changeLock.isWriteLocked() ? sequence : -1;
+    }
+
+    /**
+     * Waits for the events numbered before the supplied one, registrations applied concurrently finishing in any order
+     */
+    private void storeInSequence(OrderEvent orderEvent) {
+        boolean interrupted = false;
+        synchronized (sequenceLock) {
+            while (lastSequence != orderEvent.getSequence() - 1) {
+                try {
+                    sequenceLock.wait();
+                } catch (InterruptedException e) {
+                    /* The events numbered after this one wait for it, it is stored regardless */
+                    interrupted = true;
+                }
+            }
+            store(orderEvent);
+            sequenceLock.notifyAll();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void store(OrderEvent orderEvent) {
+        events[(int) (orderEvent.getSequence() & mask)] = orderEvent;
+        lastSequence = orderEvent.getSequence();
+
+        for (OrderEventListener listener : listeners) {
+            listener.onOrderEvent(orderEvent);
+        }
+    }
+
+    /**
+     * @return Sequence of the last event recorded, 0 if the log is empty
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return Sequence of the first event still held, {@link #getLastSequence()} + 1 if there is none
+     */
+    public long getFirstSequence() {
+        long sequence = lastSequence;
+        return Math.max(baseSequence + 1, sequence - events.length + 1);
+    }
+
+    /**
+     * @param sequence Sequence between {@link #getFirstSequence()} and {@link #getLastSequence()}
+     * @return Event with the supplied sequence
+     * @throws IllegalArgumentException If the event is not recorded yet or no longer held
+     */
+    public OrderEvent getEvent(long sequence) {
+        long last = lastSequence;
+        if (sequence >= Math.max(baseSequence + 1, last - events.length + 1) && sequence <= last) {
+            OrderEvent orderEvent = events[(int) (sequence & mask)];
+            if (orderEvent.getSequence() == sequence) {
+                return orderEvent;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Order Event [%s] is not in the log, it holds events [%s] to [%s]",
+                sequence, getFirstSequence(), lastSequence));
+    }
+
+    /**
+     * @param fromSequence First sequence to return
+     * @param maxEvents    Maximum number of events to return
+     * @return Events from the supplied sequence, or from the first event held if later, in sequence order
+     */
+    public List<OrderEvent> getEvents(long fromSequence, int maxEvents) {
+        long toSequence = Math.min(lastSequence, fromSequence + maxEvents - 1);
+        List<OrderEvent> orderEvents = new ArrayList<>();
+        for (long sequence = Math.max(getFirstSequence(), fromSequence); sequence <= toSequence; sequence++) {
+            orderEvents.add(getEvent(sequence));
+        }
+        return orderEvents;
+    }
+
+    public void addListener(OrderEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(OrderEventListener listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,33 @@
+package com.silverbars.event;
+
+import com.silverbars.bean.OrderEvent;
+
+import java.util.List;
+
+/**
+ * Live orders of the board right after a given Order Event, each as the REGISTERED event of the order numbered with that sequence.
+ * <p>
+ * Consumers that cannot read the events the Order Event Log no longer holds start from a snapshot, then apply the events
+ * following its sequence.
+ */
+public class OrderEventSnapshot {
+
+    private final long sequence;
+    private final List<OrderEvent> registrations;
+
+    public OrderEventSnapshot(long sequence, List<OrderEvent> registrations) {
+        this.sequence = sequence;
+        this.registrations = registrations;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return Registrations of the live orders in order id order
+     */
+    public List<OrderEvent> getRegistrations() {
+        return registrations;
+    }
+}
@@ -0,0 +1,11 @@
+package com.silverbars.exception;
+
+/**
+ * Exception thrown when an operation cannot be queued because too many operations are already waiting
+ */
+public class OrderBoardOverloadedException extends RuntimeException {
+
+    public OrderBoardOverloadedException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,11 @@
+package com.silverbars.exception;
+
+/**
+ * Exception thrown when an order is registered or cancelled on a read-only follower instance
+ */
+public class OrderBoardReadOnlyException extends RuntimeException {
+
+    public OrderBoardReadOnlyException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,44 @@
+package com.silverbars.gateway;
+
+import com.silverbars.enums.OrderEntryStatus;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight over an acknowledgement frame of the Order Entry Codec, for clients of the Order Entry Gateway.
+ * Only valid until the buffer is modified, and not thread safe.
+ */
+public final class OrderEntryAck {
+
+    private static final OrderEntryStatus[] STATUSES = OrderEntryStatus.values();
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * Points this flyweight at the frame at the position of the buffer, and moves the position past the frame
+     *
+     * @return false if the buffer does not hold a complete frame yet, in which case the buffer is left unchanged
+     */
+    public boolean wrap(ByteBuffer buffer) {
+        if (buffer.remaining() < OrderEntryCodec.LENGTH_PREFIX_SIZE + OrderEntryCodec.ACK_LENGTH) {
+            return false;
+        }
+        this.buffer = buffer;
+        this.offset = buffer.position() + OrderEntryCodec.LENGTH_PREFIX_SIZE;
+        buffer.position(offset + OrderEntryCodec.ACK_LENGTH);
+        return true;
+    }
+
+    public long getCorrelationId() {
+        return buffer.getLong(offset);
+    }
+
+    public OrderEntryStatus getStatus() {
+        return STATUSES[buffer.get(offset + 8)];
+    }
+
+    public long getOrderId() {
+        return buffer.getLong(offset + 9);
+    }
+}
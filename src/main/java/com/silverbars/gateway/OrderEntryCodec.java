@@ -0,0 +1,113 @@
+package com.silverbars.gateway;
+
+import com.silverbars.enums.OrderEntryStatus;
+import com.silverbars.enums.OrderType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding of the messages of the Order Entry Gateway.
+ * <p>
+ * Every message is a length-prefixed frame, all numbers big-endian. A request starts with:
+ * <pre>
+ * int    length of the rest of the frame
+ * byte   message type, REGISTER or CANCEL
+ * long   correlation id, chosen by the client and echoed in the acknowledgement
+ * </pre>
+ * followed for REGISTER by:
+ * <pre>
+ * byte   order type (ordinal of OrderType)
+ * double quantity
+ * long   price unscaled value
+ * byte   price scale
+ * short  length of the user name, followed by its UTF-8 bytes
+ * </pre>
+ * and for CANCEL by:
+ * <pre>
+ * long   order id
+ * short  length of the user name, followed by its UTF-8 bytes
+ * </pre>
+ * Every request is answered, in order, with an acknowledgement:
+ * <pre>
+ * int    length of the rest of the frame
+ * long   correlation id of the request
+ * byte   status (ordinal of OrderEntryStatus)
+ * long   id of the registered or cancelled order, 0 unless ACCEPTED
+ * </pre>
+ */
+public final class OrderEntryCodec {
+
+    public static final int LENGTH_PREFIX_SIZE = Integer.BYTES;
+
+    public static final byte REGISTER = 1;
+    public static final byte CANCEL = 2;
+
+    /* Length of the frames without their user name bytes, after the length prefix */
+    static final int REGISTER_LENGTH = 1 + 8 + 1 + 8 + 8 + 1 + 2;
+    static final int CANCEL_LENGTH = 1 + 8 + 8 + 2;
+    static final int ACK_LENGTH = 8 + 1 + 8;
+
+    private OrderEntryCodec() {
+    }
+
+    /**
+     * Writes a REGISTER request at the position of the buffer
+     *
+     * @return false if the buffer does not have room for the frame, in which case the buffer is left unchanged
+     */
+    public static boolean encodeRegister(long correlationId, String user, double quantity, long unscaledPrice, int priceScale,
+                                         OrderType orderType, ByteBuffer buffer) {
+        byte[] userBytes = user.getBytes(StandardCharsets.UTF_8);
+        int length = REGISTER_LENGTH + userBytes.length;
+        if (buffer.remaining() < LENGTH_PREFIX_SIZE + length) {
+            return false;
+        }
+        buffer.putInt(length)
+                .put(REGISTER)
+                .putLong(correlationId)
+                .put((byte) orderType.ordinal())
+                .putDouble(quantity)
+                .putLong(unscaledPrice)
+                .put((byte) priceScale)
+                .putShort((short) userBytes.length)
+                .put(userBytes);
+        return true;
+    }
+
+    /**
+     * Writes a CANCEL request at the position of the buffer
+     *
+     * @return false if the buffer does not have room for the frame, in which case the buffer is left unchanged
+     */
+    public static boolean encodeCancel(long correlationId, long orderId, String user, ByteBuffer buffer) {
+        byte[] userBytes = user.getBytes(StandardCharsets.UTF_8);
+        int length = CANCEL_LENGTH + userBytes.length;
+        if (buffer.remaining() < LENGTH_PREFIX_SIZE + length) {
+            return false;
+        }
+        buffer.putInt(length)
+                .put(CANCEL)
+                .putLong(correlationId)
+                .putLong(orderId)
+                .putShort((short) userBytes.length)
+                .put(userBytes);
+        return true;
+    }
+
+    /**
+     * Writes an acknowledgement at the position of the buffer
+     *
+     * @return false if the buffer does not have room for the frame, in which case the buffer is left unchanged
+     */
+    public static boolean encodeAck(long correlationId, OrderEntryStatus status, long orderId, ByteBuffer buffer) {
+        if (buffer.remaining() < LENGTH_PREFIX_SIZE + ACK_LENGTH) {
+            return false;
+        }
+        buffer.putInt(ACK_LENGTH)
+                .putLong(correlationId)
+                .put((byte) status.ordinal())
+                .putLong(orderId);
+        return true;
+    }
+}
@@ -0,0 +1,46 @@
+package com.silverbars.gateway;
+
+import com.silverbars.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+
+/**
+ * Starts the Order Entry Server next to the REST API, enabled with orderboard.gateway.enabled=true.
+ * <p>
+ * Meant for co-located clients that need lower latency than HTTP and JSON allow. Requests go straight to the
+ * Order Service: the Admission Control and per-user rate limits of the REST API do not apply to them.
+ */
+@Component
+@ConditionalOnProperty(name = "orderboard.gateway.enabled", havingValue = "true")
+public class OrderEntryGateway {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderEntryGateway.class);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Value("${orderboard.gateway.port:55529}")
+    private int port;
+
+    private OrderEntryServer orderEntryServer;
+
+    @PostConstruct
+    public void start() throws IOException {
+        orderEntryServer = new OrderEntryServer(orderService, port);
+        orderEntryServer.start();
+        LOGGER.info("Taking order entry requests on port [{}]", orderEntryServer.getPort());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        orderEntryServer.close();
+    }
+}
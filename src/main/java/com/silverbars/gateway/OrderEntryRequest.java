@@ -0,0 +1,132 @@
+package com.silverbars.gateway;
+
+import com.silverbars.enums.OrderType;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flyweight over a request frame of the Order Entry Codec.
+ * <p>
+ * A single instance is pointed at each frame in turn and reads its fields straight from the buffer, so decoding
+ * a request allocates nothing but the price. The user name of the previous request is kept and reused when
+ * the next one carries the same bytes, which is the common case of a connection trading for one user.
+ * Only valid until the buffer is modified, and not thread safe.
+ */
+public final class OrderEntryRequest {
+
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    private byte[] userBytes = new byte[64];
+    private int userLength = -1;
+    private String user;
+
+    /**
+     * Points this flyweight at the frame at the position of the buffer, and moves the position past the frame
+     *
+     * @return false if the buffer does not hold a complete frame yet, in which case the buffer is left unchanged
+     */
+    public boolean wrap(ByteBuffer buffer) {
+        int position = buffer.position();
+        if (buffer.remaining() < OrderEntryCodec.LENGTH_PREFIX_SIZE) {
+            return false;
+        }
+        int frameLength = buffer.getInt(position);
+        if (frameLength < 0 || buffer.remaining() < OrderEntryCodec.LENGTH_PREFIX_SIZE + frameLength) {
+            return false;
+        }
+        this.buffer = buffer;
+        this.offset = position + OrderEntryCodec.LENGTH_PREFIX_SIZE;
+        this.length = frameLength;
+        buffer.position(offset + frameLength);
+        return true;
+    }
+
+    /**
+     * @return true if the frame is a REGISTER or CANCEL request whose length matches its fields
+     */
+    public boolean isValid() {
+        if (length < 1 + 8) {
+            return false;
+        }
+        switch (getMessageType()) {
+            case OrderEntryCodec.REGISTER:
+                return length >= OrderEntryCodec.REGISTER_LENGTH && length == OrderEntryCodec.REGISTER_LENGTH + userLength(offset + 27)
+                        && buffer.get(offset + 9) >= 0 && buffer.get(offset + 9) < ORDER_TYPES.length;
+            case OrderEntryCodec.CANCEL:
+                return length >= OrderEntryCodec.CANCEL_LENGTH && length == OrderEntryCodec.CANCEL_LENGTH + userLength(offset + 17);
+            default:
+                return false;
+        }
+    }
+
+    public byte getMessageType() {
+        return buffer.get(offset);
+    }
+
+    public long getCorrelationId() {
+        return length < 1 + 8 ? 0 : buffer.getLong(offset + 1);
+    }
+
+    /**
+     * REGISTER only
+     */
+    public OrderType getOrderType() {
+        return ORDER_TYPES[buffer.get(offset + 9)];
+    }
+
+    /**
+     * REGISTER only
+     */
+    public double getQuantity() {
+        return buffer.getDouble(offset + 10);
+    }
+
+    /**
+     * REGISTER only
+     */
+    public BigDecimal getPrice() {
+        return BigDecimal.valueOf(buffer.getLong(offset + 18), buffer.get(offset + 26));
+    }
+
+    /**
+     * CANCEL only
+     */
+    public long getOrderId() {
+        return buffer.getLong(offset + 9);
+    }
+
+    public String getUser() {
+        int userOffset = getMessageType() == OrderEntryCodec.REGISTER ? offset + 27 : offset + 17;
+        int newUserLength = userLength(userOffset);
+        if (newUserLength != userLength || !sameUserBytes(userOffset + 2, newUserLength)) {
+            if (newUserLength > userBytes.length) {
+                userBytes = new byte[newUserLength];
+            }
+            for (int i = 0; i < newUserLength; i++) {
+                userBytes[i] = buffer.get(userOffset + 2 + i);
+            }
+            userLength = newUserLength;
+            user = new String(userBytes, 0, newUserLength, StandardCharsets.UTF_8);
+        }
+        return user;
+    }
+
+    private int userLength(int userOffset) {
+        return buffer.getShort(userOffset) & 0xFFFF;
+    }
+
+    private boolean sameUserBytes(int bytesOffset, int bytesLength) {
+        for (int i = 0; i < bytesLength; i++) {
+            if (userBytes[i] != buffer.get(bytesOffset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
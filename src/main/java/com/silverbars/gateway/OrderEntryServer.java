@@ -0,0 +1,218 @@
+package com.silverbars.gateway;
+
+import com.silverbars.bean.Order;
+import com.silverbars.enums.OrderEntryStatus;
+import com.silverbars.exception.OrderBoardInvalidOperationException;
+import com.silverbars.exception.OrderBoardReadOnlyException;
+import com.silverbars.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Takes order registrations and cancellations over persistent TCP connections, using the frames of the Order Entry Codec.
+ * <p>
+ * A single selector thread serves all connections with non-blocking I/O. Each readable connection has its requests
+ * decoded in place by a flyweight, applied through the Order Service and acknowledged in order; the acknowledgements
+ * of all the requests found in one read go back in one write, so a client pipelining requests pays one round trip
+ * for the batch. A client that does not read its acknowledgements stops being read until it does.
+ */
+public class OrderEntryServer implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderEntryServer.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OrderService orderService;
+    private final Selector selector;
+    private final ServerSocketChannel serverSocketChannel;
+    private final Thread selectorThread;
+    private final OrderEntryRequest request = new OrderEntryRequest();
+    private volatile boolean running = true;
+
+    /**
+     * Connection state of one client
+     */
+    private static class Connection {
+        private final ByteBuffer input = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final ByteBuffer output = (ByteBuffer) ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+        /* Requests were left in the input buffer because the output buffer was full */
+        private boolean backlog;
+    }
+
+    public OrderEntryServer(OrderService orderService, int port) throws IOException {
+        this.orderService = orderService;
+        this.selector = Selector.open();
+        this.serverSocketChannel = ServerSocketChannel.open();
+        this.serverSocketChannel.bind(new InetSocketAddress(port));
+        this.serverSocketChannel.configureBlocking(false);
+        this.serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.selectorThread = new Thread(this::run, "order-entry-server");
+        this.selectorThread.setDaemon(true);
+    }
+
+    public void start() {
+        selectorThread.start();
+    }
+
+    public int getPort() {
+        return serverSocketChannel.socket().getLocalPort();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        write(key);
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        read(key);
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.error("Order entry server failure", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel socketChannel = serverSocketChannel.accept();
+        if (socketChannel != null) {
+            socketChannel.configureBlocking(false);
+            socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            socketChannel.register(selector, SelectionKey.OP_READ, new Connection());
+            LOGGER.info("Order entry client connected from {}", socketChannel.getRemoteAddress());
+        }
+    }
+
+    private void read(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel socketChannel = (SocketChannel) key.channel();
+        try {
+            if (socketChannel.read(connection.input) < 0) {
+                disconnect(key, "Order entry client disconnected");
+                return;
+            }
+            process(key, connection);
+        } catch (IOException e) {
+            disconnect(key, "Order entry connection failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles the complete requests in the input buffer, as long as their acknowledgements fit in the output buffer
+     */
+    private void process(SelectionKey key, Connection connection) throws IOException {
+        ByteBuffer input = connection.input;
+        ByteBuffer output = connection.output;
+        input.flip();
+        output.compact();
+        try {
+            while (output.remaining() >= OrderEntryCodec.LENGTH_PREFIX_SIZE + OrderEntryCodec.ACK_LENGTH && request.wrap(input)) {
+                handle(output);
+            }
+            connection.backlog = input.hasRemaining() && output.remaining() < OrderEntryCodec.LENGTH_PREFIX_SIZE + OrderEntryCodec.ACK_LENGTH;
+        } finally {
+            output.flip();
+            input.compact();
+        }
+        if (input.position() == input.capacity() && !connection.backlog) {
+            disconnect(key, String.format("Order entry request longer than [%s] bytes", input.capacity()));
+            return;
+        }
+        write(key);
+    }
+
+    private void handle(ByteBuffer output) {
+        long correlationId = request.getCorrelationId();
+        if (!request.isValid()) {
+            OrderEntryCodec.encodeAck(correlationId, OrderEntryStatus.MALFORMED, 0, output);
+            return;
+        }
+        OrderEntryStatus status;
+        long orderId = 0;
+        try {
+            Order order = request.getMessageType() == OrderEntryCodec.REGISTER
+                    ? orderService.registerOrder(request.getUser(), request.getQuantity(), request.getPrice(), request.getOrderType())
+                    : orderService.cancelOrder(request.getOrderId(), request.getUser());
+            status = OrderEntryStatus.ACCEPTED;
+            orderId = order.getOrderId();
+        } catch (OrderBoardInvalidOperationException e) {
+            status = OrderEntryStatus.INVALID_OPERATION;
+        } catch (OrderBoardReadOnlyException e) {
+            status = OrderEntryStatus.READ_ONLY;
+        } catch (IllegalArgumentException e) {
+            status = OrderEntryStatus.MALFORMED;
+        } catch (Exception e) {
+            LOGGER.error("Unable to handle order entry request [{}]", correlationId, e);
+            status = OrderEntryStatus.FAILED;
+        }
+        OrderEntryCodec.encodeAck(correlationId, status, orderId, output);
+    }
+
+    /**
+     * Writes the pending acknowledgements, and only keeps reading requests from the client once they are all written
+     */
+    private void write(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel socketChannel = (SocketChannel) key.channel();
+        try {
+            socketChannel.write(connection.output);
+            if (connection.output.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+                if (connection.backlog) {
+                    process(key, connection);
+                }
+            }
+        } catch (IOException e) {
+            disconnect(key, "Order entry connection failed: " + e.getMessage());
+        }
+    }
+
+    private void disconnect(SelectionKey key, String reason) {
+        LOGGER.warn(reason);
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to close order entry connection", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+}
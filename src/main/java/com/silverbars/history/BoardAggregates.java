@@ -0,0 +1,88 @@
+package com.silverbars.history;
+
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Live quantity and number of live orders per price level of each side of the board, maintained from Order Events.
+ * <p>
+ * Levels are keyed by price exactly like the Order Dao aggregates them, and a level is dropped once its last
+ * live order is cancelled. Not thread safe, instances are either confined to one thread or never modified.
+ */
+public class BoardAggregates {
+
+    private final Map<BigDecimal, PriceLevel> priceToBuyLevelMap;
+    private final Map<BigDecimal, PriceLevel> priceToSellLevelMap;
+
+    private static class PriceLevel {
+        private double quantity;
+        private int orders;
+
+        private PriceLevel(double quantity, int orders) {
+            this.quantity = quantity;
+            this.orders = orders;
+        }
+    }
+
+    public BoardAggregates() {
+        this.priceToBuyLevelMap = new HashMap<>();
+        this.priceToSellLevelMap = new HashMap<>();
+    }
+
+    private BoardAggregates(BoardAggregates boardAggregates) {
+        this.priceToBuyLevelMap = copy(boardAggregates.priceToBuyLevelMap);
+        this.priceToSellLevelMap = copy(boardAggregates.priceToSellLevelMap);
+    }
+
+    private static Map<BigDecimal, PriceLevel> copy(Map<BigDecimal, PriceLevel> priceToLevelMap) {
+        Map<BigDecimal, PriceLevel> copy = new HashMap<>(priceToLevelMap.size() * 2);
+        priceToLevelMap.forEach((price, level) -> copy.put(price, new PriceLevel(level.quantity, level.orders)));
+        return copy;
+    }
+
+    /**
+     * @return Independent copy of these aggregates
+     */
+    public BoardAggregates copy() {
+        return new BoardAggregates(this);
+    }
+
+    public void apply(OrderEvent orderEvent) {
+        Map<BigDecimal, PriceLevel> priceToLevelMap = orderEvent.getOrderType() == OrderType.BUY ? priceToBuyLevelMap : priceToSellLevelMap;
+        if (orderEvent.getEventType() == OrderEventType.REGISTERED) {
+            PriceLevel level = priceToLevelMap.computeIfAbsent(orderEvent.getPrice(), price -> new PriceLevel(0, 0));
+            level.quantity += orderEvent.getQuantity();
+            level.orders++;
+        } else {
+            PriceLevel level = priceToLevelMap.get(orderEvent.getPrice());
+            if (--level.orders == 0) {
+                priceToLevelMap.remove(orderEvent.getPrice());
+            } else {
+                level.quantity -= orderEvent.getQuantity();
+            }
+        }
+    }
+
+    /**
+     * @return Order Summaries of the aggregated levels, BUY levels by descending price and SELL levels by ascending price
+     */
+    public OrderSummaryHolder toOrderSummaryHolder() {
+        OrderSummaryHolder orderSummaryHolder = new OrderSummaryHolder();
+        orderSummaryHolder.addBuyOrderSummaries(priceToBuyLevelMap.entrySet().stream()
+                .map(entry -> new OrderSummary(entry.getValue().quantity, entry.getKey(), OrderType.BUY))
+                .sorted(Comparator.comparing(OrderSummary::getPrice, Comparator.reverseOrder())).collect(Collectors.toList()));
+        orderSummaryHolder.addSellOrderSummaries(priceToSellLevelMap.entrySet().stream()
+                .map(entry -> new OrderSummary(entry.getValue().quantity, entry.getKey(), OrderType.SELL))
+                .sorted(Comparator.comparing(OrderSummary::getPrice)).collect(Collectors.toList()));
+        return orderSummaryHolder;
+    }
+}
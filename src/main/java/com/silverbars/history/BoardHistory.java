@@ -0,0 +1,201 @@
+package com.silverbars.history;
+
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.dao.OrderDao;
+import com.silverbars.event.OrderEventLog;
+import com.silverbars.event.OrderEventSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Reconstructs the board as it was after a given Order Event or at a given time.
+ * <p>
+ * A scheduled task tails the Order Event Log off the write path, maintains the board aggregates and keeps a copy of them
+ * every orderboard.history.checkpoint-interval events. A historical query starts from the last checkpoint at or before
+ * the requested event and replays at most one interval of events on a private copy, so it costs milliseconds
+ * whatever the length of the history, and never locks anything the live board uses.
+ * <p>
+ * The history starts from a snapshot of the Order Dao taken when the board starts, and only goes back as far as the events
+ * the Order Event Log holds: checkpoints older than its first event are dropped, and a sequence or a time before the first
+ * checkpoint is rejected. A tailing task that falls behind the log starts over from a new snapshot.
+ * <p>
+ * At most orderboard.history.max-checkpoints checkpoints are kept. Once there are more, every other one is dropped and
+ * checkpoints are taken half as often, so a query replays more events but the heap they take stays bounded.
+ */
+@Component
+public class BoardHistory {
+
+    public static final int DEFAULT_MAX_CHECKPOINTS = 64;
+
+    private final OrderEventLog orderEventLog;
+    private final OrderDao orderDao;
+    private final int checkpointInterval;
+    private final int maxCheckpoints;
+
+    /* Keyed by sequence, starting with the board of the snapshot the history starts from */
+    private volatile ConcurrentNavigableMap<Long, Checkpoint> checkpoints;
+
+    /* Only used by the tailing task */
+    private BoardAggregates tailAggregates;
+    private long tailSequence;
+    private long checkpointSpacing;
+
+    private static class Checkpoint {
+        private final long sequence;
+        private final OffsetDateTime time;
+        private final BoardAggregates boardAggregates;
+
+        private Checkpoint(long sequence, OffsetDateTime time, BoardAggregates boardAggregates) {
+            this.sequence = sequence;
+            this.time = time;
+            this.boardAggregates = boardAggregates;
+        }
+    }
+
+    public BoardHistory(OrderEventLog orderEventLog, OrderDao orderDao, int checkpointInterval) {
+        this(orderEventLog, orderDao, checkpointInterval, DEFAULT_MAX_CHECKPOINTS);
+    }
+
+    @Autowired
+    public BoardHistory(OrderEventLog orderEventLog, OrderDao orderDao, @Value("${orderboard.history.checkpoint-interval:10000}") int checkpointInterval,
+                        @Value("${orderboard.history.max-checkpoints:" + DEFAULT_MAX_CHECKPOINTS + "}") int maxCheckpoints) {
+        if (checkpointInterval < 1 || maxCheckpoints < 2) {
+            throw new IllegalArgumentException(String.format("Checkpoint interval [%s] must be at least 1 and max checkpoints [%s] at least 2",
+                    checkpointInterval, maxCheckpoints));
+        }
+        this.orderEventLog = orderEventLog;
+        this.orderDao = orderDao;
+        this.checkpointInterval = checkpointInterval;
+        this.maxCheckpoints = maxCheckpoints;
+        startFromSnapshot();
+    }
+
+    /**
+     * Applies the events appended since the last run and takes the checkpoints that fall due
+     */
+    @Scheduled(fixedDelayString = "${orderboard.history.tail-delay-ms:100}")
+    public synchronized void tail() {
+        if (tailSequence < orderEventLog.getFirstSequence() - 1) {
+            startFromSnapshot();
+        }
+        long lastSequence = orderEventLog.getLastSequence();
+        while (tailSequence < lastSequence) {
+            /* Counted once applied: an event no longer held fails the run, and the next one starts from a snapshot */
+            OrderEvent orderEvent = orderEventLog.getEvent(tailSequence + 1);
+            tailAggregates.apply(orderEvent);
+            tailSequence++;
+            if (tailSequence % checkpointSpacing == 0) {
+                checkpoints.put(tailSequence, new Checkpoint(tailSequence, orderEvent.getTime(), tailAggregates.copy()));
+                if (checkpoints.size() > maxCheckpoints) {
+                    thinCheckpoints();
+                }
+            }
+        }
+        /* A checkpoint is replayed from the event following it */
+        while (checkpoints.size() > 1 && checkpoints.firstKey() < orderEventLog.getFirstSequence() - 1) {
+            checkpoints.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Doubles the spacing of the checkpoints, keeping the first one, which the history starts from
+     */
+    private void thinCheckpoints() {
+        checkpointSpacing *= 2;
+        Iterator<Long> sequences = checkpoints.keySet().iterator();
+        sequences.next();
+        while (sequences.hasNext()) {
+            if (sequences.next() % checkpointSpacing != 0) {
+                sequences.remove();
+            }
+        }
+    }
+
+    private void startFromSnapshot() {
+        /* Taken before the snapshot, so that no event after it is timed before the history starts */
+        OffsetDateTime time = OffsetDateTime.now(ZoneOffset.UTC);
+        OrderEventSnapshot snapshot = orderEventLog.snapshot(orderDao::forEachLiveOrder);
+        BoardAggregates boardAggregates = new BoardAggregates();
+        for (OrderEvent orderEvent : snapshot.getRegistrations()) {
+            boardAggregates.apply(orderEvent);
+        }
+        tailAggregates = boardAggregates;
+        tailSequence = snapshot.getSequence();
+        checkpointSpacing = checkpointInterval;
+        ConcurrentNavigableMap<Long, Checkpoint> checkpoints = new ConcurrentSkipListMap<>();
+        checkpoints.put(tailSequence, new Checkpoint(tailSequence, time, boardAggregates.copy()));
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * @param sequence Sequence of an Order Event, or that of the snapshot the history starts from for the board before its first event
+     * @return Board as it was right after the supplied event
+     * @throws IllegalArgumentException If no event with the supplied sequence has been recorded yet, or the history does not go back to it
+     */
+    public OrderSummaryHolder getLiveOrdersAsOf(long sequence) {
+        long lastSequence = orderEventLog.getLastSequence();
+        ConcurrentNavigableMap<Long, Checkpoint> checkpoints = this.checkpoints;
+        long firstSequence = checkpoints.firstKey();
+        /* The first checkpoint may be dropped by the tailing task in the meantime */
+        Map.Entry<Long, Checkpoint> entry = checkpoints.floorEntry(sequence);
+        if (sequence < firstSequence || sequence > lastSequence || entry == null) {
+            throw new IllegalArgumentException(String.format("Sequence [%s] is outside the Order Event history [%s, %s]",
+                    sequence, firstSequence, lastSequence));
+        }
+        Checkpoint checkpoint = entry.getValue();
+        BoardAggregates boardAggregates = checkpoint.boardAggregates.copy();
+        for (long replaySequence = checkpoint.sequence + 1; replaySequence <= sequence; replaySequence++) {
+            boardAggregates.apply(orderEventLog.getEvent(replaySequence));
+        }
+        return boardAggregates.toOrderSummaryHolder();
+    }
+
+    /**
+     * @param time Point in time
+     * @return Board as it was at the supplied time, including the events recorded at that exact time
+     * @throws IllegalArgumentException If the history does not go back to the supplied time
+     */
+    public OrderSummaryHolder getLiveOrdersAsOf(OffsetDateTime time) {
+        Checkpoint firstCheckpoint = checkpoints.firstEntry().getValue();
+        if (time.isBefore(firstCheckpoint.time)) {
+            throw new IllegalArgumentException(String.format("Time [%s] is before the Order Event history, which starts at [%s]",
+                    time, firstCheckpoint.time));
+        }
+        return getLiveOrdersAsOf(findLastSequenceAt(time, firstCheckpoint.sequence));
+    }
+
+    int getCheckpointCount() {
+        return checkpoints.size();
+    }
+
+    /**
+     * Binary search of the event log, relying on events being recorded in time order.
+     * Registrations running together may be numbered in a different order than they were timed, so the board at a time
+     * within such a burst can include or miss one of its registrations.
+     */
+    private long findLastSequenceAt(OffsetDateTime time, long firstSequence) {
+        long low = firstSequence + 1;
+        long high = orderEventLog.getLastSequence();
+        long found = firstSequence;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            if (orderEventLog.getEvent(middle).getTime().isAfter(time)) {
+                high = middle - 1;
+            } else {
+                found = middle;
+                low = middle + 1;
+            }
+        }
+        return found;
+    }
+}
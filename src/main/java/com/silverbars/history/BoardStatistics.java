@@ -0,0 +1,206 @@
+package com.silverbars.history;
+
+import com.silverbars.bean.BoardStatisticsBucket;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.dao.OrderDao;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.enums.StatisticsResolution;
+import com.silverbars.event.OrderEventListener;
+import com.silverbars.event.OrderEventLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rolling time-bucketed statistics of the board, updated incrementally with every Order Event.
+ * <p>
+ * For each Statistics Resolution the buckets are held in a ring of primitive arrays, one array per statistic,
+ * so recording an event is a few array writes and a query copies the requested buckets without looking at any order.
+ * Buckets are keyed by the time of the events, so a follower computes the same statistics as its primary.
+ * Best bid and ask come from a count of live orders per price, which is all this class keeps of the board itself.
+ */
+@Component
+public class BoardStatistics implements OrderEventListener {
+
+    private final Map<StatisticsResolution, BucketRing> resolutionToRingMap = new EnumMap<>(StatisticsResolution.class);
+
+    private final TreeMap<BigDecimal, Integer> buyPriceToLiveOrdersMap = new TreeMap<>();
+    private final TreeMap<BigDecimal, Integer> sellPriceToLiveOrdersMap = new TreeMap<>();
+    private double buyDepth;
+    private double sellDepth;
+
+    /**
+     * Ring of statistics buckets of one resolution, the bucket at currentIndex covering the most recent events
+     */
+    private static class BucketRing {
+        private final long bucketMillis;
+        private final long[] startMillis;
+        private final double[] registeredBuyQuantity;
+        private final double[] registeredSellQuantity;
+        private final double[] cancelledBuyQuantity;
+        private final double[] cancelledSellQuantity;
+        private final double[] bestBid;
+        private final double[] bestAsk;
+        private final double[] buyDepth;
+        private final double[] sellDepth;
+        private int currentIndex;
+        private long currentStartMillis = Long.MIN_VALUE;
+
+        private BucketRing(StatisticsResolution resolution) {
+            int size = resolution.getBuckets();
+            this.bucketMillis = resolution.getBucketMillis();
+            this.startMillis = new long[size];
+            this.registeredBuyQuantity = new double[size];
+            this.registeredSellQuantity = new double[size];
+            this.cancelledBuyQuantity = new double[size];
+            this.cancelledSellQuantity = new double[size];
+            this.bestBid = new double[size];
+            this.bestAsk = new double[size];
+            this.buyDepth = new double[size];
+            this.sellDepth = new double[size];
+            Arrays.fill(startMillis, Long.MIN_VALUE);
+        }
+
+        /**
+         * Moves to the bucket containing the supplied time. Skipped buckets get no flows and the board state carried forward.
+         * An earlier time than the current bucket is counted in the current bucket.
+         */
+        private void advanceTo(long timeMillis, double currentBestBid, double currentBestAsk, double currentBuyDepth, double currentSellDepth) {
+            long bucketStartMillis = timeMillis - Math.floorMod(timeMillis, bucketMillis);
+            if (bucketStartMillis <= currentStartMillis) {
+                return;
+            }
+            long skippedBuckets = currentStartMillis == Long.MIN_VALUE ? startMillis.length : (bucketStartMillis - currentStartMillis) / bucketMillis;
+            long firstStartMillis = bucketStartMillis - (Math.min(skippedBuckets, startMillis.length) - 1) * bucketMillis;
+            for (long start = firstStartMillis; start <= bucketStartMillis; start += bucketMillis) {
+                currentIndex = (currentIndex + 1) % startMillis.length;
+                startMillis[currentIndex] = start;
+                registeredBuyQuantity[currentIndex] = 0;
+                registeredSellQuantity[currentIndex] = 0;
+                cancelledBuyQuantity[currentIndex] = 0;
+                cancelledSellQuantity[currentIndex] = 0;
+                bestBid[currentIndex] = currentBestBid;
+                bestAsk[currentIndex] = currentBestAsk;
+                buyDepth[currentIndex] = currentBuyDepth;
+                sellDepth[currentIndex] = currentSellDepth;
+            }
+            currentStartMillis = bucketStartMillis;
+        }
+
+        private BoardStatisticsBucket toBucket(int index) {
+            return new BoardStatisticsBucket(OffsetDateTime.ofInstant(Instant.ofEpochMilli(startMillis[index]), ZoneOffset.UTC),
+                    registeredBuyQuantity[index], registeredSellQuantity[index], cancelledBuyQuantity[index], cancelledSellQuantity[index],
+                    Double.isNaN(bestBid[index]) ? null : bestBid[index], Double.isNaN(bestAsk[index]) ? null : bestAsk[index],
+                    buyDepth[index], sellDepth[index]);
+        }
+    }
+
+    /**
+     * Starts from the live orders of the Order Dao, which count in the best bid, ask and depth but in no flow
+     */
+    @Autowired
+    public BoardStatistics(OrderDao orderDao, OrderEventLog orderEventLog) {
+        for (StatisticsResolution resolution : StatisticsResolution.values()) {
+            resolutionToRingMap.put(resolution, new BucketRing(resolution));
+        }
+        /* No event can be appended between the read of the board and the registration of the listener */
+        orderEventLog.readAtLastSequence(sequence -> {
+            orderDao.forEachLiveOrder(order -> {
+                boolean buy = order.getOrderType() == OrderType.BUY;
+                updateLiveOrders(buy ? buyPriceToLiveOrdersMap : sellPriceToLiveOrdersMap, order.getPrice(), 1);
+                if (buy) {
+                    buyDepth += order.getQuantity();
+                } else {
+                    sellDepth += order.getQuantity();
+                }
+            });
+            orderEventLog.addListener(this);
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized void onOrderEvent(OrderEvent orderEvent) {
+        long timeMillis = orderEvent.getTime().toInstant().toEpochMilli();
+        advanceTo(timeMillis);
+
+        boolean buy = orderEvent.getOrderType() == OrderType.BUY;
+        boolean registered = orderEvent.getEventType() == OrderEventType.REGISTERED;
+        double quantity = orderEvent.getQuantity();
+        updateLiveOrders(buy ? buyPriceToLiveOrdersMap : sellPriceToLiveOrdersMap, orderEvent.getPrice(), registered ? 1 : -1);
+        if (buy) {
+            buyDepth += registered ? quantity : -quantity;
+        } else {
+            sellDepth += registered ? quantity : -quantity;
+        }
+
+        double bestBid = bestBid();
+        double bestAsk = bestAsk();
+        for (BucketRing ring : resolutionToRingMap.values()) {
+            int index = ring.currentIndex;
+            double[] flow = registered ? (buy ? ring.registeredBuyQuantity : ring.registeredSellQuantity)
+                    : (buy ? ring.cancelledBuyQuantity : ring.cancelledSellQuantity);
+            flow[index] += quantity;
+            ring.bestBid[index] = bestBid;
+            ring.bestAsk[index] = bestAsk;
+            ring.buyDepth[index] = buyDepth;
+            ring.sellDepth[index] = sellDepth;
+        }
+    }
+
+    /**
+     * @param resolution Resolution of the buckets
+     * @param buckets    Number of most recent buckets to return, up to the number of buckets kept for the resolution
+     * @return Buckets ending with the one covering the current time, oldest first
+     */
+    public List<BoardStatisticsBucket> getStatistics(StatisticsResolution resolution, int buckets) {
+        return getStatistics(resolution, buckets, System.currentTimeMillis());
+    }
+
+    synchronized List<BoardStatisticsBucket> getStatistics(StatisticsResolution resolution, int buckets, long nowMillis) {
+        if (buckets < 1 || buckets > resolution.getBuckets()) {
+            throw new IllegalArgumentException(String.format("Number of buckets must be between 1 and %s", resolution.getBuckets()));
+        }
+        advanceTo(nowMillis);
+        BucketRing ring = resolutionToRingMap.get(resolution);
+        List<BoardStatisticsBucket> result = new ArrayList<>(buckets);
+        for (int offset = buckets - 1; offset >= 0; offset--) {
+            int index = Math.floorMod(ring.currentIndex - offset, ring.startMillis.length);
+            if (ring.startMillis[index] != Long.MIN_VALUE) {
+                result.add(ring.toBucket(index));
+            }
+        }
+        return result;
+    }
+
+    private void advanceTo(long timeMillis) {
+        double bestBid = bestBid();
+        double bestAsk = bestAsk();
+        for (BucketRing ring : resolutionToRingMap.values()) {
+            ring.advanceTo(timeMillis, bestBid, bestAsk, buyDepth, sellDepth);
+        }
+    }
+
+    private static void updateLiveOrders(TreeMap<BigDecimal, Integer> priceToLiveOrdersMap, BigDecimal price, int change) {
+        priceToLiveOrdersMap.merge(price, change, (current, delta) -> current + delta == 0 ? null : current + delta);
+    }
+
+    private double bestBid() {
+        return buyPriceToLiveOrdersMap.isEmpty() ? Double.NaN : buyPriceToLiveOrdersMap.lastKey().doubleValue();
+    }
+
+    private double bestAsk() {
+        return sellPriceToLiveOrdersMap.isEmpty() ? Double.NaN : sellPriceToLiveOrdersMap.firstKey().doubleValue();
+    }
+}
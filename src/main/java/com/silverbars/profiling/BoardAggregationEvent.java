@@ -0,0 +1,25 @@
+package com.silverbars.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering the aggregation of the live board into Order Summaries
+ */
+@Name("com.silverbars.BoardAggregation")
+@Label("Board Aggregation")
+@Category({"Order Board", "Reads"})
+@Description("Summary of the live orders per price level, as returned by GET /order")
+@StackTrace(false)
+public class BoardAggregationEvent extends Event {
+
+    @Label("Buy Levels")
+    public int buyLevels;
+
+    @Label("Sell Levels")
+    public int sellLevels;
+}
@@ -0,0 +1,32 @@
+package com.silverbars.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event covering the cancellation of an order by the Order Service
+ */
+@Name("com.silverbars.CancelOrder")
+@Label("Cancel Order")
+@Category({"Order Board", "Writes"})
+@Description("Cancellation of an order, from the Order Service call until the order is off the board and in the Order Event Log")
+@StackTrace(false)
+public class CancelOrderEvent extends Event {
+
+    @Label("Order Id")
+    public long orderId;
+
+    @Label("Lock Wait")
+    @Description("Time spent waiting for the Order Event Log, which runs a cancellation alone")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lockWait;
+
+    @Label("Events")
+    @Description("Number of Order Events recorded so far, this cancellation included")
+    public long events;
+}
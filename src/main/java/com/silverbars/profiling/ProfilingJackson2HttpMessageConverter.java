@@ -0,0 +1,38 @@
+package com.silverbars.profiling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderSummaryHolder;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Jackson message converter recording a Serialization Event for every response body it writes
+ */
+public class ProfilingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public ProfilingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+        SerializationEvent event = new SerializationEvent();
+        event.begin();
+        super.writeInternal(object, type, outputMessage);
+        if (event.shouldCommit()) {
+            event.type = object.getClass().getSimpleName();
+            if (object instanceof OrderSummaryHolder) {
+                OrderSummaryHolder orderSummaryHolder = (OrderSummaryHolder) object;
+                event.levels = orderSummaryHolder.getBuyOrderSummary().size() + orderSummaryHolder.getSellOrderSummary().size();
+            } else if (object instanceof Order) {
+                event.orders = 1;
+            }
+            event.commit();
+        }
+    }
+}
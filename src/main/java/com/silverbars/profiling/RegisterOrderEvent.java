@@ -0,0 +1,35 @@
+package com.silverbars.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event covering the registration of an order by the Order Service
+ */
+@Name("com.silverbars.RegisterOrder")
+@Label("Register Order")
+@Category({"Order Board", "Writes"})
+@Description("Registration of an order, from the Order Service call until the order is on the board and in the Order Event Log")
+@StackTrace(false)
+public class RegisterOrderEvent extends Event {
+
+    @Label("Order Id")
+    public long orderId;
+
+    @Label("Order Type")
+    public String orderType;
+
+    @Label("Lock Wait")
+    @Description("Time spent waiting for the Order Event Log, which runs registrations together but not alongside a cancellation")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lockWait;
+
+    @Label("Events")
+    @Description("Number of Order Events recorded so far, this registration included")
+    public long events;
+}
@@ -0,0 +1,30 @@
+package com.silverbars.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering the JSON serialization of a response body
+ */
+@Name("com.silverbars.Serialization")
+@Label("Response Serialization")
+@Category({"Order Board", "Web"})
+@Description("Jackson serialization of a response body, written straight to the response")
+@StackTrace(false)
+public class SerializationEvent extends Event {
+
+    @Label("Type")
+    public String type;
+
+    @Label("Levels")
+    @Description("Number of price levels in the body, for Order Summaries")
+    public int levels;
+
+    @Label("Orders")
+    @Description("Number of orders in the body")
+    public int orders;
+}
@@ -0,0 +1,151 @@
+package com.silverbars.replication;
+
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.event.OrderEventCodec;
+import com.silverbars.event.OrderEventSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Receives the Order Events streamed by the primary and applies them on a follower.
+ * <p>
+ * On every (re)connection the client asks for the event following the last one it applied, so a dropped
+ * connection or a rejected event never leaves a gap: the stream simply resumes from where the follower is.
+ * A follower that applied nothing yet asks for a snapshot of the board of the primary, applied as a whole once received.
+ */
+public class ReplicationClient implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationClient.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InetSocketAddress primaryAddress;
+    private final LongSupplier lastAppliedSequence;
+    private final Consumer<OrderEvent> applier;
+    private final Consumer<OrderEventSnapshot> snapshotApplier;
+    private final long reconnectDelayMillis;
+    private final Thread receiverThread;
+    private volatile SocketChannel socketChannel;
+    private volatile boolean running = true;
+
+    /**
+     * @param primaryAddress       Address of the Replication Server of the primary
+     * @param lastAppliedSequence  Supplies the sequence of the last event applied on this follower
+     * @param applier              Applies an event on this follower
+     * @param snapshotApplier      Starts this follower from a snapshot of the board of the primary
+     * @param reconnectDelayMillis Delay before reconnecting after the connection to the primary is lost
+     */
+    public ReplicationClient(InetSocketAddress primaryAddress, LongSupplier lastAppliedSequence, Consumer<OrderEvent> applier,
+                             Consumer<OrderEventSnapshot> snapshotApplier, long reconnectDelayMillis) {
+        this.primaryAddress = primaryAddress;
+        this.lastAppliedSequence = lastAppliedSequence;
+        this.applier = applier;
+        this.snapshotApplier = snapshotApplier;
+        this.reconnectDelayMillis = reconnectDelayMillis;
+        this.receiverThread = new Thread(this::run, "replication-client");
+        this.receiverThread.setDaemon(true);
+    }
+
+    public void start() {
+        receiverThread.start();
+    }
+
+    private void run() {
+        while (running) {
+            try (SocketChannel channel = SocketChannel.open(primaryAddress)) {
+                socketChannel = channel;
+                long lastSequence = lastAppliedSequence.getAsLong();
+                long nextSequence = lastSequence == 0 ? ReplicationServer.SNAPSHOT_REQUEST : lastSequence + 1;
+                ByteBuffer handshake = ByteBuffer.allocate(Long.BYTES).putLong(nextSequence);
+                handshake.flip();
+                while (handshake.hasRemaining()) {
+                    channel.write(handshake);
+                }
+                LOGGER.info("Receiving Order Events from [{}] from primary {}", nextSequence, primaryAddress);
+                receive(channel, nextSequence == ReplicationServer.SNAPSHOT_REQUEST);
+            } catch (IOException | RuntimeException e) {
+                if (running) {
+                    LOGGER.warn("Replication from primary {} interrupted: {}", primaryAddress, e.getMessage());
+                }
+            }
+            if (running) {
+                pauseBeforeReconnecting();
+            }
+        }
+    }
+
+    private void receive(SocketChannel channel, boolean snapshotRequested) throws IOException {
+        ByteBuffer input = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        boolean receivingSnapshot = snapshotRequested;
+        long snapshotSequence = 0;
+        int snapshotOrders = 0;
+        List<OrderEvent> registrations = null;
+        while (running && channel.read(input) >= 0) {
+            input.flip();
+            if (receivingSnapshot && registrations == null && input.remaining() >= ReplicationServer.SNAPSHOT_HEADER_SIZE) {
+                snapshotSequence = input.getLong();
+                snapshotOrders = input.getInt();
+                registrations = new ArrayList<>(snapshotOrders);
+            }
+            while (receivingSnapshot && registrations != null) {
+                if (registrations.size() == snapshotOrders) {
+                    snapshotApplier.accept(new OrderEventSnapshot(snapshotSequence, registrations));
+                    LOGGER.info("Started from a snapshot of [{}] live orders at Order Event [{}]", snapshotOrders, snapshotSequence);
+                    receivingSnapshot = false;
+                } else {
+                    OrderEvent registration = OrderEventCodec.decode(input);
+                    if (registration == null) {
+                        break;
+                    }
+                    registrations.add(registration);
+                }
+            }
+            OrderEvent orderEvent;
+            while (!receivingSnapshot && (orderEvent = OrderEventCodec.decode(input)) != null) {
+                applier.accept(orderEvent);
+            }
+            input.compact();
+            if (!input.hasRemaining()) {
+                throw new IllegalStateException("Order Event frame larger than the replication buffer");
+            }
+        }
+    }
+
+    private void pauseBeforeReconnecting() {
+        try {
+            Thread.sleep(reconnectDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    /**
+     * Stops receiving events. An event being applied is completed before this method returns, so the follower
+     * holds a gap-free prefix of the event log of its primary and can be promoted straight after.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        receiverThread.interrupt();
+        SocketChannel channel = socketChannel;
+        if (channel != null) {
+            channel.close();
+        }
+        try {
+            receiverThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.silverbars.replication;
+
+import com.silverbars.dao.OrderDao;
+import com.silverbars.enums.ReplicationRole;
+import com.silverbars.event.OrderEventLog;
+import com.silverbars.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Starts the Replication Server on a primary or the Replication Client on a follower, and promotes a follower to primary.
+ * <p>
+ * Configured in application.properties with orderboard.replication.role, orderboard.replication.port (port the primary
+ * streams events on) and orderboard.replication.primary-host / orderboard.replication.primary-port (where a follower connects).
+ */
+@Component
+public class ReplicationManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationManager.class);
+
+    @Autowired
+    private ReplicationState replicationState;
+
+    @Autowired
+    private OrderEventLog orderEventLog;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderDao orderDao;
+
+    @Value("${orderboard.replication.port:55526}")
+    private int port;
+
+    @Value("${orderboard.replication.primary-host:localhost}")
+    private String primaryHost;
+
+    @Value("${orderboard.replication.primary-port:55526}")
+    private int primaryPort;
+
+    @Value("${orderboard.replication.reconnect-delay-ms:1000}")
+    private long reconnectDelayMillis;
+
+    private ReplicationServer replicationServer;
+    private ReplicationClient replicationClient;
+
+    @PostConstruct
+    public synchronized void start() throws IOException {
+        if (replicationState.getRole() == ReplicationRole.PRIMARY) {
+            startServer();
+        } else if (replicationState.getRole() == ReplicationRole.FOLLOWER) {
+            replicationClient = new ReplicationClient(new InetSocketAddress(primaryHost, primaryPort),
+                    orderEventLog::getLastSequence, orderService::applyReplicatedEvent, orderService::applyReplicatedSnapshot, reconnectDelayMillis);
+            replicationClient.start();
+        }
+    }
+
+    /**
+     * Stops following the primary and starts accepting orders, continuing the event sequence of the primary.
+     *
+     * @throws IllegalStateException If this instance is not a follower
+     */
+    public synchronized void promote() {
+        if (replicationState.getRole() != ReplicationRole.FOLLOWER) {
+            throw new IllegalStateException(String.format("Only a follower can be promoted, this Order Board is [%s]", replicationState.getRole()));
+        }
+        try {
+            replicationClient.close();
+            replicationClient = null;
+            startServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        replicationState.setRole(ReplicationRole.PRIMARY);
+        LOGGER.info("Promoted to primary at Order Event [{}]", orderEventLog.getLastSequence());
+    }
+
+    private void startServer() throws IOException {
+        replicationServer = new ReplicationServer(orderEventLog, () -> orderEventLog.snapshot(orderDao::forEachLiveOrder), port);
+        replicationServer.start();
+        LOGGER.info("Streaming Order Events to followers on port [{}]", replicationServer.getPort());
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws IOException {
+        if (replicationClient != null) {
+            replicationClient.close();
+        }
+        if (replicationServer != null) {
+            replicationServer.close();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.silverbars.replication;
+
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.event.OrderEventCodec;
+import com.silverbars.event.OrderEventListener;
+import com.silverbars.event.OrderEventLog;
+import com.silverbars.event.OrderEventSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Streams the Order Event Log of the primary to its followers over TCP.
+ * <p>
+ * A follower connects and sends the 8 byte sequence of the first event it is missing. From then on the server
+ * writes every event from that sequence onwards, in order, using the frames of the Order Event Codec.
+ * An empty follower sends 0 instead and starts from a snapshot of the board: the server writes the 8 byte sequence of the
+ * snapshot and the 4 byte number of its live orders, the frames of their registrations, then the events following the snapshot.
+ * The snapshot is taken on the selector thread while no event can be appended. A follower missing an event the
+ * Order Event Log no longer holds is disconnected, and must be restarted empty.
+ * A single selector thread serves all followers with non-blocking writes: each follower has its own cursor in the log,
+ * so a slow follower only falls behind and catches up later without holding back the others or the write path,
+ * which merely wakes the selector up when a new event is appended.
+ */
+public class ReplicationServer implements OrderEventListener, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationServer.class);
+
+    public static final long SNAPSHOT_REQUEST = 0;
+    public static final int SNAPSHOT_HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OrderEventLog orderEventLog;
+    private final Supplier<OrderEventSnapshot> snapshots;
+    private final Selector selector;
+    private final ServerSocketChannel serverSocketChannel;
+    private final Thread selectorThread;
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private volatile boolean running = true;
+
+    /**
+     * Connection state of one follower
+     */
+    private static class Follower {
+        private final ByteBuffer handshake = ByteBuffer.allocate(Long.BYTES);
+        private final ByteBuffer output = (ByteBuffer) ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+        private List<OrderEvent> registrations = Collections.emptyList();
+        private int registrationIndex;
+        private long nextSequence;
+    }
+
+    /**
+     * @param snapshots Takes a snapshot of the board of this primary, for the followers starting empty
+     */
+    public ReplicationServer(OrderEventLog orderEventLog, Supplier<OrderEventSnapshot> snapshots, int port) throws IOException {
+        this.orderEventLog = orderEventLog;
+        this.snapshots = snapshots;
+        this.selector = Selector.open();
+        this.serverSocketChannel = ServerSocketChannel.open();
+        this.serverSocketChannel.bind(new InetSocketAddress(port));
+        this.serverSocketChannel.configureBlocking(false);
+        this.serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.selectorThread = new Thread(this::run, "replication-server");
+        this.selectorThread.setDaemon(true);
+    }
+
+    public void start() {
+        orderEventLog.addListener(this);
+        selectorThread.start();
+    }
+
+    public int getPort() {
+        return serverSocketChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void onOrderEvent(OrderEvent orderEvent) {
+        if (wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                wakeupPending.set(false);
+
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        accept();
+                    } else if (key.isValid() && key.isReadable()) {
+                        try {
+                            read(key);
+                        } catch (RuntimeException e) {
+                            fail(key, e);
+                        }
+                    }
+                }
+
+                for (SelectionKey key : selector.keys()) {
+                    if (key.isValid() && key.attachment() != null && !((Follower) key.attachment()).handshake.hasRemaining()) {
+                        try {
+                            send(key);
+                        } catch (RuntimeException e) {
+                            fail(key, e);
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Replication server failure", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel socketChannel = serverSocketChannel.accept();
+        if (socketChannel != null) {
+            socketChannel.configureBlocking(false);
+            socketChannel.register(selector, SelectionKey.OP_READ, new Follower());
+            LOGGER.info("Follower connected from {}", socketChannel.getRemoteAddress());
+        }
+    }
+
+    private void read(SelectionKey key) {
+        Follower follower = (Follower) key.attachment();
+        SocketChannel socketChannel = (SocketChannel) key.channel();
+        try {
+            ByteBuffer input = follower.handshake.hasRemaining() ? follower.handshake : ByteBuffer.allocate(1);
+            if (socketChannel.read(input) < 0) {
+                disconnect(key, "Follower disconnected");
+                return;
+            }
+            if (input == follower.handshake && !follower.handshake.hasRemaining()) {
+                follower.nextSequence = follower.handshake.getLong(0);
+                if (follower.nextSequence == SNAPSHOT_REQUEST) {
+                    OrderEventSnapshot snapshot = snapshots.get();
+                    follower.registrations = snapshot.getRegistrations();
+                    follower.nextSequence = snapshot.getSequence() + 1;
+                    follower.output.clear();
+                    follower.output.putLong(snapshot.getSequence()).putInt(follower.registrations.size()).flip();
+                    LOGGER.info("Streaming a snapshot of [{}] live orders at Order Event [{}] to {}", follower.registrations.size(),
+                            snapshot.getSequence(), socketChannel.getRemoteAddress());
+                } else if (follower.nextSequence < orderEventLog.getFirstSequence() || follower.nextSequence > orderEventLog.getLastSequence() + 1) {
+                    disconnect(key, String.format("Follower requested Order Event [%s] but the log holds events [%s] to [%s]",
+                            follower.nextSequence, orderEventLog.getFirstSequence(), orderEventLog.getLastSequence()));
+                    return;
+                }
+                LOGGER.info("Streaming Order Events from [{}] to {}", follower.nextSequence, socketChannel.getRemoteAddress());
+            }
+        } catch (IOException e) {
+            disconnect(key, "Follower connection failed: " + e.getMessage());
+        }
+    }
+
+    private void send(SelectionKey key) {
+        Follower follower = (Follower) key.attachment();
+        SocketChannel socketChannel = (SocketChannel) key.channel();
+        try {
+            while (true) {
+                if (follower.output.hasRemaining()) {
+                    socketChannel.write(follower.output);
+                    if (follower.output.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+                follower.output.clear();
+                List<OrderEvent> registrations = follower.registrations;
+                while (follower.registrationIndex < registrations.size()
+                        && OrderEventCodec.encode(registrations.get(follower.registrationIndex), follower.output)) {
+                    follower.registrationIndex++;
+                }
+                if (follower.registrationIndex == registrations.size()) {
+                    follower.registrations = Collections.emptyList();
+                    follower.registrationIndex = 0;
+                    long lastSequence = orderEventLog.getLastSequence();
+                    while (follower.nextSequence <= lastSequence
+                            && OrderEventCodec.encode(orderEventLog.getEvent(follower.nextSequence), follower.output)) {
+                        follower.nextSequence++;
+                    }
+                }
+                follower.output.flip();
+                if (!follower.output.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            disconnect(key, "Follower connection failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the connection of a follower that could not be served, the other followers carry on
+     */
+    private void fail(SelectionKey key, RuntimeException e) {
+        LOGGER.error("Unable to stream Order Events to follower, closing its connection", e);
+        disconnect(key, "Follower disconnected after a failure");
+    }
+
+    private void disconnect(SelectionKey key, String reason) {
+        LOGGER.warn(reason);
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to close follower connection", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        orderEventLog.removeListener(this);
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+}
@@ -0,0 +1,34 @@
+package com.silverbars.replication;
+
+import com.silverbars.enums.ReplicationRole;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Current Replication Role of this Order Board, configured with orderboard.replication.role
+ * and changed at runtime when a follower is promoted.
+ */
+@Component
+public class ReplicationState {
+
+    private volatile ReplicationRole role;
+
+    public ReplicationState(@Value("${orderboard.replication.role:STANDALONE}") ReplicationRole role) {
+        this.role = role;
+    }
+
+    public ReplicationRole getRole() {
+        return role;
+    }
+
+    public void setRole(ReplicationRole role) {
+        this.role = role;
+    }
+
+    /**
+     * @return true if orders cannot be registered or cancelled on this instance
+     */
+    public boolean isReadOnly() {
+        return role == ReplicationRole.FOLLOWER;
+    }
+}
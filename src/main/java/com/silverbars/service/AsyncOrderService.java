@@ -0,0 +1,45 @@
+package com.silverbars.service;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderType;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of the Order Service.
+ * <p>
+ * Every method returns straight away, so a caller can issue many operations without waiting for each one.
+ * Registrations may complete in any order, cancellations of one order complete in the order they were issued.
+ * A read reflects at least every write completed before it was issued. Failures complete the future exceptionally
+ * with the exception the Order Service would have thrown, or an OrderBoardOverloadedException when too many operations
+ * are waiting.
+ */
+public interface AsyncOrderService {
+
+    CompletableFuture<Order> registerOrder(String user,
+                                           double quantity,
+                                           BigDecimal price,
+                                           OrderType orderType);
+
+    CompletableFuture<Order> registerOrder(String user,
+                                           double quantity,
+                                           BigDecimal price,
+                                           OrderType orderType,
+                                           String clientOrderId);
+
+    CompletableFuture<Order> cancelOrder(long orderId, String user);
+
+    CompletableFuture<OrderSummaryHolder> getLiveOrders();
+
+    /**
+     * @param depth Number of levels of each side, at least 1
+     */
+    CompletableFuture<OrderSummaryHolder> getLiveOrders(int depth);
+
+    CompletableFuture<OrderSummaryHolder> getLiveOrdersAsOf(long sequence);
+
+    CompletableFuture<OrderSummaryHolder> getLiveOrdersAsOf(OffsetDateTime time);
+}
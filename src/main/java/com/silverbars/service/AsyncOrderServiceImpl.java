@@ -0,0 +1,188 @@
+package com.silverbars.service;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderType;
+import com.silverbars.exception.OrderBoardOverloadedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the Order Service on executors of its own.
+ * <p>
+ * Registrations run together on a pool of orderboard.async.write-threads threads, as the Order Service numbers and applies
+ * them concurrently. Cancellations are queued to as many single-thread lanes, chosen by order id, so cancellations of the
+ * same order complete in the order they were issued. A cancellation cannot overtake the registration of its order, as the
+ * order id is only known once the registration has completed.
+ * <p>
+ * Reads run on a separate pool so they never wait behind queued writes, and reads of the live board issued while one is
+ * waiting to start share its result: all of them were issued before it started, so it reflects every write they could
+ * have seen. Each of them receives its own copy of the result. Reads of the top of the book served by the Top Of Book
+ * Cache complete on the calling thread, as they take no lock and copy a few levels.
+ * <p>
+ * Queues are bounded by orderboard.async.queue-capacity, beyond which operations fail with OrderBoardOverloadedException.
+ */
+@Service
+public class AsyncOrderServiceImpl implements AsyncOrderService {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TopOfBookCache topOfBookCache;
+
+    @Value("${orderboard.async.write-threads:4}")
+    private int writeThreads;
+
+    @Value("${orderboard.async.read-threads:4}")
+    private int readThreads;
+
+    @Value("${orderboard.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private ExecutorService registerExecutor;
+    private ExecutorService[] cancelExecutors;
+    private ExecutorService readExecutor;
+
+    /* Read of the live board queued and not started yet, joined by the reads issued meanwhile */
+    private final AtomicReference<CompletableFuture<OrderSummaryHolder>> pendingLiveOrdersRead = new AtomicReference<>();
+
+    @PostConstruct
+    public void start() {
+        registerExecutor = newExecutor("order-registrar", writeThreads);
+        cancelExecutors = new ExecutorService[writeThreads];
+        for (int lane = 0; lane < writeThreads; lane++) {
+            cancelExecutors[lane] = newExecutor("order-canceller-" + lane, 1);
+        }
+        readExecutor = newExecutor("order-reader", readThreads);
+    }
+
+    @Override
+    public CompletableFuture<Order> registerOrder(String user, double quantity, BigDecimal price, OrderType orderType) {
+        return submit(registerExecutor, () -> orderService.registerOrder(user, quantity, price, orderType));
+    }
+
+    @Override
+    public CompletableFuture<Order> registerOrder(String user, double quantity, BigDecimal price, OrderType orderType, String clientOrderId) {
+        return submit(registerExecutor, () -> orderService.registerOrder(user, quantity, price, orderType, clientOrderId));
+    }
+
+    @Override
+    public CompletableFuture<Order> cancelOrder(long orderId, String user) {
+        ExecutorService cancelExecutor = cancelExecutors[Math.floorMod(Long.hashCode(orderId), cancelExecutors.length)];
+        return submit(cancelExecutor, () -> orderService.cancelOrder(orderId, user));
+    }
+
+    @Override
+    public CompletableFuture<OrderSummaryHolder> getLiveOrders() {
+        while (true) {
+            CompletableFuture<OrderSummaryHolder> pendingRead = pendingLiveOrdersRead.get();
+            if (pendingRead != null) {
+                return pendingRead.thenApply(OrderSummaryHolder::copy);
+            }
+            CompletableFuture<OrderSummaryHolder> read = new CompletableFuture<>();
+            if (pendingLiveOrdersRead.compareAndSet(null, read)) {
+                try {
+                    readExecutor.execute(() -> {
+                        /* Reads issued from now on may have to see writes this one would miss */
+                        pendingLiveOrdersRead.compareAndSet(read, null);
+                        complete(read, orderService::getLiveOrders);
+                    });
+                } catch (RejectedExecutionException e) {
+                    pendingLiveOrdersRead.compareAndSet(read, null);
+                    read.completeExceptionally(overloaded());
+                }
+                return read.thenApply(OrderSummaryHolder::copy);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<OrderSummaryHolder> getLiveOrders(int depth) {
+        if (depth <= topOfBookCache.getLevels()) {
+            CompletableFuture<OrderSummaryHolder> read = new CompletableFuture<>();
+            complete(read, () -> orderService.getLiveOrders(depth));
+            return read;
+        }
+        return submit(readExecutor, () -> orderService.getLiveOrders(depth));
+    }
+
+    @Override
+    public CompletableFuture<OrderSummaryHolder> getLiveOrdersAsOf(long sequence) {
+        return submit(readExecutor, () -> orderService.getLiveOrdersAsOf(sequence));
+    }
+
+    @Override
+    public CompletableFuture<OrderSummaryHolder> getLiveOrdersAsOf(OffsetDateTime time) {
+        return submit(readExecutor, () -> orderService.getLiveOrdersAsOf(time));
+    }
+
+    private static <T> CompletableFuture<T> submit(ExecutorService executor, Callable<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> complete(future, operation));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(overloaded());
+        }
+        return future;
+    }
+
+    /**
+     * Completes the future whatever the operation throws, an Error being rethrown once the future is completed
+     */
+    private static <T> void complete(CompletableFuture<T> future, Callable<T> operation) {
+        try {
+            future.complete(operation.call());
+        } catch (Throwable throwable) {
+            future.completeExceptionally(throwable);
+            if (throwable instanceof Error) {
+                throw (Error) throwable;
+            }
+        }
+    }
+
+    private static OrderBoardOverloadedException overloaded() {
+        return new OrderBoardOverloadedException("Order Board is overloaded, please retry later");
+    }
+
+    private ExecutorService newExecutor(String name, int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stops taking operations and lets the queued ones complete
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        registerExecutor.shutdown();
+        for (ExecutorService cancelExecutor : cancelExecutors) {
+            cancelExecutor.shutdown();
+        }
+        readExecutor.shutdown();
+        registerExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        for (ExecutorService cancelExecutor : cancelExecutors) {
+            cancelExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        readExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,132 @@
+package com.silverbars.service;
+
+import com.silverbars.bean.Order;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the Orders registered with a client order id, so a retried registration returns the original Order
+ * instead of registering it again.
+ * <p>
+ * Entries are keyed by user and client order id and kept for orderboard.dedup.window-seconds, up to
+ * orderboard.dedup.max-entries of them; the oldest entries are evicted first once either limit is reached.
+ * The first registration of a key puts a pending entry in the map and registers the order outside any map operation,
+ * so concurrent retries of the same order wait for the first one instead of registering it twice, and unrelated keys
+ * never wait. If the first registration fails, its entry is removed and a waiting retry registers the order itself.
+ * The parameters of a retry are not compared to the original.
+ */
+@Component
+public class ClientOrderIdCache implements MeterBinder {
+
+    private final int maxEntries;
+    private final long windowNanos;
+
+    private final Map<String, Entry> keyToEntryMap = new ConcurrentHashMap<>();
+    /* Entries in insertion order, some of which may have been replaced in the map since */
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+
+    private static class Entry {
+        private final String key;
+        private final CompletableFuture<Order> order = new CompletableFuture<>();
+        private final long addTimeNanos;
+
+        private Entry(String key, long addTimeNanos) {
+            this.key = key;
+            this.addTimeNanos = addTimeNanos;
+        }
+    }
+
+    @Autowired
+    public ClientOrderIdCache(@Value("${orderboard.dedup.max-entries:100000}") int maxEntries,
+                              @Value("${orderboard.dedup.window-seconds:300}") long windowSeconds) {
+        this.maxEntries = maxEntries;
+        this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+    }
+
+    /**
+     * @param user          User registering the order
+     * @param clientOrderId Id the client gave the order
+     * @param registration  Registers the order, only called if no order with this client order id was registered within the window
+     * @return Order registered by this call or by an earlier call with the same user and client order id
+     */
+    public Order registerOnce(String user, String clientOrderId, Supplier<Order> registration) {
+        return registerOnce(user, clientOrderId, registration, System.nanoTime());
+    }
+
+    Order registerOnce(String user, String clientOrderId, Supplier<Order> registration, long nowNanos) {
+        String key = user + '\u0000' + clientOrderId;
+        while (true) {
+            Entry current = keyToEntryMap.get(key);
+            if (current != null && nowNanos - current.addTimeNanos < windowNanos) {
+                try {
+                    Order order = current.order.join();
+                    hits.increment();
+                    return order;
+                } catch (CompletionException e) {
+                    /* The first registration failed and removed its entry, this one takes over */
+                    keyToEntryMap.remove(key, current);
+                    continue;
+                }
+            }
+            Entry entry = new Entry(key, nowNanos);
+            if (current == null ? keyToEntryMap.putIfAbsent(key, entry) != null : !keyToEntryMap.replace(key, current, entry)) {
+                continue;
+            }
+            return register(entry, registration, nowNanos);
+        }
+    }
+
+    private Order register(Entry entry, Supplier<Order> registration, long nowNanos) {
+        Order order;
+        try {
+            order = registration.get();
+        } catch (RuntimeException | Error e) {
+            keyToEntryMap.remove(entry.key, entry);
+            entry.order.completeExceptionally(e);
+            throw e;
+        }
+        entry.order.complete(order);
+        entries.add(entry);
+        size.incrementAndGet();
+        evict(nowNanos);
+        return order;
+    }
+
+    private void evict(long nowNanos) {
+        Entry oldest;
+        while ((oldest = entries.peek()) != null && (size.get() > maxEntries || nowNanos - oldest.addTimeNanos >= windowNanos)) {
+            if (entries.remove(oldest)) {
+                size.decrementAndGet();
+                keyToEntryMap.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("orderboard.dedup.entries", this, ClientOrderIdCache::size).register(registry);
+        FunctionCounter.builder("orderboard.dedup.hits", hits, LongAdder::sum).register(registry);
+    }
+}
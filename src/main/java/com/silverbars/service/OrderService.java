@@ -1,11 +1,14 @@
 package com.silverbars.service;
 
 import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderEvent;
 import com.silverbars.bean.OrderSummaryHolder;
 import com.silverbars.enums.OrderType;
+import com.silverbars.event.OrderEventSnapshot;
 import com.silverbars.exception.OrderBoardInvalidOperationException;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 
 /**
  * Service facilitating operations on Order
@@ -17,7 +20,33 @@ public interface OrderService {
                         BigDecimal price,
                         OrderType orderType);
 
+    /**
+     * Registers the order unless an order with the same user and client order id was registered recently,
+     * in which case that order is returned instead
+     *
+     * @param clientOrderId Id the client gave the order, null to always register it
+     */
+    Order registerOrder(String user,
+                        double quantity,
+                        BigDecimal price,
+                        OrderType orderType,
+                        String clientOrderId);
+
     Order cancelOrder(long orderId, String user) throws OrderBoardInvalidOperationException;
 
     OrderSummaryHolder getLiveOrders();
+
+    /**
+     * @param depth Number of levels of each side, at least 1
+     * @return Best depth levels of each side of the live board
+     */
+    OrderSummaryHolder getLiveOrders(int depth);
+
+    OrderSummaryHolder getLiveOrdersAsOf(long sequence);
+
+    OrderSummaryHolder getLiveOrdersAsOf(OffsetDateTime time);
+
+    void applyReplicatedEvent(OrderEvent orderEvent);
+
+    void applyReplicatedSnapshot(OrderEventSnapshot snapshot);
 }
@@ -1,14 +1,29 @@
 package com.silverbars.service;
 
 import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderEvent;
 import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.bean.UserRegistry;
 import com.silverbars.dao.OrderDao;
+import com.silverbars.enums.OrderEventType;
 import com.silverbars.enums.OrderType;
+import com.silverbars.event.OrderEventLog;
+import com.silverbars.event.OrderEventSnapshot;
 import com.silverbars.exception.OrderBoardInvalidOperationException;
+import com.silverbars.exception.OrderBoardReadOnlyException;
+import com.silverbars.history.BoardHistory;
+import com.silverbars.profiling.BoardAggregationEvent;
+import com.silverbars.profiling.CancelOrderEvent;
+import com.silverbars.profiling.RegisterOrderEvent;
+import com.silverbars.replication.ReplicationState;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * For the sake of simplicity and because this application is built using in memory solution
@@ -21,12 +36,60 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private OrderDao orderDao;
 
+    @Autowired
+    private OrderEventLog orderEventLog;
+
+    @Autowired
+    private ReplicationState replicationState;
+
+    @Autowired
+    private BoardHistory boardHistory;
+
+    @Autowired
+    private ClientOrderIdCache clientOrderIdCache;
+
+    @Autowired
+    private TopOfBookCache topOfBookCache;
+
+    @Autowired
+    private UserRegistry userRegistry;
+
     /**
      * In a production environment this service will be Transactional
      */
     @Override
     public Order registerOrder(String user, double quantity, BigDecimal price, OrderType orderType) {
-        return orderDao.registerOrder(user, quantity, price, orderType);
+        checkWritable();
+        String orderUser = userRegistry.intern(user);
+        /* Checked before the event is numbered, once numbered it is recorded */
+        orderDao.checkRegistration(orderUser, price);
+        RegisterOrderEvent event = new RegisterOrderEvent();
+        event.begin();
+        long requestTime = System.nanoTime();
+        Order order = orderEventLog.append(OrderEventType.REGISTERED, sequence -> {
+            event.lockWait = System.nanoTime() - requestTime;
+            return new OrderEvent(sequence, OrderEventType.REGISTERED, orderDao.nextOrderId(), orderUser, quantity, price, orderType,
+                    OffsetDateTime.now(ZoneOffset.UTC));
+        }, orderDao::apply);
+        if (event.shouldCommit()) {
+            event.orderId = order.getOrderId();
+            event.orderType = orderType.name();
+            event.events = orderEventLog.getLastSequence();
+            event.commit();
+        }
+        return order;
+    }
+
+    /**
+     * In a production environment this service will be Transactional
+     */
+    @Override
+    public Order registerOrder(String user, double quantity, BigDecimal price, OrderType orderType, String clientOrderId) {
+        if (clientOrderId == null) {
+            return registerOrder(user, quantity, price, orderType);
+        }
+        checkWritable();
+        return clientOrderIdCache.registerOnce(user, clientOrderId, () -> registerOrder(user, quantity, price, orderType));
     }
 
     /**
@@ -34,7 +97,24 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public Order cancelOrder(long orderId, String user) throws OrderBoardInvalidOperationException {
-        return orderDao.cancelOrder(orderId, user);
+        checkWritable();
+        /* Not registered here, a cancellation of an unknown order must not take a place in the User Registry */
+        String cancellingUser = userRegistry.find(user);
+        CancelOrderEvent event = new CancelOrderEvent();
+        event.begin();
+        long requestTime = System.nanoTime();
+        Order order = orderEventLog.append(OrderEventType.CANCELLED, sequence -> {
+            event.lockWait = System.nanoTime() - requestTime;
+            Order liveOrder = orderDao.findLiveOrder(orderId);
+            return new OrderEvent(sequence, OrderEventType.CANCELLED, orderId, cancellingUser, liveOrder.getQuantity(), liveOrder.getPrice(),
+                    liveOrder.getOrderType(), OffsetDateTime.now(ZoneOffset.UTC));
+        }, orderDao::apply);
+        if (event.shouldCommit()) {
+            event.orderId = orderId;
+            event.events = orderEventLog.getLastSequence();
+            event.commit();
+        }
+        return order;
     }
 
     /**
@@ -42,6 +122,80 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public OrderSummaryHolder getLiveOrders() {
-        return orderDao.getLiveOrders();
+        BoardAggregationEvent event = new BoardAggregationEvent();
+        event.begin();
+        OrderSummaryHolder orderSummaryHolder = orderDao.getLiveOrders();
+        if (event.shouldCommit()) {
+            event.buyLevels = orderSummaryHolder.getBuyOrderSummary().size();
+            event.sellLevels = orderSummaryHolder.getSellOrderSummary().size();
+            event.commit();
+        }
+        return orderSummaryHolder;
+    }
+
+    /**
+     * Served from the Top Of Book Cache when it keeps enough levels, otherwise from the whole board
+     */
+    @Override
+    public OrderSummaryHolder getLiveOrders(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1");
+        }
+        if (depth <= topOfBookCache.getLevels()) {
+            return topOfBookCache.getTopOfBook(depth);
+        }
+        return getLiveOrders().top(depth);
+    }
+
+    /**
+     * Served from the Order Event history, the Order Dao is not involved
+     */
+    @Override
+    public OrderSummaryHolder getLiveOrdersAsOf(long sequence) {
+        return boardHistory.getLiveOrdersAsOf(sequence);
+    }
+
+    /**
+     * Served from the Order Event history, the Order Dao is not involved
+     */
+    @Override
+    public OrderSummaryHolder getLiveOrdersAsOf(OffsetDateTime time) {
+        return boardHistory.getLiveOrdersAsOf(time);
+    }
+
+    /**
+     * Applies an event streamed by the primary Order Board to this follower
+     */
+    @Override
+    public void applyReplicatedEvent(OrderEvent orderEvent) {
+        orderEventLog.appendReplicated(withRegisteredUser(orderEvent), orderDao::apply);
+    }
+
+    /**
+     * Starts this empty follower from a snapshot of the board of the primary
+     */
+    @Override
+    public void applyReplicatedSnapshot(OrderEventSnapshot snapshot) {
+        List<OrderEvent> registrations = new ArrayList<>(snapshot.getRegistrations().size());
+        for (OrderEvent registration : snapshot.getRegistrations()) {
+            registrations.add(withRegisteredUser(registration));
+        }
+        orderEventLog.restore(new OrderEventSnapshot(snapshot.getSequence(), registrations), orderDao::apply);
+    }
+
+    /**
+     * The user name was decoded from the stream, the orders of this follower share the registered instance
+     */
+    private OrderEvent withRegisteredUser(OrderEvent orderEvent) {
+        String user = userRegistry.intern(orderEvent.getUser());
+        return user == orderEvent.getUser() ? orderEvent
+                : new OrderEvent(orderEvent.getSequence(), orderEvent.getEventType(), orderEvent.getOrderId(), user, orderEvent.getQuantity(),
+                orderEvent.getPrice(), orderEvent.getOrderType(), orderEvent.getTime());
+    }
+
+    private void checkWritable() {
+        if (replicationState.isReadOnly()) {
+            throw new OrderBoardReadOnlyException("This Order Board is a read-only follower, orders must be sent to the primary");
+        }
     }
 }
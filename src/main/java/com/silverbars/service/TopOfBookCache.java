@@ -0,0 +1,133 @@
+package com.silverbars.service;
+
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.dao.OrderDao;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.event.OrderEventListener;
+import com.silverbars.event.OrderEventLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Best orderboard.top-of-book.levels price levels of each side of the board, kept up to date with every Order Event.
+ * <p>
+ * Each side keeps its live quantity per price, in micros so that adding and removing an order is exact, in best price
+ * first order. The best levels are published as an immutable snapshot of both sides, rebuilt only when an event changes
+ * a level within them, so reading the top of the book copies at most levels summaries and takes no lock.
+ * The cache starts from the board of the Order Dao, which may have been loaded from storage without any event.
+ * Each event is added to the level the Order Dao puts its order in, as given by {@link OrderDao#levelPrice(BigDecimal)},
+ * so the cached levels are those of the board: 10 and 10.0 are two levels with the Striped Price Level Book and the JDBC
+ * engine, and one level at the tick scale in the band of the Tick Ladder Price Level Book. Levels of the same value
+ * and different scales are ordered by scale, the smaller one first among asks and last among bids.
+ */
+@Component
+public class TopOfBookCache implements OrderEventListener {
+
+    private static final double QUANTITY_SCALE = 1_000_000;
+    /* Consistent with BigDecimal.equals, unlike BigDecimal.compareTo */
+    private static final Comparator<BigDecimal> PRICE_ORDER = Comparator.<BigDecimal>naturalOrder().thenComparingInt(BigDecimal::scale);
+
+    private final int levels;
+    private final OrderDao orderDao;
+    private final TreeMap<BigDecimal, Long> buyPriceToQuantityMap = new TreeMap<>(PRICE_ORDER.reversed());
+    private final TreeMap<BigDecimal, Long> sellPriceToQuantityMap = new TreeMap<>(PRICE_ORDER);
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyList(), Collections.emptyList());
+
+    /**
+     * Best levels of both sides after the same event
+     */
+    private static class Snapshot {
+        private final List<OrderSummary> buyOrderSummaries;
+        private final List<OrderSummary> sellOrderSummaries;
+
+        private Snapshot(List<OrderSummary> buyOrderSummaries, List<OrderSummary> sellOrderSummaries) {
+            this.buyOrderSummaries = buyOrderSummaries;
+            this.sellOrderSummaries = sellOrderSummaries;
+        }
+    }
+
+    @Autowired
+    public TopOfBookCache(OrderDao orderDao, OrderEventLog orderEventLog, @Value("${orderboard.top-of-book.levels:10}") int levels) {
+        this.levels = levels;
+        this.orderDao = orderDao;
+        /* No event can be appended between the read of the board and the registration of the listener */
+        orderEventLog.readAtLastSequence(sequence -> {
+            OrderSummaryHolder orderSummaryHolder = orderDao.getLiveOrders();
+            orderSummaryHolder.getBuyOrderSummary().forEach(level -> buyPriceToQuantityMap.merge(level.getPrice(), toMicros(level.getQuantity()), Long::sum));
+            orderSummaryHolder.getSellOrderSummary().forEach(level -> sellPriceToQuantityMap.merge(level.getPrice(), toMicros(level.getQuantity()), Long::sum));
+            snapshot = new Snapshot(bestLevels(buyPriceToQuantityMap, OrderType.BUY), bestLevels(sellPriceToQuantityMap, OrderType.SELL));
+            orderEventLog.addListener(this);
+            return null;
+        });
+    }
+
+    /**
+     * Called under the lock of the Order Event Log, in sequence order
+     */
+    @Override
+    public void onOrderEvent(OrderEvent orderEvent) {
+        boolean buy = orderEvent.getOrderType() == OrderType.BUY;
+        TreeMap<BigDecimal, Long> priceToQuantityMap = buy ? buyPriceToQuantityMap : sellPriceToQuantityMap;
+        long quantity = toMicros(orderEvent.getQuantity());
+        BigDecimal price = orderDao.levelPrice(orderEvent.getPrice());
+        priceToQuantityMap.merge(price, orderEvent.getEventType() == OrderEventType.REGISTERED ? quantity : -quantity,
+                (current, delta) -> current + delta == 0 ? null : current + delta);
+
+        Snapshot current = snapshot;
+        List<OrderSummary> bestLevels = buy ? current.buyOrderSummaries : current.sellOrderSummaries;
+        if (bestLevels.size() < levels
+                || priceToQuantityMap.comparator().compare(price, bestLevels.get(bestLevels.size() - 1).getPrice()) <= 0) {
+            snapshot = buy ? new Snapshot(bestLevels(priceToQuantityMap, OrderType.BUY), current.sellOrderSummaries)
+                    : new Snapshot(current.buyOrderSummaries, bestLevels(priceToQuantityMap, OrderType.SELL));
+        }
+    }
+
+    private List<OrderSummary> bestLevels(TreeMap<BigDecimal, Long> priceToQuantityMap, OrderType orderType) {
+        List<OrderSummary> orderSummaries = new ArrayList<>(levels);
+        for (Map.Entry<BigDecimal, Long> level : priceToQuantityMap.entrySet()) {
+            if (orderSummaries.size() == levels) {
+                break;
+            }
+            orderSummaries.add(new OrderSummary(level.getValue() / QUANTITY_SCALE, level.getKey(), orderType));
+        }
+        return Collections.unmodifiableList(orderSummaries);
+    }
+
+    /**
+     * @param depth Number of levels of each side, between 1 and {@link #getLevels()}
+     * @return Best depth levels of each side, highest bid and lowest ask first
+     */
+    public OrderSummaryHolder getTopOfBook(int depth) {
+        if (depth < 1 || depth > levels) {
+            throw new IllegalArgumentException(String.format("Depth must be between 1 and %s", levels));
+        }
+        Snapshot current = snapshot;
+        OrderSummaryHolder orderSummaryHolder = new OrderSummaryHolder();
+        orderSummaryHolder.addBuyOrderSummaries(current.buyOrderSummaries.subList(0, Math.min(depth, current.buyOrderSummaries.size())));
+        orderSummaryHolder.addSellOrderSummaries(current.sellOrderSummaries.subList(0, Math.min(depth, current.sellOrderSummaries.size())));
+        return orderSummaryHolder;
+    }
+
+    /**
+     * @return Number of levels of each side kept in the cache
+     */
+    public int getLevels() {
+        return levels;
+    }
+
+    private static long toMicros(double quantity) {
+        return Math.round(quantity * QUANTITY_SCALE);
+    }
+}
@@ -0,0 +1,48 @@
+#!/bin/sh
+# Starts the packaged Order Board with the low-pause runtime profile, see "Low-pause runtime" in README.md
+#
+# ORDERBOARD_GC    zgc (default) or shenandoah, selects src/main/jvm/<gc>.args
+# ORDERBOARD_HEAP  overrides the heap size of the profile, e.g. 4g (initial and maximum heap stay equal)
+# ORDERBOARD_DATA  directory of the GC log, default orderboard-data
+# JAVA_OPTS        further JVM options, applied last
+# Arguments are passed to the application, e.g. --server.port=55527
+
+set -e
+
+PROJECT_DIR=$(cd "$(dirname "$0")/../../.." && pwd)
+GC=${ORDERBOARD_GC:-zgc}
+ARGS_FILE="$PROJECT_DIR/src/main/jvm/$GC.args"
+JAR=${ORDERBOARD_JAR:-$PROJECT_DIR/target/orderboard-app-1.0.0.jar}
+DATA_DIR=${ORDERBOARD_DATA:-orderboard-data}
+
+if [ ! -f "$ARGS_FILE" ]; then
+    echo "Unknown ORDERBOARD_GC [$GC], expected zgc or shenandoah" >&2
+    exit 1
+fi
+
+# Megabytes of a heap size given in g or m
+megabytes() {
+    case "$1" in
+        *[gG]) echo $(( ${1%?} * 1024 )) ;;
+        *[mM]) echo "${1%?}" ;;
+        *) echo "ORDERBOARD_HEAP [$1] must end with g or m" >&2; exit 1 ;;
+    esac
+}
+
+HEAP_OPTS=
+if [ -n "$ORDERBOARD_HEAP" ]; then
+    HEAP_MB=$(megabytes "$ORDERBOARD_HEAP")
+    HEAP_OPTS="-Xms${HEAP_MB}m -Xmx${HEAP_MB}m"
+    if [ "$GC" = zgc ]; then
+        # Three quarters of the heap, as in the profile
+        HEAP_OPTS="$HEAP_OPTS -XX:SoftMaxHeapSize=$(( HEAP_MB * 3 / 4 ))m"
+    fi
+fi
+
+mkdir -p "$DATA_DIR"
+
+# Every pause and phase, with rotation so that a long running board keeps at most 100 MB of GC log
+exec java "@$ARGS_FILE" $HEAP_OPTS \
+    "-Xlog:gc*,safepoint:file=$DATA_DIR/gc.log:time,uptime,level,tags:filecount=5,filesize=20m" \
+    $JAVA_OPTS \
+    -jar "$JAR" --spring.profiles.active=prod "$@"
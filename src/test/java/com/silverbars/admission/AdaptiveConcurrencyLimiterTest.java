@@ -0,0 +1,128 @@
+package com.silverbars.admission;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    public void shouldRejectRequestsAboveLimit() {
+        // Given
+        AdaptiveConcurrencyLimiter classToTest = new AdaptiveConcurrencyLimiter(2, 1, 10, 50, 0.5);
+
+        // When
+        boolean first = classToTest.tryAcquire();
+        boolean second = classToTest.tryAcquire();
+        boolean third = classToTest.tryAcquire();
+
+        // Then
+        assertThat(first, is(true));
+        assertThat(second, is(true));
+        assertThat(third, is(false));
+        assertThat(classToTest.getInFlight(), equalTo(2));
+        assertThat(classToTest.getRejected(), equalTo(1L));
+    }
+
+    @Test
+    public void shouldAdmitAgainOncePermitIsReleased() {
+        // Given
+        AdaptiveConcurrencyLimiter classToTest = new AdaptiveConcurrencyLimiter(1, 1, 10, 50, 0.5);
+        classToTest.tryAcquire();
+
+        // When
+        classToTest.release(FAST);
+
+        // Then
+        assertThat(classToTest.tryAcquire(), is(true));
+    }
+
+    @Test
+    public void shouldIncreaseLimitWhenFastAndUtilised() {
+        // Given
+        AdaptiveConcurrencyLimiter classToTest = new AdaptiveConcurrencyLimiter(4, 1, 10, 50, 0.5);
+        classToTest.tryAcquire();
+        classToTest.tryAcquire();
+
+        // When a limit's worth of requests completes in time
+        for (int i = 0; i < 4; i++) {
+            classToTest.release(FAST);
+            classToTest.tryAcquire();
+        }
+
+        // Then
+        assertThat(classToTest.getLimit(), equalTo(5));
+    }
+
+    @Test
+    public void shouldIncreaseLimitByOnePerRoundTrip() {
+        // Given a full limiter
+        AdaptiveConcurrencyLimiter classToTest = new AdaptiveConcurrencyLimiter(100, 1, 1_000, 50, 0.5);
+        for (int i = 0; i < 100; i++) {
+            classToTest.tryAcquire();
+        }
+
+        // When every request in flight completes in time and is replaced by a new one
+        for (int i = 0; i < 100; i++) {
+            classToTest.release(FAST);
+            classToTest.tryAcquire();
+        }
+        int limitAfterOneRoundTrip = classToTest.getLimit();
+        for (int i = 0; i < 100; i++) {
+            classToTest.release(FAST);
+            classToTest.tryAcquire();
+        }
+
+        // Then
+        assertThat(limitAfterOneRoundTrip, equalTo(101));
+        assertThat(classToTest.getLimit(), equalTo(101));
+    }
+
+    @Test
+    public void shouldDecreaseLimitWhenSlowButNotBelowMinimum() {
+        // Given
+        AdaptiveConcurrencyLimiter classToTest = new AdaptiveConcurrencyLimiter(8, 3, 10, 50, 0.5);
+        long now = System.nanoTime();
+
+        // When
+        classToTest.tryAcquire();
+        classToTest.release(SLOW, now + SLOW);
+        int limitAfterFirstSlowRequest = classToTest.getLimit();
+        classToTest.tryAcquire();
+        classToTest.release(SLOW, now + 2 * SLOW);
+
+        // Then
+        assertThat(limitAfterFirstSlowRequest, equalTo(4));
+        assertThat(classToTest.getLimit(), equalTo(3));
+    }
+
+    @Test
+    public void shouldDecreaseLimitOnceForRequestsSlowedBySameSpike() {
+        // Given
+        AdaptiveConcurrencyLimiter classToTest = new AdaptiveConcurrencyLimiter(8, 1, 10, 50, 0.5);
+        long now = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            classToTest.tryAcquire();
+        }
+
+        // When all five were admitted before the first one completed slowly
+        for (int i = 0; i < 5; i++) {
+            classToTest.release(SLOW, now + SLOW + i);
+        }
+
+        // Then
+        assertThat(classToTest.getLimit(), equalTo(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidLimits() {
+        new AdaptiveConcurrencyLimiter(20, 1, 10, 50, 0.5);
+    }
+}
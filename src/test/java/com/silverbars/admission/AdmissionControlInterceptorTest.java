@@ -0,0 +1,76 @@
+package com.silverbars.admission;
+
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.controller.OrderController;
+import com.silverbars.service.AsyncOrderService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AdmissionControlInterceptorTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private AsyncOrderService asyncOrderService;
+
+    @InjectMocks
+    private OrderController orderController;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("orderboard.admission.read.initial-limit", "1")
+                .withProperty("orderboard.admission.read.min-limit", "1")
+                .withProperty("orderboard.admission.read.max-limit", "1")
+                .withProperty("orderboard.admission.retry-after-seconds", "2");
+        AdmissionControlInterceptor admissionControlInterceptor = new AdmissionControlInterceptor();
+        ReflectionTestUtils.setField(admissionControlInterceptor, "admissionControl", new AdmissionControl(environment));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(orderController)
+                .addInterceptors(admissionControlInterceptor)
+                .build();
+    }
+
+    @Test
+    public void shouldRejectReadAboveLimitUntilAsyncDispatchReleasesPermit() throws Exception {
+        // Given a read holding the only permit
+        CompletableFuture<OrderSummaryHolder> board = new CompletableFuture<>();
+        when(asyncOrderService.getLiveOrders()).thenReturn(board);
+        MvcResult firstRead = mockMvc.perform(get("/order"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // When
+        mockMvc.perform(get("/order"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, equalTo("2")));
+        board.complete(new OrderSummaryHolder());
+        /* Empty board */
+        mockMvc.perform(asyncDispatch(firstRead))
+                .andExpect(status().isNotFound());
+
+        // Then
+        mockMvc.perform(get("/order"))
+                .andExpect(request().asyncStarted());
+    }
+}
@@ -0,0 +1,87 @@
+package com.silverbars.admission;
+
+import com.silverbars.bean.Order;
+import com.silverbars.controller.OrderController;
+import com.silverbars.enums.OrderType;
+import com.silverbars.service.AsyncOrderService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class UserRateLimitInterceptorTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private AsyncOrderService asyncOrderService;
+
+    @InjectMocks
+    private OrderController orderController;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("orderboard.ratelimit.cancel.rate-per-second", "0.1")
+                .withProperty("orderboard.ratelimit.cancel.burst", "1");
+        UserRateLimitInterceptor userRateLimitInterceptor = new UserRateLimitInterceptor();
+        ReflectionTestUtils.setField(userRateLimitInterceptor, "userRateLimiting", new UserRateLimiting(environment));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(orderController)
+                .addInterceptors(userRateLimitInterceptor)
+                .build();
+        when(asyncOrderService.cancelOrder(anyLong(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(new Order(1, "User 1", 8, BigDecimal.TEN, OrderType.BUY)));
+    }
+
+    @Test
+    public void shouldCountInitialDispatchOnly() throws Exception {
+        // Given
+        MvcResult cancel = mockMvc.perform(delete("/order/1").param("user", "User 1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // When the burst of one has been used by the initial dispatch
+        mockMvc.perform(asyncDispatch(cancel))
+
+                // Then
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void shouldRejectUserAboveRateWithRetryAfter() throws Exception {
+        // Given
+        mockMvc.perform(delete("/order/1").param("user", "User 1"))
+                .andExpect(request().asyncStarted());
+
+        // When
+        mockMvc.perform(delete("/order/2").param("user", "User 1"))
+
+                // Then
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, equalTo("10")));
+        mockMvc.perform(delete("/order/2").param("user", "User 2"))
+                .andExpect(request().asyncStarted());
+    }
+}
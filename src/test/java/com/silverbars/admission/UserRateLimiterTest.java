@@ -0,0 +1,66 @@
+package com.silverbars.admission;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class UserRateLimiterTest {
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void shouldAllowBurstThenRejectUntilTokensAreRefilled() {
+        // Given
+        UserRateLimiter classToTest = new UserRateLimiter(10, 3, 60_000);
+        long now = ONE_SECOND;
+
+        // When
+        long first = classToTest.tryAcquire("Test User", now);
+        long second = classToTest.tryAcquire("Test User", now);
+        long third = classToTest.tryAcquire("Test User", now);
+        long fourth = classToTest.tryAcquire("Test User", now);
+        long afterRefill = classToTest.tryAcquire("Test User", now + ONE_SECOND / 10);
+
+        // Then
+        assertThat(first, equalTo(0L));
+        assertThat(second, equalTo(0L));
+        assertThat(third, equalTo(0L));
+        assertThat(fourth, equalTo(ONE_SECOND / 10));
+        assertThat(afterRefill, equalTo(0L));
+        assertThat(classToTest.getAllowed(), equalTo(4L));
+        assertThat(classToTest.getRejected(), equalTo(1L));
+    }
+
+    @Test
+    public void shouldLimitEachUserIndependently() {
+        // Given
+        UserRateLimiter classToTest = new UserRateLimiter(1, 1, 60_000);
+        classToTest.tryAcquire("Flooding User", ONE_SECOND);
+
+        // When
+        long floodingUserResult = classToTest.tryAcquire("Flooding User", ONE_SECOND);
+        long otherUserResult = classToTest.tryAcquire("Other User", ONE_SECOND);
+
+        // Then
+        assertThat(floodingUserResult, greaterThan(0L));
+        assertThat(otherUserResult, equalTo(0L));
+    }
+
+    @Test
+    public void shouldEvictOnlyIdleBuckets() {
+        // Given
+        UserRateLimiter classToTest = new UserRateLimiter(10, 1, 1_000);
+        classToTest.tryAcquire("Idle User", ONE_SECOND);
+        classToTest.tryAcquire("Active User", 3 * ONE_SECOND);
+
+        // When
+        classToTest.evictIdleBuckets(3 * ONE_SECOND);
+
+        // Then
+        assertThat(classToTest.getTrackedUsers(), equalTo(1));
+    }
+}
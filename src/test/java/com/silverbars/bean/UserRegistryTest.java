@@ -0,0 +1,136 @@
+package com.silverbars.bean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class UserRegistryTest {
+
+    private UserRegistry classToTest;
+
+    @Before
+    public void setUp() {
+        classToTest = new UserRegistry(2000);
+    }
+
+    @Test
+    public void shouldReturnSameIdForSameUser() {
+        // Given
+        String user = "Registry User";
+
+        // When
+        int firstId = classToTest.idOf(user);
+        int secondId = classToTest.idOf(new String(user));
+
+        // Then
+        assertThat(secondId, equalTo(firstId));
+        assertThat(classToTest.nameOf(firstId), equalTo(user));
+    }
+
+    @Test
+    public void shouldReturnDifferentIdsForDifferentUsers() {
+        // When
+        int firstId = classToTest.idOf("Registry User 1");
+        int secondId = classToTest.idOf("Registry User 2");
+
+        // Then
+        assertThat(secondId, not(equalTo(firstId)));
+    }
+
+    @Test
+    public void shouldResolveUsersRegisteredBeyondInitialCapacity() {
+        // Given
+        List<Integer> ids = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            ids.add(classToTest.idOf("Generated User " + i));
+        }
+
+        // Then
+        for (int i = 0; i < 1000; i++) {
+            assertThat(classToTest.nameOf(ids.get(i)), equalTo("Generated User " + i));
+        }
+    }
+
+    @Test
+    public void shouldShareUserNameBetweenOrders() {
+        // When
+        String firstUser = classToTest.intern(new String("Shared User"));
+        String secondUser = classToTest.intern(new String("Shared User"));
+
+        // Then
+        assertThat(secondUser, sameInstance(firstUser));
+    }
+
+    @Test
+    public void shouldAcceptNullUserWithoutRegisteringIt() {
+        // When
+        int id = classToTest.idOf(null);
+
+        // Then
+        assertThat(id, equalTo(UserRegistry.NO_USER));
+        assertThat(classToTest.nameOf(id), nullValue());
+        assertThat(classToTest.intern(null), nullValue());
+        assertThat(classToTest.size(), equalTo(0));
+    }
+
+    @Test
+    public void shouldFindUserWithoutRegisteringIt() {
+        // Given
+        String knownUser = classToTest.intern(new String("Known User"));
+
+        // When
+        String foundKnownUser = classToTest.find(new String("Known User"));
+        String foundUnknownUser = classToTest.find("Unknown User");
+
+        // Then
+        assertThat(foundKnownUser, sameInstance(knownUser));
+        assertThat(foundUnknownUser, equalTo("Unknown User"));
+        assertThat(classToTest.size(), equalTo(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldValidateUserNameFoundWithoutRegistering() {
+        classToTest.find("Split\nUser");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUserNameLongerThanMaximum() {
+        classToTest.idOf(new String(new char[UserRegistry.MAX_NAME_LENGTH + 1]).replace('\0', 'u'));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUserNameWithControlCharacters() {
+        classToTest.idOf("Split\nUser");
+    }
+
+    @Test
+    public void shouldRejectNewUsersBeyondMaximumButKeepKnownUsers() {
+        // Given
+        UserRegistry registry = new UserRegistry(2);
+        registry.idOf("User 1");
+        registry.idOf("User 2");
+
+        // When
+        IllegalArgumentException rejected = null;
+        try {
+            registry.idOf("User 3");
+        } catch (IllegalArgumentException e) {
+            rejected = e;
+        }
+
+        // Then
+        assertThat(rejected, not(nullValue()));
+        assertThat(registry.idOf("User 2"), equalTo(1));
+        assertThat(registry.size(), equalTo(2));
+    }
+}
@@ -7,7 +7,8 @@ import com.silverbars.bean.OrderSummary;
 import com.silverbars.bean.OrderSummaryHolder;
 import com.silverbars.enums.OrderType;
 import com.silverbars.exception.OrderBoardInvalidOperationException;
-import com.silverbars.service.OrderServiceImpl;
+import com.silverbars.exception.OrderBoardOverloadedException;
+import com.silverbars.service.AsyncOrderService;
 import org.assertj.core.util.Lists;
 import org.junit.Before;
 import org.junit.Test;
@@ -16,9 +17,14 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
@@ -32,7 +38,7 @@ public class OrderControllerTest {
     private MockMvc mockMvc;
 
     @Mock
-    private OrderServiceImpl orderService;
+    private AsyncOrderService asyncOrderService;
 
     @InjectMocks
     private OrderController classToTest;
@@ -47,15 +53,31 @@ public class OrderControllerTest {
                 .build();
     }
 
+    /**
+     * Performs a request handled asynchronously and dispatches its result
+     */
+    private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(mvcResult));
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable throwable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
     @Test
     public void shouldRegisterOrderSuccessfully() throws Exception {
         // Given
         Order order = new Order(1, "Test User", 8, BigDecimal.TEN, OrderType.BUY);
-        when(orderService.registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType())).thenReturn(order);
+        when(asyncOrderService.registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType(), null)).thenReturn(CompletableFuture.completedFuture(order));
         OrderRequest orderRequest = new OrderRequest(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType());
 
         // When
-        mockMvc.perform(
+        performAsync(
                 post("/order")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(orderRequest)))
@@ -69,28 +91,89 @@ public class OrderControllerTest {
                 .andExpect(jsonPath("$.active", equalTo("Y")));
 
         // Then
-        verify(orderService).registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType());
-        verifyNoMoreInteractions(orderService);
+        verify(asyncOrderService).registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType(), null);
+        verifyNoMoreInteractions(asyncOrderService);
+    }
+
+    @Test
+    public void shouldRegisterOrderWithClientOrderId() throws Exception {
+        // Given
+        Order order = new Order(1, "Test User", 8, BigDecimal.TEN, OrderType.BUY);
+        when(asyncOrderService.registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType(), "client-1"))
+                .thenReturn(CompletableFuture.completedFuture(order));
+        OrderRequest orderRequest = new OrderRequest(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType(), "client-1");
+
+        // When
+        performAsync(
+                post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.orderId", equalTo(1)));
+
+        // Then
+        verify(asyncOrderService).registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType(), "client-1");
+        verifyNoMoreInteractions(asyncOrderService);
     }
 
     @Test
     public void shouldGetInternalServerErrorWhenRegisteringOrderFailed() throws Exception {
         // Given
         Order order = new Order(1, "Test User", 8, BigDecimal.TEN, OrderType.BUY);
-        when(orderService.registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType()))
-                .thenThrow(new IllegalStateException());
+        when(asyncOrderService.registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType(), null))
+                .thenReturn(failed(new IllegalStateException()));
         OrderRequest orderRequest = new OrderRequest(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType());
 
         // When
-        mockMvc.perform(
+        performAsync(
                 post("/order")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(orderRequest)))
                 .andExpect(status().isInternalServerError());
 
         // Then
-        verify(orderService).registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType());
-        verifyNoMoreInteractions(orderService);
+        verify(asyncOrderService).registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType(), null);
+        verifyNoMoreInteractions(asyncOrderService);
+    }
+
+    @Test
+    public void shouldGetBadRequestWhenRegisteringOrderWithInvalidUser() throws Exception {
+        // Given
+        Order order = new Order(1, "Test User", 8, BigDecimal.TEN, OrderType.BUY);
+        when(asyncOrderService.registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType(), null))
+                .thenReturn(failed(new IllegalArgumentException("User name must not contain control characters")));
+        OrderRequest orderRequest = new OrderRequest(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType());
+
+        // When
+        performAsync(
+                post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isBadRequest());
+
+        // Then
+        verify(asyncOrderService).registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType(), null);
+        verifyNoMoreInteractions(asyncOrderService);
+    }
+
+    @Test
+    public void shouldGetTooManyRequestsWhenRegisteringOrderOverloaded() throws Exception {
+        // Given
+        Order order = new Order(1, "Test User", 8, BigDecimal.TEN, OrderType.BUY);
+        when(asyncOrderService.registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType(), null))
+                .thenReturn(failed(new OrderBoardOverloadedException("Order Board is overloaded, please retry later")));
+        OrderRequest orderRequest = new OrderRequest(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType());
+
+        // When
+        performAsync(
+                post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isTooManyRequests());
+
+        // Then
+        verify(asyncOrderService).registerOrder(order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType(), null);
+        verifyNoMoreInteractions(asyncOrderService);
     }
 
     @Test
@@ -105,10 +188,10 @@ public class OrderControllerTest {
         OrderSummary sellOrderSummary2 = new OrderSummary(5.7, BigDecimal.TEN, OrderType.SELL);
         resultOrderSummaryHolder.addSellOrderSummaries(Lists.newArrayList(sellOrderSummary1, sellOrderSummary2));
 
-        when(orderService.getLiveOrders()).thenReturn(resultOrderSummaryHolder);
+        when(asyncOrderService.getLiveOrders()).thenReturn(CompletableFuture.completedFuture(resultOrderSummaryHolder));
 
         // When
-        this.mockMvc.perform(get("/order"))
+        performAsync(get("/order"))
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.buyOrderSummary", hasSize(2)))
@@ -128,8 +211,8 @@ public class OrderControllerTest {
                 .andExpect(jsonPath("$.sellOrderSummary[1].orderType", equalTo(sellOrderSummary2.getOrderType().name())));
 
         // Then
-        verify(orderService).getLiveOrders();
-        verifyNoMoreInteractions(orderService);
+        verify(asyncOrderService).getLiveOrders();
+        verifyNoMoreInteractions(asyncOrderService);
     }
 
     @Test
@@ -144,15 +227,113 @@ public class OrderControllerTest {
         OrderSummary sellOrderSummary2 = new OrderSummary(5.7, BigDecimal.TEN, OrderType.SELL);
         resultOrderSummaryHolder.addSellOrderSummaries(Lists.newArrayList(sellOrderSummary1, sellOrderSummary2));
 
-        when(orderService.getLiveOrders()).thenThrow(new IllegalStateException());
+        when(asyncOrderService.getLiveOrders()).thenReturn(failed(new IllegalStateException()));
 
         // When
-        this.mockMvc.perform(get("/order"))
+        performAsync(get("/order"))
                 .andExpect(status().isInternalServerError());
 
         // Then
-        verify(orderService).getLiveOrders();
-        verifyNoMoreInteractions(orderService);
+        verify(asyncOrderService).getLiveOrders();
+        verifyNoMoreInteractions(asyncOrderService);
+    }
+
+    @Test
+    public void shouldGetOrdersAsOfSequenceSuccessfully() throws Exception {
+        // Given
+        OrderSummaryHolder resultOrderSummaryHolder = new OrderSummaryHolder();
+        OrderSummary buyOrderSummary = new OrderSummary(2.3, BigDecimal.TEN, OrderType.BUY);
+        resultOrderSummaryHolder.addBuyOrderSummaries(Lists.newArrayList(buyOrderSummary));
+        when(asyncOrderService.getLiveOrdersAsOf(42)).thenReturn(CompletableFuture.completedFuture(resultOrderSummaryHolder));
+
+        // When
+        performAsync(get("/order").param("asOf", "42"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.buyOrderSummary", hasSize(1)))
+                .andExpect(jsonPath("$.buyOrderSummary[0].quantity", equalTo(buyOrderSummary.getQuantity())))
+                .andExpect(jsonPath("$.sellOrderSummary", hasSize(0)));
+
+        // Then
+        verify(asyncOrderService).getLiveOrdersAsOf(42);
+        verifyNoMoreInteractions(asyncOrderService);
+    }
+
+    @Test
+    public void shouldGetOrdersAsOfTimeSuccessfully() throws Exception {
+        // Given
+        OffsetDateTime time = OffsetDateTime.parse("2019-04-20T10:15:30Z");
+        OrderSummaryHolder resultOrderSummaryHolder = new OrderSummaryHolder();
+        resultOrderSummaryHolder.addSellOrderSummaries(Lists.newArrayList(new OrderSummary(3.4, BigDecimal.ONE, OrderType.SELL)));
+        when(asyncOrderService.getLiveOrdersAsOf(time)).thenReturn(CompletableFuture.completedFuture(resultOrderSummaryHolder));
+
+        // When
+        performAsync(get("/order").param("asOf", "2019-04-20T10:15:30Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sellOrderSummary", hasSize(1)));
+
+        // Then
+        verify(asyncOrderService).getLiveOrdersAsOf(time);
+        verifyNoMoreInteractions(asyncOrderService);
+    }
+
+    @Test
+    public void shouldGetBadRequestWhenAsOfIsInvalid() throws Exception {
+        // When
+        this.mockMvc.perform(get("/order").param("asOf", "yesterday"))
+                .andExpect(status().isBadRequest());
+
+        // Then
+        verifyNoMoreInteractions(asyncOrderService);
+    }
+
+    @Test
+    public void shouldGetTopOfBookSuccessfully() throws Exception {
+        // Given
+        OrderSummaryHolder resultOrderSummaryHolder = new OrderSummaryHolder();
+        resultOrderSummaryHolder.addBuyOrderSummaries(Lists.newArrayList(new OrderSummary(2.3, BigDecimal.TEN, OrderType.BUY)));
+        resultOrderSummaryHolder.addSellOrderSummaries(Lists.newArrayList(new OrderSummary(3.4, new BigDecimal("11"), OrderType.SELL)));
+        when(asyncOrderService.getLiveOrders(1)).thenReturn(CompletableFuture.completedFuture(resultOrderSummaryHolder));
+
+        // When
+        performAsync(get("/order/top"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.buyOrderSummary", hasSize(1)))
+                .andExpect(jsonPath("$.buyOrderSummary[0].price", equalTo(10)))
+                .andExpect(jsonPath("$.sellOrderSummary", hasSize(1)))
+                .andExpect(jsonPath("$.sellOrderSummary[0].price", equalTo(11)));
+
+        // Then
+        verify(asyncOrderService).getLiveOrders(1);
+        verifyNoMoreInteractions(asyncOrderService);
+    }
+
+    @Test
+    public void shouldGetOrdersAsOfSequenceWithDepth() throws Exception {
+        // Given
+        OrderSummaryHolder resultOrderSummaryHolder = new OrderSummaryHolder();
+        resultOrderSummaryHolder.addBuyOrderSummaries(Lists.newArrayList(new OrderSummary(2.3, BigDecimal.TEN, OrderType.BUY),
+                new OrderSummary(4.2, BigDecimal.ONE, OrderType.BUY)));
+        when(asyncOrderService.getLiveOrdersAsOf(42)).thenReturn(CompletableFuture.completedFuture(resultOrderSummaryHolder));
+
+        // When
+        performAsync(get("/order").param("asOf", "42").param("depth", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.buyOrderSummary", hasSize(1)))
+                .andExpect(jsonPath("$.buyOrderSummary[0].price", equalTo(10)));
+
+        // Then
+        verify(asyncOrderService).getLiveOrdersAsOf(42);
+        verifyNoMoreInteractions(asyncOrderService);
+    }
+
+    @Test
+    public void shouldGetBadRequestWhenDepthIsInvalid() throws Exception {
+        // When
+        this.mockMvc.perform(get("/order").param("depth", "0"))
+                .andExpect(status().isBadRequest());
+
+        // Then
+        verifyNoMoreInteractions(asyncOrderService);
     }
 
     @Test
@@ -160,10 +341,10 @@ public class OrderControllerTest {
         // Given
         Order order = new Order(1, "Test User", 8, BigDecimal.TEN, OrderType.BUY);
         order.markOrderInActive();
-        when(orderService.cancelOrder(order.getOrderId(), order.getUser())).thenReturn(order);
+        when(asyncOrderService.cancelOrder(order.getOrderId(), order.getUser())).thenReturn(CompletableFuture.completedFuture(order));
 
         // When
-        this.mockMvc.perform(
+        performAsync(
                 delete("/order/{orderId}", order.getOrderId()))
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk())
@@ -175,8 +356,8 @@ public class OrderControllerTest {
                 .andExpect(jsonPath("$.active", equalTo("N")));
 
         // Then
-        verify(orderService).cancelOrder(order.getOrderId(), order.getUser());
-        verifyNoMoreInteractions(orderService);
+        verify(asyncOrderService).cancelOrder(order.getOrderId(), order.getUser());
+        verifyNoMoreInteractions(asyncOrderService);
     }
 
     @Test
@@ -184,17 +365,17 @@ public class OrderControllerTest {
         // Given
         int orderId = 123;
         String user = "Test User";
-        when(orderService.cancelOrder(orderId, user))
-                .thenThrow(new OrderBoardInvalidOperationException("Order Id [123] is already cancelled by user [Another User]"));
+        when(asyncOrderService.cancelOrder(orderId, user))
+                .thenReturn(failed(new OrderBoardInvalidOperationException("Order Id [123] is already cancelled by user [Another User]")));
 
         // When
-        this.mockMvc.perform(
+        performAsync(
                 delete("/order/{orderId}", orderId))
                 .andExpect(status().isNotFound());
 
         // Then
-        verify(orderService).cancelOrder(orderId, user);
-        verifyNoMoreInteractions(orderService);
+        verify(asyncOrderService).cancelOrder(orderId, user);
+        verifyNoMoreInteractions(asyncOrderService);
     }
 
     @Test
@@ -202,15 +383,15 @@ public class OrderControllerTest {
         // Given
         Order order = new Order(1, "Test User", 8, BigDecimal.TEN, OrderType.BUY);
         order.markOrderInActive();
-        when(orderService.cancelOrder(order.getOrderId(), order.getUser())).thenThrow(new IllegalStateException());
+        when(asyncOrderService.cancelOrder(order.getOrderId(), order.getUser())).thenReturn(failed(new IllegalStateException()));
 
         // When
-        this.mockMvc.perform(
+        performAsync(
                 delete("/order/{orderId}", order.getOrderId()))
                 .andExpect(status().isInternalServerError());
 
         // Then
-        verify(orderService).cancelOrder(order.getOrderId(), order.getUser());
-        verifyNoMoreInteractions(orderService);
+        verify(asyncOrderService).cancelOrder(order.getOrderId(), order.getUser());
+        verifyNoMoreInteractions(asyncOrderService);
     }
 }
\ No newline at end of file
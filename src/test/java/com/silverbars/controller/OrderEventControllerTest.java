@@ -0,0 +1,131 @@
+package com.silverbars.controller;
+
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.dao.MapOrderDao;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.event.OrderEventCodec;
+import com.silverbars.event.OrderEventLog;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class OrderEventControllerTest {
+
+    private MockMvc mockMvc;
+
+    private OrderEventController classToTest;
+
+    private OrderEventLog orderEventLog;
+
+    private MapOrderDao orderDao;
+
+    private List<OrderEvent> orderEvents;
+
+    @Before
+    public void init() {
+        /* Holds the last 4 events */
+        orderEventLog = new OrderEventLog(4);
+        orderDao = new MapOrderDao();
+        classToTest = new OrderEventController();
+        ReflectionTestUtils.setField(classToTest, "orderEventLog", orderEventLog);
+        ReflectionTestUtils.setField(classToTest, "orderDao", orderDao);
+        ReflectionTestUtils.setField(classToTest, "maxLimit", 100);
+        mockMvc = MockMvcBuilders.standaloneSetup(classToTest).build();
+
+        orderEvents = new ArrayList<>();
+        OffsetDateTime time = OffsetDateTime.of(2019, 4, 20, 10, 15, 30, 0, ZoneOffset.UTC);
+        for (int sequence = 1; sequence <= 5; sequence++) {
+            OrderEvent orderEvent = new OrderEvent(sequence, sequence == 5 ? OrderEventType.CANCELLED : OrderEventType.REGISTERED,
+                    sequence == 5 ? 1 : sequence, "User " + sequence, 1.5, new BigDecimal("305.25"), OrderType.BUY, time.plusSeconds(sequence));
+            orderEventLog.appendReplicated(orderEvent, orderDao::apply);
+            orderEvents.add(orderEvent);
+        }
+    }
+
+    @Test
+    public void shouldStreamEventRange() throws Exception {
+        // When
+        ResponseEntity<StreamingResponseBody> result = classToTest.getEvents(2, 3);
+
+        // Then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getHeaders().getFirst(OrderEventController.FIRST_SEQUENCE_HEADER), equalTo("2"));
+        assertThat(result.getHeaders().getFirst(OrderEventController.LAST_SEQUENCE_HEADER), equalTo("5"));
+        assertThat(result.getHeaders().getFirst(OrderEventController.NEXT_SEQUENCE_HEADER), equalTo("5"));
+        assertThat(decode(result.getBody()), equalTo(orderEvents.subList(1, 4)));
+    }
+
+    @Test
+    public void shouldStreamSnapshotOfLiveOrders() throws Exception {
+        // When
+        ResponseEntity<StreamingResponseBody> result = classToTest.getEvents(0, 1);
+
+        // Then the registrations of the orders live after the last event, whatever the limit
+        assertThat(result.getHeaders().getFirst(OrderEventController.SNAPSHOT_SEQUENCE_HEADER), equalTo("5"));
+        assertThat(result.getHeaders().getFirst(OrderEventController.NEXT_SEQUENCE_HEADER), equalTo("6"));
+        List<OrderEvent> registrations = decode(result.getBody());
+        assertThat(registrations.size(), equalTo(3));
+        for (int index = 0; index < registrations.size(); index++) {
+            OrderEvent orderEvent = orderEvents.get(index + 1);
+            assertThat(registrations.get(index), equalTo(new OrderEvent(5, OrderEventType.REGISTERED, orderEvent.getOrderId(), orderEvent.getUser(),
+                    orderEvent.getQuantity(), orderEvent.getPrice(), orderEvent.getOrderType(), orderEvent.getTime())));
+        }
+    }
+
+    @Test
+    public void shouldStreamNothingWhenUpToDate() throws Exception {
+        // When
+        ResponseEntity<StreamingResponseBody> result = classToTest.getEvents(6, 10);
+
+        // Then
+        assertThat(result.getHeaders().getFirst(OrderEventController.NEXT_SEQUENCE_HEADER), equalTo("6"));
+        assertThat(decode(result.getBody()), equalTo(Collections.emptyList()));
+    }
+
+    @Test
+    public void shouldGetBadRequestWhenRangeIsInvalid() throws Exception {
+        mockMvc.perform(get("/events").param("fromSeq", "7"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/events").param("fromSeq", "-1"))
+                .andExpect(status().isBadRequest());
+        /* No longer held */
+        mockMvc.perform(get("/events").param("fromSeq", "1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/events").param("fromSeq", "1").param("limit", "101"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static List<OrderEvent> decode(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+        ByteBuffer buffer = ByteBuffer.wrap(outputStream.toByteArray());
+        List<OrderEvent> decoded = new ArrayList<>();
+        OrderEvent orderEvent;
+        while ((orderEvent = OrderEventCodec.decode(buffer)) != null) {
+            decoded.add(orderEvent);
+        }
+        assertThat(buffer.hasRemaining(), equalTo(false));
+        return decoded;
+    }
+}
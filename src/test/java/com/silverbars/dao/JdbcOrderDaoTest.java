@@ -0,0 +1,271 @@
+package com.silverbars.dao;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.exception.OrderBoardInvalidOperationException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+
+public class JdbcOrderDaoTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private String url;
+    private JdbcOrderDao classToTest;
+
+    @Before
+    public void setUp() throws Exception {
+        url = "jdbc:h2:file:" + temporaryFolder.getRoot().getAbsolutePath() + "/orders";
+        classToTest = new JdbcOrderDao(url, 10, 100, 5_000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        classToTest.close();
+    }
+
+    @Test
+    public void shouldAggregateLiveOrdersByPriceInOneQuery() throws Exception {
+        // Given more orders than a batch
+        for (int i = 0; i < 25; i++) {
+            classToTest.registerOrder("User " + i, 1.5, new BigDecimal("305.25"), OrderType.SELL);
+        }
+        classToTest.registerOrder("Test User", 2.0, new BigDecimal("306.00"), OrderType.SELL);
+        classToTest.registerOrder("Test User", 1.0, new BigDecimal("300"), OrderType.BUY);
+        classToTest.registerOrder("Test User", 1.0, new BigDecimal("301"), OrderType.BUY);
+        Order cancelled = classToTest.registerOrder("Test User", 1.0, new BigDecimal("302"), OrderType.BUY);
+        classToTest.cancelOrder(cancelled.getOrderId(), "Test User");
+
+        // When
+        OrderSummaryHolder result = classToTest.getLiveOrders();
+
+        // Then
+        assertThat(result.getSellOrderSummary(), contains(new OrderSummary(37.5, new BigDecimal("305.25"), OrderType.SELL),
+                new OrderSummary(2.0, new BigDecimal("306.00"), OrderType.SELL)));
+        assertThat(result.getBuyOrderSummary(), contains(new OrderSummary(1.0, new BigDecimal("301"), OrderType.BUY),
+                new OrderSummary(1.0, new BigDecimal("300"), OrderType.BUY)));
+    }
+
+    @Test
+    public void shouldCancelOrderOnce() throws Exception {
+        // Given
+        Order order = classToTest.registerOrder("Test User", 2.5, BigDecimal.TEN, OrderType.BUY);
+
+        // When
+        Order result = classToTest.cancelOrder(order.getOrderId(), "Cancel User");
+
+        // Then
+        assertThat(result.getActive(), equalTo('N'));
+        assertThat(result.getLatestOrderAudit().getUser(), equalTo("Cancel User"));
+        assertThat(classToTest.getLiveOrders().getBuyOrderSummary(), empty());
+        try {
+            classToTest.cancelOrder(order.getOrderId(), "Test User");
+        } catch (OrderBoardInvalidOperationException e) {
+            assertThat(e.getMessage(), equalTo("Order Id [1] is already cancelled by user [Cancel User]"));
+            return;
+        }
+        throw new AssertionError("Second cancellation was accepted");
+    }
+
+    @Test(expected = OrderBoardInvalidOperationException.class)
+    public void shouldRejectCancellationOfUnknownOrder() throws Exception {
+        classToTest.cancelOrder(7, "Test User");
+    }
+
+    @Test
+    public void shouldKeepOrdersAcrossRestart() throws Exception {
+        // Given
+        Order cancelled = classToTest.registerOrder("User 1", 1.5, new BigDecimal("305"), OrderType.BUY);
+        classToTest.registerOrder("User 2", 2.0, new BigDecimal("306"), OrderType.BUY);
+        classToTest.cancelOrder(cancelled.getOrderId(), "User 3");
+        classToTest.close();
+
+        // When
+        classToTest = new JdbcOrderDao(url, 10, 100, 5_000);
+        Order registeredAfterRestart = classToTest.registerOrder("User 4", 1.0, new BigDecimal("306"), OrderType.BUY);
+
+        // Then
+        assertThat(registeredAfterRestart.getOrderId(), equalTo(3L));
+        assertThat(classToTest.getLiveOrders().getBuyOrderSummary(), contains(new OrderSummary(3.0, new BigDecimal("306"), OrderType.BUY)));
+        Order cancelledAfterRestart = classToTest.cancelOrder(2, "User 1");
+        assertThat(cancelledAfterRestart.getUser(), equalTo("User 2"));
+        assertThat(cancelledAfterRestart.getOrderAudits(), hasSize(2));
+        try {
+            classToTest.cancelOrder(1, "User 4");
+        } catch (OrderBoardInvalidOperationException e) {
+            assertThat(e.getMessage(), equalTo("Order Id [1] is already cancelled by user [User 3]"));
+            return;
+        }
+        throw new AssertionError("Cancellation of an order cancelled before the restart was accepted");
+    }
+
+    @Test
+    public void shouldApplyReplicatedEventsKeepingIdAndTime() throws Exception {
+        // Given
+        OffsetDateTime time = OffsetDateTime.of(2019, 4, 20, 10, 15, 30, 123_456_789, ZoneOffset.UTC);
+        classToTest.apply(new OrderEvent(1, OrderEventType.REGISTERED, 5, "User 1", 1.5, new BigDecimal("305"), OrderType.SELL, time));
+        classToTest.apply(new OrderEvent(2, OrderEventType.CANCELLED, 5, "User 2", 1.5, new BigDecimal("305"), OrderType.SELL, time.plusSeconds(1)));
+        classToTest.close();
+
+        // When
+        classToTest = new JdbcOrderDao(url, 10, 100, 5_000);
+        Order result = classToTest.registerOrder("User 3", 1.0, BigDecimal.ONE, OrderType.SELL);
+
+        // Then
+        assertThat(result.getOrderId(), equalTo(6L));
+        assertThat(classToTest.getLiveOrders().getSellOrderSummary(), contains(new OrderSummary(1.0, BigDecimal.ONE, OrderType.SELL)));
+        try {
+            classToTest.cancelOrder(5, "User 3");
+        } catch (OrderBoardInvalidOperationException e) {
+            assertThat(e.getMessage(), equalTo("Order Id [5] is already cancelled by user [User 2]"));
+            return;
+        }
+        throw new AssertionError("Replicated cancellation was lost");
+    }
+
+    @Test
+    public void shouldKeepScaleOfPricesAcrossRestart() throws Exception {
+        // Given
+        classToTest.registerOrder("User 1", 1.0, new BigDecimal("10"), OrderType.SELL);
+        classToTest.registerOrder("User 2", 2.0, new BigDecimal("10.0"), OrderType.SELL);
+        classToTest.registerOrder("User 3", 3.0, new BigDecimal("1E+3"), OrderType.SELL);
+        classToTest.close();
+
+        // When
+        classToTest = new JdbcOrderDao(url, 10, 100, 5_000);
+        classToTest.registerOrder("User 4", 4.0, new BigDecimal("10.0"), OrderType.SELL);
+
+        // Then
+        assertThat(classToTest.getLiveOrders().getSellOrderSummary(), contains(new OrderSummary(1.0, new BigDecimal("10"), OrderType.SELL),
+                new OrderSummary(6.0, new BigDecimal("10.0"), OrderType.SELL), new OrderSummary(3.0, new BigDecimal("1E+3"), OrderType.SELL)));
+    }
+
+    @Test
+    public void shouldRejectPriceTheDatabaseCannotStore() throws Exception {
+        // Given
+        BigDecimal price = new BigDecimal("305.12345678901");
+
+        // When
+        try {
+            classToTest.registerOrder("Test User", 1.0, price, OrderType.BUY);
+        } catch (IllegalArgumentException e) {
+            // Then
+            assertThat(e.getMessage(), equalTo("Price [305.12345678901] has too many digits to be stored"));
+            assertThat(classToTest.registerOrder("Test User", 1.0, new BigDecimal("305"), OrderType.BUY).getOrderId(), equalTo(1L));
+            return;
+        }
+        throw new AssertionError("Price beyond DECIMAL(30, 10) was accepted");
+    }
+
+    @Test
+    public void shouldStoreOrderWithoutUser() throws Exception {
+        // Given
+        classToTest.registerOrder(null, 1.5, new BigDecimal("305"), OrderType.BUY);
+        classToTest.close();
+
+        // When
+        classToTest = new JdbcOrderDao(url, 10, 100, 5_000);
+
+        // Then
+        assertThat(classToTest.getLiveOrders().getBuyOrderSummary(), contains(new OrderSummary(1.5, new BigDecimal("305"), OrderType.BUY)));
+    }
+
+    @Test
+    public void shouldLeaveOutChangeRejectedByDatabase() throws Exception {
+        // Given a database refusing the orders of one user
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE orders ADD CONSTRAINT no_rejected_user CHECK (user_name <> 'Rejected User')");
+        }
+
+        // When
+        classToTest.registerOrder("Test User", 1.0, new BigDecimal("300"), OrderType.BUY);
+        classToTest.registerOrder("Rejected User", 2.0, new BigDecimal("301"), OrderType.BUY);
+        classToTest.registerOrder("Test User", 3.0, new BigDecimal("302"), OrderType.BUY);
+
+        // Then
+        assertThat(classToTest.getLiveOrders().getBuyOrderSummary(), contains(new OrderSummary(3.0, new BigDecimal("302"), OrderType.BUY),
+                new OrderSummary(1.0, new BigDecimal("300"), OrderType.BUY)));
+    }
+
+    @Test
+    public void shouldFailReadWhenChangesAreNotWrittenInTime() throws Exception {
+        // Given a writer held back by a row another connection has not committed
+        classToTest.close();
+        classToTest = new JdbcOrderDao(url, 10, 100, 200);
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("INSERT INTO orders (order_id, user_name, quantity, price, price_scale, order_type, active, add_time) " +
+                    "VALUES (1, 'Other User', 1.0, 300, 0, 'BUY', TRUE, CURRENT_TIMESTAMP)");
+            classToTest.registerOrder("Test User", 1.0, new BigDecimal("300"), OrderType.BUY);
+
+            // When
+            try {
+                classToTest.getLiveOrders();
+            } catch (IllegalStateException e) {
+                // Then
+                assertThat(e.getMessage(), startsWith("Order changes not written after [200] ms"));
+                connection.rollback();
+                return;
+            }
+        }
+        throw new AssertionError("Read did not time out");
+    }
+
+    @Test
+    public void shouldMakeWritersWaitOnceMaxLagIsReached() throws Exception {
+        // Given a writer held back by a row another connection has not committed, with one more change waiting
+        classToTest.close();
+        classToTest = new JdbcOrderDao(url, 10, 1, 5_000);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("INSERT INTO orders (order_id, user_name, quantity, price, price_scale, order_type, active, add_time) " +
+                    "VALUES (1, 'Other User', 1.0, 300, 0, 'BUY', TRUE, CURRENT_TIMESTAMP)");
+            classToTest.registerOrder("Test User", 1.0, new BigDecimal("300"), OrderType.BUY);
+            Thread.sleep(100);
+            classToTest.registerOrder("Test User", 2.0, new BigDecimal("300"), OrderType.BUY);
+
+            // When
+            Future<Order> registration = executor.submit(() -> classToTest.registerOrder("Test User", 3.0, new BigDecimal("300"), OrderType.BUY));
+            Thread.sleep(300);
+            boolean doneWhileLagging = registration.isDone();
+            connection.rollback();
+
+            // Then
+            assertThat(doneWhileLagging, equalTo(false));
+            assertThat(registration.get(10, TimeUnit.SECONDS).getOrderId(), equalTo(3L));
+            assertThat(classToTest.getLiveOrders().getBuyOrderSummary(), contains(new OrderSummary(6.0, new BigDecimal("300"), OrderType.BUY)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
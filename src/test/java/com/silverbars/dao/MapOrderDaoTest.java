@@ -2,8 +2,10 @@ package com.silverbars.dao;
 
 import com.silverbars.bean.Order;
 import com.silverbars.bean.OrderAudit;
+import com.silverbars.bean.OrderEvent;
 import com.silverbars.bean.OrderSummary;
 import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderEventType;
 import com.silverbars.enums.OrderType;
 import com.silverbars.exception.OrderBoardInvalidOperationException;
 import org.junit.Assert;
@@ -14,11 +16,14 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.Collection;
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
 
 @RunWith(SpringRunner.class)
@@ -83,6 +88,11 @@ public class MapOrderDaoTest {
         assertThat(orderAudit.getUser(), equalTo(cancelOrderUser));
         assertThat(orderAudit.getOrderId(), equalTo(existingOrder.getOrderId()));
         assertThat(orderAudit.getAddTime(), is(notNullValue()));
+
+        /* Cancellation replaces the order rather than changing it */
+        assertThat(result.getActive(), equalTo('N'));
+        assertThat(existingOrder.getActive(), equalTo('Y'));
+        assertThat(existingOrder.getOrderAudits(), hasSize(1));
     }
 
     @Test
@@ -126,6 +136,26 @@ public class MapOrderDaoTest {
         // Then
     }
 
+    @Test
+    public void shouldRejectRegistrationOfExistingOrder() {
+        // Given a board of its own, the live orders are checked
+        MapOrderDao orderDao = new MapOrderDao();
+        Order existingOrder = orderDao.registerOrder("Test User", 2.5, BigDecimal.TEN, OrderType.BUY);
+
+        // When
+        try {
+            orderDao.apply(new OrderEvent(1, OrderEventType.REGISTERED, existingOrder.getOrderId(), "Another User", 1.5, BigDecimal.TEN,
+                    OrderType.BUY, OffsetDateTime.now(ZoneOffset.UTC)));
+            Assert.fail("Excepted exception to be thrown");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("Order Id [1] is registered already"));
+        }
+
+        // Then
+        assertThat(orderDao.findOrder(existingOrder.getOrderId()).getUser(), equalTo("Test User"));
+        assertThat(orderDao.getLiveOrders().getBuyOrderSummary(), contains(new OrderSummary(2.5, BigDecimal.TEN, OrderType.BUY)));
+    }
+
     @Test
     public void shouldGetLiveOrdersSuccessfully() {
         // Given
@@ -0,0 +1,190 @@
+package com.silverbars.dao;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.UserRegistry;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.exception.OrderBoardInvalidOperationException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MappedFileOrderDaoTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File file;
+    private MappedFileOrderDao classToTest;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(temporaryFolder.getRoot(), "orders.dat");
+        classToTest = new MappedFileOrderDao(file.toPath(), new StripedPriceLevelBook(), new UserRegistry(1000));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        classToTest.close();
+    }
+
+    @Test
+    public void shouldRegisterAndReadBackOrder() {
+        // When
+        Order result = classToTest.registerOrder("Test User", 2.5, new BigDecimal("305.25"), OrderType.SELL);
+
+        // Then
+        assertThat(result.getOrderId(), equalTo(1L));
+        assertThat(result.getUser(), equalTo("Test User"));
+        assertThat(result.getQuantity(), equalTo(2.5));
+        assertThat(result.getPrice(), equalTo(new BigDecimal("305.25")));
+        assertThat(result.getOrderType(), equalTo(OrderType.SELL));
+        assertThat(result.getActive(), equalTo('Y'));
+        assertThat(result.getOrderAudits(), hasSize(1));
+        assertThat(classToTest.getLiveOrders().getSellOrderSummary(), contains(new OrderSummary(2.5, new BigDecimal("305.25"), OrderType.SELL)));
+    }
+
+    @Test
+    public void shouldCancelOrderOnce() throws Exception {
+        // Given
+        Order order = classToTest.registerOrder("Test User", 2.5, BigDecimal.TEN, OrderType.BUY);
+
+        // When
+        Order result = classToTest.cancelOrder(order.getOrderId(), "Cancel User");
+
+        // Then
+        assertThat(result.getActive(), equalTo('N'));
+        assertThat(result.getLatestOrderAudit().getUser(), equalTo("Cancel User"));
+        assertThat(classToTest.getLiveOrders().getBuyOrderSummary(), empty());
+        try {
+            classToTest.cancelOrder(order.getOrderId(), "Test User");
+        } catch (OrderBoardInvalidOperationException e) {
+            assertThat(e.getMessage(), equalTo("Order Id [1] is already cancelled by user [Cancel User]"));
+            return;
+        }
+        throw new AssertionError("Second cancellation was accepted");
+    }
+
+    @Test(expected = OrderBoardInvalidOperationException.class)
+    public void shouldRejectCancellationOfUnknownOrder() throws Exception {
+        classToTest.cancelOrder(7, "Test User");
+    }
+
+    @Test
+    public void shouldKeepOrdersAcrossRestart() throws Exception {
+        // Given
+        Order cancelled = classToTest.registerOrder("User 1", 1.5, new BigDecimal("305"), OrderType.BUY);
+        classToTest.registerOrder("User 2", 2.0, new BigDecimal("306"), OrderType.BUY);
+        classToTest.cancelOrder(cancelled.getOrderId(), "User 3");
+        classToTest.close();
+
+        // When
+        classToTest = new MappedFileOrderDao(file.toPath(), new StripedPriceLevelBook(), new UserRegistry(1000));
+        Order registeredAfterRestart = classToTest.registerOrder("User 4", 1.0, new BigDecimal("306"), OrderType.BUY);
+
+        // Then
+        assertThat(registeredAfterRestart.getOrderId(), equalTo(3L));
+        assertThat(classToTest.getLiveOrders().getBuyOrderSummary(), contains(new OrderSummary(3.0, new BigDecimal("306"), OrderType.BUY)));
+        Order cancelledAfterRestart = classToTest.cancelOrder(2, "User 1");
+        assertThat(cancelledAfterRestart.getUser(), equalTo("User 2"));
+        assertThat(cancelledAfterRestart.getOrderAudits(), hasSize(2));
+    }
+
+    @Test
+    public void shouldSupplyLiveOrdersKeptAcrossRestart() throws Exception {
+        // Given
+        Order cancelled = classToTest.registerOrder("User 1", 1.5, new BigDecimal("305"), OrderType.BUY);
+        classToTest.registerOrder("User 2", 2.0, new BigDecimal("306"), OrderType.SELL);
+        classToTest.registerOrder("User 3", 3.0, new BigDecimal("307"), OrderType.SELL);
+        classToTest.cancelOrder(cancelled.getOrderId(), "User 1");
+        classToTest.close();
+        classToTest = new MappedFileOrderDao(file.toPath(), new StripedPriceLevelBook(), new UserRegistry(1000));
+
+        // When
+        List<Order> result = new ArrayList<>();
+        classToTest.forEachLiveOrder(result::add);
+
+        // Then
+        assertThat(result, hasSize(2));
+        assertThat(result.get(0).getOrderId(), equalTo(2L));
+        assertThat(result.get(0).getUser(), equalTo("User 2"));
+        assertThat(result.get(1).getOrderId(), equalTo(3L));
+        assertThat(result.get(1).getPrice(), equalTo(new BigDecimal("307")));
+    }
+
+    @Test
+    public void shouldKeepUserNamesAcrossRestart() throws Exception {
+        // Given
+        UserRegistry userRegistry = new UserRegistry(1000);
+        userRegistry.idOf("User seen by another Order Dao");
+        classToTest.close();
+        classToTest = new MappedFileOrderDao(file.toPath(), new StripedPriceLevelBook(), userRegistry);
+        classToTest.registerOrder("Usér 1", 1.5, new BigDecimal("305"), OrderType.BUY);
+        classToTest.registerOrder(null, 2.0, new BigDecimal("306"), OrderType.BUY);
+        classToTest.close();
+
+        // When
+        UserRegistry userRegistryAfterRestart = new UserRegistry(1000);
+        classToTest = new MappedFileOrderDao(file.toPath(), new StripedPriceLevelBook(), userRegistryAfterRestart);
+
+        // Then
+        assertThat(classToTest.cancelOrder(1, "User 2").getUser(), equalTo("Usér 1"));
+        assertThat(classToTest.cancelOrder(2, "User 2").getUser(), nullValue());
+        assertThat(userRegistryAfterRestart.size(), equalTo(3));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectUserRegistryGivingOtherIdsToUsersOfFile() throws Exception {
+        // Given
+        classToTest.registerOrder("User 1", 1.5, new BigDecimal("305"), OrderType.BUY);
+        classToTest.close();
+        UserRegistry userRegistry = new UserRegistry(1000);
+        userRegistry.idOf("User 2");
+
+        // When
+        classToTest = new MappedFileOrderDao(file.toPath(), new StripedPriceLevelBook(), userRegistry);
+    }
+
+    @Test
+    public void shouldApplyReplicatedEventsKeepingIdAndTime() {
+        // Given
+        OffsetDateTime time = OffsetDateTime.of(2019, 4, 20, 10, 15, 30, 123_456_789, ZoneOffset.UTC);
+
+        // When
+        classToTest.apply(new OrderEvent(1, OrderEventType.REGISTERED, 5, "User 1", 1.5, new BigDecimal("305"), OrderType.SELL, time));
+        classToTest.apply(new OrderEvent(2, OrderEventType.CANCELLED, 5, "User 2", 1.5, new BigDecimal("305"), OrderType.SELL, time.plusSeconds(1)));
+        Order result = classToTest.registerOrder("User 3", 1.0, BigDecimal.ONE, OrderType.SELL);
+
+        // Then
+        assertThat(result.getOrderId(), equalTo(6L));
+        assertThat(classToTest.getLiveOrders().getSellOrderSummary(), contains(new OrderSummary(1.0, BigDecimal.ONE, OrderType.SELL)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectRegistrationOfExistingOrder() {
+        // Given
+        Order existingOrder = classToTest.registerOrder("User 1", 1.5, new BigDecimal("305"), OrderType.SELL);
+
+        // When
+        classToTest.apply(new OrderEvent(1, OrderEventType.REGISTERED, existingOrder.getOrderId(), "User 2", 1.5, new BigDecimal("305"),
+                OrderType.SELL, OffsetDateTime.now(ZoneOffset.UTC)));
+    }
+}
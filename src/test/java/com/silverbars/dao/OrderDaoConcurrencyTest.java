@@ -0,0 +1,319 @@
+package com.silverbars.dao;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.bean.UserRegistry;
+import com.silverbars.enums.OrderType;
+import com.silverbars.exception.OrderBoardInvalidOperationException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Stress tests run against every Order Dao implementation.
+ * <p>
+ * All threads are released together to maximise contention. Quantities are whole numbers so that sums of doubles are
+ * exact whatever order they are added in, and a board read can be compared exactly with the orders known to be live.
+ */
+@RunWith(Parameterized.class)
+public class OrderDaoConcurrencyTest {
+
+    private static final int THREADS = 8;
+    /* Written at the scale of the tick ladder, the last one outside its band */
+    private static final BigDecimal[] PRICES = {new BigDecimal("300.0"), new BigDecimal("301.5"), new BigDecimal("302.0"), new BigDecimal("303.25")};
+
+    @Parameterized.Parameter
+    public String name;
+
+    @Parameterized.Parameter(1)
+    public Supplier<OrderDao> orderDaoSupplier;
+
+    private OrderDao classToTest;
+    private ExecutorService executorService;
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> orderDaos() {
+        return Arrays.asList(new Object[][]{
+                {"MapOrderDao", (Supplier<OrderDao>) MapOrderDao::new},
+                {"MapOrderDao with tick ladder", (Supplier<OrderDao>) () -> new MapOrderDao(
+                        new TickLadderPriceLevelBook(new BigDecimal("300"), new BigDecimal("302"), new BigDecimal("0.5")))},
+                {"MappedFileOrderDao", (Supplier<OrderDao>) OrderDaoConcurrencyTest::newMappedFileOrderDao},
+                {"JdbcOrderDao", (Supplier<OrderDao>) OrderDaoConcurrencyTest::newJdbcOrderDao}
+        });
+    }
+
+    private static OrderDao newMappedFileOrderDao() {
+        try {
+            File file = File.createTempFile("orders", ".dat");
+            file.deleteOnExit();
+            new File(file + ".users").deleteOnExit();
+            return new MappedFileOrderDao(file.toPath(), new StripedPriceLevelBook(), new UserRegistry(1000));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static OrderDao newJdbcOrderDao() {
+        try {
+            Path directory = Files.createTempDirectory("orders-h2");
+            /* Deleted in reverse order of registration, the database file before its directory */
+            directory.toFile().deleteOnExit();
+            directory.resolve("orders.mv.db").toFile().deleteOnExit();
+            return new JdbcOrderDao("jdbc:h2:file:" + directory.toAbsolutePath() + "/orders", 500, 5_000, 60_000);
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        classToTest = orderDaoSupplier.get();
+        executorService = Executors.newFixedThreadPool(THREADS + 2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executorService.shutdownNow();
+        if (classToTest instanceof AutoCloseable) {
+            ((AutoCloseable) classToTest).close();
+        }
+    }
+
+    @Test
+    public void shouldCancelEachOrderExactlyOnce() throws Exception {
+        // Given
+        int orders = 2_000;
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            orderIds.add(classToTest.registerOrder("User " + i % 10, 1 + i % 5, PRICES[i % PRICES.length], i % 2 == 0 ? OrderType.BUY : OrderType.SELL).getOrderId());
+        }
+        Map<Long, Integer> orderIdToIndexMap = new HashMap<>();
+        for (int i = 0; i < orders; i++) {
+            orderIdToIndexMap.put(orderIds.get(i), i);
+        }
+        AtomicIntegerArray successfulCancellations = new AtomicIntegerArray(orders);
+        AtomicIntegerArray rejectedCancellations = new AtomicIntegerArray(orders);
+
+        // When
+        runTogether(THREADS, thread -> {
+            List<Long> shuffledOrderIds = new ArrayList<>(orderIds);
+            Collections.shuffle(shuffledOrderIds, new Random(thread));
+            for (long orderId : shuffledOrderIds) {
+                int index = orderIdToIndexMap.get(orderId);
+                try {
+                    Order cancelledOrder = classToTest.cancelOrder(orderId, "Cancel User " + thread);
+                    assertThat(cancelledOrder.getActive(), equalTo('N'));
+                    assertThat(cancelledOrder.getOrderAudits().size(), equalTo(2));
+                    successfulCancellations.incrementAndGet(index);
+                } catch (OrderBoardInvalidOperationException e) {
+                    rejectedCancellations.incrementAndGet(index);
+                }
+            }
+        });
+
+        // Then
+        for (int i = 0; i < orders; i++) {
+            assertThat("Successful cancellations of order " + orderIds.get(i), successfulCancellations.get(i), equalTo(1));
+            assertThat("Rejected cancellations of order " + orderIds.get(i), rejectedCancellations.get(i), equalTo(THREADS - 1));
+        }
+        assertThat(classToTest.getLiveOrders().getBuyOrderSummary(), empty());
+        assertThat(classToTest.getLiveOrders().getSellOrderSummary(), empty());
+    }
+
+    @Test
+    public void shouldKeepAggregatesEqualToLiveOrdersUnderConcurrentRegisterAndCancel() throws Exception {
+        // Given
+        int operationsPerThread = 5_000;
+        Queue<Order> liveOrders = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        double maxQuantityPerLevel = THREADS * operationsPerThread * 5.0;
+        List<String> readViolations = Collections.synchronizedList(new ArrayList<>());
+        Future<Integer> reader = executorService.submit(() -> {
+            int reads = 0;
+            do {
+                checkBoard(classToTest.getLiveOrders(), maxQuantityPerLevel, readViolations);
+                reads++;
+            } while (writing.get());
+            return reads;
+        });
+
+        // When
+        runTogether(THREADS, thread -> {
+            Random random = new Random(thread);
+            List<Order> ownLiveOrders = new ArrayList<>();
+            for (int i = 0; i < operationsPerThread; i++) {
+                if (ownLiveOrders.isEmpty() || random.nextInt(3) > 0) {
+                    ownLiveOrders.add(classToTest.registerOrder("User " + thread, 1 + random.nextInt(5),
+                            PRICES[random.nextInt(PRICES.length)], random.nextBoolean() ? OrderType.BUY : OrderType.SELL));
+                } else {
+                    Order order = ownLiveOrders.remove(random.nextInt(ownLiveOrders.size()));
+                    classToTest.cancelOrder(order.getOrderId(), "User " + thread);
+                }
+            }
+            liveOrders.addAll(ownLiveOrders);
+        });
+        writing.set(false);
+
+        // Then
+        assertThat(reader.get(1, TimeUnit.MINUTES), greaterThan(0));
+        assertThat(readViolations.toString(), readViolations, empty());
+        OrderSummaryHolder expected = aggregate(liveOrders);
+        OrderSummaryHolder result = classToTest.getLiveOrders();
+        assertThat(result.getBuyOrderSummary(), equalTo(expected.getBuyOrderSummary()));
+        assertThat(result.getSellOrderSummary(), equalTo(expected.getSellOrderSummary()));
+    }
+
+    @Test
+    public void shouldNeverShowLevelQuantityDecreasingWhileOnlyRegistering() throws Exception {
+        // Given
+        int ordersPerThread = 5_000;
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<String> readViolations = Collections.synchronizedList(new ArrayList<>());
+        Future<?> reader = executorService.submit(() -> {
+            Map<BigDecimal, Double> priceToLastQuantityMap = new HashMap<>();
+            while (writing.get()) {
+                for (OrderSummary orderSummary : classToTest.getLiveOrders().getBuyOrderSummary()) {
+                    Double lastQuantity = priceToLastQuantityMap.put(orderSummary.getPrice(), orderSummary.getQuantity());
+                    if (lastQuantity != null && orderSummary.getQuantity() < lastQuantity) {
+                        readViolations.add(String.format("Level %s went from %s to %s", orderSummary.getPrice(), lastQuantity, orderSummary.getQuantity()));
+                    }
+                }
+            }
+        });
+
+        // When
+        runTogether(THREADS, thread -> {
+            for (int i = 0; i < ordersPerThread; i++) {
+                classToTest.registerOrder("User " + thread, 1, PRICES[i % PRICES.length], OrderType.BUY);
+            }
+        });
+        writing.set(false);
+        reader.get(1, TimeUnit.MINUTES);
+
+        // Then
+        assertThat(readViolations.toString(), readViolations, empty());
+        List<OrderSummary> result = classToTest.getLiveOrders().getBuyOrderSummary();
+        assertThat(result.size(), equalTo(PRICES.length));
+        for (OrderSummary orderSummary : result) {
+            assertThat(orderSummary.getQuantity(), equalTo((double) THREADS * ordersPerThread / PRICES.length));
+        }
+    }
+
+    @Test
+    public void shouldRegisterOrdersWithUniqueIdsConcurrently() throws Exception {
+        // Given
+        int ordersPerThread = 5_000;
+        Queue<Long> orderIds = new ConcurrentLinkedQueue<>();
+
+        // When
+        runTogether(THREADS, thread -> {
+            for (int i = 0; i < ordersPerThread; i++) {
+                orderIds.add(classToTest.registerOrder("User " + thread, 1, PRICES[0], OrderType.SELL).getOrderId());
+            }
+        });
+
+        // Then
+        assertThat(orderIds.stream().distinct().count(), equalTo((long) THREADS * ordersPerThread));
+        assertThat(classToTest.getLiveOrders().getSellOrderSummary().get(0).getQuantity(), equalTo((double) THREADS * ordersPerThread));
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    /**
+     * Runs the body on the supplied number of threads released at the same time and rethrows the first failure
+     */
+    private void runTogether(int threads, ThreadBody threadBody) throws Exception {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int threadNumber = thread;
+            futures.add(executorService.submit(() -> {
+                ready.countDown();
+                start.await();
+                threadBody.run(threadNumber);
+                return null;
+            }));
+        }
+        ready.await();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Checks what holds for any state of the board: levels are sorted best first, unique, positive and whole numbers
+     */
+    private static void checkBoard(OrderSummaryHolder board, double maxQuantityPerLevel, List<String> violations) {
+        checkSide(board.getBuyOrderSummary(), Comparator.comparing(OrderSummary::getPrice, Comparator.reverseOrder()), maxQuantityPerLevel, violations);
+        checkSide(board.getSellOrderSummary(), Comparator.comparing(OrderSummary::getPrice), maxQuantityPerLevel, violations);
+    }
+
+    private static void checkSide(List<OrderSummary> orderSummaries, Comparator<OrderSummary> bestFirst, double maxQuantityPerLevel, List<String> violations) {
+        for (int i = 0; i < orderSummaries.size(); i++) {
+            OrderSummary orderSummary = orderSummaries.get(i);
+            double quantity = orderSummary.getQuantity();
+            if (quantity <= 0 || quantity > maxQuantityPerLevel || quantity != Math.rint(quantity)) {
+                violations.add("Invalid level " + orderSummary);
+            }
+            if (i > 0 && bestFirst.compare(orderSummaries.get(i - 1), orderSummary) >= 0) {
+                violations.add("Levels out of order " + orderSummaries);
+            }
+        }
+    }
+
+    private static OrderSummaryHolder aggregate(Collection<Order> orders) {
+        OrderSummaryHolder orderSummaryHolder = new OrderSummaryHolder();
+        orderSummaryHolder.addBuyOrderSummaries(aggregate(orders, OrderType.BUY).stream()
+                .sorted(Comparator.comparing(OrderSummary::getPrice, Comparator.reverseOrder())).collect(Collectors.toList()));
+        orderSummaryHolder.addSellOrderSummaries(aggregate(orders, OrderType.SELL).stream()
+                .sorted(Comparator.comparing(OrderSummary::getPrice)).collect(Collectors.toList()));
+        return orderSummaryHolder;
+    }
+
+    private static List<OrderSummary> aggregate(Collection<Order> orders, OrderType orderType) {
+        return orders.stream().filter(order -> order.getOrderType() == orderType)
+                .collect(Collectors.groupingBy(Order::getPrice, Collectors.summingDouble(Order::getQuantity)))
+                .entrySet().stream().map(entry -> new OrderSummary(entry.getValue(), entry.getKey(), orderType))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,145 @@
+package com.silverbars.dao;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.event.OrderEventLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ShadowOrderDaoTest {
+
+    private final OrderEventLog orderEventLog = new OrderEventLog();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MapOrderDao primary = new MapOrderDao();
+    private ShadowOrderDao classToTest;
+
+    @After
+    public void close() throws Exception {
+        if (classToTest != null) {
+            classToTest.close();
+        }
+    }
+
+    @Test
+    public void shouldMatchCandidateWithAnotherPriceLevelBook() throws Exception {
+        // Given
+        classToTest = new ShadowOrderDao(primary, "MAP/STRIPED",
+                new MapOrderDao(new TickLadderPriceLevelBook(new BigDecimal("300"), new BigDecimal("310"), new BigDecimal("0.01"))), "MAP/TICK_LADDER",
+                orderEventLog, 1.0, 1000, meterRegistry);
+        Order order = register("User 1", 1.5, "305.5", OrderType.BUY);
+        register("User 2", 2.0, "306", OrderType.SELL);
+        register("User 3", 0.25, "305.5", OrderType.BUY);
+        cancel(order.getOrderId(), "User 1");
+
+        // When
+        OrderSummaryHolder orderSummaryHolder = classToTest.getLiveOrders();
+        awaitComparisons();
+
+        // Then
+        assertThat(orderSummaryHolder.getBuyOrderSummary().get(0).getQuantity(), equalTo(0.25));
+        assertThat(meterRegistry.get("orderboard.dao.shadow.comparisons").tag("result", "match").counter().count(), equalTo(1.0));
+        assertThat(meterRegistry.get("orderboard.dao.shadow.comparisons").tag("result", "mismatch").counter().count(), equalTo(0.0));
+        assertThat(meterRegistry.get("orderboard.dao.shadow.latency").tag("role", "candidate").tag("operation", "write").timer().count(), equalTo(4L));
+    }
+
+    @Test
+    public void shouldReportMismatchOfCandidate() throws Exception {
+        // Given candidate losing every cancellation
+        MapOrderDao candidate = new MapOrderDao() {
+            @Override
+            public Order apply(OrderEvent orderEvent) {
+                return orderEvent.getEventType() == OrderEventType.REGISTERED ? super.apply(orderEvent) : null;
+            }
+        };
+        classToTest = new ShadowOrderDao(primary, "MAP/STRIPED", candidate, "BROKEN", orderEventLog, 1.0, 1000, meterRegistry);
+        Order order = register("User 1", 1.5, "305.5", OrderType.BUY);
+        cancel(order.getOrderId(), "User 1");
+
+        // When
+        classToTest.getLiveOrders();
+        awaitComparisons();
+
+        // Then
+        assertThat(meterRegistry.get("orderboard.dao.shadow.comparisons").tag("result", "mismatch").counter().count(), equalTo(1.0));
+    }
+
+    @Test
+    public void shouldStartCandidateFromLiveOrdersOfPrimary() throws Exception {
+        // Given orders restored by the primary and recorded before shadowing starts
+        Order cancelled = primary.registerOrder("User 1", 1.5, new BigDecimal("305.5"), OrderType.BUY);
+        primary.registerOrder("User 2", 2.0, new BigDecimal("306"), OrderType.SELL);
+        primary.cancelOrder(cancelled.getOrderId(), "User 1");
+        MapOrderDao candidate = new MapOrderDao();
+
+        // When
+        classToTest = new ShadowOrderDao(primary, "MAP/STRIPED", candidate, "MAP/STRIPED", orderEventLog, 1.0, 1000, meterRegistry);
+        cancel(2, "User 2");
+        classToTest.getLiveOrders();
+        awaitComparisons();
+
+        // Then
+        assertThat(meterRegistry.get("orderboard.dao.shadow.comparisons").tag("result", "match").counter().count(), equalTo(1.0));
+        assertThat(meterRegistry.get("orderboard.dao.shadow.candidate.errors").counter().count(), equalTo(0.0));
+    }
+
+    @Test
+    public void shouldSkipReadOverlappingChange() throws Exception {
+        // Given
+        classToTest = new ShadowOrderDao(primary, "MAP/STRIPED", new MapOrderDao(), "MAP/STRIPED", orderEventLog, 1.0, 1000, meterRegistry);
+
+        // When a sampled read is made while a registration is in progress
+        orderEventLog.append(OrderEventType.REGISTERED, sequence -> new OrderEvent(sequence, OrderEventType.REGISTERED, classToTest.nextOrderId(),
+                "User 1", 1.5, new BigDecimal("305.5"), OrderType.BUY, OffsetDateTime.now(ZoneOffset.UTC)), orderEvent -> {
+            Order order = classToTest.apply(orderEvent);
+            classToTest.getLiveOrders();
+            return order;
+        });
+
+        // Then
+        assertThat(meterRegistry.get("orderboard.dao.shadow.comparisons").tag("result", "skipped").counter().count(), equalTo(1.0));
+        assertThat(meterRegistry.get("orderboard.dao.shadow.comparisons").tag("result", "match").counter().count(), equalTo(0.0));
+    }
+
+    @Test
+    public void shouldCompareLevelPricesByValue() {
+        // Then
+        assertThat(ShadowOrderDao.sameLevels(Collections.singletonList(new OrderSummary(1.5, new BigDecimal("305.5"), OrderType.BUY)),
+                Collections.singletonList(new OrderSummary(1.5, new BigDecimal("305.50"), OrderType.BUY))), equalTo(true));
+        assertThat(ShadowOrderDao.sameLevels(Collections.singletonList(new OrderSummary(1.5, new BigDecimal("305.5"), OrderType.BUY)),
+                Collections.singletonList(new OrderSummary(1.25, new BigDecimal("305.5"), OrderType.BUY))), equalTo(false));
+    }
+
+    private Order register(String user, double quantity, String price, OrderType orderType) {
+        return orderEventLog.append(OrderEventType.REGISTERED, sequence -> new OrderEvent(sequence, OrderEventType.REGISTERED, classToTest.nextOrderId(),
+                user, quantity, new BigDecimal(price), orderType, OffsetDateTime.now(ZoneOffset.UTC)), classToTest::apply);
+    }
+
+    private void cancel(long orderId, String user) throws Exception {
+        orderEventLog.append(OrderEventType.CANCELLED, sequence -> {
+            Order liveOrder = classToTest.findLiveOrder(orderId);
+            return new OrderEvent(sequence, OrderEventType.CANCELLED, orderId, user, liveOrder.getQuantity(), liveOrder.getPrice(),
+                    liveOrder.getOrderType(), OffsetDateTime.now(ZoneOffset.UTC));
+        }, classToTest::apply);
+    }
+
+    private void awaitComparisons() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (meterRegistry.get("orderboard.dao.shadow.comparisons").counters().stream().mapToDouble(counter -> counter.count()).sum() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.silverbars.dao;
+
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderType;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+public class StripedPriceLevelBookTest {
+
+    private final StripedPriceLevelBook classToTest = new StripedPriceLevelBook();
+
+    @Test
+    public void shouldAggregateLevelsBestPriceFirst() {
+        // Given
+        classToTest.add(OrderType.BUY, new BigDecimal("305"), 1.5);
+        classToTest.add(OrderType.BUY, new BigDecimal("306"), 2.0);
+        classToTest.add(OrderType.BUY, new BigDecimal("305"), 0.5);
+        classToTest.add(OrderType.SELL, new BigDecimal("310"), 1.0);
+        classToTest.add(OrderType.SELL, new BigDecimal("309"), 3.0);
+
+        // When
+        OrderSummaryHolder result = classToTest.getOrderSummaries();
+
+        // Then
+        assertThat(result.getBuyOrderSummary(), contains(new OrderSummary(2.0, new BigDecimal("306"), OrderType.BUY),
+                new OrderSummary(2.0, new BigDecimal("305"), OrderType.BUY)));
+        assertThat(result.getSellOrderSummary(), contains(new OrderSummary(3.0, new BigDecimal("309"), OrderType.SELL),
+                new OrderSummary(1.0, new BigDecimal("310"), OrderType.SELL)));
+    }
+
+    @Test
+    public void shouldTakeExactQuantityOffLevelOnRemove() {
+        // Given
+        classToTest.add(OrderType.SELL, new BigDecimal("305"), 0.1);
+        classToTest.add(OrderType.SELL, new BigDecimal("305"), 0.2);
+        classToTest.add(OrderType.SELL, new BigDecimal("305"), 0.3);
+
+        // When
+        classToTest.remove(OrderType.SELL, new BigDecimal("305"), 0.1);
+
+        // Then
+        assertThat(classToTest.getOrderSummaries().getSellOrderSummary().get(0).getQuantity(), equalTo(0.5));
+    }
+
+    @Test
+    public void shouldSkipLevelWithoutLiveOrders() {
+        // Given
+        classToTest.add(OrderType.BUY, new BigDecimal("305"), 1.5);
+
+        // When
+        classToTest.remove(OrderType.BUY, new BigDecimal("305"), 1.5);
+
+        // Then
+        assertThat(classToTest.getOrderSummaries().getBuyOrderSummary(), empty());
+    }
+
+    @Test
+    public void shouldRemoveLevelWithoutLiveOrders() {
+        // Given
+        classToTest.add(OrderType.BUY, new BigDecimal("305"), 1.5);
+        classToTest.add(OrderType.BUY, new BigDecimal("306"), 1.5);
+
+        // When
+        classToTest.remove(OrderType.BUY, new BigDecimal("305"), 1.5);
+
+        // Then
+        assertThat(classToTest.getLevelCount(OrderType.BUY), equalTo(1));
+    }
+
+    @Test
+    public void shouldKeepOrdersAddedWhileLevelsAreRemoved() throws Exception {
+        // Given a level emptied and filled again by several threads at once
+        BigDecimal price = new BigDecimal("305");
+        int threads = 4;
+        int ordersPerThread = 20_000;
+        Thread[] workers = new Thread[threads];
+        for (int thread = 0; thread < threads; thread++) {
+            workers[thread] = new Thread(() -> {
+                for (int order = 0; order < ordersPerThread; order++) {
+                    classToTest.add(OrderType.SELL, price, 1.0);
+                    classToTest.remove(OrderType.SELL, price, 1.0);
+                }
+            });
+        }
+
+        // When
+        classToTest.add(OrderType.SELL, new BigDecimal("310"), 2.0);
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        classToTest.add(OrderType.SELL, price, 0.5);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Then
+        assertThat(classToTest.getOrderSummaries().getSellOrderSummary(), contains(new OrderSummary(0.5, price, OrderType.SELL),
+                new OrderSummary(2.0, new BigDecimal("310"), OrderType.SELL)));
+    }
+}
@@ -0,0 +1,99 @@
+package com.silverbars.dao;
+
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderType;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+public class TickLadderPriceLevelBookTest {
+
+    private final TickLadderPriceLevelBook classToTest = new TickLadderPriceLevelBook(new BigDecimal("300"), new BigDecimal("310"), new BigDecimal("0.25"));
+
+    @Test
+    public void shouldAggregateLevelsInBandBestPriceFirst() {
+        // Given
+        classToTest.add(OrderType.BUY, new BigDecimal("305"), 1.5);
+        classToTest.add(OrderType.BUY, new BigDecimal("305.25"), 2.0);
+        classToTest.add(OrderType.BUY, new BigDecimal("305.00"), 0.5);
+        classToTest.add(OrderType.SELL, new BigDecimal("306.5"), 1.0);
+        classToTest.add(OrderType.SELL, new BigDecimal("306.25"), 3.0);
+
+        // When
+        OrderSummaryHolder result = classToTest.getOrderSummaries();
+
+        // Then
+        assertThat(result.getBuyOrderSummary(), contains(new OrderSummary(2.0, new BigDecimal("305.25"), OrderType.BUY),
+                new OrderSummary(2.0, new BigDecimal("305.00"), OrderType.BUY)));
+        assertThat(result.getSellOrderSummary(), contains(new OrderSummary(3.0, new BigDecimal("306.25"), OrderType.SELL),
+                new OrderSummary(1.0, new BigDecimal("306.50"), OrderType.SELL)));
+    }
+
+    @Test
+    public void shouldMoveBestPriceCursorsWhenBestLevelEmpties() {
+        // Given
+        classToTest.add(OrderType.BUY, new BigDecimal("301"), 1.0);
+        classToTest.add(OrderType.BUY, new BigDecimal("304"), 2.0);
+        classToTest.add(OrderType.SELL, new BigDecimal("307"), 1.0);
+        classToTest.add(OrderType.SELL, new BigDecimal("309"), 2.0);
+
+        // When
+        classToTest.remove(OrderType.BUY, new BigDecimal("304"), 2.0);
+        classToTest.remove(OrderType.SELL, new BigDecimal("307"), 1.0);
+        classToTest.add(OrderType.SELL, new BigDecimal("308"), 4.0);
+
+        // Then
+        OrderSummaryHolder result = classToTest.getOrderSummaries();
+        assertThat(result.getBuyOrderSummary(), contains(new OrderSummary(1.0, new BigDecimal("301.00"), OrderType.BUY)));
+        assertThat(result.getSellOrderSummary(), contains(new OrderSummary(4.0, new BigDecimal("308.00"), OrderType.SELL),
+                new OrderSummary(2.0, new BigDecimal("309.00"), OrderType.SELL)));
+    }
+
+    @Test
+    public void shouldKeepPricesOutsideBandOrBetweenTicksAside() {
+        // Given
+        classToTest.add(OrderType.SELL, new BigDecimal("305.10"), 1.0);
+        classToTest.add(OrderType.SELL, new BigDecimal("299"), 2.0);
+        classToTest.add(OrderType.SELL, new BigDecimal("311"), 3.0);
+        classToTest.add(OrderType.SELL, new BigDecimal("310"), 4.0);
+
+        // When
+        OrderSummaryHolder result = classToTest.getOrderSummaries();
+
+        // Then
+        assertThat(result.getSellOrderSummary(), contains(new OrderSummary(2.0, new BigDecimal("299"), OrderType.SELL),
+                new OrderSummary(1.0, new BigDecimal("305.10"), OrderType.SELL),
+                new OrderSummary(4.0, new BigDecimal("310.00"), OrderType.SELL),
+                new OrderSummary(3.0, new BigDecimal("311"), OrderType.SELL)));
+    }
+
+    @Test
+    public void shouldEmptySideWhenLastOrderRemoved() {
+        // Given
+        classToTest.add(OrderType.BUY, new BigDecimal("300"), 0.3);
+
+        // When
+        classToTest.remove(OrderType.BUY, new BigDecimal("300"), 0.3);
+
+        // Then
+        assertThat(classToTest.getOrderSummaries().getBuyOrderSummary(), empty());
+    }
+
+    @Test
+    public void shouldGiveLevelPriceAtTickScaleInBandOnly() {
+        assertThat(classToTest.levelPrice(new BigDecimal("305.5")), equalTo(new BigDecimal("305.50")));
+        assertThat(classToTest.levelPrice(new BigDecimal("305.1")), equalTo(new BigDecimal("305.1")));
+        assertThat(classToTest.levelPrice(new BigDecimal("320")), equalTo(new BigDecimal("320")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBandNotMultipleOfTick() {
+        new TickLadderPriceLevelBook(new BigDecimal("300"), new BigDecimal("310.1"), new BigDecimal("0.25"));
+    }
+}
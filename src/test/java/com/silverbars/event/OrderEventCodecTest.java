@@ -0,0 +1,84 @@
+package com.silverbars.event;
+
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class OrderEventCodecTest {
+
+    private final OrderEvent orderEvent = new OrderEvent(42, OrderEventType.CANCELLED, 7, "Codec User é", 2.5,
+            new BigDecimal("305.125"), OrderType.SELL, OffsetDateTime.of(2019, 4, 20, 10, 15, 30, 123456789, ZoneOffset.UTC));
+
+    @Test
+    public void shouldDecodeEncodedEvent() {
+        // Given
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        // When
+        boolean encoded = OrderEventCodec.encode(orderEvent, buffer);
+        buffer.flip();
+        OrderEvent result = OrderEventCodec.decode(buffer);
+
+        // Then
+        assertThat(encoded, is(true));
+        assertThat(result, equalTo(orderEvent));
+        assertThat(buffer.remaining(), equalTo(0));
+    }
+
+    @Test
+    public void shouldDecodeEventWithoutUser() {
+        // Given
+        OrderEvent orderEventWithoutUser = new OrderEvent(43, OrderEventType.REGISTERED, 8, null, 1.0,
+                new BigDecimal("305"), OrderType.BUY, OffsetDateTime.of(2019, 4, 20, 10, 15, 30, 0, ZoneOffset.UTC));
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        // When
+        OrderEventCodec.encode(orderEventWithoutUser, buffer);
+        OrderEventCodec.encode(orderEvent, buffer);
+        buffer.flip();
+
+        // Then
+        assertThat(OrderEventCodec.decode(buffer), equalTo(orderEventWithoutUser));
+        assertThat(OrderEventCodec.decode(buffer), equalTo(orderEvent));
+    }
+
+    @Test
+    public void shouldNotEncodeWhenBufferIsTooSmall() {
+        // Given
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+
+        // When
+        boolean encoded = OrderEventCodec.encode(orderEvent, buffer);
+
+        // Then
+        assertThat(encoded, is(false));
+        assertThat(buffer.position(), equalTo(0));
+    }
+
+    @Test
+    public void shouldNotDecodeIncompleteFrame() {
+        // Given
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        OrderEventCodec.encode(orderEvent, buffer);
+        buffer.flip();
+        buffer.limit(buffer.limit() - 1);
+
+        // When
+        OrderEvent result = OrderEventCodec.decode(buffer);
+
+        // Then
+        assertThat(result, is(nullValue()));
+        assertThat(buffer.position(), equalTo(0));
+    }
+}
@@ -0,0 +1,169 @@
+package com.silverbars.event;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.dao.MapOrderDao;
+import com.silverbars.dao.OrderDao;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.exception.OrderBoardInvalidOperationException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class OrderEventLogTest {
+
+    private final OrderDao orderDao = new MapOrderDao();
+    private final OrderEventLog classToTest = new OrderEventLog();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldRunRegistrationsTogether() throws Exception {
+        // Given a registration waiting inside the Order Dao
+        CountDownLatch firstApplying = new CountDownLatch(1);
+        CountDownLatch secondApplied = new CountDownLatch(1);
+        CompletableFuture<Order> first = CompletableFuture.supplyAsync(() -> classToTest.append(OrderEventType.REGISTERED,
+                sequence -> registration(sequence, "User 1"), orderEvent -> {
+                    firstApplying.countDown();
+                    awaitUninterruptibly(secondApplied);
+                    return orderDao.apply(orderEvent);
+                }), executor);
+        firstApplying.await();
+
+        // When
+        Order secondOrder = classToTest.append(OrderEventType.REGISTERED, sequence -> registration(sequence, "User 2"), orderEvent -> {
+            Order order = orderDao.apply(orderEvent);
+            secondApplied.countDown();
+            return order;
+        });
+        Order firstOrder = first.get(5, TimeUnit.SECONDS);
+
+        // Then stored in the order they were numbered
+        assertThat(classToTest.getLastSequence(), equalTo(2L));
+        assertThat(classToTest.getEvent(1).getOrderId(), equalTo(firstOrder.getOrderId()));
+        assertThat(classToTest.getEvent(2).getOrderId(), equalTo(secondOrder.getOrderId()));
+    }
+
+    @Test
+    public void shouldRecordCancellationAfterRegistrationInProgress() throws Exception {
+        // Given a registration visible in the Order Dao but not recorded yet
+        CountDownLatch registered = new CountDownLatch(1);
+        CountDownLatch cancelling = new CountDownLatch(1);
+        CompletableFuture<Order> registration = CompletableFuture.supplyAsync(() -> classToTest.append(OrderEventType.REGISTERED,
+                sequence -> registration(sequence, "User 1"), orderEvent -> {
+                    Order order = orderDao.apply(orderEvent);
+                    registered.countDown();
+                    awaitUninterruptibly(cancelling);
+                    return order;
+                }), executor);
+        registered.await();
+
+        // When
+        Future<Order> cancellation = executor.submit(() -> {
+            cancelling.countDown();
+            return classToTest.append(OrderEventType.CANCELLED, sequence -> cancellation(sequence, 1), orderDao::apply);
+        });
+        cancellation.get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(registration.isDone(), is(true));
+        assertThat(classToTest.getEvent(1).getEventType(), equalTo(OrderEventType.REGISTERED));
+        assertThat(classToTest.getEvent(2).getEventType(), equalTo(OrderEventType.CANCELLED));
+    }
+
+    @Test
+    public void shouldRecordEventAppliedToOrderDao() {
+        // Given
+        List<OrderEvent> appliedEvents = new ArrayList<>();
+
+        // When
+        classToTest.append(OrderEventType.REGISTERED, sequence -> registration(sequence, "User 1"), orderEvent -> {
+            appliedEvents.add(orderEvent);
+            return orderDao.apply(orderEvent);
+        });
+
+        // Then
+        assertThat(classToTest.getEvent(1), sameInstance(appliedEvents.get(0)));
+    }
+
+    @Test
+    public void shouldNotNumberRejectedCancellation() throws Exception {
+        // Given
+        try {
+            classToTest.append(OrderEventType.CANCELLED, sequence -> cancellation(sequence, 1), orderDao::apply);
+            fail("Expected exception to be thrown");
+        } catch (OrderBoardInvalidOperationException e) {
+            // Expected, the order is unknown
+        }
+
+        // When
+        classToTest.append(OrderEventType.REGISTERED, sequence -> registration(sequence, "User 1"), orderDao::apply);
+
+        // Then
+        assertThat(classToTest.getLastSequence(), equalTo(1L));
+        assertThat(classToTest.getEvent(1).getEventType(), equalTo(OrderEventType.REGISTERED));
+    }
+
+    @Test
+    public void shouldHoldOnlyLastEventsOfRetention() {
+        // Given a log holding the last 4 events
+        OrderEventLog orderEventLog = new OrderEventLog(4);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            orderEventLog.append(OrderEventType.REGISTERED, sequence -> registration(sequence, "User 1"), orderDao::apply);
+        }
+
+        // Then
+        assertThat(orderEventLog.getFirstSequence(), equalTo(7L));
+        assertThat(orderEventLog.getEvents(1, 100).size(), equalTo(4));
+        assertThat(orderEventLog.getEvent(7).getSequence(), equalTo(7L));
+        try {
+            orderEventLog.getEvent(6);
+            fail("Expected exception to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), equalTo("Order Event [6] is not in the log, it holds events [7] to [10]"));
+        }
+    }
+
+    private OrderEvent registration(long sequence, String user) {
+        return new OrderEvent(sequence, OrderEventType.REGISTERED, orderDao.nextOrderId(), user, 1.5, new BigDecimal("300"), OrderType.BUY,
+                OffsetDateTime.now(ZoneOffset.UTC));
+    }
+
+    private OrderEvent cancellation(long sequence, long orderId) throws OrderBoardInvalidOperationException {
+        Order liveOrder = orderDao.findLiveOrder(orderId);
+        return new OrderEvent(sequence, OrderEventType.CANCELLED, orderId, "User 1", liveOrder.getQuantity(), liveOrder.getPrice(),
+                liveOrder.getOrderType(), OffsetDateTime.now(ZoneOffset.UTC));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
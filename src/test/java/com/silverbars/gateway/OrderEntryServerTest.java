@@ -0,0 +1,131 @@
+package com.silverbars.gateway;
+
+import com.silverbars.bean.Order;
+import com.silverbars.enums.OrderEntryStatus;
+import com.silverbars.enums.OrderType;
+import com.silverbars.exception.OrderBoardInvalidOperationException;
+import com.silverbars.service.OrderService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OrderEntryServerTest {
+
+    @Mock
+    private OrderService orderService;
+
+    private OrderEntryServer orderEntryServer;
+    private SocketChannel client;
+
+    private final ByteBuffer output = ByteBuffer.allocate(4096);
+    private final ByteBuffer input = ByteBuffer.allocate(4096);
+    private final OrderEntryAck ack = new OrderEntryAck();
+
+    @Before
+    public void init() throws IOException {
+        orderEntryServer = new OrderEntryServer(orderService, 0);
+        orderEntryServer.start();
+        client = SocketChannel.open(new InetSocketAddress("localhost", orderEntryServer.getPort()));
+    }
+
+    @After
+    public void close() throws IOException {
+        client.close();
+        orderEntryServer.close();
+    }
+
+    @Test
+    public void shouldAcknowledgePipelinedRequestsInOrder() throws Exception {
+        // Given
+        Order order = new Order(7, "Test User", 2.5, new BigDecimal("305.25"), OrderType.BUY);
+        when(orderService.registerOrder("Test User", 2.5, new BigDecimal("305.25"), OrderType.BUY)).thenReturn(order);
+        when(orderService.cancelOrder(7, "Test User")).thenReturn(order);
+
+        // When
+        OrderEntryCodec.encodeRegister(1, "Test User", 2.5, 30525, 2, OrderType.BUY, output);
+        OrderEntryCodec.encodeCancel(2, 7, "Test User", output);
+        send();
+
+        // Then
+        assertAck(1, OrderEntryStatus.ACCEPTED, 7);
+        assertAck(2, OrderEntryStatus.ACCEPTED, 7);
+        verify(orderService).registerOrder("Test User", 2.5, new BigDecimal("305.25"), OrderType.BUY);
+        verify(orderService).cancelOrder(7, "Test User");
+        verifyNoMoreInteractions(orderService);
+    }
+
+    @Test
+    public void shouldAcknowledgeFailedAndMalformedRequests() throws Exception {
+        // Given
+        when(orderService.cancelOrder(123, "Test User")).thenThrow(new OrderBoardInvalidOperationException("Order Id [123] not found"));
+
+        // When
+        OrderEntryCodec.encodeCancel(1, 123, "Test User", output);
+        output.putInt(9).put((byte) 42).putLong(2);
+        OrderEntryCodec.encodeCancel(3, 123, "Test User", output);
+        send();
+
+        // Then
+        assertAck(1, OrderEntryStatus.INVALID_OPERATION, 0);
+        assertAck(2, OrderEntryStatus.MALFORMED, 0);
+        assertAck(3, OrderEntryStatus.INVALID_OPERATION, 0);
+    }
+
+    @Test
+    public void shouldDecodeRequestSplitAcrossReads() throws Exception {
+        // Given
+        Order order = new Order(8, "Another User", 1.0, BigDecimal.TEN, OrderType.SELL);
+        when(orderService.registerOrder("Another User", 1.0, BigDecimal.TEN, OrderType.SELL)).thenReturn(order);
+        OrderEntryCodec.encodeRegister(1, "Another User", 1.0, 10, 0, OrderType.SELL, output);
+        output.flip();
+        int limit = output.limit();
+
+        // When
+        output.limit(5);
+        client.write(output);
+        Thread.sleep(50);
+        output.limit(limit);
+        client.write(output);
+        output.clear();
+
+        // Then
+        assertAck(1, OrderEntryStatus.ACCEPTED, 8);
+    }
+
+    private void send() throws IOException {
+        output.flip();
+        while (output.hasRemaining()) {
+            client.write(output);
+        }
+        output.clear();
+    }
+
+    private void assertAck(long correlationId, OrderEntryStatus status, long orderId) throws IOException {
+        input.flip();
+        while (!ack.wrap(input)) {
+            input.compact();
+            client.read(input);
+            input.flip();
+        }
+        assertThat(ack.getCorrelationId(), equalTo(correlationId));
+        assertThat(ack.getStatus(), equalTo(status));
+        assertThat(ack.getOrderId(), equalTo(orderId));
+        input.compact();
+    }
+}
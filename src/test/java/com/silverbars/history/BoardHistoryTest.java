@@ -0,0 +1,182 @@
+package com.silverbars.history;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.dao.MapOrderDao;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.event.OrderEventLog;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.fail;
+
+public class BoardHistoryTest {
+
+    private final OrderEventLog orderEventLog = new OrderEventLog();
+    private final MapOrderDao orderDao = new MapOrderDao();
+    private final BoardHistory classToTest = new BoardHistory(orderEventLog, orderDao, 3);
+
+    @Test
+    public void shouldReconstructBoardAfterEverySequence() throws Exception {
+        // Given
+        List<OrderSummaryHolder> liveBoards = new ArrayList<>();
+        liveBoards.add(orderDao.getLiveOrders());
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            orders.add(register("User " + i, 1.0 + i, String.valueOf(305 + i % 3), i % 2 == 0 ? OrderType.BUY : OrderType.SELL));
+            liveBoards.add(orderDao.getLiveOrders());
+            if (i % 3 == 2) {
+                cancel(orders.get(i - 1));
+                liveBoards.add(orderDao.getLiveOrders());
+            }
+        }
+
+        // When
+        classToTest.tail();
+
+        // Then
+        for (int sequence = 0; sequence < liveBoards.size(); sequence++) {
+            OrderSummaryHolder result = classToTest.getLiveOrdersAsOf(sequence);
+            assertThat(result.getBuyOrderSummary(), equalTo(liveBoards.get(sequence).getBuyOrderSummary()));
+            assertThat(result.getSellOrderSummary(), equalTo(liveBoards.get(sequence).getSellOrderSummary()));
+        }
+    }
+
+    @Test
+    public void shouldReconstructBoardFromEventsNotTailedYet() {
+        // Given
+        register("User 1", 1.5, "305", OrderType.BUY);
+        classToTest.tail();
+        register("User 2", 2.5, "306", OrderType.BUY);
+
+        // When
+        OrderSummaryHolder result = classToTest.getLiveOrdersAsOf(2);
+
+        // Then
+        assertThat(result.getBuyOrderSummary(), equalTo(orderDao.getLiveOrders().getBuyOrderSummary()));
+    }
+
+    @Test
+    public void shouldReconstructBoardAtTime() throws Exception {
+        // Given
+        Thread.sleep(5);
+        Order order = register("User 1", 1.5, "305", OrderType.SELL);
+        OffsetDateTime registrationTime = order.getLatestOrderAudit().getAddTime();
+        Thread.sleep(5);
+        cancel(order);
+
+        // When
+        OrderSummaryHolder beforeRegistration = classToTest.getLiveOrdersAsOf(registrationTime.minusNanos(1));
+        OrderSummaryHolder atRegistration = classToTest.getLiveOrdersAsOf(registrationTime);
+        OrderSummaryHolder afterCancellation = classToTest.getLiveOrdersAsOf(OffsetDateTime.now());
+
+        // Then
+        assertThat(beforeRegistration.getSellOrderSummary(), empty());
+        assertThat(atRegistration.getSellOrderSummary(), hasSize(1));
+        assertThat(atRegistration.getSellOrderSummary().get(0), equalTo(new OrderSummary(1.5, new BigDecimal("305"), OrderType.SELL)));
+        assertThat(afterCancellation.getSellOrderSummary(), empty());
+    }
+
+    @Test
+    public void shouldStartFromLiveOrdersOfOrderDao() {
+        // Given an order restored by a persistent engine, which has no event
+        orderDao.registerOrder("User 1", 1.5, new BigDecimal("305"), OrderType.BUY);
+        BoardHistory boardHistory = new BoardHistory(orderEventLog, orderDao, 3);
+        OrderSummaryHolder restoredBoard = orderDao.getLiveOrders();
+        register("User 2", 2.5, "306", OrderType.BUY);
+
+        // When
+        boardHistory.tail();
+
+        // Then
+        assertThat(boardHistory.getLiveOrdersAsOf(0).getBuyOrderSummary(), equalTo(restoredBoard.getBuyOrderSummary()));
+        assertThat(boardHistory.getLiveOrdersAsOf(1).getBuyOrderSummary(), equalTo(orderDao.getLiveOrders().getBuyOrderSummary()));
+    }
+
+    @Test
+    public void shouldStartOverFromSnapshotWhenEventsAreNoLongerHeld() {
+        // Given a log holding the last 4 events
+        OrderEventLog shortOrderEventLog = new OrderEventLog(4);
+        MapOrderDao shortOrderDao = new MapOrderDao();
+        BoardHistory boardHistory = new BoardHistory(shortOrderEventLog, shortOrderDao, 3);
+        for (int i = 0; i < 10; i++) {
+            shortOrderEventLog.append(OrderEventType.REGISTERED, sequence -> new OrderEvent(sequence, OrderEventType.REGISTERED,
+                    shortOrderDao.nextOrderId(), "User", 1.0, new BigDecimal("305"), OrderType.BUY, OffsetDateTime.now(ZoneOffset.UTC)), shortOrderDao::apply);
+        }
+
+        // When
+        boardHistory.tail();
+
+        // Then
+        assertThat(boardHistory.getLiveOrdersAsOf(10).getBuyOrderSummary(), equalTo(shortOrderDao.getLiveOrders().getBuyOrderSummary()));
+        try {
+            boardHistory.getLiveOrdersAsOf(6);
+            fail("Expected exception to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), equalTo("Sequence [6] is outside the Order Event history [10, 10]"));
+        }
+    }
+
+    @Test
+    public void shouldRejectTimeBeforeHistoryStarts() {
+        // Given
+        register("User 1", 1.5, "305", OrderType.SELL);
+
+        // When
+        try {
+            classToTest.getLiveOrdersAsOf(OffsetDateTime.parse("2019-04-20T10:15:30Z"));
+            fail("Expected exception to be thrown");
+        } catch (IllegalArgumentException e) {
+            // Then
+            assertThat(e.getMessage(), startsWith("Time [2019-04-20T10:15:30Z] is before the Order Event history, which starts at ["));
+        }
+    }
+
+    @Test
+    public void shouldThinCheckpointsBeyondMaxCheckpoints() {
+        // Given a checkpoint every event, at most 4 of them
+        BoardHistory boardHistory = new BoardHistory(orderEventLog, orderDao, 1, 4);
+        List<OrderSummaryHolder> liveBoards = new ArrayList<>();
+        liveBoards.add(orderDao.getLiveOrders());
+        for (int i = 0; i < 20; i++) {
+            register("User " + i, 1.0 + i, String.valueOf(305 + i % 4), OrderType.BUY);
+            liveBoards.add(orderDao.getLiveOrders());
+            boardHistory.tail();
+        }
+
+        // Then
+        assertThat(boardHistory.getCheckpointCount(), lessThanOrEqualTo(4));
+        for (int sequence = 0; sequence < liveBoards.size(); sequence++) {
+            assertThat(boardHistory.getLiveOrdersAsOf(sequence).getBuyOrderSummary(), equalTo(liveBoards.get(sequence).getBuyOrderSummary()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSequenceNotRecordedYet() {
+        classToTest.getLiveOrdersAsOf(1);
+    }
+
+    private Order register(String user, double quantity, String price, OrderType orderType) {
+        return orderEventLog.append(OrderEventType.REGISTERED, sequence -> new OrderEvent(sequence, OrderEventType.REGISTERED, orderDao.nextOrderId(),
+                user, quantity, new BigDecimal(price), orderType, OffsetDateTime.now(ZoneOffset.UTC)), orderDao::apply);
+    }
+
+    private void cancel(Order order) {
+        orderEventLog.append(OrderEventType.CANCELLED, sequence -> new OrderEvent(sequence, OrderEventType.CANCELLED, order.getOrderId(),
+                "Cancel User", order.getQuantity(), order.getPrice(), order.getOrderType(), OffsetDateTime.now(ZoneOffset.UTC)), orderDao::apply);
+    }
+}
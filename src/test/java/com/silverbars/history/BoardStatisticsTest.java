@@ -0,0 +1,105 @@
+package com.silverbars.history;
+
+import com.silverbars.bean.BoardStatisticsBucket;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.dao.MapOrderDao;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.enums.StatisticsResolution;
+import com.silverbars.event.OrderEventLog;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+
+public class BoardStatisticsTest {
+
+    private static final long START_MILLIS = 1_555_755_300_000L;
+
+    private final BoardStatistics classToTest = new BoardStatistics(new MapOrderDao(), new OrderEventLog());
+
+    @Test
+    public void shouldAggregateEventsPerSecond() {
+        // Given
+        classToTest.onOrderEvent(event(1, OrderEventType.REGISTERED, 1, 2.0, "305", OrderType.BUY, 100));
+        classToTest.onOrderEvent(event(2, OrderEventType.REGISTERED, 2, 3.0, "306", OrderType.BUY, 200));
+        classToTest.onOrderEvent(event(3, OrderEventType.REGISTERED, 3, 1.5, "310", OrderType.SELL, 1_100));
+        classToTest.onOrderEvent(event(4, OrderEventType.CANCELLED, 2, 3.0, "306", OrderType.BUY, 3_500));
+
+        // When
+        List<BoardStatisticsBucket> result = classToTest.getStatistics(StatisticsResolution.SECOND, 5, START_MILLIS + 4_000);
+
+        // Then
+        assertThat(result, hasSize(5));
+        assertThat(result.get(0).getStartTime(), equalTo(time(0)));
+        assertThat(result.get(0).getRegisteredBuyQuantity(), equalTo(5.0));
+        assertThat(result.get(0).getBestBid(), equalTo(306.0));
+        assertThat(result.get(0).getBestAsk(), nullValue());
+        assertThat(result.get(0).getBuyDepth(), equalTo(5.0));
+        assertThat(result.get(1).getRegisteredSellQuantity(), equalTo(1.5));
+        assertThat(result.get(1).getBestAsk(), equalTo(310.0));
+        assertThat(result.get(2).getRegisteredBuyQuantity(), equalTo(0.0));
+        assertThat(result.get(2).getBuyDepth(), equalTo(5.0));
+        assertThat(result.get(3).getCancelledBuyQuantity(), equalTo(3.0));
+        assertThat(result.get(3).getBestBid(), equalTo(305.0));
+        assertThat(result.get(3).getBuyDepth(), equalTo(2.0));
+        assertThat(result.get(4).getStartTime(), equalTo(time(4_000)));
+        assertThat(result.get(4).getBestBid(), equalTo(305.0));
+        assertThat(result.get(4).getSellDepth(), equalTo(1.5));
+    }
+
+    @Test
+    public void shouldAggregateEventsPerMinute() {
+        // Given
+        classToTest.onOrderEvent(event(1, OrderEventType.REGISTERED, 1, 2.0, "305", OrderType.SELL, 1_000));
+        classToTest.onOrderEvent(event(2, OrderEventType.REGISTERED, 2, 4.0, "304", OrderType.SELL, 59_000));
+        classToTest.onOrderEvent(event(3, OrderEventType.CANCELLED, 2, 4.0, "304", OrderType.SELL, 61_000));
+
+        // When
+        List<BoardStatisticsBucket> result = classToTest.getStatistics(StatisticsResolution.MINUTE, 2, START_MILLIS + 61_000);
+
+        // Then
+        assertThat(result, hasSize(2));
+        assertThat(result.get(0).getRegisteredSellQuantity(), equalTo(6.0));
+        assertThat(result.get(0).getBestAsk(), equalTo(304.0));
+        assertThat(result.get(1).getCancelledSellQuantity(), equalTo(4.0));
+        assertThat(result.get(1).getBestAsk(), equalTo(305.0));
+        assertThat(result.get(1).getSellDepth(), equalTo(2.0));
+    }
+
+    @Test
+    public void shouldCarryBoardStateAcrossGapLongerThanRing() {
+        // Given
+        classToTest.onOrderEvent(event(1, OrderEventType.REGISTERED, 1, 2.0, "305", OrderType.BUY, 0));
+
+        // When
+        List<BoardStatisticsBucket> result = classToTest.getStatistics(StatisticsResolution.SECOND, 2, START_MILLIS + 10_000_000);
+
+        // Then
+        assertThat(result, hasSize(2));
+        assertThat(result.get(1).getStartTime(), equalTo(time(10_000_000)));
+        assertThat(result.get(0).getBestBid(), equalTo(305.0));
+        assertThat(result.get(1).getBuyDepth(), equalTo(2.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMoreBucketsThanKept() {
+        classToTest.getStatistics(StatisticsResolution.MINUTE, StatisticsResolution.MINUTE.getBuckets() + 1);
+    }
+
+    private static OrderEvent event(long sequence, OrderEventType eventType, long orderId, double quantity, String price, OrderType orderType, long offsetMillis) {
+        return new OrderEvent(sequence, eventType, orderId, "User 1", quantity, new BigDecimal(price), orderType, time(offsetMillis));
+    }
+
+    private static OffsetDateTime time(long offsetMillis) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(START_MILLIS + offsetMillis), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,147 @@
+package com.silverbars.perf;
+
+import com.silverbars.enums.OrderType;
+import com.silverbars.exception.OrderBoardInvalidOperationException;
+import com.silverbars.service.OrderService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Fails when an operation of the Order Service allocates more bytes than its budget, to catch allocation regressions
+ * before they show up as GC pressure.
+ * <p>
+ * Each operation is warmed up so that the JIT has compiled it, then repeated, and the bytes allocated by the calling
+ * thread are read from the ThreadMXBean before and after. Listeners of the Order Event Log run on the calling thread
+ * and are counted; work handed to other threads is not. The retained state of a registration (the order, its audit
+ * and its event) is part of its budget. Budgets are about twice the allocation measured on JDK 17 when they were set,
+ * so that they catch a new allocation per operation rather than JIT noise.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class AllocationBudgetTest {
+
+    private static final int WARM_UP_OPERATIONS = 20_000;
+    private static final int MEASURED_OPERATIONS = 20_000;
+
+    /* Measured at about 1,150 bytes */
+    private static final long REGISTER_BUDGET_BYTES = 2_500;
+    /* Measured at about 1,200 bytes */
+    private static final long CANCEL_BUDGET_BYTES = 2_500;
+    /* Measured at about 2,050 bytes for the whole board of LEVELS price levels on each side */
+    private static final long LIVE_ORDERS_BUDGET_BYTES = 4_000;
+
+    private static final int LEVELS = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+
+    @Before
+    public void setUp() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void registerOrderShouldStayWithinBudget() {
+        BigDecimal[] prices = prices();
+        register(WARM_UP_OPERATIONS, prices);
+
+        long bytes = allocatedBytes(() -> register(MEASURED_OPERATIONS, prices));
+
+        assertThat(describe("registerOrder", bytes), bytes, lessThanOrEqualTo(REGISTER_BUDGET_BYTES));
+    }
+
+    @Test
+    public void cancelOrderShouldStayWithinBudget() throws OrderBoardInvalidOperationException {
+        BigDecimal[] prices = prices();
+        long firstOrderId = register(WARM_UP_OPERATIONS + MEASURED_OPERATIONS, prices);
+        cancel(firstOrderId, WARM_UP_OPERATIONS);
+
+        long bytes = allocatedBytes(() -> cancel(firstOrderId + WARM_UP_OPERATIONS, MEASURED_OPERATIONS));
+
+        assertThat(describe("cancelOrder", bytes), bytes, lessThanOrEqualTo(CANCEL_BUDGET_BYTES));
+    }
+
+    @Test
+    public void getLiveOrdersShouldStayWithinBudget() {
+        register(LEVELS * 2, prices());
+        readLiveOrders(WARM_UP_OPERATIONS);
+
+        long bytes = allocatedBytes(() -> readLiveOrders(MEASURED_OPERATIONS));
+
+        assertThat(describe("getLiveOrders", bytes), bytes, lessThanOrEqualTo(LIVE_ORDERS_BUDGET_BYTES));
+    }
+
+    private interface Operations {
+        void run() throws Exception;
+    }
+
+    /**
+     * @return Bytes allocated by this thread per measured operation
+     */
+    private long allocatedBytes(Operations operations) {
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        try {
+            operations.run();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return (threadMXBean.getThreadAllocatedBytes(threadId) - before) / MEASURED_OPERATIONS;
+    }
+
+    private static String describe(String operation, long bytes) {
+        return String.format("%s allocates %,d bytes per operation", operation, bytes);
+    }
+
+    /**
+     * Registers orders spread over LEVELS prices of each side
+     *
+     * @return Order id of the first order registered
+     */
+    private long register(int orders, BigDecimal[] prices) {
+        long firstOrderId = 0;
+        for (int i = 0; i < orders; i++) {
+            long orderId = orderService.registerOrder("Allocation User", 1.5, prices[i % prices.length], i % 2 == 0 ? OrderType.BUY : OrderType.SELL).getOrderId();
+            if (i == 0) {
+                firstOrderId = orderId;
+            }
+        }
+        return firstOrderId;
+    }
+
+    private void cancel(long firstOrderId, int orders) throws OrderBoardInvalidOperationException {
+        for (long orderId = firstOrderId; orderId < firstOrderId + orders; orderId++) {
+            orderService.cancelOrder(orderId, "Allocation User");
+        }
+    }
+
+    private void readLiveOrders(int reads) {
+        for (int i = 0; i < reads; i++) {
+            orderService.getLiveOrders();
+        }
+    }
+
+    private static BigDecimal[] prices() {
+        BigDecimal[] prices = new BigDecimal[LEVELS * 2];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = new BigDecimal("300.00").add(new BigDecimal("0.05").multiply(BigDecimal.valueOf(i / 2)));
+        }
+        return prices;
+    }
+}
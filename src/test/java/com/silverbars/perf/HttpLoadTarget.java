@@ -0,0 +1,110 @@
+package com.silverbars.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Drives the real /order endpoints of a running Order Board.
+ * <p>
+ * HttpURLConnection keeps connections alive between requests as long as every response body is fully read,
+ * so each worker thread reuses its connection like a real client would.
+ */
+public class HttpLoadTarget implements LoadTarget {
+
+    private final String baseUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * @param baseUrl Url of the Order Board, for ex- http://localhost:55525
+     */
+    public HttpLoadTarget(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    @Override
+    public long register(String user, double quantity, String price, boolean buy) throws IOException {
+        String body = String.format("{\"user\":\"%s\",\"quantity\":%s,\"price\":%s,\"orderType\":\"%s\"}", user, quantity, price, buy ? "BUY" : "SELL");
+        HttpURLConnection connection = open("/order?user=" + URLEncoder.encode(user, "UTF-8"), "POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream output = connection.getOutputStream()) {
+            output.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        int status = connection.getResponseCode();
+        byte[] response = readFully(connection);
+        if (isRejected(status)) {
+            return REJECTED;
+        }
+        checkStatus(status, 201, "register");
+        return objectMapper.readTree(response).get("orderId").asLong();
+    }
+
+    @Override
+    public boolean cancel(long orderId, String user) throws IOException {
+        HttpURLConnection connection = open("/order/" + orderId + "?user=" + URLEncoder.encode(user, "UTF-8"), "DELETE");
+        int status = connection.getResponseCode();
+        readFully(connection);
+        if (isRejected(status)) {
+            return false;
+        }
+        checkStatus(status, 200, "cancel");
+        return true;
+    }
+
+    @Override
+    public boolean read() throws IOException {
+        HttpURLConnection connection = open("/order", "GET");
+        int status = connection.getResponseCode();
+        readFully(connection);
+        if (isRejected(status)) {
+            return false;
+        }
+        /* 404 means the board is empty, which is a valid answer */
+        if (status != 404) {
+            checkStatus(status, 200, "read");
+        }
+        return true;
+    }
+
+    private HttpURLConnection open(String path, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(5_000);
+        connection.setReadTimeout(30_000);
+        return connection;
+    }
+
+    private static boolean isRejected(int status) {
+        return status == 429 || status == 503;
+    }
+
+    private static void checkStatus(int status, int expectedStatus, String operation) throws IOException {
+        if (status != expectedStatus) {
+            throw new IOException(String.format("Unexpected status [%s] to %s", status, operation));
+        }
+    }
+
+    private static byte[] readFully(HttpURLConnection connection) throws IOException {
+        InputStream input = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (input == null) {
+            return new byte[0];
+        }
+        try (InputStream stream = input) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = stream.read(buffer)) >= 0) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+}
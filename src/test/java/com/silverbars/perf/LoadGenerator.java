@@ -0,0 +1,188 @@
+package com.silverbars.perf;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for an Order Board.
+ * <p>
+ * Operations are scheduled at a fixed arrival rate whatever the Order Board does, and handed to a pool of worker threads.
+ * The response time of an operation is measured from the time it was scheduled to start, not from the time a worker
+ * got round to it, so a stalled Order Board is charged for every operation that queued up behind the stall
+ * (coordinated omission correction). The service time, measured from the actual start, is recorded alongside for comparison.
+ */
+public class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final String[] PRICES = {"300", "301", "302", "303", "304", "305", "306", "307", "308", "309"};
+
+    private final LoadTarget loadTarget;
+    private final int registerWeight;
+    private final int cancelWeight;
+    private final int readWeight;
+    private final int users;
+    private final int threads;
+
+    private final Map<LoadOperation, Recorder> operationToResponseTimeMap = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, Recorder> operationToServiceTimeMap = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, AtomicLong> operationToRejectedMap = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, AtomicLong> operationToErrorsMap = new EnumMap<>(LoadOperation.class);
+
+    /* Live orders registered by the generator, cancelled oldest first */
+    private final Queue<Long> liveOrderIds = new ConcurrentLinkedQueue<>();
+
+    /* Operations scheduled before this time are warm-up and not recorded */
+    private volatile long measurementStartNanos;
+
+    /**
+     * @param loadTarget     Order Board to drive
+     * @param registerWeight Relative weight of registrations in the operation mix
+     * @param cancelWeight   Relative weight of cancellations, a cancellation with no live order to cancel registers one instead
+     * @param readWeight     Relative weight of board reads
+     * @param users          Number of distinct users the operations are spread over
+     * @param threads        Number of worker threads, the maximum number of operations in flight
+     */
+    public LoadGenerator(LoadTarget loadTarget, int registerWeight, int cancelWeight, int readWeight, int users, int threads) {
+        if (registerWeight < 0 || cancelWeight < 0 || readWeight < 0 || registerWeight + cancelWeight + readWeight == 0) {
+            throw new IllegalArgumentException("Operation weights must be positive or zero, and not all zero");
+        }
+        this.loadTarget = loadTarget;
+        this.registerWeight = registerWeight;
+        this.cancelWeight = cancelWeight;
+        this.readWeight = readWeight;
+        this.users = users;
+        this.threads = threads;
+        for (LoadOperation operation : LoadOperation.values()) {
+            operationToResponseTimeMap.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS));
+            operationToServiceTimeMap.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS));
+            operationToRejectedMap.put(operation, new AtomicLong());
+            operationToErrorsMap.put(operation, new AtomicLong());
+        }
+    }
+
+    /**
+     * Runs the load and waits for the scheduled operations to complete
+     *
+     * @param ratePerSecond  Arrival rate of operations
+     * @param warmupMillis   Duration of the warm-up, run at the same rate but not recorded
+     * @param durationMillis Duration of the measurement
+     * @return Report of the measurement
+     */
+    public LoadReport run(double ratePerSecond, long warmupMillis, long durationMillis) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "load-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long startNanos = System.nanoTime();
+        measurementStartNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+        long endNanos = measurementStartNanos + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        for (long operation = 0; ; operation++) {
+            long intendedStartNanos = startNanos + operation * intervalNanos;
+            if (intendedStartNanos >= endNanos) {
+                break;
+            }
+            waitUntil(intendedStartNanos);
+            workers.execute(() -> execute(intendedStartNanos));
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+            workers.shutdownNow();
+        }
+
+        Map<LoadOperation, Histogram> operationToResponseHistogramMap = new EnumMap<>(LoadOperation.class);
+        Map<LoadOperation, Histogram> operationToServiceHistogramMap = new EnumMap<>(LoadOperation.class);
+        Map<LoadOperation, Long> operationToRejectedCountMap = new EnumMap<>(LoadOperation.class);
+        Map<LoadOperation, Long> operationToErrorCountMap = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation operation : LoadOperation.values()) {
+            operationToResponseHistogramMap.put(operation, operationToResponseTimeMap.get(operation).getIntervalHistogram());
+            operationToServiceHistogramMap.put(operation, operationToServiceTimeMap.get(operation).getIntervalHistogram());
+            operationToRejectedCountMap.put(operation, operationToRejectedMap.get(operation).get());
+            operationToErrorCountMap.put(operation, operationToErrorsMap.get(operation).get());
+        }
+        return new LoadReport(ratePerSecond, durationMillis, operationToResponseHistogramMap, operationToServiceHistogramMap,
+                operationToRejectedCountMap, operationToErrorCountMap);
+    }
+
+    private void execute(long intendedStartNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String user = "Load User " + random.nextInt(users);
+        LoadOperation operation = nextOperation(random);
+        Long orderIdToCancel = operation == LoadOperation.CANCEL ? liveOrderIds.poll() : null;
+        if (operation == LoadOperation.CANCEL && orderIdToCancel == null) {
+            operation = LoadOperation.REGISTER;
+        }
+
+        long actualStartNanos = System.nanoTime();
+        boolean accepted;
+        try {
+            switch (operation) {
+                case REGISTER:
+                    long orderId = loadTarget.register(user, 1 + random.nextInt(100), PRICES[random.nextInt(PRICES.length)], random.nextBoolean());
+                    accepted = orderId != LoadTarget.REJECTED;
+                    if (accepted) {
+                        liveOrderIds.add(orderId);
+                    }
+                    break;
+                case CANCEL:
+                    accepted = loadTarget.cancel(orderIdToCancel, user);
+                    if (!accepted) {
+                        liveOrderIds.add(orderIdToCancel);
+                    }
+                    break;
+                default:
+                    accepted = loadTarget.read();
+            }
+        } catch (Exception e) {
+            if (intendedStartNanos >= measurementStartNanos) {
+                operationToErrorsMap.get(operation).incrementAndGet();
+            }
+            return;
+        }
+        long endNanos = System.nanoTime();
+
+        if (intendedStartNanos >= measurementStartNanos) {
+            if (accepted) {
+                operationToResponseTimeMap.get(operation).recordValue(Math.min(endNanos - intendedStartNanos, HIGHEST_TRACKABLE_NANOS));
+                operationToServiceTimeMap.get(operation).recordValue(Math.min(endNanos - actualStartNanos, HIGHEST_TRACKABLE_NANOS));
+            } else {
+                operationToRejectedMap.get(operation).incrementAndGet();
+            }
+        }
+    }
+
+    private LoadOperation nextOperation(ThreadLocalRandom random) {
+        int draw = random.nextInt(registerWeight + cancelWeight + readWeight);
+        if (draw < registerWeight) {
+            return LoadOperation.REGISTER;
+        }
+        return draw < registerWeight + cancelWeight ? LoadOperation.CANCEL : LoadOperation.READ;
+    }
+
+    /**
+     * Parks for most of the wait and spins for the end of it, parking alone being too coarse for high rates
+     */
+    private static void waitUntil(long deadlineNanos) {
+        long remainingNanos;
+        while ((remainingNanos = deadlineNanos - System.nanoTime()) > 0) {
+            if (remainingNanos > TimeUnit.MICROSECONDS.toNanos(100)) {
+                LockSupport.parkNanos(remainingNanos - TimeUnit.MICROSECONDS.toNanos(50));
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.silverbars.perf;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void shouldChargeStallToOperationsQueuedBehindIt() throws Exception {
+        // Given
+        AtomicBoolean stalled = new AtomicBoolean();
+        LoadTarget stallingTarget = new CountingTarget() {
+            @Override
+            public boolean read() throws InterruptedException {
+                if (stalled.compareAndSet(false, true)) {
+                    Thread.sleep(200);
+                }
+                return true;
+            }
+        };
+        LoadGenerator classToTest = new LoadGenerator(stallingTarget, 0, 0, 1, 1, 1);
+
+        // When
+        LoadReport result = classToTest.run(1000, 0, 500);
+
+        // Then
+        assertThat(result.getResponseTime(LoadOperation.READ).getTotalCount(), greaterThan(400L));
+        assertThat(result.getResponseTime(LoadOperation.READ).getValueAtPercentile(75), greaterThan(TimeUnit.MILLISECONDS.toNanos(50)));
+        assertThat(result.getServiceTime(LoadOperation.READ).getValueAtPercentile(90), lessThan(TimeUnit.MILLISECONDS.toNanos(50)));
+    }
+
+    @Test
+    public void shouldCancelRegisteredOrdersAndCountRejections() throws Exception {
+        // Given
+        CountingTarget countingTarget = new CountingTarget() {
+            @Override
+            public boolean read() {
+                return false;
+            }
+        };
+        LoadGenerator classToTest = new LoadGenerator(countingTarget, 1, 1, 1, 10, 4);
+
+        // When
+        LoadReport result = classToTest.run(2000, 100, 200);
+
+        // Then
+        assertThat(result.getRejected(LoadOperation.READ), greaterThan(0L));
+        assertThat(result.getResponseTime(LoadOperation.READ).getTotalCount(), equalTo(0L));
+        assertThat(result.getResponseTime(LoadOperation.CANCEL).getTotalCount(), greaterThan(0L));
+        assertThat(countingTarget.registered.get(), greaterThanOrEqualTo(countingTarget.cancelled.get()));
+        assertThat(result.getErrors(LoadOperation.REGISTER), equalTo(0L));
+    }
+
+    private static class CountingTarget implements LoadTarget {
+        final AtomicLong registered = new AtomicLong();
+        final AtomicLong cancelled = new AtomicLong();
+
+        @Override
+        public long register(String user, double quantity, String price, boolean buy) {
+            return registered.incrementAndGet();
+        }
+
+        @Override
+        public boolean cancel(long orderId, String user) {
+            cancelled.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public boolean read() throws Exception {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.silverbars.perf;
+
+/**
+ * Enum defining the operations the Load Generator drives against an Order Board
+ */
+public enum LoadOperation {
+    REGISTER, CANCEL, READ
+}
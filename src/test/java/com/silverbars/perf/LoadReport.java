@@ -0,0 +1,111 @@
+package com.silverbars.perf;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a Load Generator run: response time and service time histograms, in nanoseconds, and the rejected and
+ * failed operations, per operation
+ */
+public class LoadReport {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final double ratePerSecond;
+    private final long durationMillis;
+    private final Map<LoadOperation, Histogram> operationToResponseTimeMap;
+    private final Map<LoadOperation, Histogram> operationToServiceTimeMap;
+    private final Map<LoadOperation, Long> operationToRejectedMap;
+    private final Map<LoadOperation, Long> operationToErrorsMap;
+
+    public LoadReport(double ratePerSecond, long durationMillis, Map<LoadOperation, Histogram> operationToResponseTimeMap,
+                      Map<LoadOperation, Histogram> operationToServiceTimeMap, Map<LoadOperation, Long> operationToRejectedMap,
+                      Map<LoadOperation, Long> operationToErrorsMap) {
+        this.ratePerSecond = ratePerSecond;
+        this.durationMillis = durationMillis;
+        this.operationToResponseTimeMap = operationToResponseTimeMap;
+        this.operationToServiceTimeMap = operationToServiceTimeMap;
+        this.operationToRejectedMap = operationToRejectedMap;
+        this.operationToErrorsMap = operationToErrorsMap;
+    }
+
+    /**
+     * @return Response time histogram of the operation, corrected for coordinated omission
+     */
+    public Histogram getResponseTime(LoadOperation operation) {
+        return operationToResponseTimeMap.get(operation);
+    }
+
+    /**
+     * @return Service time histogram of the operation, as a closed-loop tool would have measured it
+     */
+    public Histogram getServiceTime(LoadOperation operation) {
+        return operationToServiceTimeMap.get(operation);
+    }
+
+    public long getRejected(LoadOperation operation) {
+        return operationToRejectedMap.get(operation);
+    }
+
+    public long getErrors(LoadOperation operation) {
+        return operationToErrorsMap.get(operation);
+    }
+
+    /**
+     * Prints a summary line per operation followed by the full response time percentile distributions, in milliseconds
+     */
+    public void print(PrintStream output) {
+        long completed = 0;
+        for (LoadOperation operation : LoadOperation.values()) {
+            completed += getResponseTime(operation).getTotalCount();
+        }
+        output.printf("Target rate %.0f/s, achieved %.0f/s over %d ms%n", ratePerSecond, completed * 1000.0 / durationMillis, durationMillis);
+        output.printf("%-9s %9s %9s %7s %10s %10s %10s %10s %10s %13s%n",
+                "Operation", "Completed", "Rejected", "Errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99 ms");
+        for (LoadOperation operation : LoadOperation.values()) {
+            Histogram responseTime = getResponseTime(operation);
+            output.printf("%-9s %9d %9d %7d %10.3f %10.3f %10.3f %10.3f %10.3f %13.3f%n", operation, responseTime.getTotalCount(),
+                    getRejected(operation), getErrors(operation), millis(responseTime, 50), millis(responseTime, 90),
+                    millis(responseTime, 99), millis(responseTime, 99.9), responseTime.getMaxValue() / NANOS_PER_MILLI,
+                    millis(getServiceTime(operation), 99));
+        }
+        for (LoadOperation operation : LoadOperation.values()) {
+            if (getResponseTime(operation).getTotalCount() > 0) {
+                output.printf("%n%s response time (ms)%n", operation);
+                getResponseTime(operation).outputPercentileDistribution(output, 5, NANOS_PER_MILLI);
+            }
+        }
+    }
+
+    /**
+     * Writes one .hgrm percentile distribution and one .hlog histogram log per operation, for plotting and comparing runs
+     */
+    public void write(File directory) throws FileNotFoundException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new FileNotFoundException(String.format("Unable to create directory [%s]", directory));
+        }
+        for (LoadOperation operation : LoadOperation.values()) {
+            Histogram responseTime = getResponseTime(operation);
+            String name = operation.name().toLowerCase();
+            try (PrintStream output = new PrintStream(new File(directory, name + ".hgrm"))) {
+                responseTime.outputPercentileDistribution(output, 5, NANOS_PER_MILLI);
+            }
+            try (PrintStream output = new PrintStream(new File(directory, name + ".hlog"))) {
+                HistogramLogWriter logWriter = new HistogramLogWriter(output);
+                logWriter.outputLogFormatVersion();
+                logWriter.outputLegend();
+                logWriter.outputIntervalHistogram(responseTime);
+            }
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,31 @@
+package com.silverbars.perf;
+
+/**
+ * Order Board driven by the Load Generator, either over HTTP or in process.
+ * <p>
+ * Implementations are called concurrently from the worker threads of the Load Generator.
+ * A request the Order Board turns away (429, 503) is reported as rejected, any other failure is thrown.
+ */
+public interface LoadTarget extends AutoCloseable {
+
+    long REJECTED = -1;
+
+    /**
+     * @return Id of the registered order, or REJECTED
+     */
+    long register(String user, double quantity, String price, boolean buy) throws Exception;
+
+    /**
+     * @return false if the cancellation was rejected
+     */
+    boolean cancel(long orderId, String user) throws Exception;
+
+    /**
+     * @return false if the read was rejected
+     */
+    boolean read() throws Exception;
+
+    @Override
+    default void close() throws Exception {
+    }
+}
@@ -0,0 +1,66 @@
+package com.silverbars.perf;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line entry point of the Load Generator, run with
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dexec.args="--target=http://localhost:55525 --rate=2000 --duration-seconds=60"
+ * </pre>
+ * Options, all optional:
+ * <ul>
+ * <li>--target: url of a running Order Board, tcp://host:port of its Order Entry Gateway, or "service" to drive the Order Service
+ * of an in-process Order Board (default http://localhost:55525)</li>
+ * <li>--rate: operations per second (default 1000)</li>
+ * <li>--warmup-seconds: warm-up at the same rate, not recorded (default 10)</li>
+ * <li>--duration-seconds: measurement (default 60)</li>
+ * <li>--mix: register:cancel:read weights (default 60:20:20)</li>
+ * <li>--users: distinct users the operations are spread over (default 100)</li>
+ * <li>--threads: worker threads, the maximum number of operations in flight (default 64)</li>
+ * <li>--output: directory the .hgrm and .hlog files are written to (default target/loadtest)</li>
+ * </ul>
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String target = options.getOrDefault("target", "http://localhost:55525");
+        String[] mix = options.getOrDefault("mix", "60:20:20").split(":");
+        if (mix.length != 3) {
+            throw new IllegalArgumentException("--mix must be register:cancel:read weights, for ex- 60:20:20");
+        }
+
+        try (LoadTarget loadTarget = newLoadTarget(target)) {
+            LoadGenerator loadGenerator = new LoadGenerator(loadTarget, Integer.parseInt(mix[0]), Integer.parseInt(mix[1]), Integer.parseInt(mix[2]),
+                    Integer.parseInt(options.getOrDefault("users", "100")), Integer.parseInt(options.getOrDefault("threads", "64")));
+            LoadReport loadReport = loadGenerator.run(Double.parseDouble(options.getOrDefault("rate", "1000")),
+                    Long.parseLong(options.getOrDefault("warmup-seconds", "10")) * 1000,
+                    Long.parseLong(options.getOrDefault("duration-seconds", "60")) * 1000);
+            loadReport.print(System.out);
+            File output = new File(options.getOrDefault("output", "target/loadtest"));
+            loadReport.write(output);
+            System.out.printf("%nHistograms written to %s%n", output.getAbsolutePath());
+        }
+    }
+
+    private static LoadTarget newLoadTarget(String target) {
+        if ("service".equals(target)) {
+            return new ServiceLoadTarget();
+        }
+        return target.startsWith("tcp://") ? new TcpLoadTarget(target) : new HttpLoadTarget(target);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException(String.format("Invalid option [%s], expected --name=value", arg));
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,87 @@
+package com.silverbars.perf;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Starts a JVM with each low-pause runtime profile of src/main/jvm and checks the flags it ends up with, so that the
+ * profile keeps selecting its collector and heap on the JDK running the build. Pre-touch is switched off so that the
+ * check does not commit the whole heap.
+ */
+public class LowPauseProfileTest {
+
+    private static final Pattern FLAG = Pattern.compile("^\\s*\\S+\\s+(\\w+)\\s+:?=\\s+(\\S+)");
+    private static final long TWO_GIGABYTES = 2L * 1024 * 1024 * 1024;
+
+    @Test
+    public void zgcProfileShouldSelectZgcWithFixedHeap() throws Exception {
+        // When
+        Map<String, String> flags = finalFlags("zgc");
+
+        // Then
+        assertThat(flags.get("UseZGC"), equalTo("true"));
+        assertThat(Long.parseLong(flags.get("MaxHeapSize")), equalTo(TWO_GIGABYTES));
+        assertThat(flags.get("InitialHeapSize"), equalTo(flags.get("MaxHeapSize")));
+        assertThat(Long.parseLong(flags.get("SoftMaxHeapSize")), lessThan(TWO_GIGABYTES));
+    }
+
+    @Test
+    public void shenandoahProfileShouldSelectShenandoahWithFixedHeap() throws Exception {
+        // Given
+        assumeTrue(finalFlags(null).containsKey("UseShenandoahGC"));
+
+        // When
+        Map<String, String> flags = finalFlags("shenandoah");
+
+        // Then
+        assertThat(flags.get("UseShenandoahGC"), equalTo("true"));
+        assertThat(Long.parseLong(flags.get("MaxHeapSize")), equalTo(TWO_GIGABYTES));
+        assertThat(flags.get("InitialHeapSize"), equalTo(flags.get("MaxHeapSize")));
+    }
+
+    /**
+     * @param profile Name of the argument file in src/main/jvm, or null for the defaults of the JDK
+     * @return Final value of every flag of a JVM started with the profile
+     */
+    private static Map<String, String> finalFlags(String profile) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = profile == null
+                ? Arrays.asList(java, "-XX:+PrintFlagsFinal", "-version")
+                : Arrays.asList(java, "@" + new File("src/main/jvm/" + profile + ".args").getAbsolutePath(),
+                "-XX:-AlwaysPreTouch", "-XX:+PrintFlagsFinal", "-version");
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        Map<String, String> flags = new HashMap<>();
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.append(line).append(System.lineSeparator());
+                Matcher matcher = FLAG.matcher(line);
+                if (matcher.find()) {
+                    flags.put(matcher.group(1), matcher.group(2));
+                }
+            }
+        }
+        assertThat("JVM did not exit", process.waitFor(30, TimeUnit.SECONDS), equalTo(true));
+        assertThat(output.toString(), process.exitValue(), equalTo(0));
+        return flags;
+    }
+}
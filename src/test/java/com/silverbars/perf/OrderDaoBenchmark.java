@@ -0,0 +1,77 @@
+package com.silverbars.perf;
+
+import com.silverbars.dao.JdbcOrderDao;
+import com.silverbars.dao.MapOrderDao;
+import com.silverbars.dao.OrderDao;
+import com.silverbars.enums.OrderType;
+import com.silverbars.exception.OrderBoardInvalidOperationException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the write throughput and live board read latency of the in-memory and JDBC Order Dao engines.
+ * Writes come from one thread, which measures the cost of each engine rather than how it scales with writers:
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.mainClass=com.silverbars.perf.OrderDaoBenchmark -Dexec.args="200000 500"
+ * </pre>
+ * Arguments, optional: orders registered per run (default 200000, a quarter of them cancelled) and JDBC batch size (default 500)
+ */
+public class OrderDaoBenchmark {
+
+    private static final int PRICE_LEVELS = 200;
+    private static final int READS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        System.out.printf("%-8s %22s %22s %22s%n", "Engine", "Writes (changes/s)", "Written (changes/s)", "Live board read (us)");
+        run("MAP", new MapOrderDao(), orders);
+        Path directory = Files.createTempDirectory("orderboard-benchmark");
+        run("JDBC", new JdbcOrderDao("jdbc:h2:file:" + directory.toAbsolutePath() + "/orders", batchSize, 5_000, 60_000), orders);
+    }
+
+    /**
+     * Writes are timed until the engine returns, then until a read of the board sees them all
+     */
+    private static void run(String name, OrderDao orderDao, int orders) throws OrderBoardInvalidOperationException, IOException {
+        BigDecimal[] prices = new BigDecimal[PRICE_LEVELS];
+        for (int level = 0; level < PRICE_LEVELS; level++) {
+            prices[level] = new BigDecimal("300.00").add(new BigDecimal("0.05").multiply(BigDecimal.valueOf(level)));
+        }
+        int changes = orders + orders / 4;
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            long orderId = orderDao.registerOrder("User " + i % 100, 1 + i % 5, prices[i % PRICE_LEVELS], i % 2 == 0 ? OrderType.BUY : OrderType.SELL).getOrderId();
+            if (i % 4 == 0) {
+                orderDao.cancelOrder(orderId, "User " + i % 100);
+            }
+        }
+        long writeTime = System.nanoTime() - startTime;
+        orderDao.getLiveOrders();
+        long writtenTime = System.nanoTime() - startTime;
+
+        long readTime = 0;
+        for (int i = 0; i < READS; i++) {
+            long readStartTime = System.nanoTime();
+            orderDao.getLiveOrders();
+            readTime += System.nanoTime() - readStartTime;
+        }
+
+        System.out.printf("%-8s %,22.0f %,22.0f %,22.1f%n", name, perSecond(changes, writeTime), perSecond(changes, writtenTime),
+                readTime / (double) READS / 1_000);
+        if (orderDao instanceof Closeable) {
+            ((Closeable) orderDao).close();
+        }
+    }
+
+    private static double perSecond(int changes, long nanos) {
+        return changes / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,82 @@
+package com.silverbars.perf;
+
+import com.silverbars.OrderBoardApplication;
+import com.silverbars.bean.Order;
+import com.silverbars.enums.OrderType;
+import com.silverbars.service.OrderService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures the write throughput of the Order Service, Order Event Log and listeners included, as threads are added.
+ * Every thread works on the few levels at the top of the book, on a fresh in-process Order Board per run:
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.mainClass=com.silverbars.perf.OrderServiceWriteBenchmark -Dexec.args="8 200000 STRIPED"
+ * </pre>
+ * Arguments, optional: maximum number of threads (default number of cores), orders registered per run (default 200000)
+ * and orderboard.book.mode (default STRIPED).
+ * Registrations run together, while each cancellation runs alone, so the second column is expected to flatten.
+ */
+public class OrderServiceWriteBenchmark {
+
+    private static final int HOT_LEVELS = 8;
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int orders = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        String bookMode = args.length > 2 ? args[2] : "STRIPED";
+
+        System.out.printf("%-8s %26s %26s%n", "Threads", "Registrations (orders/s)", "Register+cancel (orders/s)");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double registrations = run(bookMode, threads, orders, false);
+            double registrationsAndCancellations = run(bookMode, threads, orders, true);
+            System.out.printf("%-8d %,26.0f %,26.0f%n", threads, registrations, registrationsAndCancellations);
+        }
+    }
+
+    /**
+     * @return Orders registered per second, each one cancelled right after it is registered if requested
+     */
+    private static double run(String bookMode, int threads, int orders, boolean cancel) throws Exception {
+        try (ConfigurableApplicationContext applicationContext = new SpringApplicationBuilder(OrderBoardApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("orderboard.swagger.enabled=false", "orderboard.replication.role=STANDALONE",
+                        "spring.main.banner-mode=off", "logging.level.root=WARN")
+                /* Default properties give way to application.properties, the book mode is passed as an argument */
+                .run("--orderboard.book.mode=" + bookMode)) {
+            OrderService orderService = applicationContext.getBean(OrderService.class);
+            int ordersPerThread = orders / threads;
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch finished = new CountDownLatch(threads);
+            for (int thread = 0; thread < threads; thread++) {
+                String user = "Benchmark User " + thread;
+                BigDecimal price = new BigDecimal("300.00").add(new BigDecimal("0.01").multiply(BigDecimal.valueOf(thread % HOT_LEVELS)));
+                Thread worker = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int order = 0; order < ordersPerThread; order++) {
+                            Order registeredOrder = orderService.registerOrder(user, 1.5, price, OrderType.BUY);
+                            if (cancel) {
+                                orderService.cancelOrder(registeredOrder.getOrderId(), user);
+                            }
+                        }
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    } finally {
+                        finished.countDown();
+                    }
+                }, "benchmark-" + thread);
+                worker.setDaemon(true);
+                worker.start();
+            }
+            long startTime = System.nanoTime();
+            start.countDown();
+            finished.await();
+            return ordersPerThread * threads * 1e9 / (System.nanoTime() - startTime);
+        }
+    }
+}
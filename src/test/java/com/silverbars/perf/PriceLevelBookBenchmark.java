@@ -0,0 +1,128 @@
+package com.silverbars.perf;
+
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.dao.PriceLevelBook;
+import com.silverbars.dao.StripedPriceLevelBook;
+import com.silverbars.dao.TickLadderPriceLevelBook;
+import com.silverbars.enums.OrderType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the update throughput of Price Level Books when every thread works on the few levels at the top of the book,
+ * comparing the Striped and Tick Ladder Price Level Books with counters packed next to each other. Run on a machine with several cores:
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.mainClass=com.silverbars.perf.PriceLevelBookBenchmark -Dexec.args="8 5"
+ * </pre>
+ * Arguments, optional: maximum number of threads (default number of cores) and seconds measured per run (default 5)
+ */
+public class PriceLevelBookBenchmark {
+
+    private static final int HOT_LEVELS = 8;
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long measureMillis = TimeUnit.SECONDS.toMillis(args.length > 1 ? Long.parseLong(args[1]) : 5);
+
+        System.out.printf("%-8s %22s %22s %22s%n", "Threads", "Packed (updates/s)", "Striped (updates/s)", "Tick ladder (updates/s)");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double packed = run(PackedPriceLevelBook::new, threads, measureMillis);
+            double striped = run(StripedPriceLevelBook::new, threads, measureMillis);
+            double tickLadder = run(() -> new TickLadderPriceLevelBook(new BigDecimal("290"), new BigDecimal("310"), new BigDecimal("0.01")),
+                    threads, measureMillis);
+            System.out.printf("%-8d %,22.0f %,22.0f %,22.0f%n", threads, packed, striped, tickLadder);
+        }
+    }
+
+    /**
+     * @return Level updates per second, an order added then removed counting as two updates
+     */
+    private static double run(Supplier<PriceLevelBook> priceLevelBookSupplier, int threads, long measureMillis) throws InterruptedException {
+        PriceLevelBook priceLevelBook = priceLevelBookSupplier.get();
+        BigDecimal[] prices = new BigDecimal[HOT_LEVELS];
+        for (int level = 0; level < HOT_LEVELS; level++) {
+            prices[level] = new BigDecimal("300.00").add(new BigDecimal("0.01").multiply(BigDecimal.valueOf(level)));
+        }
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder updates = new LongAdder();
+        CountDownLatch finished = new CountDownLatch(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            BigDecimal price = prices[thread % HOT_LEVELS];
+            Thread worker = new Thread(() -> {
+                long ownUpdates = 0;
+                while (running.get()) {
+                    priceLevelBook.add(OrderType.BUY, price, 1.5);
+                    priceLevelBook.remove(OrderType.BUY, price, 1.5);
+                    if (measuring.get()) {
+                        ownUpdates += 2;
+                    }
+                }
+                updates.add(ownUpdates);
+                finished.countDown();
+            }, "benchmark-" + thread);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        Thread.sleep(1_000);
+        measuring.set(true);
+        Thread.sleep(measureMillis);
+        running.set(false);
+        finished.await();
+        return updates.sum() * 1000.0 / measureMillis;
+    }
+
+    /**
+     * Baseline keeping the quantity and order count of all levels side by side in one array, so neighbouring levels share cache lines
+     */
+    private static class PackedPriceLevelBook implements PriceLevelBook {
+        private final Map<BigDecimal, Integer> priceToIndexMap = new ConcurrentHashMap<>();
+        private final AtomicLongArray counters = new AtomicLongArray(2 * 2 * HOT_LEVELS * 4);
+
+        @Override
+        public void add(OrderType orderType, BigDecimal price, double quantity) {
+            int index = index(orderType, price);
+            counters.addAndGet(index, Math.round(quantity * 1_000_000));
+            counters.incrementAndGet(index + 1);
+        }
+
+        @Override
+        public void remove(OrderType orderType, BigDecimal price, double quantity) {
+            int index = index(orderType, price);
+            counters.decrementAndGet(index + 1);
+            counters.addAndGet(index, -Math.round(quantity * 1_000_000));
+        }
+
+        @Override
+        public OrderSummaryHolder getOrderSummaries() {
+            List<OrderSummary> buyOrderSummaries = new ArrayList<>();
+            priceToIndexMap.forEach((price, index) -> {
+                if (counters.get(index + 1) > 0) {
+                    buyOrderSummaries.add(new OrderSummary(counters.get(index) / 1_000_000.0, price, OrderType.BUY));
+                }
+            });
+            OrderSummaryHolder orderSummaryHolder = new OrderSummaryHolder();
+            orderSummaryHolder.addBuyOrderSummaries(buyOrderSummaries.stream()
+                    .sorted(Comparator.comparing(OrderSummary::getPrice, Comparator.reverseOrder())).collect(Collectors.toList()));
+            return orderSummaryHolder;
+        }
+
+        private int index(OrderType orderType, BigDecimal price) {
+            int level = priceToIndexMap.computeIfAbsent(price, levelPrice -> 2 * priceToIndexMap.size());
+            return orderType == OrderType.BUY ? level : level + 2 * 2 * HOT_LEVELS;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.silverbars.perf;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.UserRegistry;
+import com.silverbars.dao.MappedFileOrderDao;
+import com.silverbars.dao.StripedPriceLevelBook;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.event.OrderEventLog;
+import com.silverbars.history.BoardHistory;
+import com.silverbars.history.BoardStatistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Fails when the heap retained by an Order Board on the MAPPED_FILE engine grows with the number of orders it has seen.
+ * <p>
+ * The orders live in the mapped file, so once they are cancelled only the bounded Order Event Log, the history and the
+ * statistics are left on the heap. Orders are registered and cancelled in rounds, and the heap used after a full GC
+ * is compared between the first and the last round. Without retention the events of the later rounds alone would take
+ * well over the allowed growth.
+ */
+public class RetainedHeapTest {
+
+    private static final int RETENTION = 10_000;
+    private static final int ORDERS_PER_ROUND = 100_000;
+    private static final int ROUNDS = 4;
+
+    /* The events of the 3 later rounds take well over 100 MB when they are all kept */
+    private static final long ALLOWED_GROWTH_BYTES = 16 * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final OrderEventLog orderEventLog = new OrderEventLog(RETENTION);
+    private MappedFileOrderDao orderDao;
+    private BoardHistory boardHistory;
+
+    @Before
+    public void setUp() throws Exception {
+        orderDao = new MappedFileOrderDao(temporaryFolder.newFolder().toPath().resolve("orders.dat"), new StripedPriceLevelBook(), new UserRegistry(100));
+        boardHistory = new BoardHistory(orderEventLog, orderDao, 1_000);
+        new BoardStatistics(orderDao, orderEventLog);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        orderDao.close();
+    }
+
+    @Test
+    public void retainedHeapShouldStayFlatAsOrdersGrow() {
+        runRound();
+        long firstRoundBytes = usedHeapAfterGc();
+        for (int round = 1; round < ROUNDS; round++) {
+            runRound();
+        }
+        long lastRoundBytes = usedHeapAfterGc();
+
+        long growth = lastRoundBytes - firstRoundBytes;
+        assertThat(String.format("Retained heap grew by %,d bytes over %,d orders", growth, (ROUNDS - 1) * ORDERS_PER_ROUND),
+                growth, lessThanOrEqualTo(ALLOWED_GROWTH_BYTES));
+    }
+
+    private void runRound() {
+        for (int i = 0; i < ORDERS_PER_ROUND; i++) {
+            String user = "User " + i % 10;
+            BigDecimal price = BigDecimal.valueOf(300 + i % 20);
+            Order order = orderEventLog.append(OrderEventType.REGISTERED, sequence -> new OrderEvent(sequence, OrderEventType.REGISTERED,
+                    orderDao.nextOrderId(), user, 1.0, price, OrderType.BUY,
+                    OffsetDateTime.now(ZoneOffset.UTC)), orderDao::apply);
+            orderEventLog.append(OrderEventType.CANCELLED, sequence -> new OrderEvent(sequence, OrderEventType.CANCELLED, order.getOrderId(),
+                    order.getUser(), order.getQuantity(), order.getPrice(), order.getOrderType(), OffsetDateTime.now(ZoneOffset.UTC)), orderDao::apply);
+            if (i % 1_000 == 0) {
+                boardHistory.tail();
+            }
+        }
+        boardHistory.tail();
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
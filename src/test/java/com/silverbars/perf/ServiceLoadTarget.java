@@ -0,0 +1,59 @@
+package com.silverbars.perf;
+
+import com.silverbars.OrderBoardApplication;
+import com.silverbars.enums.OrderType;
+import com.silverbars.exception.OrderBoardReadOnlyException;
+import com.silverbars.service.OrderService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+
+/**
+ * Drives the Order Service of an in-process Order Board without a web server, to measure the service on its own.
+ * The admission control and rate limiting of the web layer are not involved.
+ */
+public class ServiceLoadTarget implements LoadTarget {
+
+    private final ConfigurableApplicationContext applicationContext;
+    private final OrderService orderService;
+
+    public ServiceLoadTarget(String... args) {
+        this.applicationContext = new SpringApplicationBuilder(OrderBoardApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("orderboard.swagger.enabled=false", "orderboard.replication.role=STANDALONE")
+                .run(args);
+        this.orderService = applicationContext.getBean(OrderService.class);
+    }
+
+    @Override
+    public long register(String user, double quantity, String price, boolean buy) {
+        try {
+            return orderService.registerOrder(user, quantity, new BigDecimal(price), buy ? OrderType.BUY : OrderType.SELL).getOrderId();
+        } catch (OrderBoardReadOnlyException e) {
+            return REJECTED;
+        }
+    }
+
+    @Override
+    public boolean cancel(long orderId, String user) throws Exception {
+        try {
+            orderService.cancelOrder(orderId, user);
+            return true;
+        } catch (OrderBoardReadOnlyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean read() {
+        orderService.getLiveOrders();
+        return true;
+    }
+
+    @Override
+    public void close() {
+        applicationContext.close();
+    }
+}
@@ -0,0 +1,126 @@
+package com.silverbars.perf;
+
+import com.silverbars.enums.OrderEntryStatus;
+import com.silverbars.enums.OrderType;
+import com.silverbars.gateway.OrderEntryAck;
+import com.silverbars.gateway.OrderEntryCodec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Drives the Order Entry Gateway of a running Order Board, enabled with orderboard.gateway.enabled=true.
+ * <p>
+ * Each worker thread has its own connection and waits for the acknowledgement of a request before sending the next,
+ * so the latencies are round trips. The gateway does not serve reads, so the mix must not include any.
+ */
+public class TcpLoadTarget implements LoadTarget {
+
+    private final InetSocketAddress address;
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Connection> connection = ThreadLocal.withInitial(this::connect);
+
+    private static class Connection {
+        private final SocketChannel socketChannel;
+        private final ByteBuffer output = ByteBuffer.allocateDirect(1024);
+        private final ByteBuffer input = ByteBuffer.allocateDirect(1024);
+        private final OrderEntryAck ack = new OrderEntryAck();
+        private long nextCorrelationId;
+
+        private Connection(SocketChannel socketChannel) {
+            this.socketChannel = socketChannel;
+        }
+    }
+
+    /**
+     * @param target Address of the gateway, for ex- tcp://localhost:55529
+     */
+    public TcpLoadTarget(String target) {
+        URI uri = URI.create(target);
+        this.address = new InetSocketAddress(uri.getHost(), uri.getPort());
+    }
+
+    @Override
+    public long register(String user, double quantity, String price, boolean buy) throws IOException {
+        Connection connection = this.connection.get();
+        BigDecimal decimalPrice = new BigDecimal(price);
+        OrderEntryCodec.encodeRegister(++connection.nextCorrelationId, user, quantity, decimalPrice.unscaledValue().longValueExact(),
+                decimalPrice.scale(), buy ? OrderType.BUY : OrderType.SELL, connection.output);
+        OrderEntryAck ack = roundTrip(connection);
+        if (ack.getStatus() == OrderEntryStatus.READ_ONLY) {
+            return REJECTED;
+        }
+        checkStatus(ack, "register");
+        return ack.getOrderId();
+    }
+
+    @Override
+    public boolean cancel(long orderId, String user) throws IOException {
+        Connection connection = this.connection.get();
+        OrderEntryCodec.encodeCancel(++connection.nextCorrelationId, orderId, user, connection.output);
+        OrderEntryAck ack = roundTrip(connection);
+        if (ack.getStatus() == OrderEntryStatus.READ_ONLY) {
+            return false;
+        }
+        checkStatus(ack, "cancel");
+        return true;
+    }
+
+    @Override
+    public boolean read() {
+        throw new UnsupportedOperationException("The Order Entry Gateway does not serve reads, use a mix without reads, for ex- 75:25:0");
+    }
+
+    private Connection connect() {
+        try {
+            SocketChannel socketChannel = SocketChannel.open(address);
+            socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(socketChannel);
+            connections.add(connection);
+            return connection;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to connect to " + address, e);
+        }
+    }
+
+    /**
+     * Sends the encoded request and reads its acknowledgement, valid until the next request on the connection
+     */
+    private static OrderEntryAck roundTrip(Connection connection) throws IOException {
+        connection.output.flip();
+        while (connection.output.hasRemaining()) {
+            connection.socketChannel.write(connection.output);
+        }
+        connection.output.clear();
+        connection.input.clear();
+        while (connection.input.position() < OrderEntryCodec.LENGTH_PREFIX_SIZE + Long.BYTES + 1 + Long.BYTES) {
+            if (connection.socketChannel.read(connection.input) < 0) {
+                throw new EOFException("Order Entry Gateway closed the connection");
+            }
+        }
+        connection.input.flip();
+        connection.ack.wrap(connection.input);
+        return connection.ack;
+    }
+
+    private static void checkStatus(OrderEntryAck ack, String operation) throws IOException {
+        if (ack.getStatus() != OrderEntryStatus.ACCEPTED) {
+            throw new IOException(String.format("Unexpected status [%s] to %s", ack.getStatus(), operation));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Connection connection : connections) {
+            connection.socketChannel.close();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.silverbars.profiling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderType;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.assertj.core.util.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+
+public class FlightRecordingTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final FlightRecording classToTest = new FlightRecording();
+
+    @Before
+    public void init() throws Exception {
+        ReflectionTestUtils.setField(classToTest, "settings", "default");
+        ReflectionTestUtils.setField(classToTest, "maxAgeMinutes", 1L);
+        ReflectionTestUtils.setField(classToTest, "maxSizeMb", 10L);
+        ReflectionTestUtils.setField(classToTest, "thresholdMillis", 0L);
+        ReflectionTestUtils.setField(classToTest, "dumpDirectory", temporaryFolder.getRoot().getPath());
+        classToTest.start();
+    }
+
+    @After
+    public void close() {
+        classToTest.stop();
+    }
+
+    @Test
+    public void shouldDumpSerializationEvents() throws Exception {
+        // Given
+        OrderSummaryHolder orderSummaryHolder = new OrderSummaryHolder();
+        orderSummaryHolder.addBuyOrderSummaries(Lists.newArrayList(new OrderSummary(2.3, BigDecimal.TEN, OrderType.BUY)));
+        orderSummaryHolder.addSellOrderSummaries(Lists.newArrayList(new OrderSummary(3.4, BigDecimal.ONE, OrderType.SELL)));
+        new ProfilingJackson2HttpMessageConverter(new ObjectMapper())
+                .write(orderSummaryHolder, MediaType.APPLICATION_JSON, new MockHttpOutputMessage());
+
+        // When
+        Path file = classToTest.dump();
+
+        // Then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("com.silverbars.Serialization"))
+                .collect(Collectors.toList());
+        assertThat(events, hasSize(1));
+        assertThat(events.get(0).getString("type"), equalTo("OrderSummaryHolder"));
+        assertThat(events.get(0).getInt("levels"), equalTo(2));
+    }
+}
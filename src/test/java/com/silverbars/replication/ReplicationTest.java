@@ -0,0 +1,167 @@
+package com.silverbars.replication;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.dao.MapOrderDao;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.event.OrderEventCodec;
+import com.silverbars.event.OrderEventLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class ReplicationTest {
+
+    private final OrderEventLog primaryOrderEventLog = new OrderEventLog();
+    private final MapOrderDao primaryOrderDao = new MapOrderDao();
+    private final OrderEventLog followerOrderEventLog = new OrderEventLog();
+    private final MapOrderDao followerOrderDao = new MapOrderDao();
+
+    private ReplicationServer replicationServer;
+    private ReplicationClient replicationClient;
+
+    @Before
+    public void init() throws Exception {
+        replicationServer = new ReplicationServer(primaryOrderEventLog, () -> primaryOrderEventLog.snapshot(primaryOrderDao::forEachLiveOrder), 0);
+        replicationServer.start();
+        replicationClient = new ReplicationClient(new InetSocketAddress("localhost", replicationServer.getPort()),
+                followerOrderEventLog::getLastSequence,
+                orderEvent -> followerOrderEventLog.appendReplicated(orderEvent, followerOrderDao::apply),
+                snapshot -> followerOrderEventLog.restore(snapshot, followerOrderDao::apply), 50);
+    }
+
+    @After
+    public void close() throws Exception {
+        replicationClient.close();
+        replicationServer.close();
+    }
+
+    @Test
+    public void shouldReplicateSnapshotAndNewEventsToFollower() throws Exception {
+        // Given
+        Order order = register("User 1", 1.5, "305", OrderType.BUY);
+        register("User 2", 2.0, "306", OrderType.SELL);
+
+        // When
+        replicationClient.start();
+        register("User 3", 3.5, "305", OrderType.BUY);
+        primaryOrderEventLog.append(OrderEventType.CANCELLED, sequence -> new OrderEvent(sequence, OrderEventType.CANCELLED, order.getOrderId(),
+                "User 4", order.getQuantity(), order.getPrice(), order.getOrderType(), OffsetDateTime.now(ZoneOffset.UTC)), primaryOrderDao::apply);
+        awaitFollower();
+
+        // Then
+        OrderSummaryHolder primaryOrderSummaryHolder = primaryOrderDao.getLiveOrders();
+        OrderSummaryHolder followerOrderSummaryHolder = followerOrderDao.getLiveOrders();
+        assertThat(followerOrderSummaryHolder.getBuyOrderSummary(), equalTo(primaryOrderSummaryHolder.getBuyOrderSummary()));
+        assertThat(followerOrderSummaryHolder.getSellOrderSummary(), equalTo(primaryOrderSummaryHolder.getSellOrderSummary()));
+        assertThat(followerOrderEventLog.getEvents(1, 10), equalTo(primaryOrderEventLog.getEvents(followerOrderEventLog.getFirstSequence(), 10)));
+    }
+
+    @Test
+    public void shouldStartFollowerFromOrdersRestoredByPrimary() throws Exception {
+        // Given orders a persistent primary restored, which have no event
+        primaryOrderDao.registerOrder("User 1", 1.5, new BigDecimal("305"), OrderType.BUY);
+        primaryOrderDao.registerOrder("User 2", 2.0, new BigDecimal("306"), OrderType.SELL);
+
+        // When
+        replicationClient.start();
+        register("User 3", 3.5, "305", OrderType.BUY);
+        awaitFollower();
+
+        // Then
+        assertThat(followerOrderDao.getLiveOrders().getBuyOrderSummary(), equalTo(primaryOrderDao.getLiveOrders().getBuyOrderSummary()));
+        assertThat(followerOrderDao.getLiveOrders().getSellOrderSummary(), equalTo(primaryOrderDao.getLiveOrders().getSellOrderSummary()));
+        assertThat(followerOrderEventLog.getLastSequence(), equalTo(1L));
+    }
+
+    @Test
+    public void shouldContinueSequenceOfPrimaryWhenPromoted() throws Exception {
+        // Given
+        Order lastPrimaryOrder = null;
+        for (int i = 0; i < 100; i++) {
+            lastPrimaryOrder = register("User " + i, 1.0, "305", OrderType.BUY);
+        }
+        replicationClient.start();
+        awaitFollower();
+
+        // When
+        replicationClient.close();
+        Order order = register(followerOrderEventLog, followerOrderDao, "New User", 1.0, "10", OrderType.SELL);
+
+        // Then
+        assertThat(order.getOrderId(), greaterThan(lastPrimaryOrder.getOrderId()));
+        assertThat(followerOrderEventLog.getLastSequence(), equalTo(primaryOrderEventLog.getLastSequence() + 1));
+    }
+
+    @Test
+    public void shouldKeepServingFollowersWhenOneCannotBeServed() throws Exception {
+        // Given an event the codec cannot encode, without price
+        primaryOrderEventLog.appendReplicated(new OrderEvent(1, OrderEventType.REGISTERED, 1, "User 1", 1.0, null, OrderType.BUY,
+                OffsetDateTime.now(ZoneOffset.UTC)), orderEvent -> {
+        });
+        register("User 2", 2.0, "306", OrderType.SELL);
+
+        // When
+        try (SocketChannel failingFollower = connect(1); SocketChannel follower = connect(2)) {
+
+            // Then
+            ByteBuffer input = ByteBuffer.allocate(1024);
+            failingFollower.socket().setSoTimeout(10_000);
+            assertThat(failingFollower.socket().getInputStream().read(), equalTo(-1));
+            follower.socket().setSoTimeout(10_000);
+            OrderEvent orderEvent = null;
+            while (orderEvent == null) {
+                int read = follower.socket().getInputStream().read(input.array(), input.position(), input.remaining());
+                assertThat(read, greaterThan(0));
+                input.position(input.position() + read);
+                input.flip();
+                orderEvent = OrderEventCodec.decode(input);
+                input.compact();
+            }
+            assertThat(orderEvent, equalTo(primaryOrderEventLog.getEvent(2)));
+        }
+    }
+
+    /**
+     * @return Blocking connection to the Replication Server, streaming from the supplied sequence
+     */
+    private SocketChannel connect(long fromSequence) throws IOException {
+        SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress("localhost", replicationServer.getPort()));
+        ByteBuffer handshake = ByteBuffer.allocate(Long.BYTES).putLong(0, fromSequence);
+        while (handshake.hasRemaining()) {
+            socketChannel.write(handshake);
+        }
+        return socketChannel;
+    }
+
+    private Order register(String user, double quantity, String price, OrderType orderType) {
+        return register(primaryOrderEventLog, primaryOrderDao, user, quantity, price, orderType);
+    }
+
+    private static Order register(OrderEventLog orderEventLog, MapOrderDao orderDao, String user, double quantity, String price, OrderType orderType) {
+        return orderEventLog.append(OrderEventType.REGISTERED, sequence -> new OrderEvent(sequence, OrderEventType.REGISTERED, orderDao.nextOrderId(),
+                user, quantity, new BigDecimal(price), orderType, OffsetDateTime.now(ZoneOffset.UTC)), orderDao::apply);
+    }
+
+    private void awaitFollower() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (followerOrderEventLog.getLastSequence() < primaryOrderEventLog.getLastSequence() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(followerOrderEventLog.getLastSequence(), equalTo(primaryOrderEventLog.getLastSequence()));
+    }
+}
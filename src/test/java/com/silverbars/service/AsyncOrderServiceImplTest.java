@@ -0,0 +1,195 @@
+package com.silverbars.service;
+
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.enums.OrderType;
+import com.silverbars.exception.OrderBoardInvalidOperationException;
+import com.silverbars.exception.OrderBoardOverloadedException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncOrderServiceImplTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @InjectMocks
+    private AsyncOrderServiceImpl classToTest;
+
+    @Before
+    public void init() {
+        ReflectionTestUtils.setField(classToTest, "writeThreads", 2);
+        ReflectionTestUtils.setField(classToTest, "readThreads", 1);
+        ReflectionTestUtils.setField(classToTest, "queueCapacity", 1);
+        classToTest.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        classToTest.stop();
+    }
+
+    @Test
+    public void shouldRunRegistrationsTogether() throws Exception {
+        // Given each registration waiting for the other one to start
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(orderService.registerOrder("user1", 1, BigDecimal.TEN, OrderType.BUY)).thenAnswer(invocation -> awaitOther(bothStarted));
+        when(orderService.registerOrder("user2", 2, BigDecimal.TEN, OrderType.BUY)).thenAnswer(invocation -> awaitOther(bothStarted));
+
+        // When
+        CompletableFuture<Order> firstRegistration = classToTest.registerOrder("user1", 1, BigDecimal.TEN, OrderType.BUY);
+        CompletableFuture<Order> secondRegistration = classToTest.registerOrder("user2", 2, BigDecimal.TEN, OrderType.BUY);
+
+        // Then
+        assertThat(firstRegistration.get(10, TimeUnit.SECONDS), notNullValue());
+        assertThat(secondRegistration.get(10, TimeUnit.SECONDS), notNullValue());
+    }
+
+    @Test
+    public void shouldCancelSameOrderInIssueOrder() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(classToTest, "queueCapacity", 100);
+        classToTest.stop();
+        classToTest.start();
+        List<CompletableFuture<Order>> futures = new ArrayList<>();
+
+        // When
+        for (int i = 1; i <= 50; i++) {
+            futures.add(classToTest.cancelOrder(123, "user" + i));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        // Then
+        InOrder inOrder = inOrder(orderService);
+        for (int i = 1; i <= 50; i++) {
+            inOrder.verify(orderService).cancelOrder(123, "user" + i);
+        }
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWhenOrderServiceFails() throws Exception {
+        // Given
+        when(orderService.cancelOrder(123, "Test User")).thenThrow(new OrderBoardInvalidOperationException("Order Id [123] not found"));
+
+        // When
+        try {
+            classToTest.cancelOrder(123, "Test User").get(10, TimeUnit.SECONDS);
+            fail("Cancellation should have failed");
+        } catch (ExecutionException e) {
+            // Then
+            assertThat(e.getCause(), instanceOf(OrderBoardInvalidOperationException.class));
+        }
+    }
+
+    @Test
+    public void shouldShareLiveOrdersReadWaitingToStart() throws Exception {
+        // Given reader thread busy with a historical read
+        CountDownLatch readerBusy = new CountDownLatch(1);
+        CountDownLatch releaseReader = new CountDownLatch(1);
+        OrderSummaryHolder orderSummaryHolder = new OrderSummaryHolder();
+        orderSummaryHolder.addSellOrderSummaries(Collections.singletonList(new OrderSummary(1.5, BigDecimal.TEN, OrderType.SELL)));
+        when(orderService.getLiveOrdersAsOf(1)).thenAnswer(invocation -> {
+            readerBusy.countDown();
+            releaseReader.await();
+            return orderSummaryHolder;
+        });
+        when(orderService.getLiveOrders()).thenReturn(orderSummaryHolder);
+        CompletableFuture<OrderSummaryHolder> historicalRead = classToTest.getLiveOrdersAsOf(1);
+        readerBusy.await();
+
+        // When
+        CompletableFuture<OrderSummaryHolder> firstRead = classToTest.getLiveOrders();
+        CompletableFuture<OrderSummaryHolder> secondRead = classToTest.getLiveOrders();
+        releaseReader.countDown();
+
+        // Then
+        assertThat(secondRead.get(10, TimeUnit.SECONDS), not(sameInstance(firstRead.get(10, TimeUnit.SECONDS))));
+        assertThat(firstRead.get().getSellOrderSummary(), equalTo(orderSummaryHolder.getSellOrderSummary()));
+        assertThat(secondRead.get().getSellOrderSummary(), equalTo(orderSummaryHolder.getSellOrderSummary()));
+        assertThat(historicalRead.get(10, TimeUnit.SECONDS), sameInstance(orderSummaryHolder));
+        verify(orderService, times(1)).getLiveOrders();
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWhenOrderServiceThrowsError() throws Exception {
+        // Given
+        when(orderService.getLiveOrdersAsOf(1)).thenThrow(new StackOverflowError());
+
+        // When
+        try {
+            classToTest.getLiveOrdersAsOf(1).get(10, TimeUnit.SECONDS);
+            fail("Read should have failed");
+        } catch (ExecutionException e) {
+            // Then
+            assertThat(e.getCause(), instanceOf(StackOverflowError.class));
+        }
+    }
+
+    @Test
+    public void shouldFailWithOverloadedWhenQueueIsFull() throws Exception {
+        // Given reader thread busy and its queue full
+        CountDownLatch readerBusy = new CountDownLatch(1);
+        CountDownLatch releaseReader = new CountDownLatch(1);
+        when(orderService.getLiveOrdersAsOf(1)).thenAnswer(invocation -> {
+            readerBusy.countDown();
+            releaseReader.await();
+            return new OrderSummaryHolder();
+        });
+        CompletableFuture<OrderSummaryHolder> busyRead = classToTest.getLiveOrdersAsOf(1);
+        readerBusy.await();
+        CompletableFuture<OrderSummaryHolder> queuedRead = classToTest.getLiveOrdersAsOf(1);
+
+        // When
+        CompletableFuture<OrderSummaryHolder> rejectedRead = classToTest.getLiveOrdersAsOf(1);
+        releaseReader.countDown();
+
+        // Then
+        assertThat(rejectedRead.isCompletedExceptionally(), equalTo(true));
+        try {
+            rejectedRead.get();
+            fail("Read should have been rejected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(OrderBoardOverloadedException.class));
+        }
+        busyRead.get(10, TimeUnit.SECONDS);
+        queuedRead.get(10, TimeUnit.SECONDS);
+    }
+
+    private static Order awaitOther(CountDownLatch bothStarted) throws InterruptedException {
+        bothStarted.countDown();
+        if (!bothStarted.await(10, TimeUnit.SECONDS)) {
+            fail("Registrations did not run together");
+        }
+        return new Order(1, "user", 1, BigDecimal.TEN, OrderType.BUY);
+    }
+}
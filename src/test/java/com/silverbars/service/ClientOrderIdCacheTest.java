@@ -0,0 +1,135 @@
+package com.silverbars.service;
+
+import com.silverbars.bean.Order;
+import com.silverbars.enums.OrderType;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ClientOrderIdCacheTest {
+
+    private final ClientOrderIdCache classToTest = new ClientOrderIdCache(3, 60);
+
+    private final AtomicLong nextOrderId = new AtomicLong();
+    private final Supplier<Order> registration = () -> new Order(nextOrderId.incrementAndGet(), "Test User", 1, BigDecimal.TEN, OrderType.BUY);
+
+    @Test
+    public void shouldReturnOriginalOrderWhenRetried() {
+        // Given
+        Order order = classToTest.registerOnce("Test User", "client-1", registration, 0);
+
+        // When
+        Order retriedOrder = classToTest.registerOnce("Test User", "client-1", registration, TimeUnit.SECONDS.toNanos(59));
+
+        // Then
+        assertThat(retriedOrder, sameInstance(order));
+        assertThat(nextOrderId.get(), equalTo(1L));
+    }
+
+    @Test
+    public void shouldKeyClientOrderIdsByUser() {
+        // Given
+        Order order = classToTest.registerOnce("Test User", "client-1", registration, 0);
+
+        // When
+        Order otherUserOrder = classToTest.registerOnce("Another User", "client-1", registration, 0);
+
+        // Then
+        assertThat(otherUserOrder, not(sameInstance(order)));
+        assertThat(classToTest.size(), equalTo(2));
+    }
+
+    @Test
+    public void shouldRegisterAgainOnceWindowHasPassed() {
+        // Given
+        Order order = classToTest.registerOnce("Test User", "client-1", registration, 0);
+
+        // When
+        Order laterOrder = classToTest.registerOnce("Test User", "client-1", registration, TimeUnit.SECONDS.toNanos(60));
+
+        // Then
+        assertThat(laterOrder, not(sameInstance(order)));
+        assertThat(classToTest.size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldEvictOldestEntriesBeyondMaxEntries() {
+        // Given
+        Order firstOrder = classToTest.registerOnce("Test User", "client-1", registration, 0);
+        Order secondOrder = classToTest.registerOnce("Test User", "client-2", registration, 1);
+        classToTest.registerOnce("Test User", "client-3", registration, 2);
+
+        // When
+        classToTest.registerOnce("Test User", "client-4", registration, 3);
+
+        // Then
+        assertThat(classToTest.size(), equalTo(3));
+        assertThat(classToTest.registerOnce("Test User", "client-2", registration, 4), sameInstance(secondOrder));
+        assertThat(classToTest.registerOnce("Test User", "client-1", registration, 5), not(sameInstance(firstOrder)));
+    }
+
+    @Test
+    public void shouldLetRetryRegisterOnceFirstRegistrationHasFailed() {
+        // Given
+        try {
+            classToTest.registerOnce("Test User", "client-1", () -> {
+                throw new IllegalArgumentException("Invalid order");
+            }, 0);
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+
+        // When
+        Order order = classToTest.registerOnce("Test User", "client-1", registration, 1);
+
+        // Then
+        assertThat(order.getOrderId(), equalTo(1L));
+        assertThat(classToTest.size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldRegisterOtherKeysWhileRegistering() throws Exception {
+        // Given a registration in progress
+        CountDownLatch registering = new CountDownLatch(1);
+        CountDownLatch otherRegistered = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Order> first = executor.submit(() -> classToTest.registerOnce("Test User", "client-1", () -> {
+                registering.countDown();
+                awaitUninterruptibly(otherRegistered);
+                return registration.get();
+            }, 0));
+            registering.await();
+
+            // When another key is registered, registering a third key from within its registration
+            Order other = classToTest.registerOnce("Test User", "client-2", () -> classToTest.registerOnce("Test User", "client-3", registration, 0), 0);
+            otherRegistered.countDown();
+
+            // Then
+            assertThat(other.getOrderId(), equalTo(1L));
+            assertThat(first.get(5, TimeUnit.SECONDS).getOrderId(), equalTo(2L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,20 +1,37 @@
 package com.silverbars.service;
 
+import com.silverbars.bean.Order;
+import com.silverbars.bean.OrderAudit;
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.UserRegistry;
 import com.silverbars.dao.OrderDao;
+import com.silverbars.enums.OrderEventType;
 import com.silverbars.enums.OrderType;
+import com.silverbars.event.OrderEventLog;
 import com.silverbars.exception.OrderBoardInvalidOperationException;
+import com.silverbars.exception.OrderBoardReadOnlyException;
+import com.silverbars.history.BoardHistory;
+import com.silverbars.replication.ReplicationState;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -23,6 +40,18 @@ public class OrderServiceImplTest {
     @Mock
     private OrderDao orderDao;
 
+    @Mock
+    private ReplicationState replicationState;
+
+    @Mock
+    private BoardHistory boardHistory;
+
+    @Spy
+    private OrderEventLog orderEventLog = new OrderEventLog();
+
+    @Spy
+    private UserRegistry userRegistry = new UserRegistry(100);
+
     @InjectMocks
     private OrderServiceImpl classToTest;
 
@@ -33,13 +62,25 @@ public class OrderServiceImplTest {
         double quantity = 2.5;
         BigDecimal price = BigDecimal.TEN;
         OrderType orderType = OrderType.BUY;
+        Order order = new Order(1, user, quantity, price, orderType);
+        order.addOrderAudit(new OrderAudit(1, user, OffsetDateTime.now(ZoneOffset.UTC)));
+        when(orderDao.nextOrderId()).thenReturn(1L);
+        when(orderDao.apply(any(OrderEvent.class))).thenReturn(order);
 
         // When
-        classToTest.registerOrder(user, quantity, price, orderType);
-
-        // Then
-
-        verify(orderDao).registerOrder(user, quantity, price, orderType);
+        Order result = classToTest.registerOrder(user, quantity, price, orderType);
+
+        // Then the event recorded is the one applied to the Order Dao
+        assertThat(result, equalTo(order));
+        verify(orderDao).checkRegistration(user, price);
+        OrderEvent orderEvent = orderEventLog.getEvent(1);
+        verify(orderDao).apply(same(orderEvent));
+        assertThat(orderEvent.getEventType(), equalTo(OrderEventType.REGISTERED));
+        assertThat(orderEvent.getOrderId(), equalTo(1L));
+        assertThat(orderEvent.getUser(), equalTo(user));
+        assertThat(orderEvent.getQuantity(), equalTo(quantity));
+        assertThat(orderEvent.getPrice(), equalTo(price));
+        assertThat(orderEvent.getOrderType(), equalTo(orderType));
     }
 
     @Test
@@ -47,12 +88,23 @@ public class OrderServiceImplTest {
         // Given
         long orderId = 1;
         String user = "Test User";
+        Order order = new Order(orderId, "Another User", 2.5, BigDecimal.TEN, OrderType.SELL);
+        order.addOrderAudit(new OrderAudit(orderId, "Another User", OffsetDateTime.now(ZoneOffset.UTC)));
+        when(orderDao.findLiveOrder(orderId)).thenReturn(order);
+        when(orderDao.apply(any(OrderEvent.class))).thenAnswer(invocation -> order.cancelled(new OrderAudit(orderId, user, OffsetDateTime.now(ZoneOffset.UTC))));
 
         // When
-        classToTest.cancelOrder(orderId, user);
-
-        // Then
-        verify(orderDao).cancelOrder(orderId, user);
+        Order result = classToTest.cancelOrder(orderId, user);
+
+        // Then the event recorded is the one applied to the Order Dao
+        assertThat(result.getActive(), equalTo('N'));
+        OrderEvent orderEvent = orderEventLog.getEvent(1);
+        verify(orderDao).apply(same(orderEvent));
+        assertThat(orderEvent.getEventType(), equalTo(OrderEventType.CANCELLED));
+        assertThat(orderEvent.getOrderId(), equalTo(orderId));
+        assertThat(orderEvent.getUser(), equalTo(user));
+        assertThat(orderEvent.getQuantity(), equalTo(2.5));
+        assertThat(orderEvent.getOrderType(), equalTo(OrderType.SELL));
     }
 
     @Test
@@ -60,7 +112,7 @@ public class OrderServiceImplTest {
         // Given
         long orderId = 1;
         String user = "Test User";
-        when(classToTest.cancelOrder(orderId, user)).thenThrow(new OrderBoardInvalidOperationException("Order Id [1] is already cancelled by user [Test User]"));
+        when(orderDao.findLiveOrder(orderId)).thenThrow(new OrderBoardInvalidOperationException("Order Id [1] is already cancelled by user [Test User]"));
 
         // When
         try {
@@ -71,7 +123,59 @@ public class OrderServiceImplTest {
         }
 
         // Then
-        verify(orderDao).cancelOrder(orderId, user);
+        verify(orderDao, never()).apply(any(OrderEvent.class));
+        assertThat(orderEventLog.getLastSequence(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldNotRegisterUsersOfFailedCancellations() throws OrderBoardInvalidOperationException {
+        // Given
+        when(orderDao.findLiveOrder(anyLong())).thenThrow(new OrderBoardInvalidOperationException("Unable to find Order Id"));
+
+        // When more cancellations of unknown orders by new users than the User Registry can hold
+        for (int i = 0; i < 200; i++) {
+            try {
+                classToTest.cancelOrder(1_000 + i, "Random User " + i);
+                Assert.fail("Excepted exception to be thrown");
+            } catch (OrderBoardInvalidOperationException e) {
+                // Expected
+            }
+        }
+
+        // Then
+        assertThat(userRegistry.size(), equalTo(0));
+        assertThat(userRegistry.idOf("Test User"), equalTo(0));
+    }
+
+    @Test
+    public void shouldRejectRegistrationOnReadOnlyFollower() {
+        // Given
+        when(replicationState.isReadOnly()).thenReturn(true);
+
+        // When
+        try {
+            classToTest.registerOrder("Test User", 2.5, BigDecimal.TEN, OrderType.BUY);
+            Assert.fail("Excepted exception to be thrown");
+        } catch (OrderBoardReadOnlyException e) {
+            assertThat(e.getMessage(), equalTo("This Order Board is a read-only follower, orders must be sent to the primary"));
+        }
+
+        // Then
+        verifyZeroInteractions(orderDao);
+    }
+
+    @Test
+    public void shouldApplyReplicatedEvent() {
+        // Given
+        OrderEvent orderEvent = new OrderEvent(1, OrderEventType.REGISTERED, 7, "Test User", 2.5, BigDecimal.TEN, OrderType.BUY,
+                OffsetDateTime.now(ZoneOffset.UTC));
+
+        // When
+        classToTest.applyReplicatedEvent(orderEvent);
+
+        // Then
+        verify(orderDao).apply(orderEvent);
+        assertThat(orderEventLog.getEvent(1), equalTo(orderEvent));
     }
 
     @Test
@@ -84,4 +188,27 @@ public class OrderServiceImplTest {
         // Then
         verify(orderDao).getLiveOrders();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldGetLiveOrdersAsOfSequenceFromHistory() {
+        // When
+        classToTest.getLiveOrdersAsOf(5);
+
+        // Then
+        verify(boardHistory).getLiveOrdersAsOf(5);
+        verifyZeroInteractions(orderDao);
+    }
+
+    @Test
+    public void shouldGetLiveOrdersAsOfTimeFromHistory() {
+        // Given
+        OffsetDateTime time = OffsetDateTime.now(ZoneOffset.UTC);
+
+        // When
+        classToTest.getLiveOrdersAsOf(time);
+
+        // Then
+        verify(boardHistory).getLiveOrdersAsOf(time);
+        verifyZeroInteractions(orderDao);
+    }
+}
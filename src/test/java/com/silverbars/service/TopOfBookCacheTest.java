@@ -0,0 +1,169 @@
+package com.silverbars.service;
+
+import com.silverbars.bean.OrderEvent;
+import com.silverbars.bean.OrderSummary;
+import com.silverbars.bean.OrderSummaryHolder;
+import com.silverbars.dao.MapOrderDao;
+import com.silverbars.dao.OrderDao;
+import com.silverbars.dao.TickLadderPriceLevelBook;
+import com.silverbars.enums.OrderEventType;
+import com.silverbars.enums.OrderType;
+import com.silverbars.event.OrderEventLog;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+public class TopOfBookCacheTest {
+
+    private OrderDao orderDao;
+    private OrderEventLog orderEventLog;
+    private long sequence;
+
+    @Before
+    public void setUp() {
+        orderDao = new MapOrderDao();
+        orderEventLog = new OrderEventLog();
+        sequence = 0;
+    }
+
+    @Test
+    public void shouldStartFromBoardOfOrderDao() {
+        // Given orders loaded without events
+        orderDao.registerOrder("User 1", 1.5, new BigDecimal("300"), OrderType.BUY);
+        orderDao.registerOrder("User 2", 2.5, new BigDecimal("301"), OrderType.BUY);
+        orderDao.registerOrder("User 3", 3.0, new BigDecimal("305"), OrderType.SELL);
+
+        // When
+        TopOfBookCache classToTest = new TopOfBookCache(orderDao, orderEventLog, 2);
+
+        // Then
+        OrderSummaryHolder result = classToTest.getTopOfBook(2);
+        assertThat(result.getBuyOrderSummary(), contains(new OrderSummary(2.5, new BigDecimal("301"), OrderType.BUY),
+                new OrderSummary(1.5, new BigDecimal("300"), OrderType.BUY)));
+        assertThat(result.getSellOrderSummary(), contains(new OrderSummary(3.0, new BigDecimal("305"), OrderType.SELL)));
+    }
+
+    @Test
+    public void shouldKeepBestLevelsOfEachSide() {
+        // Given
+        TopOfBookCache classToTest = new TopOfBookCache(orderDao, orderEventLog, 2);
+
+        // When
+        event(OrderEventType.REGISTERED, 1, "303", OrderType.SELL);
+        event(OrderEventType.REGISTERED, 2, "302", OrderType.SELL);
+        event(OrderEventType.REGISTERED, 3, "304", OrderType.SELL);
+        event(OrderEventType.REGISTERED, 1.5, "302", OrderType.SELL);
+        event(OrderEventType.REGISTERED, 4, "299", OrderType.BUY);
+
+        // Then
+        assertThat(classToTest.getTopOfBook(2).getSellOrderSummary(), contains(new OrderSummary(3.5, new BigDecimal("302"), OrderType.SELL),
+                new OrderSummary(1.0, new BigDecimal("303"), OrderType.SELL)));
+        assertThat(classToTest.getTopOfBook(1).getSellOrderSummary(), contains(new OrderSummary(3.5, new BigDecimal("302"), OrderType.SELL)));
+        assertThat(classToTest.getTopOfBook(1).getBuyOrderSummary(), contains(new OrderSummary(4.0, new BigDecimal("299"), OrderType.BUY)));
+    }
+
+    @Test
+    public void shouldKeepPricesOfOtherScalesApartLikeOrderDao() {
+        // Given
+        orderDao.registerOrder("User 1", 1.0, new BigDecimal("10"), OrderType.SELL);
+        orderDao.registerOrder("User 2", 2.0, new BigDecimal("10.0"), OrderType.SELL);
+        TopOfBookCache classToTest = new TopOfBookCache(orderDao, orderEventLog, 3);
+
+        // When
+        event(OrderEventType.REGISTERED, 3, "10.00", OrderType.SELL);
+        event(OrderEventType.REGISTERED, 4, "10", OrderType.BUY);
+        event(OrderEventType.REGISTERED, 5, "10.0", OrderType.BUY);
+
+        // Then
+        OrderSummaryHolder result = classToTest.getTopOfBook(3);
+        assertThat(result.getSellOrderSummary(), contains(new OrderSummary(1.0, new BigDecimal("10"), OrderType.SELL),
+                new OrderSummary(2.0, new BigDecimal("10.0"), OrderType.SELL), new OrderSummary(3.0, new BigDecimal("10.00"), OrderType.SELL)));
+        assertThat(result.getBuyOrderSummary(), contains(new OrderSummary(5.0, new BigDecimal("10.0"), OrderType.BUY),
+                new OrderSummary(4.0, new BigDecimal("10"), OrderType.BUY)));
+    }
+
+    @Test
+    public void shouldPromoteNextLevelWhenBestLevelIsCancelled() {
+        // Given
+        TopOfBookCache classToTest = new TopOfBookCache(orderDao, orderEventLog, 2);
+        event(OrderEventType.REGISTERED, 1, "301", OrderType.BUY);
+        event(OrderEventType.REGISTERED, 2, "300", OrderType.BUY);
+        event(OrderEventType.REGISTERED, 3, "299", OrderType.BUY);
+        /* Outside the best two levels */
+        event(OrderEventType.CANCELLED, 3, "299", OrderType.BUY);
+        event(OrderEventType.REGISTERED, 5, "298", OrderType.BUY);
+
+        // When
+        event(OrderEventType.CANCELLED, 1, "301", OrderType.BUY);
+
+        // Then
+        assertThat(classToTest.getTopOfBook(2).getBuyOrderSummary(), contains(new OrderSummary(2.0, new BigDecimal("300"), OrderType.BUY),
+                new OrderSummary(5.0, new BigDecimal("298"), OrderType.BUY)));
+        event(OrderEventType.CANCELLED, 2, "300", OrderType.BUY);
+        event(OrderEventType.CANCELLED, 5, "298", OrderType.BUY);
+        assertThat(classToTest.getTopOfBook(2).getBuyOrderSummary(), empty());
+    }
+
+    @Test
+    public void shouldMergePricesOfTheSameTickLikeTickLadder() {
+        // Given
+        orderDao = new MapOrderDao(new TickLadderPriceLevelBook(new BigDecimal("300"), new BigDecimal("310"), new BigDecimal("0.01")));
+        TopOfBookCache classToTest = new TopOfBookCache(orderDao, orderEventLog, 3);
+
+        // When
+        applied(OrderEventType.REGISTERED, 1, 1.0, "305", OrderType.SELL);
+        applied(OrderEventType.REGISTERED, 2, 2.0, "305.0", OrderType.SELL);
+        applied(OrderEventType.REGISTERED, 3, 3.0, "305.00", OrderType.SELL);
+        applied(OrderEventType.REGISTERED, 4, 4.0, "320", OrderType.SELL);
+        applied(OrderEventType.CANCELLED, 2, 2.0, "305.0", OrderType.SELL);
+
+        // Then
+        assertThat(classToTest.getTopOfBook(3).getSellOrderSummary(), contains(new OrderSummary(4.0, new BigDecimal("305.00"), OrderType.SELL),
+                new OrderSummary(4.0, new BigDecimal("320"), OrderType.SELL)));
+        assertThat(classToTest.getTopOfBook(3).getSellOrderSummary(), equalTo(orderDao.getLiveOrders().getSellOrderSummary()));
+    }
+
+    @Test
+    public void shouldRemoveLevelLoadedAtTickScaleWhenCancelledAtOtherScale() {
+        // Given an order restored without event into a Tick Ladder board, which reports it at 305.00
+        orderDao = new MapOrderDao(new TickLadderPriceLevelBook(new BigDecimal("300"), new BigDecimal("310"), new BigDecimal("0.01")));
+        orderDao.registerOrder("Test User", 1.5, new BigDecimal("305"), OrderType.BUY);
+        TopOfBookCache classToTest = new TopOfBookCache(orderDao, orderEventLog, 3);
+
+        // When
+        applied(OrderEventType.CANCELLED, 1, 1.5, "305", OrderType.BUY);
+
+        // Then
+        assertThat(classToTest.getTopOfBook(3).getBuyOrderSummary(), empty());
+        assertThat(orderDao.getLiveOrders().getBuyOrderSummary(), empty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDepthBeyondCachedLevels() {
+        new TopOfBookCache(orderDao, orderEventLog, 2).getTopOfBook(3);
+    }
+
+    private void event(OrderEventType eventType, double quantity, String price, OrderType orderType) {
+        sequence++;
+        orderEventLog.appendReplicated(new OrderEvent(sequence, eventType, sequence, "Test User", quantity, new BigDecimal(price), orderType,
+                OffsetDateTime.now(ZoneOffset.UTC)), orderEvent -> {
+        });
+    }
+
+    /**
+     * Appends an event applied to the Order Dao as well
+     */
+    private void applied(OrderEventType eventType, long orderId, double quantity, String price, OrderType orderType) {
+        sequence++;
+        orderEventLog.appendReplicated(new OrderEvent(sequence, eventType, orderId, "Test User", quantity, new BigDecimal(price), orderType,
+                OffsetDateTime.now(ZoneOffset.UTC)), orderDao::apply);
+    }
+}